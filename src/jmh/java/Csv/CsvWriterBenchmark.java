@@ -0,0 +1,70 @@
+package Csv;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Writing the trips of the synthetic pings to a CSV file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CsvWriterBenchmark {
+
+    @Param({ "200" })
+    public int devices;
+
+    private List<TripBean> trips;
+    private Path file;
+
+
+    // Setup
+    // ------------------------------------------------------------------------
+
+    @Setup
+    public void setup() throws IOException {
+        final TripProcessor tripProcessor = new TripProcessor();
+        this.trips = PingBean.groupByDevice(SyntheticPings.pings(this.devices, 1000, SyntheticPings.DEFAULT_SEED))
+                .stream() //
+                .flatMap(pings -> tripProcessor.prepareTrips(pings.get(0).getDeviceIdx(), pings, null).stream()) //
+                .collect(Collectors.toList());
+
+        this.file = Files.createTempFile("trips-", ".csv");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.file);
+    }
+
+
+    // Benchmarks
+    // ------------------------------------------------------------------------
+
+    @Benchmark
+    public void writeToCSV() {
+        CsvWriter.writeToCSV(this.trips, this.file.toString());
+    }
+
+}
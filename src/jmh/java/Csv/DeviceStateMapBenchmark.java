@@ -0,0 +1,136 @@
+package Csv;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Per-device state lookups and updates in random device order : the primitive maps against the boxed maps they
+ * replace. Run with <code>-prof gc</code> to compare allocations, and a larger heap for 10M devices.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx8g" })
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DeviceStateMapBenchmark {
+
+    private static final int OPERATIONS = 1 << 16;
+
+    @Param({ "1000000", "10000000" })
+    public int devices;
+
+    private int[] order;
+    private String[] deviceIds;
+
+    private Map<String, List<TripBean>> tripsByDeviceId;
+    private Map<Integer, PingBean> pingsByDeviceIdx;
+    private DeviceStateMap stateMap;
+    private ConcurrentDeviceStateMap concurrentStateMap;
+
+
+    // Setup
+    // ------------------------------------------------------------------------
+
+    @Setup
+    public void setup() {
+        final SplittableRandom random = new SplittableRandom(20200401l);
+
+        this.order = new int[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            this.order[i] = random.nextInt(this.devices);
+        }
+
+        this.deviceIds = new String[this.devices];
+        this.tripsByDeviceId = new HashMap<>();
+        this.pingsByDeviceIdx = new HashMap<>();
+        this.stateMap = new DeviceStateMap();
+        this.concurrentStateMap = new ConcurrentDeviceStateMap();
+        for (int d = 0; d < this.devices; d++) {
+            final long ts = 1585699200000l + d;
+            this.deviceIds[d] = String.format("device-%08d", d);
+
+            final List<TripBean> trips = new ArrayList<>(1);
+            trips.add(new TripBean(this.deviceIds[d], "12.97,77.59", ts, "12.98,77.6", ts));
+            this.tripsByDeviceId.put(this.deviceIds[d], trips);
+            this.pingsByDeviceIdx.put(d, new PingBean(d, ts, 12.98, 77.6));
+            this.stateMap.put(d, ts, 12.98, 77.6);
+            this.concurrentStateMap.put(d, ts, 12.98, 77.6);
+        }
+    }
+
+
+    // Benchmarks
+    // ------------------------------------------------------------------------
+
+    /**
+     * The former <code>tripDataMap</code> : trips by device id string.
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public long hashMapOfTrips() {
+        long sum = 0l;
+        for (int d : this.order) {
+            final List<TripBean> trips = this.tripsByDeviceId.get(this.deviceIds[d]);
+            final TripBean trip = trips.get(0);
+            sum += trip.getEndTimestamp();
+            trip.setEndTimestamp(trip.getEndTimestamp() + 1);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public long hashMapOfPings() {
+        long sum = 0l;
+        for (int d : this.order) {
+            final PingBean ping = this.pingsByDeviceIdx.get(d);
+            sum += ping.getTimestamp();
+            this.pingsByDeviceIdx.put(d, new PingBean(d, ping.getTimestamp() + 1, 12.98, 77.6));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public long deviceStateMap() {
+        long sum = 0l;
+        for (int d : this.order) {
+            final long ts = this.stateMap.getTimestamp(d);
+            sum += ts;
+            this.stateMap.put(d, ts + 1, 12.98, 77.6);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public long concurrentDeviceStateMap() {
+        long sum = 0l;
+        for (int d : this.order) {
+            final long ts = this.concurrentStateMap.getTimestamp(d);
+            sum += ts;
+            this.concurrentStateMap.put(d, ts + 1, 12.98, 77.6);
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,94 @@
+package Csv;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Ignite.FileListing;
+import Ignite.IoExecutors;
+
+
+/**
+ * Extracting the pings of many small gzip files, reads on virtual vs. platform threads, against extracting the files
+ * one after another. Virtual threads fall back to platform threads before Java 21.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PingExtractorBenchmark {
+
+    @Param({ "PLATFORM", "VIRTUAL" })
+    public IoExecutors.Mode mode;
+
+    /** Files of ~100 KB, 2000 files */
+    @Param({ "40" })
+    public int partsPerHour;
+
+    private Path root;
+    private List<Path> files;
+    private PingExtractor extractor;
+
+
+    // Setup
+    // ------------------------------------------------------------------------
+
+    @Setup
+    public void setup() throws IOException {
+        this.root = Files.createTempDirectory("ping-extractor-");
+        PingDatasetGenerator.to(this.root).devices(200).pingIntervalSeconds(30)
+                .start(LocalDateTime.of(2020, 4, 1, 0, 0)).hours(50).partsPerHour(this.partsPerHour).generate();
+        this.files = FileListing.from(this.root).list();
+
+        final int processors = Runtime.getRuntime().availableProcessors();
+        this.extractor = new PingExtractor(this.mode, 4 * processors, processors, PingExtractor.DEFAULT_FILES_IN_FLIGHT);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.extractor.close();
+        try (Stream<Path> paths = Files.walk(this.root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+
+    // Benchmarks
+    // ------------------------------------------------------------------------
+
+    @Benchmark
+    public int extract() {
+        return this.extractor.extract(this.files).size();
+    }
+
+    @Benchmark
+    public int extractSequential() {
+        final Main main = new Main();
+        int pings = 0;
+        for (Path file : this.files) {
+            pings += main.extract(file.toString()).size();
+        }
+        return pings;
+    }
+
+}
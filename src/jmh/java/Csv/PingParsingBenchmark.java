@@ -0,0 +1,95 @@
+package Csv;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Ping parsing : a batch of lines into {@link PingBean}s, a ping file into batches of lines, and the bytes of a
+ * ping file into {@link PingBean}s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PingParsingBenchmark {
+
+    @Param({ "500" })
+    public int batchSize;
+
+    @Param({ "100000" })
+    public int fileLines;
+
+    private final Main main = new Main();
+
+    private List<String> batch;
+    private Path file;
+    private byte[] fileBytes;
+
+
+    // Setup
+    // ------------------------------------------------------------------------
+
+    @Setup
+    public void setup() throws IOException {
+        this.batch = SyntheticPings.lines(1, this.batchSize, SyntheticPings.DEFAULT_SEED);
+
+        this.file = Files.createTempFile("pings-", ".tsv");
+        SyntheticPings.write(this.file, this.fileLines / 1000, 1000, SyntheticPings.DEFAULT_SEED);
+        this.fileBytes = Files.readAllBytes(this.file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.file);
+    }
+
+
+    // Benchmarks
+    // ------------------------------------------------------------------------
+
+    @Benchmark
+    public List<PingBean> constructPingBeans() {
+        return this.main.constructPingBeans(this.batch);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<List<String>> extractDataFromFile() throws Exception {
+        return this.main.extractDataFromFile(this.file.toString(), this.batchSize, true);
+    }
+
+    /**
+     * Byte level parsing of the file content, as done by {@link Main#extract(String)}.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<PingBean> parseChunks() throws IOException {
+        return PingParser.readChunks(new ByteArrayInputStream(this.fileBytes), 1, PingParser.DEFAULT_CHUNK_SIZE)
+                .stream() //
+                .map(PingParser::parse) //
+                .flatMap(List::stream) //
+                .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,102 @@
+package Csv;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * Deterministic synthetic pings for the benchmarks : the same seed always produces the same lines.
+ *
+ * <p>
+ * Lines are those of {@link PingDatasetGenerator#lines()}, devices walking at random around the default region, so
+ * the benchmarks and the generated datasets share a single model of the pings. They are regrouped by device, then
+ * time, and every device is cut to the same no. of pings.
+ * </p>
+ */
+public final class SyntheticPings {
+
+    public static final long DEFAULT_SEED = 20200401l;
+
+    public static final String HEADER = PingDatasetGenerator.HEADER;
+
+    /** Mean seconds between the pings of a device */
+    private static final double PING_INTERVAL_SECONDS = 120d;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    private SyntheticPings() {
+        super();
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * @param devices no. of devices
+     * @param pingsPerDevice no. of pings of every device
+     * @param seed random seed
+     *
+     * @return data lines, without the header
+     */
+    public static List<String> lines(int devices, int pingsPerDevice, long seed) {
+        // Hours for ~ 1.5 times the pings, more if a device falls short
+        int hours = (int) Math.ceil(1.5 * pingsPerDevice * PING_INTERVAL_SECONDS / 3600) + 1;
+        while (true) {
+            final List<String> generated = PingDatasetGenerator.inMemory() //
+                    .devices(devices) //
+                    .pingIntervalSeconds(PING_INTERVAL_SECONDS) //
+                    .movement(PingDatasetGenerator.Movement.RANDOM_WALK) //
+                    .hours(hours) //
+                    .seed(seed) //
+                    .lines();
+
+            // Device ids are zero padded, so they sort in the order of the devices
+            final Map<String, List<String>> byDevice = new TreeMap<>();
+            for (String line : generated) {
+                final int from = line.indexOf('\t') + 1;
+                final String deviceId = line.substring(from, line.indexOf('\t', from));
+                byDevice.computeIfAbsent(deviceId, d -> new ArrayList<>()).add(line);
+            }
+
+            final List<String> lines = new ArrayList<>(devices * pingsPerDevice);
+            for (List<String> deviceLines : byDevice.values()) {
+                if (deviceLines.size() < pingsPerDevice) {
+                    break;
+                }
+                lines.addAll(deviceLines.subList(0, pingsPerDevice));
+            }
+            if (byDevice.size() == devices && lines.size() == devices * pingsPerDevice) {
+                return lines;
+            }
+
+            hours *= 2;
+        }
+    }
+
+    /**
+     * Writes the header and the lines of {@link #lines(int, int, long)} to an uncompressed file.
+     */
+    public static void write(Path filePath, int devices, int pingsPerDevice, long seed) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(filePath, Charset.defaultCharset())) {
+            writer.append(HEADER).append("\n");
+            for (String line : lines(devices, pingsPerDevice, seed)) {
+                writer.append(line).append("\n");
+            }
+        }
+    }
+
+    public static List<PingBean> pings(int devices, int pingsPerDevice, long seed) {
+        return new Main().constructPingBeans(lines(devices, pingsPerDevice, seed));
+    }
+
+}
@@ -0,0 +1,92 @@
+package Csv;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Ordering the pings of a device by timestamp : {@link TimestampSort} against {@link Collections#sort(List)}, for
+ * pings in order, with a few late pings and shuffled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TimestampSortBenchmark {
+
+    @Param({ "1000", "10000" })
+    public int pingsPerDevice;
+
+    @Param({ "sorted", "nearlySorted", "shuffled" })
+    public String order;
+
+    private List<PingBean> source;
+    private List<PingBean> pings;
+
+
+    // Setup
+    // ------------------------------------------------------------------------
+
+    @Setup
+    public void setup() {
+        this.source = SyntheticPings.pings(1, this.pingsPerDevice, SyntheticPings.DEFAULT_SEED);
+
+        final SplittableRandom random = new SplittableRandom(SyntheticPings.DEFAULT_SEED);
+        if ("nearlySorted".equals(this.order)) {
+            // 1 in 100 pings arrives a few pings late
+            for (int i = 0; i < this.source.size() - 5; i++) {
+                if (random.nextInt(100) == 0) {
+                    Collections.swap(this.source, i, i + 1 + random.nextInt(4));
+                }
+            }
+        } else if ("shuffled".equals(this.order)) {
+            for (int i = this.source.size() - 1; i > 0; i--) {
+                Collections.swap(this.source, i, random.nextInt(i + 1));
+            }
+        }
+
+        this.pings = new ArrayList<>(this.source);
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        for (int i = 0; i < this.source.size(); i++) {
+            this.pings.set(i, this.source.get(i));
+        }
+    }
+
+
+    // Benchmarks
+    // ------------------------------------------------------------------------
+
+    @Benchmark
+    public List<PingBean> collectionsSort() {
+        Collections.sort(this.pings);
+        return this.pings;
+    }
+
+    @Benchmark
+    public List<PingBean> timestampSort() {
+        TimestampSort.sort(this.pings);
+        return this.pings;
+    }
+
+}
@@ -0,0 +1,71 @@
+package Csv;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Trip detection over the time ordered pings of a single device.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TripProcessorBenchmark {
+
+    private static final String DEVICE_ID = "device-00000000";
+
+    @Param({ "1000", "10000" })
+    public int pingsPerDevice;
+
+    private final TripProcessor tripProcessor = new TripProcessor();
+
+    private List<PingBean> pings;
+
+
+    // Setup
+    // ------------------------------------------------------------------------
+
+    @Setup
+    public void setup() {
+        this.pings = SyntheticPings.pings(1, this.pingsPerDevice, SyntheticPings.DEFAULT_SEED);
+    }
+
+    /**
+     * Trips of the previous invocation would seed the next one.
+     */
+    @Setup(Level.Invocation)
+    public void clearTrips() {
+        TripProcessor.lastTripEnds.clear();
+    }
+
+
+    // Benchmarks
+    // ------------------------------------------------------------------------
+
+    @Benchmark
+    public List<TripBean> prepareTrips() {
+        return this.tripProcessor.prepareTrips(DEVICE_ID, this.pings);
+    }
+
+    @Benchmark
+    public List<TripBean> prepareTripsFromLastPing() {
+        return this.tripProcessor.prepareTrips(DEVICE_ID, this.pings, null);
+    }
+
+}
@@ -0,0 +1,112 @@
+package Ignite;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Per ping utilities of the trip hot path : distance, date string, coordinate parsing and encoding.
+ *
+ * <p>
+ * Every benchmark runs over {@value #SIZE} seeded inputs, so the results are per input.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GeoBenchmark {
+
+    private static final int SIZE = 1024;
+
+    private final double[] latitudes = new double[SIZE + 1];
+    private final double[] longitudes = new double[SIZE + 1];
+    private final long[] timestamps = new long[SIZE];
+    private final String[] latLngs = new String[SIZE];
+
+
+    // Setup
+    // ------------------------------------------------------------------------
+
+    @Setup
+    public void setup() {
+        final SplittableRandom random = new SplittableRandom(20200401l);
+
+        for (int i = 0; i <= SIZE; i++) {
+            this.latitudes[i] = 12.90 + random.nextDouble() * 0.15;
+            this.longitudes[i] = 77.50 + random.nextDouble() * 0.15;
+        }
+
+        for (int i = 0; i < SIZE; i++) {
+            this.timestamps[i] = 1585699200000l + random.nextLong(30l * 24 * 3600 * 1000);
+            this.latLngs[i] = this.latitudes[i] + "," + this.longitudes[i];
+        }
+    }
+
+
+    // Benchmarks
+    // ------------------------------------------------------------------------
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void distance(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(Geo.distance(this.latitudes[i], this.longitudes[i], this.latitudes[i + 1],
+                    this.longitudes[i + 1]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void getyyyyMMddFrom(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(DatesUtil.getyyyyMMddFrom(this.timestamps[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void coordinateFrom(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(Coordinate.from(this.latLngs[i]));
+        }
+    }
+
+    /**
+     * Former regular expression parser, for comparison.
+     */
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void coordinateFromRegex(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            final String[] splits = this.latLngs[i].replaceAll("\\s+", "").split(",");
+            final double latitude = Double.valueOf(splits[0].replaceAll("[^\\.0-9]", ""));
+            final double longitude = Double.valueOf(splits[1].replaceAll("[^\\.0-9]", ""));
+            bh.consume(Coordinate.from(latitude, longitude));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void coordinateCodec(Blackhole bh) {
+        for (int i = 0; i < SIZE; i++) {
+            bh.consume(Coordinate.decode(Coordinate.encode(this.latitudes[i], this.longitudes[i])));
+        }
+    }
+
+}
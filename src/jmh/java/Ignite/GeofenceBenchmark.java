@@ -0,0 +1,84 @@
+package Ignite;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Tagging a batch of trip endpoints against thousands of polygons of ~100 vertices over a city.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GeofenceBenchmark {
+
+    private static final int VERTICES = 100;
+
+    @Param({ "2000" })
+    public int polygons;
+
+    @Param({ "1000000" })
+    public int points;
+
+    private Geofence geofence;
+    private double[] latitudes;
+    private double[] longitudes;
+
+
+    // Setup
+    // ------------------------------------------------------------------------
+
+    @Setup
+    public void setup() {
+        final SplittableRandom random = new SplittableRandom(20200401l);
+
+        // Irregular polygons around random centers of a ~30 x 30 km area
+        final Geofence.Builder builder = Geofence.builder();
+        for (int p = 0; p < this.polygons; p++) {
+            final double centerLat = 12.85 + random.nextDouble() * 0.27;
+            final double centerLng = 77.45 + random.nextDouble() * 0.27;
+            final double[] ring = new double[2 * VERTICES];
+            for (int k = 0; k < VERTICES; k++) {
+                final double angle = 2 * Math.PI * k / VERTICES;
+                final double r = 0.002 + random.nextDouble() * 0.004;
+                ring[2 * k] = centerLng + r * Math.cos(angle);
+                ring[2 * k + 1] = centerLat + r * Math.sin(angle);
+            }
+            builder.add("zone-" + p, Arrays.asList(ring));
+        }
+        this.geofence = builder.build();
+
+        this.latitudes = new double[this.points];
+        this.longitudes = new double[this.points];
+        for (int i = 0; i < this.points; i++) {
+            this.latitudes[i] = 12.85 + random.nextDouble() * 0.27;
+            this.longitudes[i] = 77.45 + random.nextDouble() * 0.27;
+        }
+    }
+
+
+    // Benchmarks
+    // ------------------------------------------------------------------------
+
+    @Benchmark
+    public int[] locate() {
+        return this.geofence.locate(this.latitudes, this.longitudes);
+    }
+
+}
@@ -0,0 +1,318 @@
+package Csv;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import Ignite.DatesUtil;
+import Ignite.FileListing;
+import Ignite.Metrics;
+import Ignite.ValidationException;
+
+
+/**
+ * Backfills the trips of a date range, day by day, from the hourly layout of the ping files,
+ * <code>&lt;input&gt;/yyyy/MM/dd/HH/...</code>, into a {@link PartitionedCsvWriter}.
+ *
+ * <p>
+ * {@link #plan(LocalDate, LocalDate)} lists the files of every day. {@link #run(LocalDate, LocalDate)} then loads
+ * the days concurrently, extracting and grouping their pings by device, while the trips are prepared day after day in
+ * date order : the trips of a day continue from the last ping of every device of the days before it, as if the range
+ * were processed in one go. Loading runs ahead of the trips by at most <code>parallelism</code> days and by the
+ * memory budget, a day estimated at {@link #HEAP_BYTES_PER_INPUT_BYTE} times the size of its files. A day larger than
+ * the whole budget is loaded alone.
+ * </p>
+ *
+ * <p>
+ * Parallelism defaults to the no. of processors, <code>-Dbackfill.parallelism=N</code>, and the budget to half the
+ * max. heap, <code>-Dbackfill.memory.mb=N</code>.
+ * </p>
+ *
+ * <p>
+ * A run replaces the output of its days : the partitions of every day of the range are truncated before the first
+ * day is processed, and the last pings chained from a run before, at or after the start of the range, are dropped.
+ * A failed or repeated run is retried by running the range again.
+ * </p>
+ */
+public class BackfillPlanner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BackfillPlanner.class);
+
+    private static final Metrics.Counter DAYS_PROCESSED = Metrics.counter("backfill.days.processed");
+    private static final Metrics.Timer DAY_LOAD_TIMER = Metrics.timer("backfill.day.load");
+
+    /** Heap of the pings of a day per byte of its gzip files, ~8x inflation of ~40 byte lines into ~100 byte pings */
+    public static final long HEAP_BYTES_PER_INPUT_BYTE = 20;
+
+    private static final DateTimeFormatter DAY_DIRECTORY_FORMAT = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+
+    /** Date of the trip partitions, see {@link TripBean#getDateString()} */
+    private static final DateTimeFormatter PARTITION_DATE_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final Path inputRoot;
+    private final PartitionedCsvWriter writer;
+    private final int parallelism;
+    private final long memoryBudgetBytes;
+
+    /** Last ping of every device, chained from day to day */
+    private final DeviceStateMap lastPings = new DeviceStateMap(1024);
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    public BackfillPlanner(Path inputRoot, PartitionedCsvWriter writer) {
+        this(inputRoot, writer, Integer.getInteger("backfill.parallelism", Runtime.getRuntime().availableProcessors()),
+                Long.getLong("backfill.memory.mb", Runtime.getRuntime().maxMemory() / 2 / (1024 * 1024)) * 1024
+                        * 1024);
+    }
+
+    /**
+     * @param inputRoot root directory of the hourly layout
+     * @param writer writer of the trips
+     * @param parallelism max. no. of days loaded at once
+     * @param memoryBudgetBytes max. estimated heap of the days loaded at once
+     */
+    public BackfillPlanner(Path inputRoot, PartitionedCsvWriter writer, int parallelism, long memoryBudgetBytes) {
+        super();
+
+        // Sanity checks
+        if (Objects.isNull(inputRoot) || Objects.isNull(writer) || parallelism < 1 || memoryBudgetBytes < 1) {
+            String errMsg = String.format("INVALID backfill, input - %s, parallelism - %s, memory budget - %s",
+                    inputRoot, parallelism, memoryBudgetBytes);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        this.inputRoot = inputRoot;
+        this.writer = writer;
+        this.parallelism = parallelism;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * @param from first day
+     * @param to last day, inclusive
+     *
+     * @return the days of the range with their files, days without files included
+     */
+    public List<Day> plan(LocalDate from, LocalDate to) {
+        final List<Day> days = new ArrayList<>();
+        for (LocalDate date : DatesUtil.generateDates(from, to, true)) {
+            final Path dayDirectory = this.inputRoot.resolve(DAY_DIRECTORY_FORMAT.format(date));
+            if (!Files.isDirectory(dayDirectory)) {
+                LOGGER.warn("No input directory for day - {}", date);
+                days.add(new Day(date, Collections.emptyList(), 0l));
+                continue;
+            }
+
+            final List<Path> files = FileListing.from(dayDirectory).list();
+            long inputBytes = 0l;
+            for (Path file : files) {
+                inputBytes += file.toFile().length();
+            }
+            days.add(new Day(date, files, inputBytes));
+        }
+        return days;
+    }
+
+    /**
+     * @param dateFormat format of the dates, see {@link DateTimeFormatter}
+     *
+     * @see #run(LocalDate, LocalDate)
+     */
+    public long run(String fromDateStr, String toDateStr, String dateFormat) throws IOException {
+        return this.run(DatesUtil.toLocalDate(fromDateStr, dateFormat), DatesUtil.toLocalDate(toDateStr, dateFormat));
+    }
+
+    /**
+     * Backfills the days of the range, see {@link #plan(LocalDate, LocalDate)}, and flushes the writer.
+     *
+     * @param from first day
+     * @param to last day, inclusive
+     *
+     * @return no. of trips written
+     */
+    public long run(LocalDate from, LocalDate to) throws IOException {
+        final long startTs = System.currentTimeMillis();
+        final List<Day> days = this.plan(from, to);
+
+        // Output of a run before replaced
+        for (Day day : days) {
+            this.writer.truncate(PARTITION_DATE_FORMAT.format(day.getDate()));
+        }
+        this.forgetLastPingsFrom(from.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+
+        final ExecutorService loaders = Executors.newFixedThreadPool(this.parallelism);
+        final TripScheduler tripScheduler = new TripScheduler(new TripProcessor());
+        final Deque<Future<List<List<PingBean>>>> loading = new ArrayDeque<>();
+        final Deque<Day> loadingDays = new ArrayDeque<>();
+        long loadingBytes = 0l;
+        long trips = 0l;
+        try {
+            for (Day day : days) {
+                // Room for the day : process the oldest loaded days first
+                final long dayBytes = this.costOf(day);
+                while (!loading.isEmpty() && (loading.size() >= this.parallelism
+                        || loadingBytes + dayBytes > this.memoryBudgetBytes)) {
+                    trips += this.process(tripScheduler, loadingDays.peekFirst(),
+                            BackfillPlanner.await(loading.pollFirst()));
+                    loadingBytes -= this.costOf(loadingDays.pollFirst());
+                }
+
+                loading.addLast(loaders.submit(() -> BackfillPlanner.load(day)));
+                loadingDays.addLast(day);
+                loadingBytes += dayBytes;
+            }
+
+            while (!loading.isEmpty()) {
+                trips += this.process(tripScheduler, loadingDays.pollFirst(),
+                        BackfillPlanner.await(loading.pollFirst()));
+            }
+        } finally {
+            loading.forEach(future -> future.cancel(true));
+            loaders.shutdownNow();
+            tripScheduler.close();
+        }
+
+        this.writer.flush();
+        LOGGER.info("Backfill of {} days from {} to {} wrote {} trips in {} ms", days.size(), from, to, trips,
+                System.currentTimeMillis() - startTs);
+        return trips;
+    }
+
+    /**
+     * @return last ping of the device seen so far, <code>null</code> if none
+     */
+    public PingBean getLastPing(int deviceIdx) {
+        return this.lastPings.get(deviceIdx);
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * @return no. of trips of the day
+     */
+    private long process(TripScheduler tripScheduler, Day day, List<List<PingBean>> devicePings)
+            throws IOException {
+        // Trips, continuing from the days before
+        final List<TripBean> trips = tripScheduler.prepareTrips(devicePings, this.lastPings::get);
+        this.writer.write(trips);
+
+        // Chain : latest ping of every device, of those kept by the trip processor
+        for (List<PingBean> pings : devicePings) {
+            final PingBean latest = PingBean.latestOf(pings);
+            if (Objects.nonNull(latest)
+                    && latest.getTimestamp() >= this.lastPings.getTimestamp(latest.getDeviceIdx())) {
+                this.lastPings.put(latest.getDeviceIdx(), latest.getTimestamp(), latest.getLatitude(),
+                        latest.getLongitude());
+            }
+        }
+
+        DAYS_PROCESSED.increment();
+        LOGGER.info("Backfilled day - {}, {} files, {} devices, {} trips", day.getDate(), day.getFiles().size(),
+                devicePings.size(), trips.size());
+        return trips.size();
+    }
+
+    /**
+     * Drops the last pings at or after the timestamp, those of the days about to be processed again.
+     */
+    private void forgetLastPingsFrom(long timestamp) {
+        final List<Integer> deviceIdxs = new ArrayList<>();
+        this.lastPings.forEach((deviceIdx, pingTimestamp, latitude, longitude) -> {
+            if (pingTimestamp >= timestamp) {
+                deviceIdxs.add(deviceIdx);
+            }
+        });
+        for (int deviceIdx : deviceIdxs) {
+            this.lastPings.remove(deviceIdx);
+        }
+    }
+
+    private long costOf(Day day) {
+        return Math.min(this.memoryBudgetBytes, day.getInputBytes() * HEAP_BYTES_PER_INPUT_BYTE);
+    }
+
+    private static List<List<PingBean>> load(Day day) {
+        final long startNs = System.nanoTime();
+
+        final Main main = new Main();
+        final List<PingBean> pings = new ArrayList<>();
+        for (Path file : day.getFiles()) {
+            pings.addAll(main.extract(file.toAbsolutePath().toString()));
+        }
+        final List<List<PingBean>> devicePings = PingBean.groupByDevice(pings);
+
+        DAY_LOAD_TIMER.recordSince(startNs);
+        return devicePings;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading a day", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to load a day", e.getCause());
+        }
+    }
+
+
+    // Day
+    // ------------------------------------------------------------------------
+
+    public static final class Day {
+
+        private final LocalDate date;
+        private final List<Path> files;
+        private final long inputBytes;
+
+        private Day(LocalDate date, List<Path> files, long inputBytes) {
+            super();
+
+            this.date = date;
+            this.files = files;
+            this.inputBytes = inputBytes;
+        }
+
+        public LocalDate getDate() {
+            return this.date;
+        }
+
+        public List<Path> getFiles() {
+            return this.files;
+        }
+
+        /**
+         * @return size of the files of the day
+         */
+        public long getInputBytes() {
+            return this.inputBytes;
+        }
+    }
+
+}
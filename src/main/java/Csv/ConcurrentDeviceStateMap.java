@@ -0,0 +1,136 @@
+package Csv;
+
+
+/**
+ * Thread safe {@link DeviceStateMap} : the keys are spread over stripes, every stripe a {@link DeviceStateMap}
+ * guarded by its own lock, so threads working on different devices rarely contend.
+ */
+public class ConcurrentDeviceStateMap {
+
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final DeviceStateMap[] stripes;
+    private final int mask;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    public ConcurrentDeviceStateMap() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedSize no. of devices expected, the map grows beyond it
+     */
+    public ConcurrentDeviceStateMap(int expectedSize) {
+        super();
+
+        this.stripes = new DeviceStateMap[DEFAULT_STRIPES];
+        this.mask = DEFAULT_STRIPES - 1;
+        for (int i = 0; i < DEFAULT_STRIPES; i++) {
+            this.stripes[i] = new DeviceStateMap(expectedSize / DEFAULT_STRIPES);
+        }
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    public void put(int key, long timestamp, double latitude, double longitude) {
+        final DeviceStateMap stripe = this.stripeOf(key);
+        synchronized (stripe) {
+            stripe.put(key, timestamp, latitude, longitude);
+        }
+    }
+
+    /**
+     * Puts the state unless the device has a later one.
+     *
+     * @return <code>true</code> if the state was put
+     */
+    public boolean putIfLater(int key, long timestamp, double latitude, double longitude) {
+        final DeviceStateMap stripe = this.stripeOf(key);
+        synchronized (stripe) {
+            if (stripe.getTimestamp(key) > timestamp) {
+                return false;
+            }
+
+            stripe.put(key, timestamp, latitude, longitude);
+            return true;
+        }
+    }
+
+    public boolean contains(int key) {
+        final DeviceStateMap stripe = this.stripeOf(key);
+        synchronized (stripe) {
+            return stripe.contains(key);
+        }
+    }
+
+    /**
+     * @return timestamp of the device, {@link DeviceStateMap#NO_TIMESTAMP} if missing
+     */
+    public long getTimestamp(int key) {
+        final DeviceStateMap stripe = this.stripeOf(key);
+        synchronized (stripe) {
+            return stripe.getTimestamp(key);
+        }
+    }
+
+    /**
+     * @return state of the device as a ping, <code>null</code> if missing
+     */
+    public PingBean get(int key) {
+        final DeviceStateMap stripe = this.stripeOf(key);
+        synchronized (stripe) {
+            return stripe.get(key);
+        }
+    }
+
+    public boolean remove(int key) {
+        final DeviceStateMap stripe = this.stripeOf(key);
+        synchronized (stripe) {
+            return stripe.remove(key);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (DeviceStateMap stripe : this.stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (DeviceStateMap stripe : this.stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    /**
+     * Visits every entry, a stripe at a time, in no particular order.
+     */
+    public void forEach(DeviceStateMap.Visitor visitor) {
+        for (DeviceStateMap stripe : this.stripes) {
+            synchronized (stripe) {
+                stripe.forEach(visitor);
+            }
+        }
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    private DeviceStateMap stripeOf(int key) {
+        // High bits pick the stripe, the low bits the slot within it
+        return this.stripes[(DeviceStateMap.hash(key) >>> 26) & this.mask];
+    }
+
+}
@@ -1,40 +1,107 @@
 package Csv;
 
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.Objects;
+
+import Ignite.Metrics;
 
 public class CsvWriter {
 
-    
+    private static final Metrics.Timer WRITE_TIMER = Metrics.timer("stage.write");
+    private static final Metrics.Counter TRIPS_WRITTEN = Metrics.counter("trips.written");
+
+    public static final String HEADER = "DeviceId,DateString,Start-TS,Start-Latitude,Start-Longitude,End-Ts,End-Latitude,End-Longitude\n";
+
+    /** {@link #HEADER} and the path of the trip, <code>-Dtrips.csv.enriched=true</code> */
+    public static final String ENRICHED_HEADER = HEADER.trim()
+            + ",Distance-Mtrs,Duration-Ms,Average-Speed-Mps,Polyline\n";
+
     public static void writeToCSV(List<TripBean> trips, String filePath) {
-        
-        System.out.println("trips size in #writeToCSV" + trips.size());
+        final long startNs = System.nanoTime();
         try (FileWriter writer = new FileWriter(filePath)) {
             // Write CSV header
-            writer.append("DeviceId,DateString,Start-TS,Start-Latitude,Start-Longitude,End-Ts,End-Latitude,End-Longitude\n");
+            writer.append(header());
 
             // Write each person to the CSV file
-            for (TripBean trip : trips) {
-                writer.append(trip.getDeviceId())
-                        .append(",")
-                        .append(trip.getDateString())
-                        .append(",")
-                        .append(trip.getStartTimestamp()+"")
+            writeRows(writer, trips);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        WRITE_TIMER.recordSince(startNs);
+    }
+
+    /**
+     * Appends the trips to the CSV file and syncs it to the disk, so the rows survive a crash once the method
+     * returns. The header is written if the file is new or empty.
+     *
+     * @return length of the file in bytes after the append
+     */
+    public static long appendToCSV(List<TripBean> trips, String filePath) throws IOException {
+        final long startNs = System.nanoTime();
+        try (FileOutputStream fos = new FileOutputStream(filePath, true);
+                Writer writer = new BufferedWriter(new OutputStreamWriter(fos, StandardCharsets.UTF_8))) {
+            if (fos.getChannel().size() == 0) {
+                writer.append(header());
+            }
+
+            writeRows(writer, trips);
+
+            writer.flush();
+            fos.getFD().sync();
+            WRITE_TIMER.recordSince(startNs);
+            return fos.getChannel().size();
+        }
+    }
+
+    /**
+     * @return header of the rows, {@link #ENRICHED_HEADER} with <code>-Dtrips.csv.enriched=true</code>,
+     *         {@link #HEADER} otherwise
+     */
+    static String header() {
+        return Boolean.getBoolean("trips.csv.enriched") ? ENRICHED_HEADER : HEADER;
+    }
+
+    /**
+     * Appends a row per trip, see {@link #header()}.
+     */
+    static void writeRows(Writer writer, List<TripBean> trips) throws IOException {
+        final boolean enriched = Boolean.getBoolean("trips.csv.enriched");
+        for (TripBean trip : trips) {
+            writer.append(trip.getDeviceId())
+                    .append(",")
+                    .append(trip.getDateString())
+                    .append(",")
+                    .append(trip.getStartTimestamp()+"")
+                    .append(",")
+                    .append(trip.getStartCoordinateStr())
+                    .append(",")
+                    .append(trip.getEndTimestamp()+"")
+                    .append(",")
+                    .append(trip.getEndCoordinateStr());
+            if (enriched) {
+                // Polylines never contain a comma, '?' (63) and above
+                writer.append(",")
+                        .append(Math.round(trip.getDistanceMtrs() * 10) / 10d + "")
                         .append(",")
-                        .append(trip.getStartCoordinateStr())
+                        .append(trip.getDurationMillis() + "")
                         .append(",")
-                        .append(trip.getEndTimestamp()+"")
+                        .append(Math.round(trip.getAverageSpeedMps() * 100) / 100d + "")
                         .append(",")
-                        .append(trip.getEndCoordinateStr())
-                        .append("\n");
+                        .append(Objects.toString(trip.getPolyline(), ""));
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            writer.append("\n");
         }
+        TRIPS_WRITTEN.add(trips.size());
     }
     
 
@@ -48,6 +115,7 @@ public class CsvWriter {
         writeToCSV(trips, filePath);
 
         System.out.println("CSV file created: " + filePath);
+        Metrics.logSummary();
         
 
 //        Path startDir = Paths.get("/home/sreeharsha/Documents/01");
@@ -0,0 +1,350 @@
+package Csv;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import Ignite.ValidationException;
+
+
+/**
+ * Concurrent dictionary of device ids : maps the raw (UTF-8) bytes of a device id to a dense <code>int</code>, the
+ * device index, assigned in order of first appearance from <code>0</code>.
+ *
+ * <p>
+ * Looking up a known id allocates nothing : the bytes are hashed and compared in place, under an optimistic read of
+ * one of the lock stripes, so the readers do not block each other. Only a new id takes the write lock of its stripe
+ * and copies its bytes. The id string of an index is created on first {@link #nameOf(int)} and cached.
+ * </p>
+ *
+ * <p>
+ * Indexes are only meaningful within the process, persist or send the id strings instead.
+ * </p>
+ */
+public final class DeviceDictionary {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeviceDictionary.class);
+
+    private static final DeviceDictionary SHARED = new DeviceDictionary();
+
+    private static final int STRIPES = 64;
+    private static final int INITIAL_STRIPE_CAPACITY = 64;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    /** Index to id bytes and id string, grown under the lock of this */
+    private volatile byte[][] keys = new byte[1024][];
+    private volatile String[] names = new String[1024];
+    private int size = 0;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    public DeviceDictionary() {
+        super();
+
+        for (int i = 0; i < STRIPES; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+
+    // Factory Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * @return dictionary shared by the pipeline, the indexes of the beans refer to it
+     */
+    public static DeviceDictionary shared() {
+        return SHARED;
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * @return index of the device id in <code>bytes[offset, offset + length)</code>, added if new
+     */
+    public int idOf(byte[] bytes, int offset, int length) {
+        final int hash = DeviceDictionary.hash(bytes, offset, length);
+        final Stripe stripe = this.stripes[hash & (STRIPES - 1)];
+
+        // Optimistic read, valid if no id was added to the stripe meanwhile
+        final long stamp = stripe.lock.tryOptimisticRead();
+        int idx = stripe.find(hash, bytes, offset, length);
+        if (!stripe.lock.validate(stamp)) {
+            final long readStamp = stripe.lock.readLock();
+            try {
+                idx = stripe.find(hash, bytes, offset, length);
+            } finally {
+                stripe.lock.unlockRead(readStamp);
+            }
+        }
+        if (idx >= 0) {
+            return idx;
+        }
+
+        // New id
+        final long writeStamp = stripe.lock.writeLock();
+        try {
+            idx = stripe.find(hash, bytes, offset, length);
+            if (idx < 0) {
+                final byte[] key = Arrays.copyOfRange(bytes, offset, offset + length);
+                idx = this.register(key);
+                stripe.insert(hash, key, idx);
+            }
+            return idx;
+        } finally {
+            stripe.lock.unlockWrite(writeStamp);
+        }
+    }
+
+    /**
+     * Index of the device id in <code>chars[start, end)</code>, without allocating for known ASCII ids.
+     */
+    public int idOf(CharSequence chars, int start, int end) {
+        final int length = end - start;
+        for (int i = start; i < end; i++) {
+            if (chars.charAt(i) >= 0x80) {
+                // Rare, encode to compare as UTF-8
+                final byte[] utf8 = chars.subSequence(start, end).toString().getBytes(StandardCharsets.UTF_8);
+                return this.idOf(utf8, 0, utf8.length);
+            }
+        }
+
+        final int hash = DeviceDictionary.hash(chars, start, end);
+        final Stripe stripe = this.stripes[hash & (STRIPES - 1)];
+
+        final long stamp = stripe.lock.tryOptimisticRead();
+        int idx = stripe.find(hash, chars, start, length);
+        if (!stripe.lock.validate(stamp)) {
+            final long readStamp = stripe.lock.readLock();
+            try {
+                idx = stripe.find(hash, chars, start, length);
+            } finally {
+                stripe.lock.unlockRead(readStamp);
+            }
+        }
+        if (idx >= 0) {
+            return idx;
+        }
+
+        // New id
+        final byte[] key = new byte[length];
+        for (int i = 0; i < length; i++) {
+            key[i] = (byte) chars.charAt(start + i);
+        }
+        return this.idOf(key, 0, length);
+    }
+
+    public int idOf(String deviceId) {
+        // Sanity check
+        if (Objects.isNull(deviceId)) {
+            String errMsg = "Device Id is NULL";
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        return this.idOf(deviceId, 0, deviceId.length());
+    }
+
+    /**
+     * @return device id of the index
+     */
+    public String nameOf(int idx) {
+        final String[] names = this.names;
+        if (idx >= 0 && idx < names.length && Objects.nonNull(names[idx])) {
+            return names[idx];
+        }
+
+        final byte[] key = this.keyOf(idx);
+        final String name = new String(key, StandardCharsets.UTF_8);
+        synchronized (this) {
+            this.names[idx] = name;
+        }
+        return name;
+    }
+
+    /**
+     * @return raw bytes of the device id of the index, not to be modified
+     */
+    public byte[] keyOf(int idx) {
+        final byte[][] keys = this.keys;
+        if (idx >= 0 && idx < keys.length && Objects.nonNull(keys[idx])) {
+            return keys[idx];
+        }
+
+        // Array replaced by a concurrent registration
+        synchronized (this) {
+            if (idx < 0 || idx >= this.size) {
+                String errMsg = String.format("UNKNOWN device index - %s", idx);
+                LOGGER.error(errMsg);
+                throw new ValidationException(errMsg);
+            }
+            return this.keys[idx];
+        }
+    }
+
+    /**
+     * @return no. of device ids, indexes are below it
+     */
+    public synchronized int size() {
+        return this.size;
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    private synchronized int register(byte[] key) {
+        final int idx = this.size;
+        if (idx == this.keys.length) {
+            final int capacity = idx + (idx >> 1);
+            this.keys = Arrays.copyOf(this.keys, capacity);
+            this.names = Arrays.copyOf(this.names, capacity);
+        }
+
+        this.keys[idx] = key;
+        this.size = idx + 1;
+        return idx;
+    }
+
+    /**
+     * FNV-1a, over the bytes or over the ASCII chars alike.
+     */
+    private static int hash(byte[] bytes, int offset, int length) {
+        int h = 0x811c9dc5;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = (h ^ (bytes[i] & 0xff)) * 0x01000193;
+        }
+        return DeviceDictionary.spread(h);
+    }
+
+    private static int hash(CharSequence chars, int start, int end) {
+        int h = 0x811c9dc5;
+        for (int i = start; i < end; i++) {
+            h = (h ^ chars.charAt(i)) * 0x01000193;
+        }
+        return DeviceDictionary.spread(h);
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+
+    // Stripe
+    // ------------------------------------------------------------------------
+
+    /**
+     * Open addressing table of a stripe, linear probing, at most half full. Slots hold the index plus one,
+     * <code>0</code> is empty.
+     */
+    private static final class Stripe {
+
+        private final StampedLock lock = new StampedLock();
+
+        private Table table = new Table(INITIAL_STRIPE_CAPACITY);
+        private int count = 0;
+
+        private int find(int hash, byte[] bytes, int offset, int length) {
+            final Table table = this.table;
+            final int mask = table.slots.length - 1;
+            for (int slot = (hash >>> 6) & mask;; slot = (slot + 1) & mask) {
+                final int entry = table.slots[slot];
+                if (entry == 0) {
+                    return -1;
+                }
+
+                final byte[] key = table.keys[slot];
+                if (table.hashes[slot] == hash && Objects.nonNull(key) && key.length == length
+                        && Arrays.equals(key, 0, length, bytes, offset, offset + length)) {
+                    return entry - 1;
+                }
+            }
+        }
+
+        private int find(int hash, CharSequence chars, int start, int length) {
+            final Table table = this.table;
+            final int mask = table.slots.length - 1;
+            for (int slot = (hash >>> 6) & mask;; slot = (slot + 1) & mask) {
+                final int entry = table.slots[slot];
+                if (entry == 0) {
+                    return -1;
+                }
+
+                final byte[] key = table.keys[slot];
+                if (table.hashes[slot] == hash && Objects.nonNull(key) && key.length == length
+                        && Stripe.equals(key, chars, start)) {
+                    return entry - 1;
+                }
+            }
+        }
+
+        /**
+         * Called under the write lock.
+         */
+        private void insert(int hash, byte[] key, int idx) {
+            if (2 * (this.count + 1) > this.table.slots.length) {
+                this.resize();
+            }
+
+            Stripe.put(this.table, hash, key, idx);
+            this.count++;
+        }
+
+        private void resize() {
+            final Table old = this.table;
+            final Table table = new Table(old.slots.length * 2);
+            for (int slot = 0; slot < old.slots.length; slot++) {
+                if (old.slots[slot] != 0) {
+                    Stripe.put(table, old.hashes[slot], old.keys[slot], old.slots[slot] - 1);
+                }
+            }
+
+            // Readers see the old or the new table, both complete
+            this.table = table;
+        }
+
+        private static void put(Table table, int hash, byte[] key, int idx) {
+            final int mask = table.slots.length - 1;
+            int slot = (hash >>> 6) & mask;
+            while (table.slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+
+            table.hashes[slot] = hash;
+            table.keys[slot] = key;
+            table.slots[slot] = idx + 1;
+        }
+
+        private static boolean equals(byte[] key, CharSequence chars, int start) {
+            for (int i = 0; i < key.length; i++) {
+                if ((key[i] & 0xff) != chars.charAt(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Table {
+
+        private final int[] slots;
+        private final int[] hashes;
+        private final byte[][] keys;
+
+        private Table(int capacity) {
+            this.slots = new int[capacity];
+            this.hashes = new int[capacity];
+            this.keys = new byte[capacity][];
+        }
+    }
+
+}
@@ -0,0 +1,247 @@
+package Csv;
+
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import Ignite.ValidationException;
+
+
+/**
+ * Open addressing map of per-device state : device index to a timestamp and a latitude / longitude, e.g. - the end
+ * of the last trip of the device.
+ *
+ * <p>
+ * Keys and values live in parallel primitive arrays, so there are no entry objects, no boxing and no chains : a
+ * lookup hashes the key and probes the key array linearly, and the values are read at the same slot. Removal shifts
+ * the following entries back, so there are no tombstones. Not thread safe, see {@link ConcurrentDeviceStateMap}.
+ * </p>
+ */
+public class DeviceStateMap {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeviceStateMap.class);
+
+    /** Marks an empty slot, not a valid key */
+    public static final int EMPTY = Integer.MIN_VALUE;
+
+    /** Value of {@link #getTimestamp(int)} for a missing key */
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private long[] timestamps;
+    private double[] latitudes;
+    private double[] longitudes;
+
+    private int mask;
+    private int size = 0;
+    private int resizeAt;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    public DeviceStateMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize no. of devices expected, the map grows beyond it
+     */
+    public DeviceStateMap(int expectedSize) {
+        super();
+
+        this.allocate(DeviceStateMap.capacityFor(Math.max(4, expectedSize)));
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    public void put(int key, long timestamp, double latitude, double longitude) {
+        // Sanity check
+        if (key == EMPTY) {
+            String errMsg = String.format("INVALID key - %s", key);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        int slot = this.slotOf(key);
+        if (this.keys[slot] == EMPTY) {
+            if (this.size >= this.resizeAt) {
+                this.allocateAndRehash(this.keys.length * 2);
+                slot = this.slotOf(key);
+            }
+            this.keys[slot] = key;
+            this.size++;
+        }
+
+        this.timestamps[slot] = timestamp;
+        this.latitudes[slot] = latitude;
+        this.longitudes[slot] = longitude;
+    }
+
+    public boolean contains(int key) {
+        return this.keys[this.slotOf(key)] == key && key != EMPTY;
+    }
+
+    /**
+     * @return timestamp of the device, {@link #NO_TIMESTAMP} if missing
+     */
+    public long getTimestamp(int key) {
+        final int slot = this.slotOf(key);
+        return this.keys[slot] == EMPTY ? NO_TIMESTAMP : this.timestamps[slot];
+    }
+
+    /**
+     * @return latitude of the device, <code>NaN</code> if missing
+     */
+    public double getLatitude(int key) {
+        final int slot = this.slotOf(key);
+        return this.keys[slot] == EMPTY ? Double.NaN : this.latitudes[slot];
+    }
+
+    /**
+     * @return longitude of the device, <code>NaN</code> if missing
+     */
+    public double getLongitude(int key) {
+        final int slot = this.slotOf(key);
+        return this.keys[slot] == EMPTY ? Double.NaN : this.longitudes[slot];
+    }
+
+    /**
+     * @return state of the device as a ping, <code>null</code> if missing
+     */
+    public PingBean get(int key) {
+        final int slot = this.slotOf(key);
+        if (this.keys[slot] == EMPTY) {
+            return null;
+        }
+
+        return new PingBean(key, this.timestamps[slot], this.latitudes[slot], this.longitudes[slot]);
+    }
+
+    /**
+     * @return <code>true</code> if the key was present
+     */
+    public boolean remove(int key) {
+        int slot = this.slotOf(key);
+        if (this.keys[slot] == EMPTY) {
+            return false;
+        }
+
+        // Backward shift : move back the following entries that probed past the freed slot
+        for (int next = (slot + 1) & this.mask; this.keys[next] != EMPTY; next = (next + 1) & this.mask) {
+            final int home = DeviceStateMap.hash(this.keys[next]) & this.mask;
+            if (((next - home) & this.mask) >= ((next - slot) & this.mask)) {
+                this.move(next, slot);
+                slot = next;
+            }
+        }
+
+        this.keys[slot] = EMPTY;
+        this.size--;
+        return true;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(this.keys, EMPTY);
+        this.size = 0;
+    }
+
+    /**
+     * Visits every entry, in no particular order.
+     */
+    public void forEach(Visitor visitor) {
+        for (int slot = 0; slot < this.keys.length; slot++) {
+            if (this.keys[slot] != EMPTY) {
+                visitor.visit(this.keys[slot], this.timestamps[slot], this.latitudes[slot], this.longitudes[slot]);
+            }
+        }
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * @return slot of the key, or the empty slot where it would go
+     */
+    private int slotOf(int key) {
+        int slot = DeviceStateMap.hash(key) & this.mask;
+        while (this.keys[slot] != key && this.keys[slot] != EMPTY) {
+            slot = (slot + 1) & this.mask;
+        }
+        return slot;
+    }
+
+    private void move(int from, int to) {
+        this.keys[to] = this.keys[from];
+        this.timestamps[to] = this.timestamps[from];
+        this.latitudes[to] = this.latitudes[from];
+        this.longitudes[to] = this.longitudes[from];
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new int[capacity];
+        Arrays.fill(this.keys, EMPTY);
+        this.timestamps = new long[capacity];
+        this.latitudes = new double[capacity];
+        this.longitudes = new double[capacity];
+
+        this.mask = capacity - 1;
+        this.resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void allocateAndRehash(int capacity) {
+        final int[] oldKeys = this.keys;
+        final long[] oldTimestamps = this.timestamps;
+        final double[] oldLatitudes = this.latitudes;
+        final double[] oldLongitudes = this.longitudes;
+
+        this.allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                final int slot = this.slotOf(oldKeys[i]);
+                this.keys[slot] = oldKeys[i];
+                this.timestamps[slot] = oldTimestamps[i];
+                this.latitudes[slot] = oldLatitudes[i];
+                this.longitudes[slot] = oldLongitudes[i];
+            }
+        }
+    }
+
+    private static int capacityFor(int expectedSize) {
+        final int min = (int) Math.ceil(expectedSize / LOAD_FACTOR);
+        return Integer.highestOneBit(min - 1) << 1;
+    }
+
+    /**
+     * Fibonacci hashing, dense device indexes spread over the table.
+     */
+    static int hash(int key) {
+        final int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+
+    // Visitor
+    // ------------------------------------------------------------------------
+
+    @FunctionalInterface
+    public interface Visitor {
+
+        void visit(int key, long timestamp, double latitude, double longitude);
+    }
+
+}
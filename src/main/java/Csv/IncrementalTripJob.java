@@ -0,0 +1,325 @@
+package Csv;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import Ignite.FileUtil;
+import Ignite.Metrics;
+import Ignite.ValidationException;
+
+
+/**
+ * Incremental, checkpointed processing of a directory of ping files into a trips CSV.
+ *
+ * <p>
+ * Files are processed one at a time in path order and every file is a checkpoint : its trips are appended to the
+ * output, the last ping of every device is saved to <code>&lt;output&gt;.state</code> and the file is recorded in
+ * the {@link ProcessedFilesManifest}. Reruns skip the files whose size and last modified time are unchanged, and
+ * continue the trips of every device from its saved last ping, so the output is the same as processing all the
+ * files in one go. A grown file continues after the lines consumed only if it starts with the content it was
+ * processed with, otherwise it is processed again from its start.
+ * </p>
+ *
+ * <p>
+ * A crashed run resumes from the last checkpoint : output written after it gets truncated and the files after it
+ * get processed again.
+ * </p>
+ */
+public class IncrementalTripJob {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IncrementalTripJob.class);
+
+    public static final String STATE_SUFFIX = ".state";
+    public static final String STATE_TMP_SUFFIX = ".state.tmp";
+
+    private static final String STATE_CHECKPOINT_PREFIX = "#Checkpoint\t";
+
+    private final String outputFilePath;
+    private final Path statePath;
+    private final Path stateTmpPath;
+
+    private ProcessedFilesManifest manifest;
+
+    /** Last ping of every device, by device index */
+    private PingBean[] lastPings;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    public IncrementalTripJob(String outputFilePath) {
+        super();
+
+        this.outputFilePath = FileUtil.getValidPath(outputFilePath).toAbsolutePath().toString();
+        this.statePath = FileUtil.getValidPath(this.outputFilePath + STATE_SUFFIX);
+        this.stateTmpPath = FileUtil.getValidPath(this.outputFilePath + STATE_TMP_SUFFIX);
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Processes the new and changed files of the input directory.
+     *
+     * @param inputDirectory directory of the gzip ping files
+     *
+     * @return no. of files processed in this run
+     */
+    public int run(String inputDirectory) throws IOException {
+        final long startTs = System.currentTimeMillis();
+
+        // Resume
+        this.recover();
+
+        // Input Files in Order
+        final List<String> filePaths = FileUtil.listFilesRecursivelyFromPath(inputDirectory);
+        Collections.sort(filePaths);
+
+        int processed = 0;
+        try (TripScheduler tripScheduler = new TripScheduler(new TripProcessor())) {
+            for (String filePath : filePaths) {
+                if (this.process(tripScheduler, FileUtil.getValidPath(filePath))) {
+                    processed++;
+                }
+            }
+        }
+
+        LOGGER.info("Incremental run processed {} of {} files in {} ms", processed, filePaths.size(),
+                System.currentTimeMillis() - startTs);
+        return processed;
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Brings output, state and manifest back to the last checkpoint.
+     */
+    private void recover() throws IOException {
+        this.manifest = ProcessedFilesManifest.load(this.outputFilePath);
+        final Path outputPath = FileUtil.getValidPath(this.outputFilePath);
+
+        // Output not written by this job must not be truncated
+        if (!this.manifest.exists() && Files.exists(outputPath) && Files.size(outputPath) > 0) {
+            String errMsg = String.format("Output file exists without a manifest - %s", this.outputFilePath);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+        this.manifest.create();
+
+        final long committedOffset = this.manifest.getCommittedOutputOffset();
+
+        // State saved for a checkpoint : roll forward if the manifest committed it, otherwise roll back. Checkpoints
+        // are matched by id, the output offset does not move for a file without trips
+        if (Files.exists(this.stateTmpPath)) {
+            if (IncrementalTripJob.readStateCheckpoint(this.stateTmpPath) == this.manifest.getCommittedSequence()) {
+                Files.move(this.stateTmpPath, this.statePath, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                Files.delete(this.stateTmpPath);
+            }
+        }
+
+        // Trips written after the last checkpoint
+        final long outputSize = Files.exists(outputPath) ? Files.size(outputPath) : 0l;
+        if (outputSize > committedOffset) {
+            LOGGER.warn("Truncating output - {} from {} to the last checkpoint at {} bytes", this.outputFilePath,
+                    outputSize, committedOffset);
+            try (FileChannel channel = FileChannel.open(outputPath, StandardOpenOption.WRITE)) {
+                channel.truncate(committedOffset);
+            }
+        } else if (outputSize < committedOffset) {
+            String errMsg = String.format("Output file - %s is shorter than its last checkpoint", this.outputFilePath);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        this.lastPings = this.loadState();
+    }
+
+    /**
+     * @return <code>true</code> if the file had new pings to process
+     */
+    private boolean process(TripScheduler tripScheduler, Path filePath) throws IOException {
+        final String filePathStr = filePath.toAbsolutePath().toString();
+        final BasicFileAttributes attrs = Files.readAttributes(filePath, BasicFileAttributes.class);
+        final long size = attrs.size();
+        final long lastModified = attrs.lastModifiedTime().toMillis();
+
+        // Unchanged, known without reading the file
+        final ProcessedFilesManifest.Entry previous = this.manifest.get(filePathStr);
+        if (Objects.nonNull(previous) && previous.isUnchanged(size, lastModified)) {
+            return false;
+        }
+
+        // Touched but same content
+        final long checksum = ProcessedFilesManifest.checksum(filePath);
+        if (Objects.nonNull(previous) && previous.getChecksum() == checksum) {
+            this.manifest.commit(new ProcessedFilesManifest.Entry(filePathStr, size, lastModified, checksum,
+                    previous.getPingCount(), previous.getLastOffset(), this.manifest.getCommittedOutputOffset(),
+                    this.manifest.nextSequence()));
+            return false;
+        }
+
+        // Appended files continue after the lines consumed earlier, their earlier content unchanged
+        long skipLines = 0l;
+        long pingCount = 0l;
+        if (Objects.nonNull(previous)) {
+            if (size > previous.getSize()
+                    && ProcessedFilesManifest.checksum(filePath, previous.getSize()) == previous.getChecksum()) {
+                skipLines = previous.getLastOffset();
+                pingCount = previous.getPingCount();
+            } else {
+                LOGGER.warn("File - {} was rewritten since it was processed, processing it again from its start, "
+                        + "output may contain its stale trips", filePathStr);
+            }
+        }
+
+        // Trips
+        final List<PingBean> pings = new Main().extract(filePathStr, skipLines);
+        final List<TripBean> trips = this.prepareTrips(tripScheduler, pings);
+
+        // Checkpoint : output, state, manifest
+        final long outputOffset = CsvWriter.appendToCSV(trips, this.outputFilePath);
+        final long sequence = this.manifest.nextSequence();
+        this.saveState(sequence);
+        this.manifest.commit(new ProcessedFilesManifest.Entry(filePathStr, size, lastModified, checksum,
+                pingCount + pings.size(), skipLines + pings.size(), outputOffset, sequence));
+        Files.move(this.stateTmpPath, this.statePath, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+        LOGGER.info("Processed file - {} :: {} pings, {} trips", filePathStr, pings.size(), trips.size());
+        return true;
+    }
+
+    private List<TripBean> prepareTrips(TripScheduler tripScheduler, List<PingBean> pings) {
+        final List<List<PingBean>> devicePings = PingBean.groupByDevice(pings);
+        this.ensureCapacity(DeviceDictionary.shared().size());
+
+        final PingBean[] lastPings = this.lastPings;
+        final List<TripBean> trips = tripScheduler.prepareTrips(devicePings, idx -> lastPings[idx]);
+
+        // Latest ping of every device, of those kept by the trip processor
+        for (List<PingBean> group : devicePings) {
+            final PingBean latest = PingBean.latestOf(group);
+            if (Objects.isNull(latest)) {
+                continue;
+            }
+
+            final PingBean previous = this.lastPings[latest.getDeviceIdx()];
+            if (Objects.isNull(previous) || previous.getTimestamp() <= latest.getTimestamp()) {
+                this.lastPings[latest.getDeviceIdx()] = latest;
+            }
+        }
+
+        return trips;
+    }
+
+    private void ensureCapacity(int devices) {
+        if (this.lastPings.length < devices) {
+            this.lastPings = Arrays.copyOf(this.lastPings, Math.max(devices, this.lastPings.length * 2));
+        }
+    }
+
+    private PingBean[] loadState() throws IOException {
+        this.lastPings = new PingBean[DeviceDictionary.shared().size()];
+        if (Files.notExists(this.statePath)) {
+            return this.lastPings;
+        }
+
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(this.statePath, StandardCharsets.UTF_8)) {
+            for (String line; (line = reader.readLine()) != null;) {
+                if (line.startsWith("#")) {
+                    continue;
+                }
+
+                final String[] columns = line.split("\t");
+                final PingBean ping = new PingBean(columns[0], Long.parseLong(columns[1]),
+                        Double.parseDouble(columns[2]), Double.parseDouble(columns[3]));
+                this.ensureCapacity(ping.getDeviceIdx() + 1);
+                this.lastPings[ping.getDeviceIdx()] = ping;
+                count++;
+            }
+        }
+
+        LOGGER.info("Loaded last pings of {} devices", count);
+        return this.lastPings;
+    }
+
+    /**
+     * @param sequence id of the checkpoint the state is saved for, see {@link ProcessedFilesManifest#nextSequence()}
+     */
+    private void saveState(long sequence) throws IOException {
+        try (FileOutputStream fos = new FileOutputStream(this.stateTmpPath.toFile());
+                Writer writer = new BufferedWriter(new OutputStreamWriter(fos, StandardCharsets.UTF_8))) {
+            writer.append(STATE_CHECKPOINT_PREFIX).append(Long.toString(sequence)).append("\n");
+
+            for (PingBean ping : this.lastPings) {
+                if (Objects.isNull(ping)) {
+                    continue;
+                }
+
+                writer.append(ping.getDeviceId()).append("\t") //
+                        .append(Long.toString(ping.getTimestamp())).append("\t") //
+                        .append(Double.toString(ping.getLatitude())).append("\t") //
+                        .append(Double.toString(ping.getLongitude())).append("\n");
+            }
+
+            writer.flush();
+            fos.getFD().sync();
+        }
+    }
+
+    /**
+     * @return id of the checkpoint the state was saved for, <code>-1</code> if unknown
+     */
+    private static long readStateCheckpoint(Path statePath) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(statePath, StandardCharsets.UTF_8)) {
+            final String line = reader.readLine();
+            if (Objects.isNull(line) || !line.startsWith(STATE_CHECKPOINT_PREFIX)) {
+                return -1l;
+            }
+
+            return Long.parseLong(line.substring(STATE_CHECKPOINT_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            // Torn write
+            return -1l;
+        }
+    }
+
+
+    // Main
+    // ------------------------------------------------------------------------
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage : IncrementalTripJob <input directory> <output csv>");
+            return;
+        }
+
+        new IncrementalTripJob(args[1]).run(args[0]);
+        Metrics.logSummary();
+    }
+
+}
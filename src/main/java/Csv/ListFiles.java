@@ -1,21 +1,20 @@
 package Csv;
 
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import Ignite.FileListing;
+import Ignite.FileUtil;
+import Ignite.IngestPrefetcher;
+import Ignite.IngestSource;
 
 
 public class ListFiles {
-    
-    
 
     public static List<TripBean> getTrips(String rootDirectory) {
         // Specify the root directory here
@@ -32,48 +31,67 @@ public class ListFiles {
         }
 
 
-        final Map<String, List<PingBean>> devicePingsMap = pings.stream() //
-                .filter(Objects::nonNull) //
-                .collect(Collectors.groupingBy(c -> c.getDeviceId()));
+        final List<List<PingBean>> devicePings = PingBean.groupByDevice(pings);
 
         pings = null; // Garbage Collectible
 
-        devicePingsMap.entrySet().parallelStream().forEach(e -> {
-            String deviceId = e.getKey();
-            List<PingBean> devicePings = e.getValue();
-
-            final long startTs = System.currentTimeMillis();
-            List<TripBean> trips = tripProcessor.prepareTrips(deviceId, devicePings);
-            System.out.println("Trips for a Device :" + trips.size());
-            tripss.addAll(trips);
-            System.out.println("Trips:" + tripss.size());
-        });
-        return tripss;
+        return prepareTrips(tripProcessor, devicePings, tripss);
     }
 
-    public static List<PingBean> iterateDirectory(Path path) throws IOException {
-        try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
-            Iterator<Path> iterator = stream.iterator();
-
-            List<PingBean> pings = new ArrayList<>();
-            while (iterator.hasNext()) {
-                Path entry = iterator.next();
-                if (Files.isDirectory(entry)) {
-                    // Recursively iterate through subdirectories
-                    iterateDirectory(entry);
-                } else {
-                    // Print the file name
-                    System.out.println(entry.toAbsolutePath() + "Extracting pings from here : ");
-                    Main main = new Main();
-                    pings.addAll(main.extract(entry.toAbsolutePath().toString()));
-                    System.out.println(pings.size());
-                    System.out.println("Done collecting Pings.");
+    /**
+     * Prepares the trips from the objects of an {@link IngestSource}. The next objects get downloaded while the
+     * pings of the current one are being extracted.
+     *
+     * @param source source of the ping files
+     * @param bucket bucket name
+     * @param prefix key prefix of the ping files
+     * @param stagingDirectory local directory to download the files to
+     */
+    public static List<TripBean> getTrips(IngestSource source, String bucket, String prefix,
+            String stagingDirectory) {
+        TripProcessor tripProcessor = new TripProcessor();
+
+        List<PingBean> pings = new ArrayList<>();
+        List<TripBean> tripss = new ArrayList<>();
+        try (IngestPrefetcher prefetcher = new IngestPrefetcher(source, source.list(bucket, prefix),
+                stagingDirectory)) {
+            Main main = new Main();
+            while (prefetcher.hasNext()) {
+                final String localFilePath = prefetcher.next().toAbsolutePath().toString();
+                try {
+                    pings.addAll(main.extract(localFilePath));
+                } finally {
+                    FileUtil.deleteFile(localFilePath);
                 }
             }
-            return pings;
+        } catch (IOException e) {
+            e.printStackTrace();
         }
+
+        final List<List<PingBean>> devicePings = PingBean.groupByDevice(pings);
+
+        pings = null; // Garbage Collectible
+
+        return prepareTrips(tripProcessor, devicePings, tripss);
+    }
+
+    private static List<TripBean> prepareTrips(TripProcessor tripProcessor, List<List<PingBean>> devicePings,
+            List<TripBean> tripss) {
+        // Devices processed concurrently, large devices split over the workers
+        try (TripScheduler tripScheduler = new TripScheduler(tripProcessor)) {
+            tripss.addAll(tripScheduler.prepareTrips(devicePings));
+        }
+        return tripss;
     }
 
+    public static List<PingBean> iterateDirectory(Path path) throws IOException {
+        // Files of all the subdirectories, read on the I/O threads while they are listed and parsed on the CPU pool
+        try (Stream<Path> files = FileListing.from(path).stream(); PingExtractor extractor = new PingExtractor()) {
+            return extractor.extract(files);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
 
 
 }
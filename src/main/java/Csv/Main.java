@@ -5,70 +5,162 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.io.CountingInputStream;
+
 import Ignite.FileUtil;
+import Ignite.Metrics;
 
 
 public class Main {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Main.class);
 
+    private static final Metrics.Timer EXTRACT_TIMER = Metrics.timer("stage.extract");
+    private static final Metrics.Counter FILES = Metrics.counter("files.extracted");
+    private static final Metrics.Counter BYTES = Metrics.counter("bytes.decompressed");
+
+    /** Max. no. of chunks of a stream waiting for or being parsed on the pool, ~1 MB each */
+    private static final int CHUNKS_IN_FLIGHT = 2 * Runtime.getRuntime().availableProcessors();
+
+    /** <code>null</code> if none */
+    private final Consumer<List<PingBean>> pingSink;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    public Main() {
+        this(null);
+    }
+
+    /**
+     * @param pingSink consumer of the pings of every parsed chunk, called on the parsing threads, e.g. - a
+     *            {@link TileHeatmap}, <code>null</code> if none
+     */
+    public Main(Consumer<List<PingBean>> pingSink) {
+        super();
+
+        this.pingSink = pingSink;
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
     public List<PingBean> extract(final String localFilepath) {
+        return this.extract(localFilepath, 0);
+    }
 
-        try {
-            // Uncompress the file
-            final String dataFilePath = FileUtil.uncompressGzip(localFilepath);
+    /**
+     * Extracts the pings of the file, skipping the data lines consumed earlier.
+     *
+     * @param localFilepath gzip file path
+     * @param skipLines no. of data lines (after the header) to skip
+     *
+     * @return pings of the remaining lines
+     */
+    public List<PingBean> extract(final String localFilepath, final long skipLines) {
+
+        // Inflate the file while its pings are parsed, without an uncompressed copy on disk
+        try (InputStream dataStream = FileUtil.openGzip(localFilepath)) {
 
             // Extract Ping Data
             try {
-                return this.preparePings(dataFilePath);
+                return this.preparePings(dataStream, localFilepath, skipLines);
             } catch (Exception e) {
-                String errMsg = String.format("Failed while extracting ping data for file[cloud file path] - {}",
-                        "cloudFilepath");
+                String errMsg = String.format("Failed while extracting ping data for file[cloud file path] - %s",
+                        localFilepath);
                 LOGGER.error(errMsg);
                 throw new RuntimeException(errMsg, e);
-            } finally {
-                FileUtil.deleteFile(dataFilePath);
             }
         } catch (IOException e) {
-            String errMsg = String.format("Failed to uncompress file[cloud file path] - %s", "cloudFilepath");
+            String errMsg = String.format("Failed to uncompress file[cloud file path] - %s", localFilepath);
             LOGGER.error(errMsg, e);
             throw new RuntimeException(errMsg, e);
         }
     }
 
+    /**
+     * Extracts the pings of the gzip file, read on the calling thread and parsed on the pool, see
+     * {@link #parseAsRead(InputStream, long, Executor)}, e.g. - by {@link PingExtractor}.
+     *
+     * @param localFilepath gzip file path
+     * @param skipLines no. of data lines (after the header) to skip
+     * @param pool parsing pool
+     */
+    List<PingBean> extract(final String localFilepath, final long skipLines, final Executor pool)
+            throws IOException {
+        try (InputStream dataStream = FileUtil.openGzip(localFilepath)) {
+            final CountingInputStream countingStream = new CountingInputStream(dataStream);
+            final List<PingBean> pings = this.parseAsRead(countingStream, skipLines, pool);
+            BYTES.add(countingStream.getCount());
+            FILES.increment();
+            return pings;
+        }
+    }
+
     public List<PingBean> preparePings(final String filePath) throws Exception {
+        return this.preparePings(filePath, 0);
+    }
+
+    public List<PingBean> preparePings(final String filePath, final long skipLines) throws Exception {
         // Sanity Check
         if (filePath.isBlank()) {
             LOGGER.info("Filepath is BLANK. Exiting the ping processor.");
             return new ArrayList<>();
         }
 
-        // Start Process
-        final long startTs = System.currentTimeMillis();
-        LOGGER.info("Ping processor started extracting ping data from file - {}", filePath);
+        try (InputStream dataStream = Main.openFile(filePath)) {
+            return this.preparePings(dataStream, filePath, skipLines);
+        }
+    }
 
-        // Process Files
-        final List<List<String>> rawPingDataBatchList = this.extractDataFromFile(filePath, 500, true);
+    /**
+     * Prepares the pings from the (uncompressed) data stream.
+     *
+     * @param dataStream ping data, a header line followed by the data lines
+     * @param source name of the source, for logging
+     * @param skipLines no. of data lines (after the header) to skip
+     */
+    public List<PingBean> preparePings(final InputStream dataStream, final String source, final long skipLines)
+            throws Exception {
+        // Start Process
+        final long startNs = System.nanoTime();
+        LOGGER.info("Ping processor started extracting ping data from file - {}", source);
 
-        final List<PingBean> pings = new ArrayList<>(rawPingDataBatchList.size() * 500);
-        rawPingDataBatchList.parallelStream() //
-                .map(l -> constructPingBeans(l)) //
-                .forEach(l -> {
-                    pings.addAll(l);
-                });
+        // Process Files : chunks of whole lines, after the header and the lines consumed earlier
+        final CountingInputStream countingStream = new CountingInputStream(dataStream);
+        final List<PingBean> pings;
+        try {
+            pings = this.parseAsRead(countingStream, skipLines, ForkJoinPool.commonPool());
+        } catch (IOException e) {
+            LOGGER.info("Exception occurred while reading the file - {}", source, e);
+            throw new Exception(e.getMessage());
+        }
+        BYTES.add(countingStream.getCount());
 
-        final long endTs = System.currentTimeMillis();
-        final long timeDiff = endTs - startTs;
-        LOGGER.info("Ping processor finished extracting ping data in {} ms", timeDiff);
+        EXTRACT_TIMER.recordSince(startNs);
+        FILES.increment();
+        LOGGER.info("Ping processor finished extracting ping data in {} ms",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs));
 
         return pings;
     }
@@ -82,26 +174,17 @@ public class Main {
         // Verify.isTrue(batchSize > 0, "#extractDataFromFile :: batch size is INVALID");
 
         // Prepare IO to read file
-        final File file = new File(inFilePathStr);
-        FileInputStream fis = null;
-        try {
-            fis = new FileInputStream(file);
+        final FileInputStream fis = Main.openFile(inFilePathStr);
 
-            if (Objects.isNull(fis)) {
-                String errMsg = String.format("Failed to connect to stream to read file -  %s", inFilePathStr);
-                LOGGER.error(errMsg);
-                throw new Exception(errMsg);
-            }
-        } catch (FileNotFoundException e) {
-            String errMsg = String.format("Exception occurred while reading the file - %s", inFilePathStr);
-            LOGGER.info(errMsg);
-            throw new Exception(errMsg);
-        }
+        return this.extractDataFromStream(fis, inFilePathStr, batchSize, skipHeader);
+    }
 
+    public List<List<String>> extractDataFromStream(InputStream dataStream, String source, int batchSize,
+            boolean skipHeader) throws Exception {
         final List<List<String>> rawPingDataBatchList = new ArrayList<>();
 
         // Read data from file
-        final InputStreamReader isr = new InputStreamReader(fis, Charset.defaultCharset());
+        final InputStreamReader isr = new InputStreamReader(dataStream, Charset.defaultCharset());
         try (BufferedReader reader = new BufferedReader(isr);) {
             // Skip Header
             if (skipHeader) {
@@ -133,7 +216,7 @@ public class Main {
                 rawPingDataBatchList.add(data);
             }
         } catch (IOException e) {
-            LOGGER.info("Exception occurred while reading the file - {}", inFilePathStr, e);
+            LOGGER.info("Exception occurred while reading the file - {}", source, e);
             throw new Exception(e.getMessage());
         }
         return rawPingDataBatchList;
@@ -141,23 +224,81 @@ public class Main {
 
 
 
-    private List<PingBean> constructPingBeans(List<String> data) {
-        // Beans
-        final List<PingBean> beans = new ArrayList<>(data.size());
-        for (String line : data) {
-            LOGGER.debug("data line :: {}", line);
-            String[] dataArray = line.split("\t"); // Split by TAB
+    /**
+     * Reads the data stream in chunks of whole lines, see {@link PingParser#readChunks(InputStream, long, int,
+     * Consumer)}, every chunk parsed on the pool as soon as it is read, so parsing overlaps the reading and inflation
+     * of the rest of the stream. At most {@link #CHUNKS_IN_FLIGHT} chunks wait for or are parsed on the pool, past it
+     * the reading thread parses the chunk itself, so memory stays bounded and a reader on the pool cannot starve it.
+     *
+     * @param dataStream ping data, a header line followed by the data lines
+     * @param skipLines no. of data lines (after the header) to skip
+     * @param pool parsing pool
+     *
+     * @return pings of the chunks, in order
+     */
+    List<PingBean> parseAsRead(final InputStream dataStream, final long skipLines, final Executor pool)
+            throws IOException {
+        final Semaphore chunksInFlight = new Semaphore(CHUNKS_IN_FLIGHT);
+        final List<CompletableFuture<List<PingBean>>> chunkPings = new ArrayList<>();
+        PingParser.readChunks(dataStream, 1 + skipLines, PingParser.DEFAULT_CHUNK_SIZE, chunk -> {
+            if (chunksInFlight.tryAcquire()) {
+                chunkPings.add(CompletableFuture.supplyAsync(() -> this.parse(chunk), pool)
+                        .whenComplete((pings, e) -> chunksInFlight.release()));
+            } else {
+                chunkPings.add(CompletableFuture.completedFuture(this.parse(chunk)));
+            }
+        });
+
+        final List<PingBean> pings = new ArrayList<>();
+        for (CompletableFuture<List<PingBean>> future : chunkPings) {
+            try {
+                pings.addAll(future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return pings;
+    }
+
+    /**
+     * Pings of the chunk, handed to the ping sink on the parsing thread.
+     */
+    List<PingBean> parse(PingParser.Chunk chunk) {
+        final List<PingBean> pings = PingParser.parse(chunk);
+        if (Objects.nonNull(this.pingSink)) {
+            this.pingSink.accept(pings);
+        }
+        return pings;
+    }
 
-            String deviceId = dataArray[1];
-            long timestamp = Long.parseLong(dataArray[0]) * 1000; // Convert seconds to milliseconds
-            double latitude = Double.parseDouble(dataArray[3]);
-            double longitude = Double.parseDouble(dataArray[4]);
+    private static FileInputStream openFile(String inFilePathStr) throws Exception {
+        final File file = new File(inFilePathStr);
+        FileInputStream fis = null;
+        try {
+            fis = new FileInputStream(file);
 
-            // Bean
-            PingBean bean = new PingBean(deviceId, timestamp, latitude, longitude);
-            beans.add(bean);
+            if (Objects.isNull(fis)) {
+                String errMsg = String.format("Failed to connect to stream to read file -  %s", inFilePathStr);
+                LOGGER.error(errMsg);
+                throw new Exception(errMsg);
+            }
+        } catch (FileNotFoundException e) {
+            String errMsg = String.format("Exception occurred while reading the file - %s", inFilePathStr);
+            LOGGER.info(errMsg);
+            throw new Exception(errMsg);
         }
 
-        return beans;
+        return fis;
+    }
+
+    /**
+     * Pings of the lines, parsed as the lines of a file are, see {@link PingParser#parse(PingParser.Chunk)}.
+     */
+    List<PingBean> constructPingBeans(List<String> data) {
+        final byte[] bytes = String.join("\n", data).getBytes(StandardCharsets.UTF_8);
+        return PingParser.parse(new PingParser.Chunk(bytes, 0, bytes.length));
     }
 }
@@ -0,0 +1,217 @@
+package Csv;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import Ignite.Coordinate;
+import Ignite.GeoHash;
+import Ignite.LongCountMap;
+import Ignite.Metrics;
+import Ignite.ValidationException;
+import Ignite.WindowedCounts;
+
+
+/**
+ * Origin-destination matrix of trips : counts of trips per origin cell, destination cell and time window, cells the
+ * {@link GeoHash} cells of the start and end coordinates, windows the hour or day of the start timestamp (UTC).
+ *
+ * <p>
+ * Trips are counted as they are prepared, e.g. - as the sink of {@link TripScheduler#streamTrips(List, Consumer)},
+ * so the trips of all the devices are never held together. Counts are kept per thread, see {@link WindowedCounts},
+ * a {@link LongCountMap} per window keyed by the origin and destination cells, and merged when the matrix is read.
+ * </p>
+ */
+public class OdMatrix implements Consumer<List<TripBean>> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OdMatrix.class);
+
+    private static final Metrics.Counter TRIPS_COUNTED = Metrics.counter("od.trips.counted");
+
+    public static final String HEADER = "Window-Start,Origin,Destination,Trips\n";
+
+    /** Default cells, 6 geohash characters, ~1.2 x 0.6 km */
+    public static final int DEFAULT_CELL_BITS = 30;
+
+    public enum Window {
+        HOUR(60 * 60 * 1000l), DAY(24 * 60 * 60 * 1000l);
+
+        private final long millis;
+
+        private Window(long millis) {
+            this.millis = millis;
+        }
+
+        public long startOf(long timestamp) {
+            return Math.floorDiv(timestamp, this.millis) * this.millis;
+        }
+    }
+
+    private final int cellBits;
+    private final Window window;
+
+    /** Counts by window start */
+    private final WindowedCounts counts = new WindowedCounts(1024);
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    public OdMatrix(Window window) {
+        this(DEFAULT_CELL_BITS, window);
+    }
+
+    /**
+     * @param cellBits precision of the cells, see {@link GeoHash#encode(double, double, int)}, at most 31
+     * @param window time window
+     */
+    public OdMatrix(int cellBits, Window window) {
+        super();
+
+        // Sanity checks
+        if (cellBits < 1 || cellBits > 31 || window == null) {
+            String errMsg = String.format("INVALID OD matrix, cell bits - %s, window - %s", cellBits, window);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        this.cellBits = cellBits;
+        this.window = window;
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Counts the trips, thread safe.
+     */
+    @Override
+    public void accept(List<TripBean> trips) {
+        this.counts.count(counter -> {
+            for (TripBean trip : trips) {
+                this.count(counter, trip);
+            }
+        });
+        TRIPS_COUNTED.add(trips.size());
+    }
+
+    public void add(TripBean trip) {
+        this.counts.count(counter -> this.count(counter, trip));
+        TRIPS_COUNTED.increment();
+    }
+
+    /**
+     * @return trips from the origin cell to the destination cell in the window
+     */
+    public long count(long originCell, long destinationCell, long windowStart) {
+        synchronized (this.counts) {
+            final LongCountMap windowCounts = this.counts.merge().get(windowStart);
+            return windowCounts == null ? 0l : windowCounts.get(this.keyOf(originCell, destinationCell));
+        }
+    }
+
+    /**
+     * @return no. of non zero (origin, destination, window) counts
+     */
+    public long size() {
+        synchronized (this.counts) {
+            long size = 0l;
+            for (LongCountMap windowCounts : this.counts.merge().values()) {
+                size += windowCounts.size();
+            }
+            return size;
+        }
+    }
+
+    /**
+     * @return no. of trips counted
+     */
+    public long total() {
+        synchronized (this.counts) {
+            long total = 0l;
+            for (LongCountMap windowCounts : this.counts.merge().values()) {
+                total += windowCounts.total();
+            }
+            return total;
+        }
+    }
+
+    public long originOf(long key) {
+        return key >>> this.cellBits;
+    }
+
+    public long destinationOf(long key) {
+        return key & ((1l << this.cellBits) - 1);
+    }
+
+    public int getCellBits() {
+        return this.cellBits;
+    }
+
+    public Window getWindow() {
+        return this.window;
+    }
+
+    /**
+     * Writes the non zero counts as CSV, ordered by window, origin and destination. Cells are geohash strings if
+     * the precision is a multiple of 5 bits, ids otherwise.
+     */
+    public void write(Path path) throws IOException {
+        synchronized (this.counts) {
+            try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                writer.append(HEADER);
+                for (Map.Entry<Long, LongCountMap> entry : this.counts.merge().entrySet()) {
+                    final String windowStart = Long.toString(entry.getKey());
+                    final LongCountMap windowCounts = entry.getValue();
+                    for (long key : windowCounts.keys()) {
+                        writer.append(windowStart)
+                                .append(',')
+                                .append(this.cellString(this.originOf(key)))
+                                .append(',')
+                                .append(this.cellString(this.destinationOf(key)))
+                                .append(',')
+                                .append(Long.toString(windowCounts.get(key)))
+                                .append('\n');
+                    }
+                }
+            }
+        }
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Counts the trip in the window of its start.
+     */
+    private void count(WindowedCounts.Counter counter, TripBean trip) {
+        counter.increment(this.window.startOf(trip.getStartTimestamp()),
+                this.keyOf(this.cellOf(trip.getStartCoordinateStr()), this.cellOf(trip.getEndCoordinateStr())));
+    }
+
+    private long keyOf(long originCell, long destinationCell) {
+        return (originCell << this.cellBits) | destinationCell;
+    }
+
+    private String cellString(long cell) {
+        return this.cellBits % 5 == 0 ? GeoHash.toBase32(cell, this.cellBits) : Long.toString(cell);
+    }
+
+    private long cellOf(String coordinateStr) {
+        final int comma = coordinateStr.indexOf(',');
+        final double latitude = Coordinate.parseDegrees(coordinateStr, 0, comma);
+        final double longitude = Coordinate.parseDegrees(coordinateStr, comma + 1, coordinateStr.length());
+        return GeoHash.encode(latitude, longitude, this.cellBits);
+    }
+
+}
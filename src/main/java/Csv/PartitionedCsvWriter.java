@@ -0,0 +1,332 @@
+package Csv;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import Ignite.Metrics;
+import Ignite.ValidationException;
+
+
+/**
+ * Writes trips into a CSV per partition instead of a single file, so the output of a multi day run can be read in
+ * parallel : <code>&lt;root&gt;/&lt;yyyyMMdd&gt;/trips.csv</code> by the {@link TripBean#getDateString() date} of the
+ * trip, or <code>&lt;root&gt;/&lt;yyyyMMdd&gt;/trips-&lt;n&gt;.csv</code> when the dates are further split by the
+ * hash of the device id.
+ *
+ * <p>
+ * Every partition has its own buffered writer, opened on its first trip, and its own lock, so threads writing to
+ * different partitions do not contend. At most <code>maxOpenWriters</code> writers are open : the least recently
+ * written partition is flushed and closed past it, and reopened in append mode when it gets trips again. A file is
+ * truncated the first time a writer opens it, so a rerun over the same root replaces the partitions it writes.
+ * Rows are those of {@link CsvWriter}, every file starting with its header.
+ * </p>
+ */
+public class PartitionedCsvWriter implements Consumer<List<TripBean>>, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartitionedCsvWriter.class);
+
+    private static final Metrics.Timer WRITE_TIMER = Metrics.timer("stage.write.partitioned");
+    private static final Metrics.Counter WRITERS_OPENED = Metrics.counter("partitions.writers.opened");
+    private static final Metrics.Counter WRITERS_EVICTED = Metrics.counter("partitions.writers.evicted");
+
+    public static final int DEFAULT_MAX_OPEN_WRITERS = 64;
+
+    private final Path root;
+    private final int devicePartitions;
+    private final int maxOpenWriters;
+
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+
+    /** Partitions with an open writer, least recently written first, guarded by itself */
+    private final LinkedHashMap<String, Partition> openPartitions = new LinkedHashMap<>(16, 0.75f, true);
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    public PartitionedCsvWriter(Path root) {
+        this(root, 1, DEFAULT_MAX_OPEN_WRITERS);
+    }
+
+    /**
+     * @param root output directory
+     * @param devicePartitions no. of files per date, by the hash of the device id, <code>1</code> for a file per date
+     * @param maxOpenWriters max. no. of files open at once
+     */
+    public PartitionedCsvWriter(Path root, int devicePartitions, int maxOpenWriters) {
+        super();
+
+        // Sanity checks
+        if (Objects.isNull(root) || devicePartitions < 1 || maxOpenWriters < 1) {
+            String errMsg = String.format("INVALID partitioned writer, root - %s, device partitions - %s, "
+                    + "max. open writers - %s", root, devicePartitions, maxOpenWriters);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        this.root = root;
+        this.devicePartitions = devicePartitions;
+        this.maxOpenWriters = maxOpenWriters;
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Writes the trips to their partitions, thread safe, e.g. - as the sink of
+     * {@link TripScheduler#streamTrips(List, Consumer)}.
+     *
+     * @throws UncheckedIOException if a partition fails to be written
+     */
+    @Override
+    public void accept(List<TripBean> trips) {
+        try {
+            this.write(trips);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the trips to their partitions, thread safe. Rows are buffered, see {@link #flush()}.
+     */
+    public void write(List<TripBean> trips) throws IOException {
+        final long startNs = System.nanoTime();
+
+        // Trips by Partition, in order
+        final Map<String, List<TripBean>> partitionTrips = new HashMap<>();
+        for (TripBean trip : trips) {
+            partitionTrips.computeIfAbsent(this.partitionOf(trip), p -> new ArrayList<>()).add(trip);
+        }
+
+        for (Map.Entry<String, List<TripBean>> entry : partitionTrips.entrySet()) {
+            final Partition partition = this.partitions.computeIfAbsent(entry.getKey(), Partition::new);
+
+            final List<Partition> evicted;
+            synchronized (partition) {
+                partition.open();
+                CsvWriter.writeRows(partition.writer, entry.getValue());
+                evicted = this.touch(partition);
+            }
+            this.close(evicted);
+        }
+
+        WRITE_TIMER.recordSince(startNs);
+    }
+
+    /**
+     * Flushes the open writers.
+     */
+    public void flush() throws IOException {
+        for (Partition partition : this.partitions.values()) {
+            synchronized (partition) {
+                if (Objects.nonNull(partition.writer)) {
+                    partition.writer.flush();
+                }
+            }
+        }
+    }
+
+    /**
+     * Flushes and closes the open writers. Later writes reopen them.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (Partition partition : this.partitions.values()) {
+            synchronized (partition) {
+                try {
+                    partition.close();
+                } catch (IOException e) {
+                    failure = failure == null ? e : failure;
+                }
+                synchronized (this.openPartitions) {
+                    this.openPartitions.remove(partition.name);
+                }
+            }
+        }
+
+        if (Objects.nonNull(failure)) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Deletes the files of the date, e.g. - before the trips of the date are written again, thread safe. Its
+     * partitions are then truncated when next opened, as on their first trip.
+     *
+     * @param dateString date of the partitions, see {@link TripBean#getDateString()}
+     */
+    public void truncate(String dateString) throws IOException {
+        for (Partition partition : this.partitions.values()) {
+            if (!partition.name.startsWith(dateString + "/")) {
+                continue;
+            }
+
+            synchronized (partition) {
+                partition.close();
+                partition.seen = false;
+                synchronized (this.openPartitions) {
+                    this.openPartitions.remove(partition.name);
+                }
+            }
+        }
+
+        final Path dateDirectory = this.root.resolve(dateString);
+        if (Files.isDirectory(dateDirectory)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dateDirectory, "trips*.csv")) {
+                for (Path file : files) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return path of the file of the partition
+     */
+    public Path pathOf(String partition) {
+        return this.root.resolve(partition);
+    }
+
+    /**
+     * @return name of the partition of the trip, relative to the root, e.g. - <code>20200401/trips-3.csv</code>
+     */
+    public String partitionOf(TripBean trip) {
+        if (this.devicePartitions == 1) {
+            return trip.getDateString() + "/trips.csv";
+        }
+
+        final int bucket = Math.floorMod(trip.getDeviceId().hashCode(), this.devicePartitions);
+        return trip.getDateString() + "/trips-" + bucket + ".csv";
+    }
+
+    public int getOpenWriters() {
+        synchronized (this.openPartitions) {
+            return this.openPartitions.size();
+        }
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Marks the partition as the most recently written, the caller holding its lock.
+     *
+     * @return partitions past the max. open writers, to close once the lock is released
+     */
+    private List<Partition> touch(Partition partition) {
+        synchronized (this.openPartitions) {
+            this.openPartitions.put(partition.name, partition);
+            if (this.openPartitions.size() <= this.maxOpenWriters) {
+                return null;
+            }
+
+            final List<Partition> evicted = new ArrayList<>();
+            final Iterator<Partition> eldest = this.openPartitions.values().iterator();
+            while (this.openPartitions.size() > this.maxOpenWriters) {
+                evicted.add(eldest.next());
+                eldest.remove();
+            }
+            return evicted;
+        }
+    }
+
+    /**
+     * Closes the evicted partitions, unless written, and so reopened, since.
+     */
+    private void close(List<Partition> evicted) throws IOException {
+        if (Objects.isNull(evicted)) {
+            return;
+        }
+
+        for (Partition partition : evicted) {
+            synchronized (partition) {
+                synchronized (this.openPartitions) {
+                    if (this.openPartitions.containsKey(partition.name)) {
+                        continue;
+                    }
+                }
+                partition.close();
+                WRITERS_EVICTED.increment();
+            }
+        }
+    }
+
+
+    // Partition
+    // ------------------------------------------------------------------------
+
+    /**
+     * File of a partition, guarded by itself.
+     */
+    private final class Partition {
+
+        private final String name;
+
+        private Writer writer;
+
+        /** Opened by this writer before, appended to if reopened */
+        private boolean seen = false;
+
+        private Partition(String name) {
+            super();
+
+            this.name = name;
+        }
+
+        private void open() throws IOException {
+            if (Objects.nonNull(this.writer)) {
+                return;
+            }
+
+            final Path path = pathOf(this.name);
+            Files.createDirectories(path.getParent());
+
+            // Truncated on first open, appended to once evicted
+            final FileOutputStream fos = new FileOutputStream(path.toFile(), this.seen);
+            this.writer = new BufferedWriter(new OutputStreamWriter(fos, StandardCharsets.UTF_8), 64 * 1024);
+            if (fos.getChannel().size() == 0) {
+                this.writer.append(CsvWriter.header());
+            }
+            this.seen = true;
+            WRITERS_OPENED.increment();
+        }
+
+        private void close() throws IOException {
+            if (Objects.isNull(this.writer)) {
+                return;
+            }
+
+            try {
+                this.writer.close();
+            } finally {
+                this.writer = null;
+            }
+        }
+    }
+
+}
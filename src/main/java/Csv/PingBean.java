@@ -1,8 +1,16 @@
 package Csv;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
 
 public class PingBean implements Comparable<PingBean> {
 
+    /** Index of the device id in the {@link DeviceDictionary#shared() shared dictionary} */
+    private int deviceIdx;
+
+    /** Resolved from the index on first use */
     private String deviceId;
 
     private long timestamp;
@@ -17,6 +25,7 @@ public class PingBean implements Comparable<PingBean> {
     public PingBean(String deviceId, long timestamp, double latitude, double longitude) {
         super();
 
+        this.deviceIdx = DeviceDictionary.shared().idOf(deviceId);
         this.deviceId = deviceId;
 
         this.timestamp = timestamp;
@@ -26,9 +35,78 @@ public class PingBean implements Comparable<PingBean> {
     }
 
 
+    /**
+     * @param deviceIdx index of the device id in the {@link DeviceDictionary#shared() shared dictionary}
+     */
+    public PingBean(int deviceIdx, long timestamp, double latitude, double longitude) {
+        super();
+
+        this.deviceIdx = deviceIdx;
+
+        this.timestamp = timestamp;
+
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+
     // Methods
     // ------------------------------------------------------------------------
 
+    /**
+     * Groups the pings by device index, without hashing : groups are in the order of the device index and the pings
+     * of a group in their order in the list.
+     *
+     * @return pings of every device, <code>null</code> pings are skipped
+     */
+    public static List<List<PingBean>> groupByDevice(List<PingBean> pings) {
+        int maxIdx = -1;
+        for (PingBean ping : pings) {
+            if (Objects.nonNull(ping)) {
+                maxIdx = Math.max(maxIdx, ping.deviceIdx);
+            }
+        }
+
+        // Exact capacities
+        final int[] counts = new int[maxIdx + 1];
+        for (PingBean ping : pings) {
+            if (Objects.nonNull(ping)) {
+                counts[ping.deviceIdx]++;
+            }
+        }
+
+        final List<List<PingBean>> groups = new ArrayList<>();
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        final List<PingBean>[] byIdx = new List[maxIdx + 1];
+        for (int idx = 0; idx <= maxIdx; idx++) {
+            if (counts[idx] > 0) {
+                byIdx[idx] = new ArrayList<>(counts[idx]);
+                groups.add(byIdx[idx]);
+            }
+        }
+
+        for (PingBean ping : pings) {
+            if (Objects.nonNull(ping)) {
+                byIdx[ping.deviceIdx].add(ping);
+            }
+        }
+
+        return groups;
+    }
+
+    /**
+     * @return ping with the latest timestamp, the last of them on ties, <code>null</code> if none
+     */
+    public static PingBean latestOf(List<PingBean> pings) {
+        PingBean latest = null;
+        for (PingBean ping : pings) {
+            if (Objects.nonNull(ping) && (Objects.isNull(latest) || ping.timestamp >= latest.timestamp)) {
+                latest = ping;
+            }
+        }
+        return latest;
+    }
+
     public static String join(String separator, Object... items) {
         if (items.length == 0) {
             return "";
@@ -62,11 +140,19 @@ public class PingBean implements Comparable<PingBean> {
     // Getters and Setters
     // ------------------------------------------------------------------------
 
+    public int getDeviceIdx() {
+        return deviceIdx;
+    }
+
     public String getDeviceId() {
+        if (Objects.isNull(deviceId)) {
+            deviceId = DeviceDictionary.shared().nameOf(deviceIdx);
+        }
         return deviceId;
     }
 
     public void setDeviceId(String deviceId) {
+        this.deviceIdx = DeviceDictionary.shared().idOf(deviceId);
         this.deviceId = deviceId;
     }
 
@@ -100,7 +186,7 @@ public class PingBean implements Comparable<PingBean> {
 
     @Override
     public String toString() {
-        return "RawMobileDataBean [deviceId=" + deviceId + ", timestamp=" + timestamp + ", latitude=" + latitude
+        return "RawMobileDataBean [deviceId=" + getDeviceId() + ", timestamp=" + timestamp + ", latitude=" + latitude
                 + ", longitude=" + longitude + "]";
     }
 
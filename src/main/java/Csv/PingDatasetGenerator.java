@@ -0,0 +1,711 @@
+package Csv;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import Ignite.FileUtil;
+import Ignite.ValidationException;
+
+
+/**
+ * Generates synthetic ping files for load testing, in the format read by {@link Main#extract(String)} : gzip files
+ * with a header line followed by TAB separated lines of epoch seconds, device id, a filler column, latitude and
+ * longitude.
+ *
+ * <p>
+ * Files are laid out by the hour, <code>&lt;output&gt;/yyyy/MM/dd/HH/part-NNNNN.tsv.gz</code>, and the devices are
+ * split across the parts of every hour. Lines of a file are in time order. Every part is generated by its own task
+ * with its own random stream derived from the seed, so the same settings always produce the same files, whatever
+ * the no. of threads. Pings are generated and written as a stream, so memory use depends on the no. of devices and
+ * not on the size of the dataset.
+ * </p>
+ *
+ * <p>
+ * {@link #inMemory()} generates the same lines without files, see {@link #lines()}, e.g. - for the fixtures of the
+ * benchmarks.
+ * </p>
+ *
+ * <pre>
+ * PingDatasetGenerator.to(outputDir).devices(10_000).pingIntervalSeconds(120).skew(1.0)
+ *         .movement(Movement.COMMUTE).hours(24).generate();
+ * </pre>
+ */
+public final class PingDatasetGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PingDatasetGenerator.class);
+
+    public static final String HEADER = "timestamp\tdevice_id\taccuracy\tlatitude\tlongitude";
+
+    public static final String FILE_EXTENSION = ".tsv.gz";
+
+    private static final DateTimeFormatter HOUR_DIRECTORY_FORMAT = DateTimeFormatter.ofPattern("yyyy/MM/dd/HH");
+
+    private static final double MTRS_PER_DEG_LAT = 111_320d;
+
+    /** Speed of a moving device, meters per second */
+    private static final double SPEED_MTRS_PER_SEC = 10d;
+
+    /** Position noise of a device at rest, meters */
+    private static final double JITTER_MTRS = 10d;
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * Movement of the devices.
+     */
+    public enum Movement {
+        /** Devices stay around their home. */
+        STATIONARY,
+        /** Devices alternate between resting and moving in a random direction. */
+        RANDOM_WALK,
+        /** Devices rest at home, commute to work in the morning hours (UTC) and back in the evening hours. */
+        COMMUTE
+    }
+
+    private final Path outputDirectory;
+
+    private int devices = 1000;
+    private double pingIntervalSeconds = 300d;
+    private Movement movement = Movement.RANDOM_WALK;
+    private double skew = 0d;
+
+    private LocalDateTime start = LocalDateTime.of(2020, 4, 1, 0, 0);
+    private int hours = 24;
+    private int partsPerHour = 1;
+
+    private double centerLatitude = 12.9716;
+    private double centerLongitude = 77.5946;
+    private double radiusMtrs = 20_000d;
+
+    private long seed = 20200401l;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    private PingDatasetGenerator(Path outputDirectory) {
+        super();
+
+        this.outputDirectory = outputDirectory;
+    }
+
+
+    // Factory Methods
+    // ------------------------------------------------------------------------
+
+    public static PingDatasetGenerator to(String outputDirectory) {
+        return PingDatasetGenerator.to(FileUtil.getValidPath(outputDirectory));
+    }
+
+    public static PingDatasetGenerator to(Path outputDirectory) {
+        // Sanity check
+        if (Objects.isNull(outputDirectory)) {
+            String errMsg = "Output directory is NULL";
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        return new PingDatasetGenerator(outputDirectory.toAbsolutePath());
+    }
+
+    /**
+     * Generator of {@link #lines()} only, without an output directory to {@link #generate()} to.
+     */
+    public static PingDatasetGenerator inMemory() {
+        return new PingDatasetGenerator(null);
+    }
+
+
+    // Settings
+    // ------------------------------------------------------------------------
+
+    public PingDatasetGenerator devices(int devices) {
+        this.devices = PingDatasetGenerator.positive("devices", devices);
+        return this;
+    }
+
+    /**
+     * Mean time between two pings of a device. Pings arrive at random, and with skew the mean differs per device.
+     */
+    public PingDatasetGenerator pingIntervalSeconds(double pingIntervalSeconds) {
+        this.pingIntervalSeconds = PingDatasetGenerator.positive("ping interval", pingIntervalSeconds);
+        return this;
+    }
+
+    public PingDatasetGenerator movement(Movement movement) {
+        this.movement = Objects.requireNonNull(movement);
+        return this;
+    }
+
+    /**
+     * Skew of the ping rates across devices : the rate of the device with rank <code>r</code> (1 based) is
+     * proportional to <code>1 / r^skew</code>, scaled so the mean rate stays the same. <code>0</code> gives every
+     * device the same rate, <code>1</code> is a Zipf distribution.
+     */
+    public PingDatasetGenerator skew(double skew) {
+        if (skew < 0) {
+            String errMsg = String.format("INVALID skew - %s", skew);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        this.skew = skew;
+        return this;
+    }
+
+    /**
+     * First hour (UTC) of the dataset, minutes and seconds are ignored.
+     */
+    public PingDatasetGenerator start(LocalDateTime start) {
+        this.start = Objects.requireNonNull(start).withMinute(0).withSecond(0).withNano(0);
+        return this;
+    }
+
+    public PingDatasetGenerator hours(int hours) {
+        this.hours = PingDatasetGenerator.positive("hours", hours);
+        return this;
+    }
+
+    public PingDatasetGenerator partsPerHour(int partsPerHour) {
+        this.partsPerHour = PingDatasetGenerator.positive("parts per hour", partsPerHour);
+        return this;
+    }
+
+    /**
+     * Region of the devices : homes, work places and walks stay within the radius around the center.
+     */
+    public PingDatasetGenerator region(double centerLatitude, double centerLongitude, double radiusMtrs) {
+        this.centerLatitude = centerLatitude;
+        this.centerLongitude = centerLongitude;
+        this.radiusMtrs = PingDatasetGenerator.positive("radius", radiusMtrs);
+        return this;
+    }
+
+    public PingDatasetGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public PingDatasetGenerator threads(int threads) {
+        this.threads = PingDatasetGenerator.positive("threads", threads);
+        return this;
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Generates the files, replacing files of an earlier run with the same layout.
+     *
+     * @return totals of the generated files
+     */
+    public Summary generate() throws IOException {
+        // Sanity check
+        if (Objects.isNull(this.outputDirectory)) {
+            String errMsg = "No output directory, an in memory generator only generates lines";
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        final long startTs = System.currentTimeMillis();
+        Files.createDirectories(this.outputDirectory);
+
+        final double[] rates = this.rates();
+        final List<SplittableRandom> partRandoms = this.partRandoms();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.threads, this.partsPerHour));
+        try {
+            final List<Future<Summary>> futures = new ArrayList<>(this.partsPerHour);
+            for (int part = 0; part < this.partsPerHour; part++) {
+                final int partNo = part;
+                futures.add(executor.submit(() -> this.generatePart(partNo, partRandoms.get(partNo), rates)));
+            }
+
+            Summary summary = new Summary(0l, 0l, 0l);
+            for (Future<Summary> future : futures) {
+                summary = summary.add(future.get());
+            }
+
+            LOGGER.info("Generated {} in {} ms", summary, System.currentTimeMillis() - startTs);
+            return summary;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating the ping dataset", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException("Failed to generate the ping dataset", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Generates the data lines of the files in memory, without their headers, part after part and hour after hour,
+     * i.e. - the lines of {@link #generate()} with the same settings, on the calling thread.
+     */
+    public List<String> lines() {
+        final double[] rates = this.rates();
+        final List<SplittableRandom> partRandoms = this.partRandoms();
+
+        final List<String> lines = new ArrayList<>();
+        final StringBuilder line = new StringBuilder(64);
+        final StringBuilder hourLines = new StringBuilder();
+        for (int part = 0; part < this.partsPerHour; part++) {
+            final SplittableRandom random = partRandoms.get(part);
+            final PriorityQueue<Device> queue = this.devicesOf(part, random, rates);
+            for (int hour = 0; hour < this.hours; hour++) {
+                final long hourEndEpochSeconds = this.start.plusHours(hour + 1).toEpochSecond(ZoneOffset.UTC);
+
+                hourLines.setLength(0);
+                try {
+                    this.generateHour(queue, hourEndEpochSeconds, random, line, hourLines);
+                } catch (IOException e) {
+                    // Never thrown by a StringBuilder
+                    throw new UncheckedIOException(e);
+                }
+                for (int from = 0, to; from < hourLines.length(); from = to + 1) {
+                    to = hourLines.indexOf("\n", from);
+                    lines.add(hourLines.substring(from, to));
+                }
+            }
+        }
+        return lines;
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * @return rate multiplier of every device, a mean of 1 across devices
+     */
+    private double[] rates() {
+        final double[] rates = new double[this.devices];
+        double total = 0d;
+        for (int i = 0; i < this.devices; i++) {
+            rates[i] = Math.pow(i + 1, -this.skew);
+            total += rates[i];
+        }
+        for (int i = 0; i < this.devices; i++) {
+            rates[i] = rates[i] * this.devices / total;
+        }
+        return rates;
+    }
+
+    /**
+     * @return random stream of every part, split in order so they do not depend on the scheduling
+     */
+    private List<SplittableRandom> partRandoms() {
+        final SplittableRandom root = new SplittableRandom(this.seed);
+        final List<SplittableRandom> partRandoms = new ArrayList<>(this.partsPerHour);
+        for (int part = 0; part < this.partsPerHour; part++) {
+            partRandoms.add(root.split());
+        }
+        return partRandoms;
+    }
+
+    /**
+     * @return devices of the part, placed and ordered by their first ping
+     */
+    private PriorityQueue<Device> devicesOf(int part, SplittableRandom random, double[] rates) {
+        final long startEpochSeconds = this.start.toEpochSecond(ZoneOffset.UTC);
+
+        final PriorityQueue<Device> queue = new PriorityQueue<>();
+        for (int idx = part; idx < this.devices; idx += this.partsPerHour) {
+            final Device device = new Device(idx, this.pingIntervalSeconds / rates[idx]);
+            device.place(this, random);
+            device.nextEpochSeconds = startEpochSeconds + (long) (random.nextDouble() * device.meanIntervalSeconds);
+            queue.add(device);
+        }
+        return queue;
+    }
+
+    /**
+     * Appends the lines of the pings before the end of the hour, in time order.
+     *
+     * @return no. of pings
+     */
+    private long generateHour(PriorityQueue<Device> queue, long hourEndEpochSeconds, SplittableRandom random,
+            StringBuilder line, Appendable out) throws IOException {
+        long pings = 0l;
+        while (!queue.isEmpty() && queue.peek().nextEpochSeconds < hourEndEpochSeconds) {
+            final Device device = queue.poll();
+            device.move(this, random);
+
+            line.setLength(0);
+            line.append(device.nextEpochSeconds).append('\t') //
+                    .append(device.id).append('\t') //
+                    .append(5 + random.nextInt(46)).append('\t');
+            PingDatasetGenerator.appendMicros(line, device.latitude).append('\t');
+            PingDatasetGenerator.appendMicros(line, device.longitude).append('\n');
+            out.append(line);
+            pings++;
+
+            device.nextEpochSeconds += device.nextDelaySeconds(random);
+            queue.add(device);
+        }
+        return pings;
+    }
+
+    /**
+     * Generates the files of a part for all the hours, the part owns every device whose index modulo the no. of
+     * parts is the part no.
+     */
+    private Summary generatePart(int part, SplittableRandom random, double[] rates) {
+        // Devices of the part, ordered by their next ping
+        final PriorityQueue<Device> queue = this.devicesOf(part, random, rates);
+
+        Summary summary = new Summary(0l, 0l, 0l);
+        final StringBuilder line = new StringBuilder(64);
+        for (int hour = 0; hour < this.hours; hour++) {
+            final LocalDateTime hourStart = this.start.plusHours(hour);
+            final long hourEndEpochSeconds = hourStart.plusHours(1).toEpochSecond(ZoneOffset.UTC);
+            final Path filePath = this.outputDirectory.resolve(hourStart.format(HOUR_DIRECTORY_FORMAT))
+                    .resolve(String.format("part-%05d%s", part, FILE_EXTENSION));
+
+            try {
+                Files.createDirectories(filePath.getParent());
+                final Path tmpPath = filePath.resolveSibling(filePath.getFileName() + ".tmp");
+
+                final long pings;
+                try (OutputStream os = PingDatasetGenerator.gzip(tmpPath);
+                        Writer writer = new OutputStreamWriter(os, Charset.defaultCharset())) {
+                    writer.append(HEADER).append("\n");
+                    pings = this.generateHour(queue, hourEndEpochSeconds, random, line, writer);
+                }
+
+                // Complete files only, readers may list the directory while it is being generated
+                Files.move(tmpPath, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                summary = summary.add(new Summary(1l, pings, Files.size(filePath)));
+            } catch (IOException e) {
+                String errMsg = String.format("Failed to write ping file - %s", filePath);
+                LOGGER.error(errMsg, e);
+                throw new UncheckedIOException(errMsg, e);
+            }
+        }
+
+        return summary;
+    }
+
+    /**
+     * Gzip output at the fastest level, compression would otherwise bound the generation rate.
+     */
+    private static OutputStream gzip(Path filePath) throws IOException {
+        return new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(filePath), BUFFER_SIZE),
+                BUFFER_SIZE) {
+            {
+                this.def.setLevel(Deflater.BEST_SPEED);
+            }
+        };
+    }
+
+    /**
+     * Appends the value with 6 decimals, without the cost of {@link String#format(String, Object...)}.
+     */
+    private static StringBuilder appendMicros(StringBuilder sb, double value) {
+        long micros = Math.round(value * 1_000_000d);
+        if (micros < 0) {
+            sb.append('-');
+            micros = -micros;
+        }
+
+        final long fraction = micros % 1_000_000l;
+        sb.append(micros / 1_000_000l).append('.');
+        for (long pad = 100_000l; pad > fraction && pad > 1; pad /= 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction);
+    }
+
+    /**
+     * @return uniformly random point within the region, as latitude and longitude
+     */
+    private double[] randomPoint(SplittableRandom random) {
+        final double distance = this.radiusMtrs * Math.sqrt(random.nextDouble());
+        final double angle = random.nextDouble() * 2 * Math.PI;
+        final double cosLat = Math.cos(Math.toRadians(this.centerLatitude));
+
+        return new double[] { this.centerLatitude + distance * Math.cos(angle) / MTRS_PER_DEG_LAT,
+                this.centerLongitude + distance * Math.sin(angle) / (MTRS_PER_DEG_LAT * cosLat) };
+    }
+
+    private double distanceFromCenterMtrs(double latitude, double longitude) {
+        final double north = (latitude - this.centerLatitude) * MTRS_PER_DEG_LAT;
+        final double east = (longitude - this.centerLongitude) * MTRS_PER_DEG_LAT
+                * Math.cos(Math.toRadians(this.centerLatitude));
+        return Math.hypot(north, east);
+    }
+
+    private static int positive(String name, int value) {
+        if (value <= 0) {
+            String errMsg = String.format("INVALID %s - %s", name, value);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+        return value;
+    }
+
+    private static double positive(String name, double value) {
+        if (!(value > 0)) {
+            String errMsg = String.format("INVALID %s - %s", name, value);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+        return value;
+    }
+
+
+    // Device
+    // ------------------------------------------------------------------------
+
+    private static final class Device implements Comparable<Device> {
+
+        private final int idx;
+        private final String id;
+        private final double meanIntervalSeconds;
+
+        private double homeLatitude;
+        private double homeLongitude;
+        private double workLatitude;
+        private double workLongitude;
+
+        private double latitude;
+        private double longitude;
+        private boolean moving = false;
+        private double heading = 0d;
+
+        private long lastEpochSeconds = Long.MIN_VALUE;
+        private long nextEpochSeconds;
+
+        private Device(int idx, double meanIntervalSeconds) {
+            super();
+
+            this.idx = idx;
+            this.id = String.format("device-%08d", idx);
+            this.meanIntervalSeconds = meanIntervalSeconds;
+        }
+
+        private void place(PingDatasetGenerator generator, SplittableRandom random) {
+            final double[] home = generator.randomPoint(random);
+            final double[] work = generator.randomPoint(random);
+            this.homeLatitude = home[0];
+            this.homeLongitude = home[1];
+            this.workLatitude = work[0];
+            this.workLongitude = work[1];
+
+            this.latitude = this.homeLatitude;
+            this.longitude = this.homeLongitude;
+        }
+
+        /**
+         * Exponential delay, i.e. - pings arrive as a Poisson process, of at least a second.
+         */
+        private long nextDelaySeconds(SplittableRandom random) {
+            return Math.max(1l, Math.round(-Math.log(1d - random.nextDouble()) * this.meanIntervalSeconds));
+        }
+
+        /**
+         * Moves the device to its position at {@link #nextEpochSeconds}.
+         */
+        private void move(PingDatasetGenerator generator, SplittableRandom random) {
+            final double elapsed = this.lastEpochSeconds == Long.MIN_VALUE ? 0d
+                    : this.nextEpochSeconds - this.lastEpochSeconds;
+            this.lastEpochSeconds = this.nextEpochSeconds;
+
+            final double cosLat = Math.cos(Math.toRadians(this.latitude));
+            double northMtrs = 0d;
+            double eastMtrs = 0d;
+
+            switch (generator.movement) {
+                case STATIONARY:
+                    this.latitude = this.homeLatitude;
+                    this.longitude = this.homeLongitude;
+                    break;
+
+                case RANDOM_WALK:
+                    // Switch between resting and moving now and then, turn back at the edge of the region
+                    if (random.nextInt(20) == 0) {
+                        this.moving = !this.moving;
+                        this.heading = random.nextDouble() * 2 * Math.PI;
+                    }
+                    if (this.moving) {
+                        if (generator.distanceFromCenterMtrs(this.latitude, this.longitude) > generator.radiusMtrs) {
+                            this.heading = Math.atan2(
+                                    (generator.centerLongitude - this.longitude) * cosLat,
+                                    generator.centerLatitude - this.latitude);
+                        }
+                        northMtrs = Math.cos(this.heading) * SPEED_MTRS_PER_SEC * elapsed;
+                        eastMtrs = Math.sin(this.heading) * SPEED_MTRS_PER_SEC * elapsed;
+                    }
+                    break;
+
+                case COMMUTE:
+                    // Leave for work at 08:00 UTC and for home at 17:00 UTC
+                    final int hourOfDay = (int) Math.floorMod(this.nextEpochSeconds / 3600, 24l);
+                    final boolean atWork = hourOfDay >= 8 && hourOfDay < 17;
+                    final double targetLatitude = atWork ? this.workLatitude : this.homeLatitude;
+                    final double targetLongitude = atWork ? this.workLongitude : this.homeLongitude;
+
+                    final double toNorth = (targetLatitude - this.latitude) * MTRS_PER_DEG_LAT;
+                    final double toEast = (targetLongitude - this.longitude) * MTRS_PER_DEG_LAT * cosLat;
+                    final double remaining = Math.hypot(toNorth, toEast);
+                    final double step = Math.min(remaining, SPEED_MTRS_PER_SEC * elapsed);
+                    if (remaining > 0) {
+                        northMtrs = toNorth / remaining * step;
+                        eastMtrs = toEast / remaining * step;
+                    }
+                    break;
+            }
+
+            // GPS noise
+            northMtrs += (random.nextDouble() - 0.5) * 2 * JITTER_MTRS;
+            eastMtrs += (random.nextDouble() - 0.5) * 2 * JITTER_MTRS;
+
+            this.latitude += northMtrs / MTRS_PER_DEG_LAT;
+            this.longitude += eastMtrs / (MTRS_PER_DEG_LAT * cosLat);
+        }
+
+        @Override
+        public int compareTo(Device other) {
+            final int cmp = Long.compare(this.nextEpochSeconds, other.nextEpochSeconds);
+            return cmp != 0 ? cmp : Integer.compare(this.idx, other.idx);
+        }
+    }
+
+    // Summary
+    // ------------------------------------------------------------------------
+
+    public static final class Summary {
+
+        private final long files;
+        private final long pings;
+        private final long bytes;
+
+        public Summary(long files, long pings, long bytes) {
+            super();
+
+            this.files = files;
+            this.pings = pings;
+            this.bytes = bytes;
+        }
+
+        private Summary add(Summary other) {
+            return new Summary(this.files + other.files, this.pings + other.pings, this.bytes + other.bytes);
+        }
+
+        public long getFiles() {
+            return files;
+        }
+
+        public long getPings() {
+            return pings;
+        }
+
+        /**
+         * @return compressed size of the files
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return "Summary [files=" + files + ", pings=" + pings + ", bytes=" + bytes + "]";
+        }
+    }
+
+
+    // Main
+    // ------------------------------------------------------------------------
+
+    /**
+     * Usage : <code>PingDatasetGenerator &lt;output directory&gt; [key=value ...]</code> with the keys devices,
+     * interval (seconds), movement, skew, start (e.g. - 2020-04-01T00:00), hours, parts, seed and threads.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage : PingDatasetGenerator <output directory> [devices=1000] [interval=300] "
+                    + "[movement=RANDOM_WALK|STATIONARY|COMMUTE] [skew=0] [start=2020-04-01T00:00] [hours=24] "
+                    + "[parts=1] [seed=20200401] [threads=<cores>]");
+            return;
+        }
+
+        final PingDatasetGenerator generator = PingDatasetGenerator.to(args[0]);
+        for (int i = 1; i < args.length; i++) {
+            final String[] keyValue = args[i].split("=", 2);
+            if (keyValue.length != 2) {
+                String errMsg = String.format("INVALID argument - %s, expected key=value", args[i]);
+                LOGGER.error(errMsg);
+                throw new ValidationException(errMsg);
+            }
+
+            final String value = keyValue[1].trim();
+            switch (keyValue[0].trim()) {
+                case "devices":
+                    generator.devices(Integer.parseInt(value));
+                    break;
+                case "interval":
+                    generator.pingIntervalSeconds(Double.parseDouble(value));
+                    break;
+                case "movement":
+                    generator.movement(Movement.valueOf(value.toUpperCase()));
+                    break;
+                case "skew":
+                    generator.skew(Double.parseDouble(value));
+                    break;
+                case "start":
+                    generator.start(LocalDateTime.parse(value));
+                    break;
+                case "hours":
+                    generator.hours(Integer.parseInt(value));
+                    break;
+                case "parts":
+                    generator.partsPerHour(Integer.parseInt(value));
+                    break;
+                case "seed":
+                    generator.seed(Long.parseLong(value));
+                    break;
+                case "threads":
+                    generator.threads(Integer.parseInt(value));
+                    break;
+                default:
+                    String errMsg = String.format("UNKNOWN argument - %s", keyValue[0]);
+                    LOGGER.error(errMsg);
+                    throw new ValidationException(errMsg);
+            }
+        }
+
+        System.out.println(generator.generate());
+    }
+
+}
@@ -0,0 +1,152 @@
+package Csv;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import Ignite.Metrics;
+import Ignite.ValidationException;
+
+
+/**
+ * Collapses the time ordered pings of a device into fixed time buckets, e.g. - a device pinging every second into a
+ * ping or two a minute, so trip detection compares far fewer pairs.
+ *
+ * <p>
+ * Buckets are aligned to the epoch, <code>timestamp / bucket</code>, so the same pings collapse the same way in
+ * every run. A bucket keeps, per {@link Mode} :
+ * <li>{@link Mode#FIRST_LAST} : its first and its last ping</li>
+ * <li>{@link Mode#CENTROID} : a ping at the mean timestamp and coordinate of its pings</li>
+ * </p>
+ *
+ * <p>
+ * Off by default, enabled with <code>-Dtrips.downsample.seconds=N</code> and optionally
+ * <code>-Dtrips.downsample.mode=centroid</code>, see {@link #fromSystemProperties()}.
+ * </p>
+ */
+public class PingDownsampler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PingDownsampler.class);
+
+    private static final Metrics.Counter DOWNSAMPLED = Metrics.counter("pings.downsampled");
+
+    public enum Mode {
+        FIRST_LAST, CENTROID
+    }
+
+    private final long bucketMillis;
+    private final Mode mode;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    /**
+     * @param bucketSeconds bucket length in seconds
+     * @param mode pings a bucket keeps
+     */
+    public PingDownsampler(long bucketSeconds, Mode mode) {
+        super();
+
+        // Sanity checks
+        if (bucketSeconds < 1 || Objects.isNull(mode)) {
+            String errMsg = String.format("INVALID downsampling, bucket seconds - %s, mode - %s", bucketSeconds, mode);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        this.bucketMillis = bucketSeconds * 1000;
+        this.mode = mode;
+    }
+
+
+    // Factory Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * @return downsampler configured by <code>-Dtrips.downsample.seconds</code> and
+     *         <code>-Dtrips.downsample.mode</code> (<code>first_last</code> or <code>centroid</code>),
+     *         <code>null</code> if not enabled
+     */
+    public static PingDownsampler fromSystemProperties() {
+        final long bucketSeconds = Long.getLong("trips.downsample.seconds", 0l);
+        if (bucketSeconds <= 0) {
+            return null;
+        }
+
+        final String mode = System.getProperty("trips.downsample.mode", Mode.FIRST_LAST.name());
+        final PingDownsampler downsampler = new PingDownsampler(bucketSeconds,
+                Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT)));
+        LOGGER.info("Downsampling pings into {} second buckets, {}", bucketSeconds, downsampler.mode);
+        return downsampler;
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Downsamples the pings in place, in one pass.
+     *
+     * @param pings time ordered pings of a device, compacted to the kept ones
+     *
+     * @return the pings
+     */
+    public List<PingBean> downsample(List<PingBean> pings) {
+        final int size = pings.size();
+        int kept = 0;
+
+        int start = 0;
+        while (start < size) {
+            // Bucket [start, end)
+            final long bucket = Math.floorDiv(pings.get(start).getTimestamp(), this.bucketMillis);
+            int end = start + 1;
+            while (end < size && Math.floorDiv(pings.get(end).getTimestamp(), this.bucketMillis) == bucket) {
+                end++;
+            }
+
+            if (end - start == 1) {
+                pings.set(kept++, pings.get(start));
+            } else if (this.mode == Mode.FIRST_LAST) {
+                final PingBean last = pings.get(end - 1);
+                pings.set(kept++, pings.get(start));
+                pings.set(kept++, last);
+            } else {
+                pings.set(kept++, PingDownsampler.centroid(pings, start, end));
+            }
+            start = end;
+        }
+
+        if (kept < size) {
+            DOWNSAMPLED.add(size - kept);
+            pings.subList(kept, size).clear();
+        }
+        return pings;
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    private static PingBean centroid(List<PingBean> pings, int start, int end) {
+        final int count = end - start;
+        final long base = pings.get(start).getTimestamp();
+
+        long offsets = 0l;
+        double latitudes = 0d;
+        double longitudes = 0d;
+        for (int i = start; i < end; i++) {
+            final PingBean ping = pings.get(i);
+            offsets += ping.getTimestamp() - base;
+            latitudes += ping.getLatitude();
+            longitudes += ping.getLongitude();
+        }
+
+        return new PingBean(pings.get(start).getDeviceIdx(), base + offsets / count, latitudes / count,
+                longitudes / count);
+    }
+
+}
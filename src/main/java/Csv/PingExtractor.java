@@ -0,0 +1,175 @@
+package Csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import Ignite.IoExecutors;
+import Ignite.Metrics;
+import Ignite.Tracer;
+import Ignite.ValidationException;
+
+
+/**
+ * Extracts the pings of many gzip files, reading and inflating the files on I/O threads and parsing their chunks on a
+ * CPU sized pool, so small files do not serialize on their reads and blocked reads do not hold a parsing worker.
+ *
+ * <p>
+ * The chunks of a file are parsed as they are read, see {@link Main#parseAsRead(java.io.InputStream, long,
+ * java.util.concurrent.Executor)}. I/O threads are virtual or platform threads, see {@link IoExecutors}, <code>-Dio.threads=virtual|platform</code>,
+ * <code>-Dio.platform.threads=N</code> threads (default 4 per processor) for the latter. At most
+ * <code>-Dio.files.in.flight=N</code> files (default 64) are read or parsed at once, bounding the chunks held in
+ * memory. Pings are returned in the order of the files, as by extracting them one after another.
+ * </p>
+ */
+public class PingExtractor implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PingExtractor.class);
+
+    private static final Tracer TRACER = Tracer.of(PingExtractor.class);
+
+    private static final Metrics.Timer EXTRACT_TIMER = Metrics.timer("stage.extract.files");
+
+    public static final int DEFAULT_FILES_IN_FLIGHT = 64;
+
+    private final IoExecutors.Mode mode;
+    private final ExecutorService ioExecutor;
+    private final ForkJoinPool cpuPool;
+    private final Semaphore filesInFlight;
+
+    private final Main main;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    public PingExtractor() {
+        this(IoExecutors.modeFromSystemProperties(),
+                Integer.getInteger("io.platform.threads", 4 * Runtime.getRuntime().availableProcessors()),
+                Runtime.getRuntime().availableProcessors(),
+                Integer.getInteger("io.files.in.flight", DEFAULT_FILES_IN_FLIGHT));
+    }
+
+    /**
+     * @param mode threads of the reads
+     * @param ioThreads no. of platform threads of the reads, unused by virtual threads
+     * @param cpuThreads no. of threads of the parsing
+     * @param maxFilesInFlight max. no. of files read or parsed at once
+     */
+    public PingExtractor(IoExecutors.Mode mode, int ioThreads, int cpuThreads, int maxFilesInFlight) {
+        this(mode, ioThreads, cpuThreads, maxFilesInFlight, new Main());
+    }
+
+    /**
+     * @param main extractor of the files, e.g. - with a ping sink, see {@link Main#Main(java.util.function.Consumer)}
+     */
+    public PingExtractor(IoExecutors.Mode mode, int ioThreads, int cpuThreads, int maxFilesInFlight, Main main) {
+        super();
+
+        // Sanity checks
+        if (Objects.isNull(mode) || ioThreads < 1 || cpuThreads < 1 || maxFilesInFlight < 1 || Objects.isNull(main)) {
+            String errMsg = String.format("INVALID ping extractor, mode - %s, io threads - %s, cpu threads - %s, "
+                    + "files in flight - %s", mode, ioThreads, cpuThreads, maxFilesInFlight);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        this.mode = mode;
+        this.ioExecutor = IoExecutors.newExecutor(mode, ioThreads, "ping-io");
+        this.cpuPool = new ForkJoinPool(cpuThreads);
+        this.filesInFlight = new Semaphore(maxFilesInFlight);
+        this.main = main;
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    public List<PingBean> extract(List<Path> files) {
+        return this.extract(files.stream());
+    }
+
+    /**
+     * Extracts the pings of the files, reads starting as the files are listed.
+     *
+     * @return pings of all the files, in the order of the files
+     *
+     * @throws UncheckedIOException if a file fails to be read
+     * @throws ValidationException if a file does not exist
+     */
+    public List<PingBean> extract(Stream<Path> files) {
+        final long startNs = System.nanoTime();
+
+        final List<CompletableFuture<List<PingBean>>> filePings = new ArrayList<>();
+        files.forEach(file -> {
+            this.filesInFlight.acquireUninterruptibly();
+            filePings.add(CompletableFuture.supplyAsync(() -> this.read(file), this.ioExecutor) //
+                    .whenComplete((pings, e) -> this.filesInFlight.release()));
+        });
+
+        final List<PingBean> pings = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<PingBean>> future : filePings) {
+                pings.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            filePings.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+
+        EXTRACT_TIMER.recordSince(startNs);
+        return pings;
+    }
+
+    public IoExecutors.Mode getMode() {
+        return this.mode;
+    }
+
+    /**
+     * Shuts down the I/O threads and the parsing pool.
+     */
+    @Override
+    public void close() {
+        this.ioExecutor.shutdown();
+        this.cpuPool.shutdown();
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Reads the file on an I/O thread, its chunks parsed on the CPU pool as they are read.
+     */
+    private List<PingBean> read(Path file) {
+        final String filePath = file.toAbsolutePath().toString();
+        if (Tracer.ENABLED && TRACER.isEnabled()) {
+            TRACER.trace("Extracting pings from file - {}", filePath);
+        }
+
+        try {
+            return this.main.extract(filePath, 0, this.cpuPool);
+        } catch (IOException e) {
+            String errMsg = String.format("Failed to read file - %s", filePath);
+            LOGGER.error(errMsg, e);
+            throw new UncheckedIOException(errMsg, e);
+        }
+    }
+
+}
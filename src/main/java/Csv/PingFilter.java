@@ -0,0 +1,165 @@
+package Csv;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import Ignite.Geo;
+import Ignite.Metrics;
+import Ignite.ValidationException;
+
+
+/**
+ * Drops the noise from the time ordered pings of a device before trip detection :
+ * <li>Invalid coordinates, i.e. - out of range, <code>NaN</code> or <code>(0, 0)</code></li>
+ * <li>Exact duplicates, same timestamp and coordinate as one of the last few accepted pings</li>
+ * <li>Jumps, pings that would need a speed above the max. from the last accepted ping</li>
+ *
+ * <p>
+ * The pings are compacted in place, in one pass. A device whose first ping is itself a jump would have every later
+ * ping rejected, so after a few rejections in a row the filter trusts the new position again.
+ * </p>
+ */
+public class PingFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PingFilter.class);
+
+    private static final Metrics.Counter INVALID = Metrics.counter("pings.dropped.invalid");
+    private static final Metrics.Counter DUPLICATES = Metrics.counter("pings.dropped.duplicate");
+    private static final Metrics.Counter JUMPS = Metrics.counter("pings.dropped.speed");
+
+    /** 300 km/h, faster than any road vehicle */
+    public static final double DEFAULT_MAX_SPEED_MPS = 300d / 3.6;
+
+    public static final int DEFAULT_WINDOW = 8;
+
+    /** Rejections in a row after which the position is trusted again */
+    private static final int MAX_CONSECUTIVE_JUMPS = 3;
+
+    /** Meters per degree of the equator, with a margin */
+    private static final double MAX_MTRS_PER_DEGREE = 112_000d;
+
+    private final double maxSpeedMps;
+    private final int window;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    public PingFilter() {
+        this(DEFAULT_MAX_SPEED_MPS, DEFAULT_WINDOW);
+    }
+
+    /**
+     * @param maxSpeedMps max. speed between consecutive pings, meters per second
+     * @param window no. of last accepted pings a duplicate is looked for in
+     */
+    public PingFilter(double maxSpeedMps, int window) {
+        super();
+
+        // Sanity checks
+        if (!(maxSpeedMps > 0d) || window < 1) {
+            String errMsg = String.format("INVALID ping filter, max speed - %s, window - %s", maxSpeedMps, window);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        this.maxSpeedMps = maxSpeedMps;
+        this.window = window;
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Filters the pings in place.
+     *
+     * @param pings time ordered pings of a device, compacted to the accepted ones
+     * @param seed ping the device continues from, e.g. - the last ping of an earlier run, <code>null</code> if none
+     *
+     * @return the pings
+     */
+    public List<PingBean> filter(List<PingBean> pings, PingBean seed) {
+        final PingBean[] recent = new PingBean[this.window];
+        int recentCount = 0;
+
+        PingBean last = seed;
+        int jumps = 0;
+        int accepted = 0;
+        for (int i = 0; i < pings.size(); i++) {
+            final PingBean ping = pings.get(i);
+            if (Objects.isNull(ping)) {
+                continue;
+            }
+
+            if (!PingFilter.isValid(ping.getLatitude(), ping.getLongitude())) {
+                INVALID.increment();
+                continue;
+            }
+
+            if (PingFilter.isDuplicate(ping, recent, Math.min(recentCount, this.window))) {
+                DUPLICATES.increment();
+                continue;
+            }
+
+            if (Objects.nonNull(last) && jumps < MAX_CONSECUTIVE_JUMPS && this.isJump(last, ping)) {
+                JUMPS.increment();
+                jumps++;
+                continue;
+            }
+
+            jumps = 0;
+            last = ping;
+            recent[recentCount++ % this.window] = ping;
+            pings.set(accepted++, ping);
+        }
+
+        if (accepted < pings.size()) {
+            pings.subList(accepted, pings.size()).clear();
+        }
+        return pings;
+    }
+
+    public static boolean isValid(double latitude, double longitude) {
+        // Also false for NaN
+        if (!(latitude >= -90d && latitude <= 90d && longitude >= -180d && longitude <= 180d)) {
+            return false;
+        }
+
+        return latitude != 0d || longitude != 0d;
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    private boolean isJump(PingBean from, PingBean to) {
+        final double seconds = Math.max(1d, (to.getTimestamp() - from.getTimestamp()) / 1000d);
+        final double maxDistance = this.maxSpeedMps * seconds;
+
+        // A degree is at most ~111.32 km, so a small move needs no haversine
+        final double degrees = Math.abs(to.getLatitude() - from.getLatitude())
+                + Math.abs(to.getLongitude() - from.getLongitude());
+        if (degrees * MAX_MTRS_PER_DEGREE <= maxDistance) {
+            return false;
+        }
+
+        return Geo.distance(from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude())
+                > maxDistance;
+    }
+
+    private static boolean isDuplicate(PingBean ping, PingBean[] recent, int count) {
+        for (int i = 0; i < count; i++) {
+            final PingBean other = recent[i];
+            if (other.getTimestamp() == ping.getTimestamp() && other.getLatitude() == ping.getLatitude()
+                    && other.getLongitude() == ping.getLongitude()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
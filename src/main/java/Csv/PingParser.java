@@ -0,0 +1,255 @@
+package Csv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import Ignite.Coordinate;
+import Ignite.Metrics;
+import Ignite.Tracer;
+import Ignite.ValidationException;
+
+
+/**
+ * Parses ping lines straight from their bytes : epoch seconds, device id, a filler column, latitude and longitude,
+ * TAB separated.
+ *
+ * <p>
+ * The data is read in chunks of whole lines, see {@link #readChunks(InputStream, long, int, Consumer)}, handed over
+ * as soon as they are read, and every chunk is parsed on its own, so chunks are parsed in parallel, while the rest
+ * of the data is still being read. No strings are created per line : numbers are parsed in
+ * place and device ids are looked up by their bytes in the {@link DeviceDictionary#shared() shared dictionary}.
+ * </p>
+ */
+public final class PingParser {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PingParser.class);
+
+    private static final Tracer TRACER = Tracer.of(PingParser.class);
+
+    private static final Metrics.Counter LINES = Metrics.counter("lines.parsed");
+    private static final Metrics.Counter PARSE_ERRORS = Metrics.counter("parse.errors");
+
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    private PingParser() {
+        super();
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Reads the whole stream in chunks of whole lines.
+     *
+     * @see #readChunks(InputStream, long, int, Consumer)
+     */
+    public static List<Chunk> readChunks(InputStream is, long skipLines, int chunkSize) throws IOException {
+        final List<Chunk> chunks = new ArrayList<>();
+        PingParser.readChunks(is, skipLines, chunkSize, chunks::add);
+        return chunks;
+    }
+
+    /**
+     * Reads the stream in chunks of whole lines, every chunk passed to the sink as soon as it is read, e.g. - to be
+     * parsed while the next one is read. A chunk owns its bytes, the sink may keep it.
+     *
+     * @param is data stream
+     * @param skipLines no. of lines to skip, e.g. - the header
+     * @param chunkSize approx. size of a chunk, a longer line makes a larger chunk
+     * @param sink consumer of the chunks, in order, called on the reading thread
+     */
+    public static void readChunks(InputStream is, long skipLines, int chunkSize, Consumer<Chunk> sink)
+            throws IOException {
+        long toSkip = skipLines;
+
+        byte[] buffer = new byte[chunkSize];
+        int length = 0;
+        for (boolean eof = false; !eof;) {
+            // Fill the buffer
+            int read = 0;
+            while (length < buffer.length && (read = is.read(buffer, length, buffer.length - length)) != -1) {
+                length += read;
+            }
+            eof = read == -1;
+
+            // Whole lines, the last partial line moves to the next buffer
+            int end = length;
+            if (!eof) {
+                while (end > 0 && buffer[end - 1] != '\n') {
+                    end--;
+                }
+                if (end == 0) {
+                    // A line longer than the buffer
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    continue;
+                }
+            }
+
+            // Skipped lines
+            int start = 0;
+            while (toSkip > 0 && start < end) {
+                while (start < end && buffer[start++] != '\n') {
+                    // Skip to the line end
+                }
+                toSkip--;
+            }
+
+            if (start < end) {
+                sink.accept(new Chunk(buffer, start, end));
+            }
+
+            if (!eof) {
+                final byte[] next = new byte[Math.max(chunkSize, length - end)];
+                System.arraycopy(buffer, end, next, 0, length - end);
+                buffer = next;
+                length = length - end;
+            }
+        }
+    }
+
+    /**
+     * @return pings of the lines of the chunk
+     */
+    public static List<PingBean> parse(Chunk chunk) {
+        final DeviceDictionary dictionary = DeviceDictionary.shared();
+        final byte[] bytes = chunk.bytes;
+
+        final List<PingBean> pings = new ArrayList<>(Math.max(16, (chunk.to - chunk.from) / 48));
+        int lineStart = chunk.from;
+        while (lineStart < chunk.to) {
+            int lineEnd = lineStart;
+            while (lineEnd < chunk.to && bytes[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            final int next = lineEnd + 1;
+            if (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+
+            if (Tracer.ENABLED && TRACER.isSampled()) {
+                TRACER.trace("data line :: {}", new String(bytes, lineStart, lineEnd - lineStart,
+                        StandardCharsets.UTF_8));
+            }
+
+            try {
+                pings.add(PingParser.parseLine(dictionary, bytes, lineStart, lineEnd));
+            } catch (RuntimeException e) {
+                PARSE_ERRORS.increment();
+                throw e;
+            }
+            lineStart = next;
+        }
+
+        LINES.add(pings.size());
+        return pings;
+    }
+
+    /**
+     * Parses a decimal number, e.g. - <code>-12.345678</code>, see {@link Coordinate#parseDegrees(byte[], int, int)}.
+     */
+    public static double parseDouble(byte[] bytes, int from, int to) {
+        return Coordinate.parseDegrees(bytes, from, to);
+    }
+
+    public static long parseLong(byte[] bytes, int from, int to) {
+        int i = from;
+        final boolean negative = i < to && bytes[i] == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == to || to - i > 18) {
+            // Empty, or may overflow
+            return Long.parseLong(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+        }
+
+        long value = 0l;
+        for (; i < to; i++) {
+            final int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.parseLong(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+            }
+            value = value * 10 + digit;
+        }
+
+        return negative ? -value : value;
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    private static PingBean parseLine(DeviceDictionary dictionary, byte[] bytes, int from, int to) {
+        final int tab0 = PingParser.indexOfTab(bytes, from, to);
+        final int tab1 = PingParser.indexOfTab(bytes, tab0 + 1, to);
+        final int tab2 = PingParser.indexOfTab(bytes, tab1 + 1, to);
+        final int tab3 = PingParser.indexOfTab(bytes, tab2 + 1, to);
+        if (tab3 == to) {
+            String errMsg = String.format("INVALID ping line, expected 5 columns - %s",
+                    new String(bytes, from, to - from, StandardCharsets.UTF_8));
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+        final int tab4 = PingParser.indexOfTab(bytes, tab3 + 1, to);
+
+        final long timestamp = PingParser.parseLong(bytes, from, tab0) * 1000; // Convert seconds to milliseconds
+        final int deviceIdx = dictionary.idOf(bytes, tab0 + 1, tab1 - tab0 - 1);
+        final double latitude = PingParser.parseDouble(bytes, tab2 + 1, tab3);
+        final double longitude = PingParser.parseDouble(bytes, tab3 + 1, tab4);
+
+        return new PingBean(deviceIdx, timestamp, latitude, longitude);
+    }
+
+    /**
+     * @return index of the next TAB, <code>to</code> if none
+     */
+    private static int indexOfTab(byte[] bytes, int from, int to) {
+        int i = from;
+        while (i < to && bytes[i] != '\t') {
+            i++;
+        }
+        return i;
+    }
+
+
+    // Chunk
+    // ------------------------------------------------------------------------
+
+    /**
+     * Whole lines, <code>bytes[from, to)</code>.
+     */
+    public static final class Chunk {
+
+        private final byte[] bytes;
+        private final int from;
+        private final int to;
+
+        public Chunk(byte[] bytes, int from, int to) {
+            super();
+
+            this.bytes = bytes;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * @return no. of bytes of the lines
+         */
+        public int length() {
+            return to - from;
+        }
+    }
+
+}
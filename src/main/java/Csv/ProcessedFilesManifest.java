@@ -0,0 +1,370 @@
+package Csv;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import Ignite.FileUtil;
+import Ignite.ValidationException;
+
+
+/**
+ * Manifest of the input files processed into an output file, stored next to the output as
+ * <code>&lt;output&gt;.manifest</code>.
+ *
+ * <p>
+ * The manifest is an append only log of tab separated entries, one per processed file, and the latest entry of a
+ * file wins. An entry is appended and synced to the disk only after the trips of the file are written, so the
+ * last entry marks the last checkpoint : {@link #getCommittedOutputOffset()} is the length of the output file at
+ * that point, and {@link #getCommittedSequence()} its id, one more than the checkpoint before, whatever the trips
+ * written.
+ * </p>
+ *
+ * <p>
+ * Every entry ends with the CRC32C of its columns and a new line. A crash may leave the last entry torn, with a
+ * prefix of its columns still looking valid, so an entry counts only if it is complete and its checksum matches :
+ * loading stops at the first entry that does not and truncates the manifest back to the end of the entry before it.
+ * </p>
+ */
+public class ProcessedFilesManifest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProcessedFilesManifest.class);
+
+    public static final String MANIFEST_SUFFIX = ".manifest";
+
+    private static final String HEADER = "#FilePath\tSize\tLastModified\tChecksum\tPingCount\tLastOffset"
+            + "\tOutputOffset\tSequence\tEntryChecksum";
+
+    private final Path manifestPath;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private long committedOutputOffset = 0l;
+    private long committedSequence = 0l;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    private ProcessedFilesManifest(Path manifestPath) {
+        super();
+
+        this.manifestPath = manifestPath;
+    }
+
+
+    // Factory Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Loads the manifest of the output file, truncating a torn last entry. A missing manifest is an empty one.
+     */
+    public static ProcessedFilesManifest load(String outputFilePath) throws IOException {
+        final Path manifestPath = FileUtil.getValidPath(outputFilePath + MANIFEST_SUFFIX);
+        final ProcessedFilesManifest manifest = new ProcessedFilesManifest(manifestPath);
+        if (Files.notExists(manifestPath)) {
+            return manifest;
+        }
+
+        // Complete Lines, up to the first invalid one
+        final byte[] bytes = Files.readAllBytes(manifestPath);
+        int validLength = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+
+            final String line = new String(bytes, validLength, i - validLength, StandardCharsets.UTF_8);
+            if (!line.isBlank() && !line.startsWith("#")) {
+                final Entry entry = ProcessedFilesManifest.parse(line);
+                if (Objects.isNull(entry)) {
+                    break;
+                }
+
+                manifest.entries.put(entry.getFilePath(), entry);
+                manifest.committedOutputOffset = entry.getOutputOffset();
+                manifest.committedSequence = entry.getSequence();
+            }
+            validLength = i + 1;
+        }
+
+        // Torn write of the last entry : later commits must start on a new line
+        if (validLength < bytes.length) {
+            LOGGER.warn("Truncating INVALID manifest entries - {} from {} to {} bytes", manifestPath, bytes.length,
+                    validLength);
+            try (FileChannel channel = FileChannel.open(manifestPath, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+        }
+
+        LOGGER.info("Loaded manifest - {} with {} files", manifestPath, manifest.entries.size());
+        return manifest;
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    public boolean exists() {
+        return Files.exists(this.manifestPath);
+    }
+
+    /**
+     * Creates the manifest file with its header, if it does not exist yet or is empty.
+     */
+    public void create() throws IOException {
+        if (this.exists() && Files.size(this.manifestPath) > 0) {
+            return;
+        }
+
+        try (FileOutputStream fos = new FileOutputStream(this.manifestPath.toFile());
+                Writer writer = new OutputStreamWriter(fos, StandardCharsets.UTF_8)) {
+            writer.append(HEADER).append("\n");
+
+            writer.flush();
+            fos.getFD().sync();
+        }
+    }
+
+    public Entry get(String filePath) {
+        return this.entries.get(filePath);
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * @return length of the output file at the last checkpoint
+     */
+    public long getCommittedOutputOffset() {
+        return this.committedOutputOffset;
+    }
+
+    /**
+     * @return id of the last checkpoint, <code>0</code> if none
+     */
+    public long getCommittedSequence() {
+        return this.committedSequence;
+    }
+
+    /**
+     * @return id of the next checkpoint, to commit its entry with
+     */
+    public long nextSequence() {
+        return this.committedSequence + 1;
+    }
+
+    /**
+     * Appends the entry to the manifest and syncs it to the disk.
+     *
+     * @throws ValidationException if the entry is not of the next checkpoint, see {@link #nextSequence()}
+     */
+    public void commit(Entry entry) throws IOException {
+        // Sanity checks
+        if (entry.getSequence() != this.nextSequence()) {
+            String errMsg = String.format("INVALID manifest entry sequence - %s, expected %s", entry.getSequence(),
+                    this.nextSequence());
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        this.create();
+
+        try (FileOutputStream fos = new FileOutputStream(this.manifestPath.toFile(), true);
+                Writer writer = new OutputStreamWriter(fos, StandardCharsets.UTF_8)) {
+            final String columns = ProcessedFilesManifest.columnsOf(entry);
+            writer.append(columns).append("\t") //
+                    .append(Long.toString(ProcessedFilesManifest.checksum(columns))).append("\n");
+
+            writer.flush();
+            fos.getFD().sync();
+        }
+
+        this.entries.put(entry.getFilePath(), entry);
+        this.committedOutputOffset = entry.getOutputOffset();
+        this.committedSequence = entry.getSequence();
+    }
+
+
+    // Util Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Computes the CRC32C checksum of the UTF-8 bytes of the text, e.g. - of the columns of an entry.
+     */
+    public static long checksum(String text) {
+        final CRC32C crc = new CRC32C();
+        crc.update(text.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    /**
+     * Computes the CRC32C checksum of the file content.
+     */
+    public static long checksum(Path filePath) throws IOException {
+        return ProcessedFilesManifest.checksum(filePath, Long.MAX_VALUE);
+    }
+
+    /**
+     * Computes the CRC32C checksum of the first bytes of the file, e.g. - of the content an appended file had when
+     * it was processed.
+     *
+     * @param length no. of bytes, the whole file if longer
+     */
+    public static long checksum(Path filePath, long length) throws IOException {
+        final CRC32C crc = new CRC32C();
+        final byte[] buffer = new byte[64 * 1024];
+        try (InputStream is = Files.newInputStream(filePath)) {
+            long remaining = length;
+            for (int read; remaining > 0
+                    && (read = is.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1;) {
+                crc.update(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+
+        return crc.getValue();
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    private static String columnsOf(Entry entry) {
+        return String.join("\t", entry.getFilePath(), Long.toString(entry.getSize()),
+                Long.toString(entry.getLastModified()), Long.toString(entry.getChecksum()),
+                Long.toString(entry.getPingCount()), Long.toString(entry.getLastOffset()),
+                Long.toString(entry.getOutputOffset()), Long.toString(entry.getSequence()));
+    }
+
+    /**
+     * @return entry of the line, <code>null</code> if incomplete or its checksum does not match
+     */
+    private static Entry parse(String line) {
+        final int checksumStart = line.lastIndexOf('\t');
+        if (checksumStart < 0) {
+            return null;
+        }
+
+        final String columnsStr = line.substring(0, checksumStart);
+        final String[] columns = columnsStr.split("\t", -1);
+        try {
+            final long checksum = Long.parseLong(line.substring(checksumStart + 1));
+            if (columns.length != 8 || checksum != ProcessedFilesManifest.checksum(columnsStr)) {
+                return null;
+            }
+
+            return new Entry(columns[0], Long.parseLong(columns[1]), Long.parseLong(columns[2]),
+                    Long.parseLong(columns[3]), Long.parseLong(columns[4]), Long.parseLong(columns[5]),
+                    Long.parseLong(columns[6]), Long.parseLong(columns[7]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+
+    // Entry
+    // ------------------------------------------------------------------------
+
+    public static final class Entry {
+
+        private final String filePath;
+
+        private final long size;
+        private final long lastModified;
+        private final long checksum;
+
+        private final long pingCount;
+        private final long lastOffset;
+        private final long outputOffset;
+        private final long sequence;
+
+        /**
+         * @param filePath absolute path of the input file
+         * @param size size of the input file in bytes
+         * @param lastModified last modified time of the input file in milliseconds
+         * @param checksum CRC32C checksum of the input file
+         * @param pingCount no. of pings extracted from the input file
+         * @param lastOffset no. of data lines of the input file consumed so far
+         * @param outputOffset length of the output file after the trips of the input file were written
+         * @param sequence id of the checkpoint, see {@link ProcessedFilesManifest#nextSequence()}
+         */
+        public Entry(String filePath, long size, long lastModified, long checksum, long pingCount, long lastOffset,
+                long outputOffset, long sequence) {
+            super();
+
+            this.filePath = filePath;
+
+            this.size = size;
+            this.lastModified = lastModified;
+            this.checksum = checksum;
+
+            this.pingCount = pingCount;
+            this.lastOffset = lastOffset;
+            this.outputOffset = outputOffset;
+            this.sequence = sequence;
+        }
+
+        /**
+         * @return <code>true</code> if size and last modified time still match, i.e. - the file need not be read to
+         *         know it is unchanged
+         */
+        public boolean isUnchanged(long size, long lastModified) {
+            return this.size == size && this.lastModified == lastModified;
+        }
+
+        public String getFilePath() {
+            return filePath;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public long getChecksum() {
+            return checksum;
+        }
+
+        public long getPingCount() {
+            return pingCount;
+        }
+
+        public long getLastOffset() {
+            return lastOffset;
+        }
+
+        public long getOutputOffset() {
+            return outputOffset;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry [filePath=" + filePath + ", size=" + size + ", lastModified=" + lastModified
+                    + ", pingCount=" + pingCount + ", lastOffset=" + lastOffset + ", sequence=" + sequence + "]";
+        }
+    }
+
+}
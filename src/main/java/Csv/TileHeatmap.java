@@ -0,0 +1,247 @@
+package Csv;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import Ignite.LongCountMap;
+import Ignite.Metrics;
+import Ignite.ValidationException;
+import Ignite.WindowedCounts;
+
+
+/**
+ * Ping density per hour over the web mercator tiles of a range of zoom levels, counted as the pings are parsed, see
+ * {@link Main#Main(Consumer)}.
+ *
+ * <p>
+ * A ping costs a projection to the tile of the highest zoom and an increment of the count of its thread, see
+ * {@link WindowedCounts}, a {@link LongCountMap} per hour keyed by the tile. The lower zooms are rolled up from the
+ * highest one when the heatmap is read, a tile counting the pings of its four children, so the pyramid costs nothing
+ * per ping. Hours are those of the ping timestamps, UTC.
+ * </p>
+ *
+ * <p>
+ * References:
+ * <li><a href="https://wiki.openstreetmap.org/wiki/Slippy_map_tilenames">Slippy map tilenames</a></li>
+ * </p>
+ */
+public class TileHeatmap implements Consumer<List<PingBean>> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TileHeatmap.class);
+
+    private static final Metrics.Counter PINGS_COUNTED = Metrics.counter("heatmap.pings.counted");
+
+    public static final String HEADER = "X,Y,Pings\n";
+
+    public static final int MAX_ZOOM = 24;
+
+    /** Latitudes beyond are clamped, the mercator projection is square up to it */
+    public static final double MAX_LATITUDE = 85.0511287798066;
+
+    private static final long HOUR = 60 * 60 * 1000l;
+
+    private static final DateTimeFormatter HOUR_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHH")
+            .withZone(ZoneOffset.UTC);
+
+    private final int minZoom;
+    private final int maxZoom;
+
+    /** Counts of the highest zoom by hour start */
+    private final WindowedCounts counts = new WindowedCounts(1024);
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    /**
+     * @param minZoom lowest zoom of the pyramid
+     * @param maxZoom highest zoom of the pyramid, at most {@link #MAX_ZOOM}
+     */
+    public TileHeatmap(int minZoom, int maxZoom) {
+        super();
+
+        // Sanity checks
+        if (minZoom < 0 || minZoom > maxZoom || maxZoom > MAX_ZOOM) {
+            String errMsg = String.format("INVALID heatmap zooms, %s - %s", minZoom, maxZoom);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Counts the pings, thread safe.
+     */
+    @Override
+    public void accept(List<PingBean> pings) {
+        this.counts.count(counter -> {
+            for (PingBean ping : pings) {
+                this.count(counter, ping.getTimestamp(), ping.getLatitude(), ping.getLongitude());
+            }
+        });
+        PINGS_COUNTED.add(pings.size());
+    }
+
+    public void add(long timestamp, double latitude, double longitude) {
+        this.counts.count(counter -> this.count(counter, timestamp, latitude, longitude));
+        PINGS_COUNTED.increment();
+    }
+
+    /**
+     * @return pings in the tile in the hour
+     */
+    public long count(long hourStart, int zoom, long x, long y) {
+        this.checkZoom(zoom);
+
+        synchronized (this.counts) {
+            final LongCountMap hourCounts = this.counts.merge().get(hourStart);
+            if (hourCounts == null) {
+                return 0l;
+            }
+
+            // Sum of the tiles of the highest zoom under it
+            final int shift = this.maxZoom - zoom;
+            final long[] count = { 0l };
+            hourCounts.forEach((key, c) -> {
+                if (xOf(key) >>> shift == x && yOf(key) >>> shift == y) {
+                    count[0] += c;
+                }
+            });
+            return count[0];
+        }
+    }
+
+    /**
+     * @return start of the hours with pings, ascending
+     */
+    public long[] hours() {
+        synchronized (this.counts) {
+            return this.counts.merge().keySet().stream().mapToLong(Long::longValue).toArray();
+        }
+    }
+
+    /**
+     * Writes the tile pyramid, a directory per hour, <code>yyyyMMddHH</code>, with a CSV per zoom,
+     * <code>{zoom}.csv</code>, of the non empty tiles ordered by x and y.
+     */
+    public void write(Path root) throws IOException {
+        synchronized (this.counts) {
+            for (Map.Entry<Long, LongCountMap> entry : this.counts.merge().entrySet()) {
+                final Path hourDir = root.resolve(HOUR_FORMAT.format(Instant.ofEpochMilli(entry.getKey())));
+                Files.createDirectories(hourDir);
+
+                LongCountMap zoomCounts = entry.getValue();
+                for (int zoom = this.maxZoom; zoom >= this.minZoom; zoom--) {
+                    if (zoom < this.maxZoom) {
+                        zoomCounts = parentsOf(zoomCounts);
+                    }
+                    writeZoom(zoomCounts, hourDir.resolve(zoom + ".csv"));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return tile x of the longitude at the zoom
+     */
+    public static long tileX(double longitude, int zoom) {
+        final long tiles = 1l << zoom;
+        return Math.max(0l, Math.min(tiles - 1, (long) Math.floor((longitude + 180d) / 360d * tiles)));
+    }
+
+    /**
+     * @return tile y of the latitude at the zoom, from the north
+     */
+    public static long tileY(double latitude, int zoom) {
+        final double lat = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude)));
+        final double y = (1d - Math.log(Math.tan(lat) + 1d / Math.cos(lat)) / Math.PI) / 2d;
+
+        final long tiles = 1l << zoom;
+        return Math.max(0l, Math.min(tiles - 1, (long) Math.floor(y * tiles)));
+    }
+
+    public int getMinZoom() {
+        return this.minZoom;
+    }
+
+    public int getMaxZoom() {
+        return this.maxZoom;
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Counts the ping in the tile of the highest zoom, pings without a location skipped.
+     */
+    private void count(WindowedCounts.Counter counter, long timestamp, double latitude, double longitude) {
+        // Sanity checks
+        if (Double.isNaN(latitude) || Double.isNaN(longitude)) {
+            return;
+        }
+
+        final long hourStart = Math.floorDiv(timestamp, HOUR) * HOUR;
+        counter.increment(hourStart, tileKey(tileX(longitude, this.maxZoom), tileY(latitude, this.maxZoom)));
+    }
+
+    private void checkZoom(int zoom) {
+        if (zoom < this.minZoom || zoom > this.maxZoom) {
+            String errMsg = String.format("INVALID zoom - %s, heatmap zooms %s - %s", zoom, this.minZoom,
+                    this.maxZoom);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+    }
+
+    private static LongCountMap parentsOf(LongCountMap counts) {
+        final LongCountMap parents = new LongCountMap(counts.size() / 2);
+        counts.forEach((key, count) -> parents.add(tileKey(xOf(key) >>> 1, yOf(key) >>> 1), count));
+        return parents;
+    }
+
+    private static void writeZoom(LongCountMap counts, Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.append(HEADER);
+            for (long key : counts.keys()) {
+                writer.append(Long.toString(xOf(key)))
+                        .append(',')
+                        .append(Long.toString(yOf(key)))
+                        .append(',')
+                        .append(Long.toString(counts.get(key)))
+                        .append('\n');
+            }
+        }
+    }
+
+    private static long tileKey(long x, long y) {
+        return (x << 32) | y;
+    }
+
+    private static long xOf(long key) {
+        return key >>> 32;
+    }
+
+    private static long yOf(long key) {
+        return key & 0xffffffffl;
+    }
+
+}
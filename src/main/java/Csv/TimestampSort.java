@@ -0,0 +1,317 @@
+package Csv;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.ListIterator;
+
+
+/**
+ * Stable sort of pings by timestamp, over a primitive column of the timestamps and an index permutation instead of
+ * comparing the beans.
+ *
+ * <p>
+ * Pings of a device mostly arrive in time order, so the column is scanned first : sorted input is left as is, and
+ * nearly sorted input, a few late pings, is finished by an insertion sort of the permutation. Anything else is
+ * LSD radix sorted, a byte at a time over the bytes that differ between the earliest and the latest timestamp, so
+ * a few hours of milliseconds take 4 passes. The buffers are reused per thread, a sort allocates nothing once they
+ * have grown to the device. Buffers above {@link #MAX_RETAINED_LENGTH} pings are dropped after the sort, so a pool
+ * thread does not hold on to those of the largest device it ever sorted.
+ * </p>
+ */
+public final class TimestampSort {
+
+    /** Insertion sort when at most 1 in 16 timestamps is earlier than the one before it */
+    private static final int NEARLY_SORTED_RATIO = 16;
+
+    /** Insertion sort gives up, for radix sort, after this many shifts per timestamp */
+    private static final int MAX_SHIFTS_PER_ITEM = 8;
+
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+
+    /** Max. length of the buffers kept by a thread between sorts, ~2.5 MB, that of a device split by the scheduler */
+    static final int MAX_RETAINED_LENGTH = TripScheduler.DEFAULT_SPLIT_PINGS;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    private TimestampSort() {
+        super();
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Sorts the pings by timestamp, pings of the same timestamp keep their order, i.e. - as
+     * {@link java.util.Collections#sort(List)}.
+     */
+    public static void sort(List<PingBean> pings) {
+        final int length = pings.size();
+        if (length < 2) {
+            return;
+        }
+
+        final Scratch scratch = SCRATCH.get();
+        try {
+            final long[] timestamps = scratch.timestamps(length);
+            int i = 0;
+            for (PingBean ping : pings) {
+                timestamps[i++] = ping.getTimestamp();
+            }
+            if (TimestampSort.isSorted(timestamps, length)) {
+                return;
+            }
+
+            final int[] order = scratch.order(length);
+            TimestampSort.sortOrder(timestamps, length, order);
+
+            final PingBean[] beans = pings.toArray(scratch.beans(length));
+            final ListIterator<PingBean> it = pings.listIterator();
+            for (i = 0; i < length; i++) {
+                it.next();
+                it.set(beans[order[i]]);
+            }
+
+            // Do not hold on to the pings
+            Arrays.fill(beans, 0, length, null);
+        } finally {
+            scratch.trim();
+        }
+    }
+
+    /**
+     * Fills the permutation that orders the timestamps : <code>timestamps[order[0]]</code> is the earliest. Equal
+     * timestamps keep their order. The timestamps are not modified.
+     *
+     * @param timestamps timestamps column
+     * @param length no. of timestamps, from the first
+     * @param order permutation, of at least <code>length</code>
+     */
+    public static void sortOrder(long[] timestamps, int length, int[] order) {
+        for (int i = 0; i < length; i++) {
+            order[i] = i;
+        }
+
+        // Descents, i.e. - timestamps earlier than the one before
+        int descents = 0;
+        long min = length > 0 ? timestamps[0] : 0l;
+        long max = min;
+        for (int i = 1; i < length; i++) {
+            final long ts = timestamps[i];
+            if (ts < timestamps[i - 1]) {
+                descents++;
+            }
+            min = Math.min(min, ts);
+            max = Math.max(max, ts);
+        }
+        if (descents == 0) {
+            return;
+        }
+
+        if (descents * NEARLY_SORTED_RATIO <= length
+                && TimestampSort.insertionSort(timestamps, length, order, (long) length * MAX_SHIFTS_PER_ITEM)) {
+            return;
+        }
+
+        TimestampSort.radixSort(timestamps, length, order, min, max);
+        SCRATCH.get().trim();
+    }
+
+    public static boolean isSorted(long[] timestamps, int length) {
+        for (int i = 1; i < length; i++) {
+            if (timestamps[i] < timestamps[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    // Package Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * @return length of the largest buffer kept by the calling thread
+     */
+    static int retainedLength() {
+        return SCRATCH.get().maxLength();
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Insertion sort of the permutation, stable.
+     *
+     * @return <code>false</code> if it gave up after the max. shifts, the permutation is left as identity
+     */
+    private static boolean insertionSort(long[] timestamps, int length, int[] order, long maxShifts) {
+        long shifts = 0l;
+        for (int i = 1; i < length; i++) {
+            final int idx = order[i];
+            final long ts = timestamps[idx];
+
+            int j = i - 1;
+            while (j >= 0 && timestamps[order[j]] > ts) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = idx;
+
+            shifts += i - 1 - j;
+            if (shifts > maxShifts) {
+                for (int k = 0; k < length; k++) {
+                    order[k] = k;
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * LSD radix sort of the permutation, stable, over the bytes of <code>timestamp - min</code> up to the highest
+     * byte of <code>max - min</code>.
+     */
+    private static void radixSort(long[] timestamps, int length, int[] order, long min, long max) {
+        final Scratch scratch = SCRATCH.get();
+        long[] keys = scratch.keys(length);
+        long[] keysTo = scratch.keysTo(length);
+        int[] from = order;
+        int[] to = scratch.orderTo(length);
+        final int[] counts = scratch.counts;
+
+        for (int i = 0; i < length; i++) {
+            keys[i] = timestamps[i] - min;
+        }
+
+        final int bits = 64 - Long.numberOfLeadingZeros(max - min);
+        for (int shift = 0; shift < bits; shift += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < length; i++) {
+                counts[(int) (keys[i] >>> shift) & (RADIX - 1)]++;
+            }
+            if (counts[(int) (keys[0] >>> shift) & (RADIX - 1)] == length) {
+                // All in one bucket, nothing to move
+                continue;
+            }
+
+            int offset = 0;
+            for (int digit = 0; digit < RADIX; digit++) {
+                final int count = counts[digit];
+                counts[digit] = offset;
+                offset += count;
+            }
+
+            for (int i = 0; i < length; i++) {
+                final int slot = counts[(int) (keys[i] >>> shift) & (RADIX - 1)]++;
+                keysTo[slot] = keys[i];
+                to[slot] = from[i];
+            }
+
+            final long[] swapKeys = keys;
+            keys = keysTo;
+            keysTo = swapKeys;
+            final int[] swapOrder = from;
+            from = to;
+            to = swapOrder;
+        }
+
+        if (from != order) {
+            System.arraycopy(from, 0, order, 0, length);
+        }
+    }
+
+
+    // Scratch
+    // ------------------------------------------------------------------------
+
+    /**
+     * Buffers of a thread, grown on demand and reused, up to {@link #MAX_RETAINED_LENGTH}.
+     */
+    private static final class Scratch {
+
+        private final int[] counts = new int[RADIX];
+
+        private long[] timestamps = new long[0];
+        private long[] keys = new long[0];
+        private long[] keysTo = new long[0];
+        private int[] order = new int[0];
+        private int[] orderTo = new int[0];
+        private PingBean[] beans = new PingBean[0];
+
+        private long[] timestamps(int length) {
+            if (this.timestamps.length < length) {
+                this.timestamps = new long[Scratch.grow(length)];
+            }
+            return this.timestamps;
+        }
+
+        private long[] keys(int length) {
+            if (this.keys.length < length) {
+                this.keys = new long[Scratch.grow(length)];
+            }
+            return this.keys;
+        }
+
+        private long[] keysTo(int length) {
+            if (this.keysTo.length < length) {
+                this.keysTo = new long[Scratch.grow(length)];
+            }
+            return this.keysTo;
+        }
+
+        private int[] order(int length) {
+            if (this.order.length < length) {
+                this.order = new int[Scratch.grow(length)];
+            }
+            return this.order;
+        }
+
+        private int[] orderTo(int length) {
+            if (this.orderTo.length < length) {
+                this.orderTo = new int[Scratch.grow(length)];
+            }
+            return this.orderTo;
+        }
+
+        private PingBean[] beans(int length) {
+            if (this.beans.length < length) {
+                this.beans = new PingBean[Scratch.grow(length)];
+            }
+            return this.beans;
+        }
+
+        /**
+         * Drops the buffers above {@link #MAX_RETAINED_LENGTH}, grown again by the next large device.
+         */
+        private void trim() {
+            if (this.maxLength() <= MAX_RETAINED_LENGTH) {
+                return;
+            }
+
+            this.timestamps = this.timestamps.length > MAX_RETAINED_LENGTH ? new long[0] : this.timestamps;
+            this.keys = this.keys.length > MAX_RETAINED_LENGTH ? new long[0] : this.keys;
+            this.keysTo = this.keysTo.length > MAX_RETAINED_LENGTH ? new long[0] : this.keysTo;
+            this.order = this.order.length > MAX_RETAINED_LENGTH ? new int[0] : this.order;
+            this.orderTo = this.orderTo.length > MAX_RETAINED_LENGTH ? new int[0] : this.orderTo;
+            this.beans = this.beans.length > MAX_RETAINED_LENGTH ? new PingBean[0] : this.beans;
+        }
+
+        private int maxLength() {
+            return Math.max(Math.max(Math.max(this.timestamps.length, this.keys.length), Math.max(this.keysTo.length,
+                    this.order.length)), Math.max(this.orderTo.length, this.beans.length));
+        }
+
+        private static int grow(int length) {
+            return Math.max(64, length + (length >> 1));
+        }
+    }
+
+}
@@ -1,10 +1,19 @@
 package Csv;
 
+import java.util.Objects;
+
 import Ignite.DatesUtil;
 
 
 public class TripBean {
 
+    /**
+     * Index of the device id in the {@link DeviceDictionary#shared() shared dictionary} plus one, <code>0</code>
+     * until resolved (also when deserialized). Not serialized, indexes are local to the process.
+     */
+    private transient int deviceIdxPlusOne;
+
+    /** Resolved from the index on first use, e.g. - when written */
     private String deviceId;
 
     private String dateString;
@@ -14,6 +23,12 @@ public class TripBean {
     private String startCoordinateStr;
     private String endCoordinateStr;
 
+    /** Path length in meters, computed by the trip detection */
+    private double distanceMtrs;
+
+    /** Encoded polyline of the path, see {@link Ignite.Polyline}, <code>null</code> unless enabled */
+    private String polyline;
+
 
     // Constructors
     // ------------------------------------------------------------------------
@@ -33,14 +48,36 @@ public class TripBean {
     }
 
 
+    /**
+     * @param deviceIdx index of the device id in the {@link DeviceDictionary#shared() shared dictionary}
+     */
+    public TripBean(int deviceIdx, String startCoordinateStr, long startTimestamp, String endCoordinateStr,
+            long endTimestamp) {
+        this((String) null, startCoordinateStr, startTimestamp, endCoordinateStr, endTimestamp);
+
+        this.deviceIdxPlusOne = deviceIdx + 1;
+    }
+
+
     // Getters and Setters
     // ------------------------------------------------------------------------
 
+    public int getDeviceIdx() {
+        if (deviceIdxPlusOne == 0) {
+            deviceIdxPlusOne = DeviceDictionary.shared().idOf(deviceId) + 1;
+        }
+        return deviceIdxPlusOne - 1;
+    }
+
     public String getDeviceId() {
+        if (Objects.isNull(deviceId)) {
+            deviceId = DeviceDictionary.shared().nameOf(deviceIdxPlusOne - 1);
+        }
         return deviceId;
     }
 
     public void setDeviceId(String deviceId) {
+        this.deviceIdxPlusOne = 0;
         this.deviceId = deviceId;
     }
 
@@ -84,14 +121,43 @@ public class TripBean {
         this.endCoordinateStr = endCoordinateStr;
     }
 
+    public double getDistanceMtrs() {
+        return distanceMtrs;
+    }
+
+    public void setDistanceMtrs(double distanceMtrs) {
+        this.distanceMtrs = distanceMtrs;
+    }
+
+    public long getDurationMillis() {
+        return endTimestamp - startTimestamp;
+    }
+
+    /**
+     * @return path length over duration, <code>0</code> if the duration is not positive
+     */
+    public double getAverageSpeedMps() {
+        final long durationMillis = this.getDurationMillis();
+        return durationMillis > 0 ? distanceMtrs * 1000d / durationMillis : 0d;
+    }
+
+    public String getPolyline() {
+        return polyline;
+    }
+
+    public void setPolyline(String polyline) {
+        this.polyline = polyline;
+    }
+
 
     // Object Methods
     // ------------------------------------------------------------------------
 
     @Override
     public String toString() {
-        return "TripBean [deviceId=" + deviceId + ", dateString=" + dateString + ", startCoordinateStr="
-                + startCoordinateStr + ", endCoordinateStr=" + endCoordinateStr + "]";
+        return "TripBean [deviceId=" + getDeviceId() + ", dateString=" + dateString + ", startCoordinateStr="
+                + startCoordinateStr + ", endCoordinateStr=" + endCoordinateStr + ", distanceMtrs=" + distanceMtrs
+                + "]";
     }
 
 }
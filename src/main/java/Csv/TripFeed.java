@@ -0,0 +1,183 @@
+package Csv;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.cache.Cache;
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.expiry.CreatedExpiryPolicy;
+import javax.cache.expiry.Duration;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.cache.CacheMode;
+import org.apache.ignite.cache.query.ContinuousQuery;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.configuration.CacheConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import Ignite.ValidationException;
+
+
+/**
+ * Live feed of detected trips backed by an Ignite cache.
+ *
+ * <p>
+ * Producers {@link #publish(List)} trips into the trip cache and consumers {@link #subscribe(Listener, TripFilter)}
+ * through a {@link ContinuousQuery}. Filters are evaluated on the nodes owning the data, so only matching trips
+ * travel to the subscriber, and notifications are delivered in batches of up to {@code batchSize} trips or
+ * every {@code batchIntervalMs} milliseconds, whichever comes first.
+ * </p>
+ */
+public class TripFeed {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TripFeed.class);
+
+    public static final String DEFAULT_CACHE_NAME = "trips";
+
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    public static final long DEFAULT_BATCH_INTERVAL_MS = 5;
+
+    public static final long DEFAULT_RETENTION_HOURS = 24;
+
+    private final IgniteCache<String, TripBean> cache;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    public TripFeed(Ignite ignite) {
+        this(ignite, DEFAULT_CACHE_NAME);
+    }
+
+    public TripFeed(Ignite ignite, String cacheName) {
+        super();
+
+        // Sanity checks
+        if (Objects.isNull(ignite)) {
+            String errMsg = String.format("Ignite instance is NULL");
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        this.cache = ignite.getOrCreateCache(TripFeed.cacheConfiguration(cacheName));
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Publishes the trips to the feed. Every subscriber whose filter accepts a trip gets notified.
+     *
+     * @param trips newly detected {@link TripBean}s
+     */
+    public void publish(List<TripBean> trips) {
+        if (CollectionUtils.isEmpty(trips)) {
+            return;
+        }
+
+        // Sorted keys avoid lock ordering issues between concurrent publishers
+        final Map<String, TripBean> entries = new TreeMap<>();
+        for (TripBean trip : trips) {
+            if (Objects.nonNull(trip)) {
+                entries.put(TripFeed.keyOf(trip), trip);
+            }
+        }
+
+        this.cache.putAll(entries);
+        LOGGER.debug("Published {} trips to the feed", entries.size());
+    }
+
+    public QueryCursor<Cache.Entry<String, TripBean>> subscribe(Listener listener, TripFilter filter) {
+        return this.subscribe(listener, filter, DEFAULT_BATCH_SIZE, DEFAULT_BATCH_INTERVAL_MS);
+    }
+
+    /**
+     * Subscribes the listener to newly published trips.
+     *
+     * @param listener receives the trips in batches
+     * @param filter remote filter, evaluated on the server nodes. <code>null</code> accepts every trip, see
+     *            {@link TripFilter#all()}.
+     * @param batchSize max. no. of trips buffered on a server node before they are sent to the listener
+     * @param batchIntervalMs max. time in milliseconds a partially filled batch waits before it is sent
+     *
+     * @return cursor of the subscription, closing it unsubscribes the listener
+     */
+    public QueryCursor<Cache.Entry<String, TripBean>> subscribe(Listener listener, TripFilter filter, int batchSize,
+            long batchIntervalMs) {
+        // Sanity checks
+        if (Objects.isNull(listener)) {
+            String errMsg = String.format("Trip feed listener is NULL");
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        if (batchSize < 1 || batchIntervalMs < 0) {
+            String errMsg = String.format("INVALID batch size - %s or interval - %s", batchSize, batchIntervalMs);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        final ContinuousQuery<String, TripBean> query = new ContinuousQuery<>();
+        query.setPageSize(batchSize);
+        query.setTimeInterval(batchIntervalMs);
+
+        // Updates are dropped on the server nodes, see TripFilter#evaluate(CacheEntryEvent)
+        query.setRemoteFilterFactory(FactoryBuilder.factoryOf(Objects.nonNull(filter) ? filter : TripFilter.all()));
+
+        query.setLocalListener(events -> {
+            final List<TripBean> batch = new ArrayList<>();
+            for (CacheEntryEvent<? extends String, ? extends TripBean> event : events) {
+                batch.add(event.getValue());
+            }
+
+            if (!batch.isEmpty()) {
+                listener.onTrips(batch);
+            }
+        });
+
+        return this.cache.query(query);
+    }
+
+
+    // Util Methods
+    // ------------------------------------------------------------------------
+
+    public static String keyOf(TripBean trip) {
+        return trip.getDeviceId() + ":" + trip.getStartTimestamp();
+    }
+
+    public static CacheConfiguration<String, TripBean> cacheConfiguration(String cacheName) {
+        final CacheConfiguration<String, TripBean> cfg = new CacheConfiguration<>(cacheName);
+        cfg.setCacheMode(CacheMode.PARTITIONED);
+        cfg.setBackups(1);
+
+        // Feed keeps only recent trips, the CSV output remains the system of record
+        cfg.setExpiryPolicyFactory(
+                CreatedExpiryPolicy.factoryOf(new Duration(TimeUnit.HOURS, DEFAULT_RETENTION_HOURS)));
+
+        return cfg;
+    }
+
+
+    // Listener
+    // ------------------------------------------------------------------------
+
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Invoked on the subscriber node with a batch of newly published trips.
+         */
+        void onTrips(List<TripBean> trips);
+    }
+
+}
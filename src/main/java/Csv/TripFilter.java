@@ -0,0 +1,162 @@
+package Csv;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.EventType;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.ignite.cache.CacheEntryEventSerializableFilter;
+
+import Ignite.Coordinate;
+import Ignite.ValidationException;
+
+
+/**
+ * Remote filter of the {@link TripFeed}. Gets serialized to and evaluated on the server nodes, where it drops every
+ * event but the creation of a trip, so updates are not sent to the subscribers.
+ */
+public abstract class TripFilter implements CacheEntryEventSerializableFilter<String, TripBean> {
+
+    private static final long serialVersionUID = 1L;
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    public abstract boolean accept(TripBean trip);
+
+    @Override
+    public boolean evaluate(CacheEntryEvent<? extends String, ? extends TripBean> event) {
+        if (event.getEventType() != EventType.CREATED) {
+            return false;
+        }
+
+        final TripBean trip = event.getValue();
+        return Objects.nonNull(trip) && this.accept(trip);
+    }
+
+    public TripFilter and(TripFilter other) {
+        // Sanity check
+        if (Objects.isNull(other)) {
+            throw new ValidationException("TripFilter :: other filter should not be NULL");
+        }
+
+        final TripFilter self = this;
+        return new TripFilter() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public boolean accept(TripBean trip) {
+                return self.accept(trip) && other.accept(trip);
+            }
+        };
+    }
+
+
+    // Factory Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Accepts every trip.
+     */
+    public static TripFilter all() {
+        return new AllFilter();
+    }
+
+    /**
+     * Accepts the trips of the given devices only.
+     */
+    public static TripFilter byDevices(Collection<String> deviceIds) {
+        // Sanity checks
+        if (CollectionUtils.isEmpty(deviceIds)) {
+            throw new ValidationException("TripFilter :: device ids should not be empty");
+        }
+
+        return new DeviceFilter(new HashSet<>(deviceIds));
+    }
+
+    /**
+     * Accepts the trips that start or end inside the given bounding box (bounds inclusive).
+     */
+    public static TripFilter byRegion(double minLat, double minLng, double maxLat, double maxLng) {
+        // Sanity checks
+        if (minLat > maxLat || minLng > maxLng) {
+            String errMsg = String.format("TripFilter :: INVALID region [%s, %s] - [%s, %s]", minLat, minLng, maxLat,
+                    maxLng);
+            throw new ValidationException(errMsg);
+        }
+
+        return new RegionFilter(minLat, minLng, maxLat, maxLng);
+    }
+
+
+    // Filters
+    // ------------------------------------------------------------------------
+
+    private static final class AllFilter extends TripFilter {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public boolean accept(TripBean trip) {
+            return true;
+        }
+    }
+
+    private static final class DeviceFilter extends TripFilter {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Set<String> deviceIds;
+
+        private DeviceFilter(Set<String> deviceIds) {
+            super();
+
+            this.deviceIds = deviceIds;
+        }
+
+        @Override
+        public boolean accept(TripBean trip) {
+            return this.deviceIds.contains(trip.getDeviceId());
+        }
+    }
+
+    private static final class RegionFilter extends TripFilter {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double minLat;
+        private final double minLng;
+        private final double maxLat;
+        private final double maxLng;
+
+        private RegionFilter(double minLat, double minLng, double maxLat, double maxLng) {
+            super();
+
+            this.minLat = minLat;
+            this.minLng = minLng;
+            this.maxLat = maxLat;
+            this.maxLng = maxLng;
+        }
+
+        @Override
+        public boolean accept(TripBean trip) {
+            return this.contains(trip.getStartCoordinateStr()) || this.contains(trip.getEndCoordinateStr());
+        }
+
+        private boolean contains(String coordinateStr) {
+            if (Objects.isNull(coordinateStr)) {
+                return false;
+            }
+
+            final Coordinate c = Coordinate.from(coordinateStr);
+            return c.getLatitude() >= this.minLat && c.getLatitude() <= this.maxLat //
+                    && c.getLongitude() >= this.minLng && c.getLongitude() <= this.maxLng;
+        }
+    }
+
+}
@@ -1,10 +1,7 @@
 package Csv;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 
 import org.apache.commons.collections4.CollectionUtils;
@@ -14,18 +11,70 @@ import org.slf4j.LoggerFactory;
 
 import Ignite.Coordinate;
 import Ignite.Geo;
+import Ignite.Metrics;
+import Ignite.Polyline;
 
 
 public class TripProcessor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TripProcessor.class);
 
-    public static Map<String, List<TripBean>> tripDataMap = new HashMap<>();
-    
+    static final Metrics.Timer TRIPS_TIMER = Metrics.timer("stage.trips");
+    static final Metrics.Histogram DEVICE_PINGS = Metrics.histogram("pings.per.device");
+    private static final Metrics.Counter TRIPS_EMITTED = Metrics.counter("trips.emitted");
+
+    /** End of the last trip of every device, by device index */
+    public static final ConcurrentDeviceStateMap lastTripEnds = new ConcurrentDeviceStateMap();
+
+    private final PingFilter pingFilter;
+
+    /** <code>null</code> keeps every ping */
+    private final PingDownsampler downsampler;
+
+    /** Encode the path of every trip, <code>-Dtrips.polyline=true</code> */
+    private final boolean polylines = Boolean.getBoolean("trips.polyline");
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    public TripProcessor() {
+        this(new PingFilter(), PingDownsampler.fromSystemProperties());
+    }
+
+    /**
+     * @param pingFilter drops the noisy pings before trip detection
+     */
+    public TripProcessor(PingFilter pingFilter) {
+        this(pingFilter, null);
+    }
+
+    /**
+     * @param pingFilter drops the noisy pings before trip detection
+     * @param downsampler collapses the pings of dense devices into time buckets, <code>null</code> if none
+     */
+    public TripProcessor(PingFilter pingFilter, PingDownsampler downsampler) {
+        super();
+
+        this.pingFilter = pingFilter;
+        this.downsampler = downsampler;
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
     public boolean hasMoved(PingBean p1, PingBean p2) {
         // Device Distance Traveled in Meters
         double ddt = Geo.distance(p1.getLatitude(), p1.getLongitude(), p2.getLatitude(), p2.getLongitude());
 
+        return hasMoved(ddt, p1, p2);
+    }
+
+    /**
+     * @param ddt distance between the pings in meters
+     */
+    private static boolean hasMoved(double ddt, PingBean p1, PingBean p2) {
         // Device Travel Time in Seconds
         double dtt = (p2.getTimestamp() - p1.getTimestamp()) / 1000;
 
@@ -46,55 +95,167 @@ public class TripProcessor {
             LOGGER.error("Device Id is BLANK. Exiting the trip processor.");
             return new ArrayList<>();
         }
+
+        return this.prepareTrips(DeviceDictionary.shared().idOf(deviceId), pings);
+    }
+
+    /**
+     * @param deviceIdx index of the device id in the {@link DeviceDictionary#shared() shared dictionary}
+     */
+    public List<TripBean> prepareTrips(final int deviceIdx, List<PingBean> pings) {
+        // Sanity checks
+        if (deviceIdx < 0) {
+            LOGGER.error("Device index is INVALID. Exiting the trip processor.");
+            return new ArrayList<>();
+        }
         if (CollectionUtils.isEmpty(pings) || pings.size() < 2) {
             LOGGER.error("Inssufficient pings to process. Exiting the trip processor.");
             return new ArrayList<>();
         }
 
+        // Initialize Trip Based On Last Trip or Latest Ping
+        final PingBean lastTripEnd = lastTripEnds.get(deviceIdx);
+
         // Trips
-        final List<TripBean> trips = new ArrayList<>();
+        final List<TripBean> trips = this.detectTrips(deviceIdx, pings, lastTripEnd);
+
+        // No Trips
+        if (trips.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Save Last Trip End
+        this.saveLastTripEnd(deviceIdx, trips);
+        // try {
+        // tripService.create(trips);
+        // } catch (Exception e) {
+        // LOGGER.error("Failed to create trips for device - {}", deviceId);
+        //
+        // // Failure Case - Delete device's relevant data
+        // if (lastTripTimestamp > latestPingTimestamp) {
+        // tripService.purgeByTimestamp(null, lastTripTimestamp + 1);
+        // } else {
+        // tripService.purgeByTimestamp(null, latestPingTimestamp);
+        // }
+        // }
+
+        return trips;
+    }
+
+    /**
+     * Prepares the trips of a device continuing from the given ping, e.g. - the last ping of the device seen in an
+     * earlier run. Unlike {@link #prepareTrips(String, List)}, trips of earlier runs are neither read from nor saved
+     * to {@link #lastTripEnds}.
+     *
+     * @param deviceId device id
+     * @param pings pings of the device
+     * @param lastPing ping to continue from, <code>null</code> starts from the earliest ping
+     *
+     * @return trips of the device
+     */
+    public List<TripBean> prepareTrips(final String deviceId, List<PingBean> pings, PingBean lastPing) {
+        // Sanity checks
+        if (StringUtils.isBlank(deviceId)) {
+            LOGGER.error("Device Id is BLANK. Exiting the trip processor.");
+            return new ArrayList<>();
+        }
+
+        return this.prepareTrips(DeviceDictionary.shared().idOf(deviceId), pings, lastPing);
+    }
 
+    /**
+     * @param deviceIdx index of the device id in the {@link DeviceDictionary#shared() shared dictionary}
+     *
+     * @see #prepareTrips(String, List, PingBean)
+     */
+    public List<TripBean> prepareTrips(final int deviceIdx, List<PingBean> pings, PingBean lastPing) {
+        // Sanity checks
+        if (deviceIdx < 0) {
+            LOGGER.error("Device index is INVALID. Exiting the trip processor.");
+            return new ArrayList<>();
+        }
+        if (CollectionUtils.isEmpty(pings) || (Objects.isNull(lastPing) && pings.size() < 2)) {
+            LOGGER.error("Inssufficient pings to process. Exiting the trip processor.");
+            return new ArrayList<>();
+        }
+
+        return this.detectTrips(deviceIdx, pings, lastPing);
+    }
+
+
+    // Package Methods, see TripScheduler
+    // ------------------------------------------------------------------------
+
+    /**
+     * Orders, filters and downsamples the pings of a device in place.
+     *
+     * @return the pings, ready for {@link #tripsOf(int, List, int, int, PingBean)}
+     */
+    List<PingBean> cleanPings(List<PingBean> pings, PingBean seed) {
         // Order by Timestamp
-        Collections.sort(pings);
+        TimestampSort.sort(pings);
 
-        // Initialize Trip Based On Last Trip or Latest Ping
-        PingBean curr = null;
-        int i = 0;
-        long lastTripTimestamp = 0l;
-        long latestPingTimestamp = 0l;
+        // Drop Duplicates, Invalid Coordinates and Jumps
+        this.pingFilter.filter(pings, seed);
 
-        List<TripBean> exTrips = tripDataMap.get(deviceId);
+        // Collapse Dense Devices
+        if (Objects.nonNull(this.downsampler)) {
+            this.downsampler.downsample(pings);
+        }
+        return pings;
+    }
 
-        // int exTripCount = Objects.isNull(exTrips) ? 0 : tripDataMap.get(deviceId).size();
-        // if (exTripCount > 0) {
-        // exTrips = tripDataMap.get(deviceId);
-        // }
+    /**
+     * Trips of the clean pings <code>[from, to)</code>. A range continues from the ping before it, i.e. - the trips
+     * of consecutive ranges, each seeded with the last ping of the range before, are the trips of the whole.
+     *
+     * <p>
+     * Every trip carries its path length, and so its duration and average speed, and with <code>trips.polyline</code>
+     * its encoded path, all from the distance computed to detect it, i.e. - in the same pass. A trip is a single hop
+     * between two pings, so its ping count and max. speed add nothing and are not kept.
+     * </p>
+     *
+     * @param seed ping to continue from, <code>null</code> starts from the first ping of the range
+     */
+    List<TripBean> tripsOf(final int deviceIdx, List<PingBean> pings, int from, int to, PingBean seed) {
+        // Trips
+        final List<TripBean> trips = new ArrayList<>();
 
-        if (CollectionUtils.isNotEmpty(exTrips) && Objects.nonNull(exTrips.get(0))) {
-            TripBean lastTrip = exTrips.get(0);
-            lastTripTimestamp = lastTrip.getEndTimestamp();
-            Coordinate coordinate = Coordinate.from(lastTrip.getEndCoordinateStr());
-
-            curr = new PingBean(deviceId, lastTripTimestamp, coordinate.getLatitude(), coordinate.getLongitude());
-        } else {
-            do {
-                curr = pings.get(i); // Latest Ping
-                i++;
-            } while (Objects.isNull(curr));
+        // Initialize Trip Based On Seed or Latest Ping
+        PingBean curr = seed;
+        int i = from;
+        if (Objects.isNull(curr)) {
+            curr = pings.get(i); // Latest Ping
+            i++;
         }
 
         // Trip Preparation
-        for (; i < pings.size(); i++) {
+        final StringBuilder polyline = this.polylines ? new StringBuilder() : null;
+        for (; i < to; i++) {
             PingBean next = pings.get(i);
 
+            // Device Distance Traveled in Meters, shared by the check and the trip
+            final double ddt = Geo.distance(curr.getLatitude(), curr.getLongitude(), next.getLatitude(),
+                    next.getLongitude());
+
             // If device has MOVED
-            if (hasMoved(curr, next)) {
+            if (hasMoved(ddt, curr, next)) {
                 // Trip
                 String startLocStr = curr.getCoordinateStr();
                 long startTime = curr.getTimestamp();
                 String endLocStr = next.getCoordinateStr();
                 long endTime = next.getTimestamp();
-                final TripBean trip = new TripBean(deviceId, startLocStr, startTime, endLocStr, endTime);
+                final TripBean trip = new TripBean(deviceIdx, startLocStr, startTime, endLocStr, endTime);
+
+                // Path
+                trip.setDistanceMtrs(ddt);
+                if (Objects.nonNull(polyline)) {
+                    polyline.setLength(0);
+                    Polyline.encode(0d, 0d, curr.getLatitude(), curr.getLongitude(), polyline);
+                    Polyline.encode(curr.getLatitude(), curr.getLongitude(), next.getLatitude(),
+                            next.getLongitude(), polyline);
+                    trip.setPolyline(polyline.toString());
+                }
 
                 // Add to Trip Collection
                 trips.add(trip);
@@ -104,26 +265,36 @@ public class TripProcessor {
             curr = next;
         }
 
-        // No Trips
-        if (trips.isEmpty()) {
+        TRIPS_EMITTED.add(trips.size());
+        return trips;
+    }
+
+    /**
+     * Saves the end of the last of the trips to {@link #lastTripEnds}.
+     */
+    void saveLastTripEnd(final int deviceIdx, List<TripBean> trips) {
+        final TripBean lastTrip = trips.get(trips.size() - 1);
+        final Coordinate coordinate = Coordinate.from(lastTrip.getEndCoordinateStr());
+        lastTripEnds.putIfLater(deviceIdx, lastTrip.getEndTimestamp(), coordinate.getLatitude(),
+                coordinate.getLongitude());
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    private List<TripBean> detectTrips(final int deviceIdx, List<PingBean> pings, PingBean seed) {
+        final long startNs = System.nanoTime();
+
+        this.cleanPings(pings, seed);
+        DEVICE_PINGS.record(pings.size());
+        if (pings.isEmpty() || (Objects.isNull(seed) && pings.size() < 2)) {
+            TRIPS_TIMER.recordSince(startNs);
             return new ArrayList<>();
         }
 
-        // Save Trips
-        tripDataMap.put(deviceId, trips);
-        // try {
-        // tripService.create(trips);
-        // } catch (Exception e) {
-        // LOGGER.error("Failed to create trips for device - {}", deviceId);
-        //
-        // // Failure Case - Delete device's relevant data
-        // if (lastTripTimestamp > latestPingTimestamp) {
-        // tripService.purgeByTimestamp(null, lastTripTimestamp + 1);
-        // } else {
-        // tripService.purgeByTimestamp(null, latestPingTimestamp);
-        // }
-        // }
-
+        final List<TripBean> trips = this.tripsOf(deviceIdx, pings, 0, pings.size(), seed);
+        TRIPS_TIMER.recordSince(startNs);
         return trips;
     }
 
@@ -0,0 +1,273 @@
+package Csv;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import Ignite.Metrics;
+import Ignite.ValidationException;
+
+
+/**
+ * Runs the trip stage over the pings of many devices on a work stealing pool, so a few devices with millions of pings
+ * do not leave the other workers idle.
+ *
+ * <p>
+ * Devices are submitted largest first. A device above the split threshold is cleaned, see
+ * {@link TripProcessor#cleanPings(List, PingBean)}, and then its pings are split into time ranges that run as
+ * subtasks, which idle workers steal. Every range is seeded with the last ping of the range before it, so the pairs
+ * compared by {@link TripProcessor#hasMoved(PingBean, PingBean)}, and so the trips, are those of the whole device.
+ * Trips are returned in the order of the devices, as by a sequential run.
+ * </p>
+ *
+ * <p>
+ * Parallelism defaults to the no. of processors, <code>-Dtrips.parallelism=N</code>, and the split threshold to
+ * 65536 pings, <code>-Dtrips.split.pings=N</code>. The workers run until the scheduler is closed.
+ * </p>
+ */
+public class TripScheduler implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TripScheduler.class);
+
+    private static final Metrics.Counter DEVICES_SPLIT = Metrics.counter("devices.split");
+
+    public static final int DEFAULT_SPLIT_PINGS = 1 << 16;
+
+    private final TripProcessor tripProcessor;
+    private final ForkJoinPool pool;
+    private final int splitPings;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    public TripScheduler(TripProcessor tripProcessor) {
+        this(tripProcessor, Integer.getInteger("trips.parallelism", Runtime.getRuntime().availableProcessors()),
+                Integer.getInteger("trips.split.pings", DEFAULT_SPLIT_PINGS));
+    }
+
+    /**
+     * @param tripProcessor trip processor
+     * @param parallelism no. of workers
+     * @param splitPings no. of pings above which a device is split into time ranges
+     */
+    public TripScheduler(TripProcessor tripProcessor, int parallelism, int splitPings) {
+        super();
+
+        // Sanity checks
+        if (Objects.isNull(tripProcessor) || parallelism < 1 || splitPings < 2) {
+            String errMsg = String.format("INVALID trip scheduler, parallelism - %s, split pings - %s", parallelism,
+                    splitPings);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        this.tripProcessor = tripProcessor;
+        this.pool = new ForkJoinPool(parallelism);
+        this.splitPings = splitPings;
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Trips of every device, continuing from the last trip ends, see {@link TripProcessor#prepareTrips(int, List)}.
+     *
+     * @param devicePings pings of every device, see {@link PingBean#groupByDevice(List)}
+     */
+    public List<TripBean> prepareTrips(List<List<PingBean>> devicePings) {
+        return this.schedule(devicePings, TripProcessor.lastTripEnds::get, true, null);
+    }
+
+    /**
+     * Trips of every device, continuing from its last ping, see
+     * {@link TripProcessor#prepareTrips(int, List, PingBean)}.
+     *
+     * @param devicePings pings of every device, see {@link PingBean#groupByDevice(List)}
+     * @param lastPings last ping of a device index, <code>null</code> if none
+     */
+    public List<TripBean> prepareTrips(List<List<PingBean>> devicePings, IntFunction<PingBean> lastPings) {
+        return this.schedule(devicePings, lastPings, false, null);
+    }
+
+    /**
+     * Passes the trips of every device, continuing from the last trip ends, to the sink as soon as they are
+     * prepared, instead of collecting them, e.g. - to aggregate the trips, see {@link OdMatrix}. The sink is called
+     * on the workers, concurrently and in no particular order of the devices.
+     *
+     * @param devicePings pings of every device, see {@link PingBean#groupByDevice(List)}
+     * @param sink consumer of the trips of a device, thread safe
+     */
+    public void streamTrips(List<List<PingBean>> devicePings, Consumer<List<TripBean>> sink) {
+        this.schedule(devicePings, TripProcessor.lastTripEnds::get, true, Objects.requireNonNull(sink));
+    }
+
+    public int getParallelism() {
+        return this.pool.getParallelism();
+    }
+
+    /**
+     * Shuts down the workers, trips being prepared are completed.
+     */
+    @Override
+    public void close() {
+        this.pool.shutdown();
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * @param sink consumer of the trips of every device, <code>null</code> collects them
+     */
+    private List<TripBean> schedule(List<List<PingBean>> devicePings, IntFunction<PingBean> seeds,
+            boolean fromLastTripEnds, Consumer<List<TripBean>> sink) {
+        // Largest first
+        final Integer[] order = new Integer[devicePings.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (i1, i2) -> Integer.compare(devicePings.get(i2).size(), devicePings.get(i1).size()));
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        final ForkJoinTask<List<TripBean>>[] tasks = new ForkJoinTask[order.length];
+        for (int i : order) {
+            final List<PingBean> pings = devicePings.get(i);
+            tasks[i] = this.pool.submit(new DeviceTask(pings, seeds, fromLastTripEnds, sink));
+        }
+
+        // Device order
+        final List<TripBean> trips = new ArrayList<>();
+        for (ForkJoinTask<List<TripBean>> task : tasks) {
+            trips.addAll(task.join());
+        }
+        return trips;
+    }
+
+
+    // Tasks
+    // ------------------------------------------------------------------------
+
+    /**
+     * Trips of a device, split into range tasks if it is large.
+     */
+    private final class DeviceTask extends RecursiveTask<List<TripBean>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<PingBean> pings;
+        private final IntFunction<PingBean> seeds;
+        private final boolean fromLastTripEnds;
+        private final Consumer<List<TripBean>> sink;
+
+        private DeviceTask(List<PingBean> pings, IntFunction<PingBean> seeds, boolean fromLastTripEnds,
+                Consumer<List<TripBean>> sink) {
+            super();
+
+            this.pings = pings;
+            this.seeds = seeds;
+            this.fromLastTripEnds = fromLastTripEnds;
+            this.sink = sink;
+        }
+
+        @Override
+        protected List<TripBean> compute() {
+            final List<TripBean> trips = this.trips();
+            if (Objects.isNull(this.sink)) {
+                return trips;
+            }
+
+            if (!trips.isEmpty()) {
+                this.sink.accept(trips);
+            }
+            return Collections.emptyList();
+        }
+
+        private List<TripBean> trips() {
+            if (this.pings.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            final int deviceIdx = this.pings.get(0).getDeviceIdx();
+            final PingBean seed = this.seeds.apply(deviceIdx);
+            if (this.pings.size() <= TripScheduler.this.splitPings) {
+                return this.fromLastTripEnds ? tripProcessor.prepareTrips(deviceIdx, this.pings)
+                        : tripProcessor.prepareTrips(deviceIdx, this.pings, seed);
+            }
+
+            return this.split(deviceIdx, seed);
+        }
+
+        private List<TripBean> split(int deviceIdx, PingBean seed) {
+            final long startNs = System.nanoTime();
+            DEVICES_SPLIT.increment();
+
+            tripProcessor.cleanPings(this.pings, seed);
+            TripProcessor.DEVICE_PINGS.record(this.pings.size());
+            if (this.pings.isEmpty() || (Objects.isNull(seed) && this.pings.size() < 2)) {
+                TripProcessor.TRIPS_TIMER.recordSince(startNs);
+                return Collections.emptyList();
+            }
+
+            // Time ranges, each seeded with the last ping of the range before
+            final List<RangeTask> ranges = new ArrayList<>();
+            for (int from = 0; from < this.pings.size(); from += splitPings) {
+                final int to = Math.min(this.pings.size(), from + splitPings);
+                final PingBean rangeSeed = from == 0 ? seed : this.pings.get(from - 1);
+                ranges.add(new RangeTask(deviceIdx, this.pings, from, to, rangeSeed));
+            }
+            ForkJoinTask.invokeAll(ranges);
+
+            final List<TripBean> trips = new ArrayList<>();
+            for (RangeTask range : ranges) {
+                trips.addAll(range.join());
+            }
+            if (this.fromLastTripEnds && !trips.isEmpty()) {
+                tripProcessor.saveLastTripEnd(deviceIdx, trips);
+            }
+
+            TripProcessor.TRIPS_TIMER.recordSince(startNs);
+            return trips;
+        }
+    }
+
+    private final class RangeTask extends RecursiveTask<List<TripBean>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int deviceIdx;
+        private final List<PingBean> pings;
+        private final int from;
+        private final int to;
+        private final PingBean seed;
+
+        private RangeTask(int deviceIdx, List<PingBean> pings, int from, int to, PingBean seed) {
+            super();
+
+            this.deviceIdx = deviceIdx;
+            this.pings = pings;
+            this.from = from;
+            this.to = to;
+            this.seed = seed;
+        }
+
+        @Override
+        protected List<TripBean> compute() {
+            return tripProcessor.tripsOf(this.deviceIdx, this.pings, this.from, this.to, this.seed);
+        }
+    }
+
+}
@@ -1,10 +1,24 @@
 package Ignite;
 
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
 import org.apache.commons.lang3.StringUtils;
 
 
 public final class Coordinate {
 
+    public static final double MICRODEGREES_PER_DEGREE = 1e6;
+
+    /** Exact powers of ten, division by them is correctly rounded for mantissas below 2^53 */
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    private static final long MAX_EXACT_MANTISSA = 1l << 53;
+
+    /** Decimals left to the slow path : digits, an optional fraction and an optional exponent */
+    private static final Pattern SLOW_DECIMAL_PATTERN = Pattern.compile("[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+
     private final double latitude;
     private final double longitude;
 
@@ -89,28 +103,184 @@ public final class Coordinate {
             throw new IllegalArgumentException("Coordinate :: input Longitude Str is blank");
         }
 
-        final String latStr = inLatStr.replaceAll("[^\\.0-9]", "");
-        final String lngStr = inLngStr.replaceAll("[^\\.0-9]", "");
-
-        double latitude = Double.valueOf(latStr);
-        double longitude = Double.valueOf(lngStr);
+        double latitude = parseDegrees(inLatStr, 0, inLatStr.length());
+        double longitude = parseDegrees(inLngStr, 0, inLngStr.length());
 
         return from(latitude, longitude);
     }
 
+    /**
+     * Parses <code>"latitude,longitude"</code>, e.g. - <code>"12.97, -77.59"</code>, in one pass without regular
+     * expressions or intermediate strings.
+     */
     public static Coordinate from(String latLng) {
         // Sanity checks
         if (StringUtils.isBlank(latLng)) {
             throw new IllegalArgumentException("Coordinate :: latLng string should not be blank");
         }
 
-        String[] splits = latLng.replaceAll("\\s+", "").split(",");
-        if (splits.length != 2) {
+        final int comma = latLng.indexOf(',');
+        if (comma < 0 || latLng.indexOf(',', comma + 1) >= 0) {
             String errMsg = String.format("Invalid latLng string passed to construct Coordinate : %s", latLng);
             throw new IllegalArgumentException(errMsg);
         }
 
-        return from(splits[0], splits[1]);
+        double latitude = parseDegrees(latLng, 0, comma);
+        double longitude = parseDegrees(latLng, comma + 1, latLng.length());
+
+        return from(latitude, longitude);
+    }
+
+    /**
+     * Parses a decimal number of degrees in <code>chars[from, to)</code>, surrounding whitespace ignored, as
+     * {@link #parseDegrees(byte[], int, int)}, reading the chars in place.
+     */
+    public static double parseDegrees(CharSequence chars, int from, int to) {
+        int start = from;
+        int end = to;
+        while (start < end && Character.isWhitespace(chars.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(chars.charAt(end - 1))) {
+            end--;
+        }
+
+        int i = start;
+        final boolean negative = i < end && chars.charAt(i) == '-';
+        if (negative || (i < end && chars.charAt(i) == '+')) {
+            i++;
+        }
+
+        long mantissa = 0l;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        boolean digits = false;
+        boolean slow = false;
+        for (; i < end && !slow; i++) {
+            final char c = chars.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                slow = mantissa >= MAX_EXACT_MANTISSA;
+                if (fraction) {
+                    fractionDigits++;
+                }
+                digits = true;
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                // Exponent, or not a number
+                slow = true;
+            }
+        }
+
+        if (slow || !digits || fractionDigits >= POWERS_OF_TEN.length) {
+            final String str = chars.subSequence(start, end).toString();
+            try {
+                return parseDegreesSlow(str);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Coordinate :: INVALID degrees : " + str, e);
+            }
+        }
+
+        // Both exact, so the quotient is correctly rounded
+        final double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a decimal number of degrees in the ASCII <code>bytes[from, to)</code>. Plain decimals of up to 15
+     * significant digits, e.g. - <code>-77.594563</code>, are parsed in place, correctly rounded; longer ones and
+     * those with an exponent, e.g. - <code>1.0E-4</code>, fall back to {@link Double#parseDouble(String)}. Anything
+     * else, e.g. - <code>NaN</code>, hex floats or a <code>d</code> suffix, is rejected, as are infinite results.
+     *
+     * @throws NumberFormatException if the bytes are not a number
+     */
+    public static double parseDegrees(byte[] bytes, int from, int to) {
+        int i = from;
+        final boolean negative = i < to && bytes[i] == '-';
+        if (negative || (i < to && bytes[i] == '+')) {
+            i++;
+        }
+
+        long mantissa = 0l;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        boolean digits = false;
+        for (; i < to; i++) {
+            final int b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa >= MAX_EXACT_MANTISSA) {
+                    return parseDegreesSlow(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+                }
+                if (fraction) {
+                    fractionDigits++;
+                }
+                digits = true;
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else {
+                // Exponent, or not a number
+                return parseDegreesSlow(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+            }
+        }
+        if (!digits || fractionDigits >= POWERS_OF_TEN.length) {
+            return parseDegreesSlow(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+        }
+
+        // Both exact, so the quotient is correctly rounded
+        final double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a decimal, with an optional exponent, finite. {@link Double#parseDouble(String)} alone would also take
+     * <code>NaN</code>, <code>Infinity</code>, hex floats and type suffixes.
+     */
+    private static double parseDegreesSlow(String str) {
+        // Sanity checks
+        if (!SLOW_DECIMAL_PATTERN.matcher(str).matches()) {
+            throw new NumberFormatException("Not a decimal : " + str);
+        }
+
+        final double value = Double.parseDouble(str);
+        if (!Double.isFinite(value)) {
+            throw new NumberFormatException("Not a finite decimal : " + str);
+        }
+        return value;
+    }
+
+
+    // Binary
+
+    /**
+     * @return degrees in fixed point microdegrees, ~0.11 meters at the equator
+     */
+    public static int toMicrodegrees(double degrees) {
+        return (int) Math.round(degrees * MICRODEGREES_PER_DEGREE);
+    }
+
+    public static double fromMicrodegrees(int microdegrees) {
+        return microdegrees / MICRODEGREES_PER_DEGREE;
+    }
+
+    /**
+     * Encodes the coordinate in a <code>long</code>, latitude microdegrees in the high and longitude microdegrees in
+     * the low 32 bits.
+     */
+    public static long encode(double latitude, double longitude) {
+        return ((long) toMicrodegrees(latitude) << 32) | (toMicrodegrees(longitude) & 0xffffffffl);
+    }
+
+    public long encode() {
+        return encode(this.latitude, this.longitude);
+    }
+
+    /**
+     * @see #encode(double, double)
+     */
+    public static Coordinate decode(long encoded) {
+        return from(fromMicrodegrees((int) (encoded >> 32)), fromMicrodegrees((int) encoded));
     }
 
 }
@@ -3,6 +3,9 @@ package Ignite;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
@@ -210,6 +213,48 @@ public final class DatesUtil {
     }
 
 
+    // java.time, thread safe
+    // ------------------------------------------------------------------------
+
+    /**
+     * Generates the dates between the given dates, as {@link #generateDateStrs(String, String, String, boolean)}
+     * but without {@link SimpleDateFormat}, so it can be called concurrently.
+     *
+     * @return dates from the start date, before the end date or up to it if <code>includeEndDate</code>
+     */
+    public static List<LocalDate> generateDates(LocalDate fromDate, LocalDate toDate, boolean includeEndDate) {
+        // Sanity checks
+        if (fromDate == null || toDate == null) {
+            throw new IllegalArgumentException("#generateDates :: From and To dates should not be null");
+        }
+
+        final List<LocalDate> dates = new ArrayList<>();
+        for (LocalDate date = fromDate; date.isBefore(toDate); date = date.plusDays(1)) {
+            dates.add(date);
+        }
+
+        if (includeEndDate && !toDate.isBefore(fromDate)) {
+            dates.add(toDate);
+        }
+        return dates;
+    }
+
+    /**
+     * @param dateFormatStr date format, see {@link DateTimeFormatter}
+     *
+     * @throws IllegalArgumentException if the date string does not match the format
+     */
+    public static LocalDate toLocalDate(String dateStr, String dateFormatStr) {
+        try {
+            return LocalDate.parse(dateStr, DateTimeFormatter.ofPattern(dateFormatStr));
+        } catch (DateTimeParseException e) {
+            String errMsg = String.format("Failed to parse the date string : %s to date", dateStr);
+            LOGGER.error(errMsg, e);
+            throw new IllegalArgumentException(errMsg, e);
+        }
+    }
+
+
     // Private Methods
     // ------------------------------------------------------------------------
 
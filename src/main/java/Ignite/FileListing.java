@@ -0,0 +1,540 @@
+package Ignite;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Lazy, filtered, recursive listing of the regular files under a directory.
+ *
+ * <p>
+ * Filters are applied during the walk : files are matched by extension, glob (relative to the root directory),
+ * last modified time and the date in their path, and directories whose path date lies outside the date range are
+ * not descended into. Files are yielded as soon as they are found, so processing can start with the first file.
+ * Links to files are listed, by their own path, links to directories are not descended into, so a walk cannot
+ * cycle.
+ * </p>
+ *
+ * <p>
+ * {@link #stream()} walks depth first on the calling thread, in name order. {@link #parallelStream()} walks the
+ * directories concurrently on threads of its own, for wide trees, and yields in no particular order. At most
+ * {@link #QUEUE_CAPACITY} files wait for the consumer, the walk pauses when it is behind.
+ * </p>
+ *
+ * <pre>
+ * try (Stream&lt;Path&gt; files = FileListing.from(root).extension(".gz").dateRange(from, to).stream()) {
+ *     files.forEach(...);
+ * }
+ * </pre>
+ */
+public final class FileListing {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileListing.class);
+
+    /** Dates in paths : <code>yyyy/MM/dd</code>, <code>yyyy-MM-dd</code> or <code>yyyyMMdd</code> */
+    private static final Pattern PATH_DATE_PATTERN = Pattern
+            .compile("(?<![0-9])((?:19|20)[0-9]{2})[/\\\\_-]?(0[1-9]|1[0-2])(?:[/\\\\_-]?(0[1-9]|[12][0-9]|3[01]))?(?![0-9])");
+
+    public static final int QUEUE_CAPACITY = 1024;
+
+    private static final Object END = new Object();
+
+    private final Path root;
+
+    private final List<String> extensions = new ArrayList<>();
+    private final List<PathMatcher> globs = new ArrayList<>();
+
+    private long modifiedFrom = Long.MIN_VALUE;
+    private long modifiedTo = Long.MAX_VALUE;
+
+    private LocalDate dateFrom = null;
+    private LocalDate dateTo = null;
+
+    private int maxDepth = Integer.MAX_VALUE;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    private FileListing(Path root) {
+        super();
+
+        this.root = root;
+    }
+
+
+    // Factory Methods
+    // ------------------------------------------------------------------------
+
+    public static FileListing from(String rootPathStr) {
+        return FileListing.from(FileUtil.getValidPath(rootPathStr));
+    }
+
+    public static FileListing from(Path root) {
+        // Sanity check
+        if (Objects.isNull(root) || !Files.isDirectory(root)) {
+            String errMsg = String.format("INVALID directory path - %s", root);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        return new FileListing(root.toAbsolutePath());
+    }
+
+
+    // Filters
+    // ------------------------------------------------------------------------
+
+    /**
+     * Lists the files with the extension (e.g. - <code>.gz</code>). Repeated calls match any of the extensions.
+     */
+    public FileListing extension(String extension) {
+        // Sanity check
+        if (StringUtils.isBlank(extension)) {
+            throw new ValidationException("FileListing :: extension should not be blank");
+        }
+
+        this.extensions.add(extension.startsWith(".") ? extension : "." + extension);
+        return this;
+    }
+
+    /**
+     * Lists the files whose path relative to the root directory matches the glob (e.g. - <code>2023/01/*&#47;*.gz</code>).
+     * Repeated calls match any of the globs.
+     */
+    public FileListing glob(String glob) {
+        // Sanity check
+        if (StringUtils.isBlank(glob)) {
+            throw new ValidationException("FileListing :: glob should not be blank");
+        }
+
+        this.globs.add(FileSystems.getDefault().getPathMatcher("glob:" + glob));
+        return this;
+    }
+
+    /**
+     * Lists the files last modified in the range, bounds inclusive.
+     */
+    public FileListing modifiedBetween(long fromMillis, long toMillis) {
+        this.modifiedFrom = fromMillis;
+        this.modifiedTo = toMillis;
+        return this;
+    }
+
+    /**
+     * Lists the files whose path (relative to the root directory) carries a date in the range, bounds inclusive.
+     * Directories are skipped as a whole when their date (day or month) lies outside the range. Files without a
+     * date in their path are listed.
+     */
+    public FileListing dateRange(LocalDate from, LocalDate to) {
+        // Sanity check
+        if (Objects.isNull(from) || Objects.isNull(to) || from.isAfter(to)) {
+            String errMsg = String.format("FileListing :: INVALID date range [%s, %s]", from, to);
+            throw new ValidationException(errMsg);
+        }
+
+        this.dateFrom = from;
+        this.dateTo = to;
+        return this;
+    }
+
+    /**
+     * Descends at most the given no. of directory levels below the root directory.
+     */
+    public FileListing maxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+
+    // Listing
+    // ------------------------------------------------------------------------
+
+    /**
+     * Walks the tree depth first on the calling thread, yielding files in name order. The stream should be closed.
+     */
+    public Stream<Path> stream() {
+        final Walker walker = new Walker();
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(walker, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(walker::close);
+    }
+
+    public Stream<Path> parallelStream() {
+        return this.parallelStream(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Walks the directories concurrently on the given no. of threads, started for the walk and stopped once it ends.
+     * Files are yielded as they are found, in no particular order. Closing the stream stops the walk.
+     */
+    public Stream<Path> parallelStream(int threads) {
+        // Sanity check
+        if (threads < 1) {
+            String errMsg = String.format("FileListing :: INVALID no. of threads - %s", threads);
+            throw new ValidationException(errMsg);
+        }
+
+        final ParallelWalker walker = new ParallelWalker(
+                IoExecutors.newExecutor(IoExecutors.Mode.PLATFORM, threads, "file-listing"));
+        walker.start();
+
+        return StreamSupport.stream(walker, false).onClose(walker::close);
+    }
+
+    public List<Path> list() {
+        final List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = this.stream()) {
+            stream.forEach(files::add);
+        }
+        return files;
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    private boolean acceptFile(Path file, BasicFileAttributes attrs) {
+        // Extension
+        if (!this.extensions.isEmpty()) {
+            final String name = file.getFileName().toString();
+            if (this.extensions.stream().noneMatch(name::endsWith)) {
+                return false;
+            }
+        }
+
+        // Glob
+        if (!this.globs.isEmpty()) {
+            final Path relative = this.root.relativize(file);
+            if (this.globs.stream().noneMatch(g -> g.matches(relative))) {
+                return false;
+            }
+        }
+
+        // Modified time
+        final long modified = attrs.lastModifiedTime().toMillis();
+        if (modified < this.modifiedFrom || modified > this.modifiedTo) {
+            return false;
+        }
+
+        return this.isInDateRange(file);
+    }
+
+    private boolean acceptDirectory(Path directory, int depth) {
+        return depth < this.maxDepth && this.isInDateRange(directory);
+    }
+
+    /**
+     * @return <code>false</code> only if the path carries a date (a day or a whole month) outside the date range
+     */
+    private boolean isInDateRange(Path path) {
+        if (Objects.isNull(this.dateFrom)) {
+            return true;
+        }
+
+        final String relative = this.root.relativize(path).toString();
+        final Matcher matcher = PATH_DATE_PATTERN.matcher(relative);
+
+        // Last date in the path is the most specific one
+        LocalDate start = null;
+        LocalDate end = null;
+        while (matcher.find()) {
+            try {
+                final int year = Integer.parseInt(matcher.group(1));
+                final int month = Integer.parseInt(matcher.group(2));
+                if (Objects.nonNull(matcher.group(3))) {
+                    start = LocalDate.of(year, month, Integer.parseInt(matcher.group(3)));
+                    end = start;
+                } else {
+                    start = LocalDate.of(year, month, 1);
+                    end = start.withDayOfMonth(start.lengthOfMonth());
+                }
+            } catch (DateTimeException e) {
+                // Digits that only look like a date
+            }
+        }
+
+        if (Objects.isNull(start)) {
+            return true;
+        }
+
+        return !end.isBefore(this.dateFrom) && !start.isAfter(this.dateTo);
+    }
+
+    /**
+     * @return attributes of the path, those of its target for a link to a regular file, as by
+     *         {@link Files#isRegularFile(Path, LinkOption...)}, links to directories and broken links not followed
+     */
+    private static BasicFileAttributes readAttributes(Path path) throws IOException {
+        final BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class,
+                LinkOption.NOFOLLOW_LINKS);
+        if (!attrs.isSymbolicLink()) {
+            return attrs;
+        }
+
+        try {
+            final BasicFileAttributes target = Files.readAttributes(path, BasicFileAttributes.class);
+            return target.isRegularFile() ? target : attrs;
+        } catch (IOException e) {
+            // Broken link
+            return attrs;
+        }
+    }
+
+
+    // Sequential Walker
+    // ------------------------------------------------------------------------
+
+    /**
+     * Depth first walk, one open directory at a time : the entries of a directory are read and sorted before
+     * descending.
+     */
+    private final class Walker implements Iterator<Path> {
+
+        private final Deque<Iterator<Entry>> stack = new ArrayDeque<>();
+        private Path next = null;
+
+        private Walker() {
+            super();
+
+            this.stack.push(this.entries(FileListing.this.root, 0).iterator());
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (Objects.isNull(this.next) && !this.stack.isEmpty()) {
+                final Iterator<Entry> entries = this.stack.peek();
+                if (!entries.hasNext()) {
+                    this.stack.pop();
+                    continue;
+                }
+
+                final Entry entry = entries.next();
+                if (entry.attrs.isDirectory()) {
+                    if (FileListing.this.acceptDirectory(entry.path, entry.depth)) {
+                        this.stack.push(this.entries(entry.path, entry.depth).iterator());
+                    }
+                } else if (entry.attrs.isRegularFile() && FileListing.this.acceptFile(entry.path, entry.attrs)) {
+                    this.next = entry.path;
+                }
+            }
+
+            return Objects.nonNull(this.next);
+        }
+
+        @Override
+        public Path next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final Path path = this.next;
+            this.next = null;
+            return path;
+        }
+
+        private void close() {
+            this.stack.clear();
+        }
+
+        private List<Entry> entries(Path directory, int depth) {
+            final List<Entry> entries = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path path : stream) {
+                    entries.add(new Entry(path, FileListing.readAttributes(path), depth + 1));
+                }
+            } catch (IOException e) {
+                String errMsg = String.format("Failed to list content of directory - %s", directory);
+                LOGGER.error(errMsg, e);
+                throw new UncheckedIOException(errMsg, e);
+            }
+
+            Collections.sort(entries, (e1, e2) -> e1.path.compareTo(e2.path));
+            return entries;
+        }
+    }
+
+    private static final class Entry {
+
+        private final Path path;
+        private final BasicFileAttributes attrs;
+        private final int depth;
+
+        private Entry(Path path, BasicFileAttributes attrs, int depth) {
+            super();
+
+            this.path = path;
+            this.attrs = attrs;
+            this.depth = depth;
+        }
+    }
+
+
+    // Parallel Walker
+    // ------------------------------------------------------------------------
+
+    /**
+     * Every directory is a task on the executor of the walk. Tasks hand the accepted files to the consumer through a
+     * bounded queue, waiting while it is full, and the last task to finish marks the end of the walk. The consumer
+     * never runs on the executor, so waiting tasks cannot stall it.
+     */
+    private final class ParallelWalker extends Spliterators.AbstractSpliterator<Path> {
+
+        private final ExecutorService executor;
+
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final AtomicInteger pendingDirectories = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicReference<UncheckedIOException> failure = new AtomicReference<>();
+
+        private boolean ended = false;
+
+        private ParallelWalker(ExecutorService executor) {
+            super(Long.MAX_VALUE, Spliterator.NONNULL);
+
+            this.executor = executor;
+        }
+
+        private void start() {
+            this.submit(FileListing.this.root, 0);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Path> action) {
+            if (this.ended) {
+                return false;
+            }
+
+            final Object item;
+            try {
+                item = this.queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.close();
+                throw new IllegalStateException("Interrupted while listing files", e);
+            }
+
+            if (item == END) {
+                this.ended = true;
+                if (Objects.nonNull(this.failure.get())) {
+                    throw this.failure.get();
+                }
+                return false;
+            }
+
+            action.accept((Path) item);
+            return true;
+        }
+
+        /**
+         * Stops the walk : pending tasks are dropped and running ones interrupted.
+         */
+        private void close() {
+            if (this.closed.compareAndSet(false, true)) {
+                this.executor.shutdownNow();
+                this.queue.clear();
+            }
+        }
+
+        private void submit(Path directory, int depth) {
+            this.pendingDirectories.incrementAndGet();
+            try {
+                this.executor.execute(() -> {
+                    try {
+                        this.walk(directory, depth);
+                    } catch (InterruptedException e) {
+                        // Closed
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        if (this.pendingDirectories.decrementAndGet() == 0) {
+                            this.end();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Closed
+                this.pendingDirectories.decrementAndGet();
+            }
+        }
+
+        private void walk(Path directory, int depth) throws InterruptedException {
+            if (this.closed.get()) {
+                return;
+            }
+
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path path : stream) {
+                    if (this.closed.get()) {
+                        return;
+                    }
+
+                    final BasicFileAttributes attrs = FileListing.readAttributes(path);
+                    if (attrs.isDirectory()) {
+                        if (FileListing.this.acceptDirectory(path, depth + 1)) {
+                            this.submit(path, depth + 1);
+                        }
+                    } else if (attrs.isRegularFile() && FileListing.this.acceptFile(path, attrs)) {
+                        this.queue.put(path);
+                    }
+                }
+            } catch (IOException e) {
+                String errMsg = String.format("Failed to list content of directory - %s", directory);
+                LOGGER.error(errMsg, e);
+                this.failure.compareAndSet(null, new UncheckedIOException(errMsg, e));
+            }
+        }
+
+        /**
+         * Marks the end of the walk, on the thread of the last task.
+         */
+        private void end() {
+            this.executor.shutdown();
+            if (this.closed.get()) {
+                return;
+            }
+
+            try {
+                this.queue.put(END);
+            } catch (InterruptedException e) {
+                // Closed
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+}
@@ -4,8 +4,9 @@ import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
 import static java.util.stream.Collectors.toList;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.LinkOption;
 import java.nio.file.Path;
@@ -17,9 +18,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
-import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -128,35 +128,60 @@ public final class FileUtil {
     // Listing Files
 
     public static List<String> listFilesRecursivelyFromPath(String pathStr) throws IOException {
-        return FileUtil.listItemsRecursivelyFromPath(pathStr, Files::isRegularFile);
+        try (Stream<Path> files = FileUtil.streamFilesRecursivelyFromPath(pathStr)) {
+            return files.map(filePath -> filePath.toAbsolutePath().toString()).collect(toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Lazily lists the regular files under the path, in name order. Use {@link FileListing} for filtered or
+     * parallel listing.
+     *
+     * @return stream of the files, should be closed
+     */
+    public static Stream<Path> streamFilesRecursivelyFromPath(String pathStr) {
+        return FileListing.from(pathStr).stream();
     }
 
-    private static <T, R> List<String> listItemsRecursivelyFromPath(String pathStr, Function<Path, Boolean> filterFun)
+    private static List<String> listItemsRecursivelyFromPath(String pathStr, Predicate<Path> filter)
             throws IOException {
         // Sanity check
         final Path path = FileUtil.getValidPath(pathStr);
 
         // Items Path
-        final List<String> files = new ArrayList<>();
         try (Stream<Path> stream = Files.walk(path)) {
-            stream.forEach(filePath -> {
-                // Check path for null
-                if (Objects.isNull(filePath)) {
-                    String errMsg = String.format("Failed to list content of directory - %s", pathStr);
-                    LOGGER.error(errMsg);
-                    throw new ValidationException(errMsg);
-                }
-
-                // Apply Function
-                if (Objects.isNull(filterFun)) {
-                    files.add(filePath.toAbsolutePath().toString());
-                    return;
-                } else if (filterFun.apply(filePath)) {
-                    files.add(filePath.toAbsolutePath().toString());
-                } else {
-                    // No operation
-                }
-            });
+            return stream //
+                    .filter(filePath -> Objects.isNull(filter) || filter.test(filePath)) //
+                    .map(filePath -> filePath.toAbsolutePath().toString()) //
+                    .collect(toList());
+        }
+    }
+
+
+    /**
+     * Downloads the objects of the bucket with the given key prefix to the target directory.
+     *
+     * @return absolute paths of the downloaded files, in key order
+     */
+    public static List<String> downloadAndListFiles(IngestSource source, String bucket, String prefix,
+            String targetDirectoryPathStr) throws IOException {
+        // Sanity check
+        if (Objects.isNull(source)) {
+            String errMsg = String.format("Ingest source is NULL");
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        final List<IngestObject> objects = source.list(bucket, prefix);
+        LOGGER.info("Total objects found in bucket :: {}/{} - {}", bucket, prefix, objects.size());
+
+        final List<String> files = new ArrayList<>(objects.size());
+        try (IngestPrefetcher prefetcher = new IngestPrefetcher(source, objects, targetDirectoryPathStr)) {
+            while (prefetcher.hasNext()) {
+                files.add(prefetcher.next().toAbsolutePath().toString());
+            }
         }
 
         return files;
@@ -233,8 +258,7 @@ public final class FileUtil {
         Files.deleteIfExists(trgFilePath);
 
         // Decompression
-        final FileInputStream fis = new FileInputStream(srcFilePath.toFile());
-        try (GZIPInputStream gis = new GZIPInputStream(fis)) {
+        try (InputStream gis = ParallelGzip.open(srcFilePath)) {
 
             // Copy
             Files.copy(gis, trgFilePath);
@@ -243,6 +267,24 @@ public final class FileUtil {
         return trgFilePath.toString();
     }
 
+    /**
+     * Opens the gzip file for streaming its uncompressed content. Members of multi-member gzip files get
+     * decompressed in parallel, see {@link ParallelGzip}.
+     */
+    public static InputStream openGzip(String sourceFilePathStr) throws IOException {
+        // Sanity check
+        final Path srcFilePath = FileUtil.getValidPath(sourceFilePathStr);
+
+        // Source File
+        if (Files.notExists(srcFilePath)) {
+            String errMsg = String.format("File path does not exists - %s", srcFilePath);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        return ParallelGzip.open(srcFilePath);
+    }
+
 
     // Deleting File
 
@@ -29,6 +29,8 @@ public final class Geo {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Geo.class);
 
+    private static final Tracer TRACER = Tracer.of(Geo.class);
+
     private Geo() {
         // Utility Class
     }
@@ -67,7 +69,10 @@ public final class Geo {
         double c = 2 * atan2(sqrt(a), sqrt(1 - a));
         double distInMtrs = RADIUS_EARTHS_MTRS * c;
 
-        LOGGER.debug("Calculated Distance between {},{} and {},{} is #{} meters", lat1, lng1, lat2, lng2, distInMtrs);
+        if (Tracer.ENABLED && TRACER.isSampled()) {
+            TRACER.trace("Calculated Distance between {},{} and {},{} is #{} meters", lat1, lng1, lat2, lng2,
+                    distInMtrs);
+        }
         return distInMtrs;
     }
 
@@ -254,7 +259,9 @@ public final class Geo {
         }
 
         final Coordinate result = Coordinate.from(latitude, longitude);
-        LOGGER.debug("A: {}, B: {}, p: {}, o: {}", c1, c2, from, result);
+        if (Tracer.ENABLED && TRACER.isSampled()) {
+            TRACER.trace("A: {}, B: {}, p: {}, o: {}", c1, c2, from, result);
+        }
         return result;
     }
 
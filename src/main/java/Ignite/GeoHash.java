@@ -0,0 +1,380 @@
+package Ignite;
+
+import static java.lang.Math.cos;
+import static java.lang.Math.toDegrees;
+import static java.lang.Math.toRadians;
+
+import java.util.Arrays;
+
+
+/**
+ * Geohash cells as <code>long</code> ids, for spatial keys : partitioning, bucketing and indexing by space with
+ * integer operations.
+ *
+ * <p>
+ * A cell id of <code>bits</code> precision interleaves the bits of the longitude and the latitude cell indexes,
+ * longitude first, as the geohash does : 5 bits are a geohash character, see {@link #toBase32(long, int)}, and 40
+ * bits a cell of ~150 x 150 meters at the equator. Ids of a coarser precision are prefixes, i.e. -
+ * <code>id &gt;&gt;&gt; (bits - coarserBits)</code>.
+ * </p>
+ *
+ * <p>
+ * Units :
+ * <li>Angle : <b>Degrees</b></li>
+ * <li>Distance : <b>Meters</b></li>
+ * </p>
+ */
+public final class GeoHash {
+
+    private GeoHash() {
+        // Utility Class
+    }
+
+
+    // Constants
+    // ------------------------------------------------------------------------
+
+    public static final int MAX_BITS = 62;
+
+    /** Cells a cover may have, larger covers should use a coarser precision */
+    public static final int MAX_COVER_CELLS = 1 << 20;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private static final int[] BASE32_INDEX = new int[128];
+
+    static {
+        Arrays.fill(BASE32_INDEX, -1);
+        for (int i = 0; i < BASE32.length; i++) {
+            BASE32_INDEX[BASE32[i]] = i;
+        }
+    }
+
+
+
+    // Encode / Decode
+    // ------------------------------------------------------------------------
+
+    /**
+     * @param bits precision, <code>[1, 62]</code>
+     *
+     * @return id of the cell of the coordinate
+     */
+    public static long encode(double latitude, double longitude, int bits) {
+        checkBits(bits);
+
+        final int latBits = bits / 2;
+        final int lngBits = bits - latBits;
+        return interleave(latIndex(latitude, latBits), lngIndex(longitude, lngBits), bits);
+    }
+
+    /**
+     * @return center of the cell
+     */
+    public static Coordinate decode(long cell, int bits) {
+        return Coordinate.from(centerLatitude(cell, bits), centerLongitude(cell, bits));
+    }
+
+    public static double centerLatitude(long cell, int bits) {
+        checkBits(bits);
+
+        return -90d + (latIndexOf(cell, bits) + 0.5) * cellHeight(bits);
+    }
+
+    public static double centerLongitude(long cell, int bits) {
+        checkBits(bits);
+
+        return -180d + (lngIndexOf(cell, bits) + 0.5) * cellWidth(bits);
+    }
+
+    /**
+     * @return height of the cells of the precision, in degrees of latitude
+     */
+    public static double cellHeight(int bits) {
+        return 180d / (1l << (bits / 2));
+    }
+
+    /**
+     * @return width of the cells of the precision, in degrees of longitude
+     */
+    public static double cellWidth(int bits) {
+        return 360d / (1l << (bits - bits / 2));
+    }
+
+
+    // Base32
+
+    /**
+     * @return geohash string of the cell, <code>bits</code> a multiple of 5
+     */
+    public static String toBase32(long cell, int bits) {
+        checkBits(bits);
+        if (bits % 5 != 0) {
+            throw new IllegalArgumentException("GeoHash :: bits should be a multiple of 5 : " + bits);
+        }
+
+        final char[] chars = new char[bits / 5];
+        for (int i = chars.length - 1; i >= 0; i--) {
+            chars[i] = BASE32[(int) (cell & 31)];
+            cell >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @return cell of the geohash string, of <code>5 x length</code> bits
+     */
+    public static long fromBase32(String geohash) {
+        // Sanity checks
+        if (geohash == null || geohash.isEmpty() || geohash.length() * 5 > MAX_BITS) {
+            throw new IllegalArgumentException("GeoHash :: INVALID geohash : " + geohash);
+        }
+
+        long cell = 0l;
+        for (int i = 0; i < geohash.length(); i++) {
+            final char c = Character.toLowerCase(geohash.charAt(i));
+            final int value = c < 128 ? BASE32_INDEX[c] : -1;
+            if (value < 0) {
+                throw new IllegalArgumentException("GeoHash :: INVALID geohash : " + geohash);
+            }
+            cell = (cell << 5) | value;
+        }
+        return cell;
+    }
+
+
+
+    // Neighbors
+    // ------------------------------------------------------------------------
+
+    /**
+     * Cell at the given offset, in cells, from the given cell. Longitude wraps around the antimeridian.
+     *
+     * @return id of the cell, <code>-1</code> if beyond a pole
+     */
+    public static long neighbor(long cell, int bits, int dLat, int dLng) {
+        checkBits(bits);
+
+        final int latBits = bits / 2;
+        final int lngBits = bits - latBits;
+
+        final long lat = latIndexOf(cell, bits) + dLat;
+        if (lat < 0 || lat >= (1l << latBits)) {
+            return -1l;
+        }
+        final long lng = Math.floorMod(lngIndexOf(cell, bits) + dLng, 1l << lngBits);
+
+        return interleave(lat, lng, bits);
+    }
+
+    /**
+     * @return the up to 8 cells around the cell, none beyond a pole
+     */
+    public static long[] neighbors(long cell, int bits) {
+        final long[] neighbors = new long[8];
+        int count = 0;
+        for (int dLat = -1; dLat <= 1; dLat++) {
+            for (int dLng = -1; dLng <= 1; dLng++) {
+                if (dLat == 0 && dLng == 0) {
+                    continue;
+                }
+
+                final long neighbor = neighbor(cell, bits, dLat, dLng);
+                if (neighbor >= 0 && neighbor != cell && !contains(neighbors, count, neighbor)) {
+                    neighbors[count++] = neighbor;
+                }
+            }
+        }
+        return count == neighbors.length ? neighbors : Arrays.copyOf(neighbors, count);
+    }
+
+
+
+    // Cover
+    // ------------------------------------------------------------------------
+
+    /**
+     * Cells that cover the bounding box (bounds inclusive).
+     *
+     * @throws IllegalArgumentException if the box needs more than {@link #MAX_COVER_CELLS} cells
+     */
+    public static long[] cover(double minLat, double minLng, double maxLat, double maxLng, int bits) {
+        checkBits(bits);
+        if (minLat > maxLat || minLng > maxLng) {
+            String errMsg = String.format("GeoHash :: INVALID bounding box [%s, %s] - [%s, %s]", minLat, minLng,
+                    maxLat, maxLng);
+            throw new IllegalArgumentException(errMsg);
+        }
+
+        final int latBits = bits / 2;
+        final int lngBits = bits - latBits;
+        final long minLatIdx = latIndex(minLat, latBits);
+        final long maxLatIdx = latIndex(maxLat, latBits);
+        final long minLngIdx = lngIndex(minLng, lngBits);
+        final long maxLngIdx = lngIndex(maxLng, lngBits);
+
+        final long count = (maxLatIdx - minLatIdx + 1) * (maxLngIdx - minLngIdx + 1);
+        if (count > MAX_COVER_CELLS) {
+            String errMsg = String.format("GeoHash :: cover of #%s cells exceeds %s, use less than %s bits", count,
+                    MAX_COVER_CELLS, bits);
+            throw new IllegalArgumentException(errMsg);
+        }
+
+        final long[] cells = new long[(int) count];
+        int i = 0;
+        for (long lat = minLatIdx; lat <= maxLatIdx; lat++) {
+            for (long lng = minLngIdx; lng <= maxLngIdx; lng++) {
+                cells[i++] = interleave(lat, lng, bits);
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Cells within the radius of the coordinate, i.e. - the cells of its bounding box whose nearest point is
+     * within the radius. A box across the antimeridian is covered as two boxes, one on either side.
+     *
+     * @throws IllegalArgumentException if the bounding box needs more than {@link #MAX_COVER_CELLS} cells
+     */
+    public static long[] cover(double latitude, double longitude, double radiusMtrs, int bits) {
+        final double dLat = toDegrees(radiusMtrs / Geo.RADIUS_EARTHS_MTRS);
+        final double minLat = Math.max(-90d, latitude - dLat);
+        final double maxLat = Math.min(90d, latitude + dLat);
+
+        // Widest at the latitude nearest to a pole
+        final double cosLat = cos(toRadians(Math.max(Math.abs(minLat), Math.abs(maxLat))));
+        final double dLng = cosLat <= 0d ? 180d : Math.min(180d, dLat / cosLat);
+        final double height = cellHeight(bits);
+        final double width = cellWidth(bits);
+
+        final long[] candidates;
+        if (2 * dLng >= 360d - width) {
+            // All around, the two boxes would share cells
+            candidates = cover(minLat, -180d, maxLat, 180d, bits);
+        } else if (longitude - dLng < -180d) {
+            candidates = concat(cover(minLat, longitude - dLng + 360d, maxLat, 180d, bits),
+                    cover(minLat, -180d, maxLat, longitude + dLng, bits));
+        } else if (longitude + dLng > 180d) {
+            candidates = concat(cover(minLat, longitude - dLng, maxLat, 180d, bits),
+                    cover(minLat, -180d, maxLat, longitude + dLng - 360d, bits));
+        } else {
+            candidates = cover(minLat, longitude - dLng, maxLat, longitude + dLng, bits);
+        }
+
+        int count = 0;
+        for (long cell : candidates) {
+            final double cellMinLat = -90d + latIndexOf(cell, bits) * height;
+            final double cellMinLng = -180d + lngIndexOf(cell, bits) * width;
+
+            // Longitude of the coordinate on the side of the antimeridian of the cell
+            double lngOnSide = longitude;
+            if (lngOnSide - (cellMinLng + width / 2) > 180d) {
+                lngOnSide -= 360d;
+            } else if ((cellMinLng + width / 2) - lngOnSide > 180d) {
+                lngOnSide += 360d;
+            }
+
+            // Nearest point of the cell
+            final double lat = Math.max(cellMinLat, Math.min(latitude, cellMinLat + height));
+            final double lng = Math.max(cellMinLng, Math.min(lngOnSide, cellMinLng + width));
+            if (Geo.distance(latitude, lngOnSide, lat, lng) <= radiusMtrs) {
+                candidates[count++] = cell;
+            }
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    private static long[] concat(long[] cells, long[] moreCells) {
+        final long[] all = Arrays.copyOf(cells, cells.length + moreCells.length);
+        System.arraycopy(moreCells, 0, all, cells.length, moreCells.length);
+        return all;
+    }
+
+    private static void checkBits(int bits) {
+        if (bits < 1 || bits > MAX_BITS) {
+            throw new IllegalArgumentException("GeoHash :: bits should belong to [1, " + MAX_BITS + "] : " + bits);
+        }
+    }
+
+    private static long latIndex(double latitude, int latBits) {
+        if (-90 > latitude || latitude > 90) {
+            throw new IllegalArgumentException("GeoHash :: Latitude should belong to [-90, 90] : " + latitude);
+        }
+
+        return index((latitude + 90d) / 180d, latBits);
+    }
+
+    private static long lngIndex(double longitude, int lngBits) {
+        if (-180 > longitude || longitude > 180) {
+            throw new IllegalArgumentException("GeoHash :: Longitude should belong to [-180, 180] : " + longitude);
+        }
+
+        return index((longitude + 180d) / 360d, lngBits);
+    }
+
+    /**
+     * @return cell index of the fraction of the range, the upper bound in the last cell
+     */
+    private static long index(double fraction, int bits) {
+        final long cells = 1l << bits;
+        return Math.min(cells - 1, (long) (fraction * cells));
+    }
+
+    private static long latIndexOf(long cell, int bits) {
+        // Latitude bits at the odd positions from the lowest longitude bit, i.e. - even positions for even bits
+        return bits % 2 == 0 ? compact(cell) : compact(cell >>> 1);
+    }
+
+    private static long lngIndexOf(long cell, int bits) {
+        return bits % 2 == 0 ? compact(cell >>> 1) : compact(cell);
+    }
+
+    /**
+     * Interleaves the indexes, the longitude bit the higher of every pair, as the first bit of the cell id is of the
+     * longitude.
+     */
+    private static long interleave(long latIdx, long lngIdx, int bits) {
+        return bits % 2 == 0 ? (spread(lngIdx) << 1) | spread(latIdx) : spread(lngIdx) | (spread(latIdx) << 1);
+    }
+
+    /**
+     * Spreads the low 32 bits to the even positions.
+     */
+    private static long spread(long x) {
+        x &= 0xffffffffl;
+        x = (x | (x << 16)) & 0x0000ffff0000ffffl;
+        x = (x | (x << 8)) & 0x00ff00ff00ff00ffl;
+        x = (x | (x << 4)) & 0x0f0f0f0f0f0f0f0fl;
+        x = (x | (x << 2)) & 0x3333333333333333l;
+        x = (x | (x << 1)) & 0x5555555555555555l;
+        return x;
+    }
+
+    /**
+     * Gathers the even positions to the low 32 bits, inverse of {@link #spread(long)}.
+     */
+    private static long compact(long x) {
+        x &= 0x5555555555555555l;
+        x = (x | (x >>> 1)) & 0x3333333333333333l;
+        x = (x | (x >>> 2)) & 0x0f0f0f0f0f0f0f0fl;
+        x = (x | (x >>> 4)) & 0x00ff00ff00ff00ffl;
+        x = (x | (x >>> 8)) & 0x0000ffff0000ffffl;
+        x = (x | (x >>> 16)) & 0x00000000ffffffffl;
+        return x;
+    }
+
+    private static boolean contains(long[] cells, int count, long cell) {
+        for (int i = 0; i < count; i++) {
+            if (cells[i] == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
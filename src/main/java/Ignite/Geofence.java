@@ -0,0 +1,427 @@
+package Ignite;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Point in polygon over a set of polygons, e.g. - sites and zones, for tagging trip endpoints in bulk.
+ *
+ * <p>
+ * Polygons are made of rings, the outer ring, holes and other parts alike, and a point is inside when it is inside
+ * an odd no. of the rings (even-odd rule). All edges live in primitive arrays with the crossing slope precomputed,
+ * and two indexes narrow down the edges to test :
+ * <li>a uniform grid over all the polygons, a cell lists the polygons whose bounding box overlaps it</li>
+ * <li>latitude bands per polygon, a band lists the edges that span it, so a ray crosses only the edges of a band</li>
+ * </p>
+ *
+ * <p>
+ * Polygons may overlap, e.g. - a site inside its zone : {@link #locate(double, double)} returns the polygon added
+ * first among those containing the point, {@link #locateAll(double, double)} returns all of them.
+ * </p>
+ *
+ * <p>
+ * The geofence is immutable once built, see {@link #builder()} and {@link #load(Path)}, and safe for concurrent
+ * queries.
+ * </p>
+ */
+public final class Geofence {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Geofence.class);
+
+    public static final int OUTSIDE = -1;
+
+    private static final int MAX_GRID_SIDE = 1024;
+    private static final int EDGES_PER_BAND = 8;
+    private static final int MAX_BANDS = 256;
+
+    /** Points of a parallel batch */
+    private static final int BATCH = 4096;
+
+    private final String[] ids;
+
+    // Polygons : bounding boxes and latitude bands
+    private final double[] minLats;
+    private final double[] maxLats;
+    private final double[] minLngs;
+    private final double[] maxLngs;
+    private final int[] bandCounts;
+    private final int[] bandOffsets;
+
+    // Band edges, CSR : the edges of band b are bandEdges[bandStarts[b], bandStarts[b + 1])
+    private final int[] bandStarts;
+    private final int[] bandEdges;
+
+    // Edges
+    private final double[] edgeLat1;
+    private final double[] edgeLat2;
+    private final double[] edgeLng1;
+    private final double[] edgeSlopes;
+
+    // Grid, CSR : the polygons of cell c are cellPolygons[cellStarts[c], cellStarts[c + 1])
+    private final double gridMinLat;
+    private final double gridMinLng;
+    private final double cellHeight;
+    private final double cellWidth;
+    private final int rows;
+    private final int cols;
+    private final int[] cellStarts;
+    private final int[] cellPolygons;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    private Geofence(Builder builder) {
+        super();
+
+        final int polygons = builder.ids.size();
+        this.ids = builder.ids.toArray(new String[0]);
+        this.minLats = new double[polygons];
+        this.maxLats = new double[polygons];
+        this.minLngs = new double[polygons];
+        this.maxLngs = new double[polygons];
+        this.bandCounts = new int[polygons];
+        this.bandOffsets = new int[polygons + 1];
+
+        // Edges
+        int edges = 0;
+        for (List<double[]> rings : builder.rings) {
+            for (double[] ring : rings) {
+                edges += ring.length / 2;
+            }
+        }
+        this.edgeLat1 = new double[edges];
+        this.edgeLat2 = new double[edges];
+        this.edgeLng1 = new double[edges];
+        this.edgeSlopes = new double[edges];
+
+        final int[] edgeStarts = new int[polygons + 1];
+        int e = 0;
+        for (int p = 0; p < polygons; p++) {
+            edgeStarts[p] = e;
+            this.minLats[p] = this.minLngs[p] = Double.POSITIVE_INFINITY;
+            this.maxLats[p] = this.maxLngs[p] = Double.NEGATIVE_INFINITY;
+            for (double[] ring : builder.rings.get(p)) {
+                final int points = ring.length / 2;
+                for (int i = 0; i < points; i++) {
+                    // Ring of (lng, lat) pairs, closed or not
+                    final int j = (i + 1) % points;
+                    final double lng1 = ring[2 * i], lat1 = ring[2 * i + 1];
+                    final double lng2 = ring[2 * j], lat2 = ring[2 * j + 1];
+
+                    this.edgeLat1[e] = lat1;
+                    this.edgeLat2[e] = lat2;
+                    this.edgeLng1[e] = lng1;
+                    this.edgeSlopes[e] = lat1 == lat2 ? 0d : (lng2 - lng1) / (lat2 - lat1);
+                    e++;
+
+                    this.minLats[p] = Math.min(this.minLats[p], lat1);
+                    this.maxLats[p] = Math.max(this.maxLats[p], lat1);
+                    this.minLngs[p] = Math.min(this.minLngs[p], lng1);
+                    this.maxLngs[p] = Math.max(this.maxLngs[p], lng1);
+                }
+            }
+        }
+        edgeStarts[polygons] = e;
+
+        // Latitude Bands
+        int bands = 0;
+        for (int p = 0; p < polygons; p++) {
+            this.bandOffsets[p] = bands;
+            final int polygonEdges = edgeStarts[p + 1] - edgeStarts[p];
+            this.bandCounts[p] = Math.max(1, Math.min(MAX_BANDS, polygonEdges / EDGES_PER_BAND));
+            bands += this.bandCounts[p];
+        }
+        this.bandOffsets[polygons] = bands;
+
+        this.bandStarts = new int[bands + 1];
+        int[] bandEdges = null;
+        for (int pass = 0; pass < 2; pass++) {
+            // Counts, then fill
+            final int[] fill = pass == 0 ? null : Arrays.copyOf(this.bandStarts, bands);
+            for (int p = 0; p < polygons; p++) {
+                for (int i = edgeStarts[p]; i < edgeStarts[p + 1]; i++) {
+                    final int from = this.bandOf(p, Math.min(this.edgeLat1[i], this.edgeLat2[i]));
+                    final int to = this.bandOf(p, Math.max(this.edgeLat1[i], this.edgeLat2[i]));
+                    for (int b = from; b <= to; b++) {
+                        if (pass == 0) {
+                            this.bandStarts[this.bandOffsets[p] + b + 1]++;
+                        } else {
+                            bandEdges[fill[this.bandOffsets[p] + b]++] = i;
+                        }
+                    }
+                }
+            }
+            if (pass == 0) {
+                for (int b = 0; b < bands; b++) {
+                    this.bandStarts[b + 1] += this.bandStarts[b];
+                }
+                bandEdges = new int[this.bandStarts[bands]];
+            }
+        }
+        this.bandEdges = bandEdges;
+
+        // Grid
+        double minLat = Double.POSITIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+        double minLng = Double.POSITIVE_INFINITY, maxLng = Double.NEGATIVE_INFINITY;
+        for (int p = 0; p < polygons; p++) {
+            minLat = Math.min(minLat, this.minLats[p]);
+            maxLat = Math.max(maxLat, this.maxLats[p]);
+            minLng = Math.min(minLng, this.minLngs[p]);
+            maxLng = Math.max(maxLng, this.maxLngs[p]);
+        }
+        final int side = Math.max(1, Math.min(MAX_GRID_SIDE, (int) Math.ceil(Math.sqrt(4d * polygons))));
+        this.rows = side;
+        this.cols = side;
+        this.gridMinLat = polygons == 0 ? 0d : minLat;
+        this.gridMinLng = polygons == 0 ? 0d : minLng;
+        this.cellHeight = polygons == 0 ? 1d : Math.max(Double.MIN_NORMAL, (maxLat - minLat) / side);
+        this.cellWidth = polygons == 0 ? 1d : Math.max(Double.MIN_NORMAL, (maxLng - minLng) / side);
+
+        this.cellStarts = new int[side * side + 1];
+        int[] cellPolygons = null;
+        for (int pass = 0; pass < 2; pass++) {
+            final int[] fill = pass == 0 ? null : Arrays.copyOf(this.cellStarts, side * side);
+            for (int p = 0; p < polygons; p++) {
+                final int row1 = this.rowOf(this.minLats[p]), row2 = this.rowOf(this.maxLats[p]);
+                final int col1 = this.colOf(this.minLngs[p]), col2 = this.colOf(this.maxLngs[p]);
+                for (int row = row1; row <= row2; row++) {
+                    for (int col = col1; col <= col2; col++) {
+                        final int cell = row * side + col;
+                        if (pass == 0) {
+                            this.cellStarts[cell + 1]++;
+                        } else {
+                            cellPolygons[fill[cell]++] = p;
+                        }
+                    }
+                }
+            }
+            if (pass == 0) {
+                for (int c = 0; c < side * side; c++) {
+                    this.cellStarts[c + 1] += this.cellStarts[c];
+                }
+                cellPolygons = new int[this.cellStarts[side * side]];
+            }
+        }
+        this.cellPolygons = cellPolygons;
+
+        LOGGER.info("Geofence of {} polygons, {} edges, {} bands and a {}x{} grid", polygons, edges, bands, side,
+                side);
+    }
+
+
+    // Factory Methods
+    // ------------------------------------------------------------------------
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Loads the polygons of a file : GeoJSON (<code>.json</code>, <code>.geojson</code>) or lines of WKT, optionally
+     * preceded by an id and a TAB.
+     *
+     * @see GeofenceReader
+     */
+    public static Geofence load(Path path) throws IOException {
+        final Builder builder = builder();
+        GeofenceReader.read(path, builder);
+        return builder.build();
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * @return lowest index of the polygons that contain the point, i.e. - the one added first, {@link #OUTSIDE} if
+     *         none
+     */
+    public int locate(double latitude, double longitude) {
+        final int row = this.rowOf(latitude);
+        final int col = this.colOf(longitude);
+        if (row < 0 || col < 0) {
+            return OUTSIDE;
+        }
+
+        final int cell = row * this.cols + col;
+        for (int i = this.cellStarts[cell]; i < this.cellStarts[cell + 1]; i++) {
+            final int p = this.cellPolygons[i];
+            if (this.contains(p, latitude, longitude)) {
+                return p;
+            }
+        }
+        return OUTSIDE;
+    }
+
+    /**
+     * @return indexes of all the polygons that contain the point, ascending, empty if none
+     */
+    public int[] locateAll(double latitude, double longitude) {
+        final int row = this.rowOf(latitude);
+        final int col = this.colOf(longitude);
+        if (row < 0 || col < 0) {
+            return new int[0];
+        }
+
+        // Cell polygons are in ascending order
+        final int cell = row * this.cols + col;
+        int[] polygons = new int[0];
+        for (int i = this.cellStarts[cell]; i < this.cellStarts[cell + 1]; i++) {
+            final int p = this.cellPolygons[i];
+            if (this.contains(p, latitude, longitude)) {
+                polygons = Arrays.copyOf(polygons, polygons.length + 1);
+                polygons[polygons.length - 1] = p;
+            }
+        }
+        return polygons;
+    }
+
+    /**
+     * Locates the points in parallel batches, see {@link #locate(double, double)}.
+     *
+     * @return polygon index of every point, {@link #OUTSIDE} if none
+     */
+    public int[] locate(double[] latitudes, double[] longitudes) {
+        // Sanity checks
+        if (latitudes.length != longitudes.length) {
+            String errMsg = String.format("Geofence :: %s latitudes but %s longitudes", latitudes.length,
+                    longitudes.length);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        final int[] polygons = new int[latitudes.length];
+        final int batches = (latitudes.length + BATCH - 1) / BATCH;
+        IntStream.range(0, batches).parallel().forEach(batch -> {
+            final int to = Math.min(latitudes.length, (batch + 1) * BATCH);
+            for (int i = batch * BATCH; i < to; i++) {
+                polygons[i] = this.locate(latitudes[i], longitudes[i]);
+            }
+        });
+        return polygons;
+    }
+
+    /**
+     * @return <code>true</code> if the polygon contains the point, the boundary may go either way
+     */
+    public boolean contains(int polygon, double latitude, double longitude) {
+        if (latitude < this.minLats[polygon] || latitude > this.maxLats[polygon]
+                || longitude < this.minLngs[polygon] || longitude > this.maxLngs[polygon]) {
+            return false;
+        }
+
+        // Even-odd crossings of a ray towards the east
+        final int band = this.bandOffsets[polygon] + this.bandOf(polygon, latitude);
+        boolean inside = false;
+        for (int i = this.bandStarts[band]; i < this.bandStarts[band + 1]; i++) {
+            final int e = this.bandEdges[i];
+            final double lat1 = this.edgeLat1[e];
+            if ((lat1 > latitude) != (this.edgeLat2[e] > latitude)
+                    && longitude < this.edgeLng1[e] + (latitude - lat1) * this.edgeSlopes[e]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    public String idOf(int polygon) {
+        return this.ids[polygon];
+    }
+
+    /**
+     * @return no. of polygons
+     */
+    public int size() {
+        return this.ids.length;
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    private int bandOf(int polygon, double latitude) {
+        final int bands = this.bandCounts[polygon];
+        final double height = (this.maxLats[polygon] - this.minLats[polygon]) / bands;
+        if (!(height > 0d)) {
+            return 0;
+        }
+
+        final int band = (int) ((latitude - this.minLats[polygon]) / height);
+        return Math.max(0, Math.min(bands - 1, band));
+    }
+
+    /**
+     * @return row of the latitude, <code>-1</code> if off the grid
+     */
+    private int rowOf(double latitude) {
+        final double row = (latitude - this.gridMinLat) / this.cellHeight;
+        if (!(row >= 0d) || row > this.rows) {
+            return -1;
+        }
+        return Math.min(this.rows - 1, (int) row);
+    }
+
+    private int colOf(double longitude) {
+        final double col = (longitude - this.gridMinLng) / this.cellWidth;
+        if (!(col >= 0d) || col > this.cols) {
+            return -1;
+        }
+        return Math.min(this.cols - 1, (int) col);
+    }
+
+
+    // Builder
+    // ------------------------------------------------------------------------
+
+    public static final class Builder {
+
+        private final List<String> ids = new ArrayList<>();
+        private final List<List<double[]>> rings = new ArrayList<>();
+
+        private Builder() {
+            super();
+        }
+
+        /**
+         * Adds a polygon.
+         *
+         * @param id polygon id, e.g. - site name
+         * @param rings rings of the polygon, each of <code>(longitude, latitude)</code> pairs, as in GeoJSON
+         */
+        public Builder add(String id, List<double[]> rings) {
+            // Sanity checks
+            if (Objects.isNull(rings) || rings.isEmpty()) {
+                String errMsg = String.format("Geofence :: polygon %s has no rings", id);
+                LOGGER.error(errMsg);
+                throw new ValidationException(errMsg);
+            }
+            for (double[] ring : rings) {
+                if (ring.length < 6 || ring.length % 2 != 0) {
+                    String errMsg = String.format("Geofence :: INVALID ring of polygon %s, %s values", id,
+                            ring.length);
+                    LOGGER.error(errMsg);
+                    throw new ValidationException(errMsg);
+                }
+            }
+
+            this.ids.add(Objects.isNull(id) ? String.valueOf(this.ids.size()) : id);
+            this.rings.add(new ArrayList<>(rings));
+            return this;
+        }
+
+        public Geofence build() {
+            return new Geofence(this);
+        }
+    }
+
+}
@@ -0,0 +1,435 @@
+package Ignite;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Reads the polygons of a {@link Geofence} from a local file.
+ *
+ * <p>
+ * Formats, by the file extension :
+ * <li><code>.json</code>, <code>.geojson</code> : GeoJSON FeatureCollection, Feature or geometry of Polygons and
+ * MultiPolygons. The id of a feature is its <code>id</code>, else its <code>id</code> or <code>name</code>
+ * property, else its position.</li>
+ * <li>anything else : a WKT <code>POLYGON</code> or <code>MULTIPOLYGON</code> per line, optionally preceded by an
+ * id and a TAB. Blank lines and lines starting with <code>#</code> are skipped.</li>
+ * </p>
+ */
+final class GeofenceReader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GeofenceReader.class);
+
+    private GeofenceReader() {
+        // Utility Class
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    static void read(Path path, Geofence.Builder builder) throws IOException {
+        final String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".json") || name.endsWith(".geojson")) {
+            final String json = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+            readGeoJson(new Json(json).parse(), builder);
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                final int tab = line.indexOf('\t');
+                final String id = tab < 0 ? String.valueOf(lineNo) : line.substring(0, tab).trim();
+                builder.add(id, readWkt(tab < 0 ? line : line.substring(tab + 1)));
+            }
+        }
+    }
+
+    /**
+     * @return rings of a WKT <code>POLYGON</code> or <code>MULTIPOLYGON</code>, as (longitude, latitude) pairs
+     */
+    static List<double[]> readWkt(String wkt) {
+        final String text = wkt.trim();
+        final String upper = text.toUpperCase(Locale.ROOT);
+        final int depth;
+        if (upper.startsWith("MULTIPOLYGON")) {
+            depth = 3;
+        } else if (upper.startsWith("POLYGON")) {
+            depth = 2;
+        } else {
+            throw invalid("WKT, expected a POLYGON or MULTIPOLYGON", text);
+        }
+
+        final List<double[]> rings = new ArrayList<>();
+        final int[] pos = { text.indexOf('(') };
+        if (pos[0] < 0) {
+            throw invalid("WKT", text);
+        }
+        readWktList(text, pos, depth, rings);
+        return rings;
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Reads a parenthesized list at <code>pos</code>, a ring at depth 1.
+     */
+    private static void readWktList(String text, int[] pos, int depth, List<double[]> rings) {
+        expect(text, pos, '(');
+        if (depth == 1) {
+            final List<Double> values = new ArrayList<>();
+            while (true) {
+                skipSpaces(text, pos);
+                final int start = pos[0];
+                while (pos[0] < text.length() && " \t,)".indexOf(text.charAt(pos[0])) < 0) {
+                    pos[0]++;
+                }
+                if (start == pos[0]) {
+                    throw invalid("WKT coordinate", text);
+                }
+                values.add(Coordinate.parseDegrees(text, start, pos[0]));
+
+                skipSpaces(text, pos);
+                if (pos[0] < text.length() && text.charAt(pos[0]) == ',') {
+                    pos[0]++;
+                } else if (pos[0] < text.length() && text.charAt(pos[0]) == ')') {
+                    pos[0]++;
+                    break;
+                }
+            }
+            rings.add(toRing(values, text));
+            return;
+        }
+
+        while (true) {
+            skipSpaces(text, pos);
+            readWktList(text, pos, depth - 1, rings);
+            skipSpaces(text, pos);
+            if (pos[0] >= text.length()) {
+                throw invalid("WKT, unbalanced parentheses", text);
+            }
+            final char c = text.charAt(pos[0]++);
+            if (c == ')') {
+                return;
+            }
+            if (c != ',') {
+                throw invalid("WKT", text);
+            }
+        }
+    }
+
+    private static double[] toRing(List<Double> values, String text) {
+        if (values.size() % 2 != 0) {
+            throw invalid("WKT, coordinates should be x y pairs", text);
+        }
+
+        final double[] ring = new double[values.size()];
+        for (int i = 0; i < ring.length; i++) {
+            ring[i] = values.get(i);
+        }
+        return ring;
+    }
+
+    private static void expect(String text, int[] pos, char c) {
+        skipSpaces(text, pos);
+        if (pos[0] >= text.length() || text.charAt(pos[0]) != c) {
+            throw invalid("WKT, expected '" + c + "'", text);
+        }
+        pos[0]++;
+    }
+
+    private static void skipSpaces(String text, int[] pos) {
+        while (pos[0] < text.length() && Character.isWhitespace(text.charAt(pos[0]))) {
+            pos[0]++;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void readGeoJson(Object node, Geofence.Builder builder) {
+        if (!(node instanceof Map)) {
+            throw invalid("GeoJSON, expected an object", String.valueOf(node));
+        }
+
+        final Map<String, Object> object = (Map<String, Object>) node;
+        final String type = String.valueOf(object.get("type"));
+        if ("FeatureCollection".equals(type)) {
+            final List<Object> features = (List<Object>) object.get("features");
+            int position = 0;
+            for (Object feature : features) {
+                readFeature((Map<String, Object>) feature, String.valueOf(position++), builder);
+            }
+        } else if ("Feature".equals(type)) {
+            readFeature(object, "0", builder);
+        } else {
+            builder.add("0", readGeometry(object));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void readFeature(Map<String, Object> feature, String position, Geofence.Builder builder) {
+        final Map<String, Object> geometry = (Map<String, Object>) feature.get("geometry");
+        if (Objects.isNull(geometry)) {
+            LOGGER.warn("Skipping GeoJSON feature #{} without geometry", position);
+            return;
+        }
+
+        Object id = feature.get("id");
+        final Map<String, Object> properties = (Map<String, Object>) feature.get("properties");
+        if (Objects.isNull(id) && Objects.nonNull(properties)) {
+            id = Objects.nonNull(properties.get("id")) ? properties.get("id") : properties.get("name");
+        }
+
+        builder.add(Objects.isNull(id) ? position : idString(id), readGeometry(geometry));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<double[]> readGeometry(Map<String, Object> geometry) {
+        final String type = String.valueOf(geometry.get("type"));
+        final List<Object> coordinates = (List<Object>) geometry.get("coordinates");
+
+        final List<double[]> rings = new ArrayList<>();
+        if ("Polygon".equals(type)) {
+            for (Object ring : coordinates) {
+                rings.add(toRing((List<Object>) ring));
+            }
+        } else if ("MultiPolygon".equals(type)) {
+            for (Object polygon : coordinates) {
+                for (Object ring : (List<Object>) polygon) {
+                    rings.add(toRing((List<Object>) ring));
+                }
+            }
+        } else {
+            throw invalid("GeoJSON, expected a Polygon or MultiPolygon", type);
+        }
+        return rings;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double[] toRing(List<Object> positions) {
+        final double[] ring = new double[positions.size() * 2];
+        for (int i = 0; i < positions.size(); i++) {
+            final List<Object> position = (List<Object>) positions.get(i);
+            ring[2 * i] = (Double) position.get(0);
+            ring[2 * i + 1] = (Double) position.get(1);
+        }
+        return ring;
+    }
+
+    private static String idString(Object id) {
+        // Integral JSON numbers without the ".0"
+        if (id instanceof Double && (Double) id == Math.rint((Double) id)) {
+            return String.valueOf(((Double) id).longValue());
+        }
+        return String.valueOf(id);
+    }
+
+    private static ValidationException invalid(String what, String text) {
+        final String snippet = text.length() > 80 ? text.substring(0, 80) + ".." : text;
+        String errMsg = String.format("INVALID %s - %s", what, snippet);
+        LOGGER.error(errMsg);
+        return new ValidationException(errMsg);
+    }
+
+
+    // Json
+    // ------------------------------------------------------------------------
+
+    /**
+     * Minimal JSON parser, enough for GeoJSON : objects to maps, arrays to lists, numbers to doubles.
+     */
+    private static final class Json {
+
+        private final String text;
+        private int pos = 0;
+
+        private Json(String text) {
+            super();
+
+            this.text = text;
+        }
+
+        private Object parse() {
+            final Object value = this.value();
+            this.skipSpaces();
+            if (this.pos != this.text.length()) {
+                throw this.error("trailing data");
+            }
+            return value;
+        }
+
+        private Object value() {
+            this.skipSpaces();
+            if (this.pos >= this.text.length()) {
+                throw this.error("unexpected end");
+            }
+
+            final char c = this.text.charAt(this.pos);
+            switch (c) {
+            case '{':
+                return this.object();
+            case '[':
+                return this.array();
+            case '"':
+                return this.string();
+            case 't':
+                return this.literal("true", Boolean.TRUE);
+            case 'f':
+                return this.literal("false", Boolean.FALSE);
+            case 'n':
+                return this.literal("null", null);
+            default:
+                return this.number();
+            }
+        }
+
+        private Map<String, Object> object() {
+            final Map<String, Object> object = new LinkedHashMap<>();
+            this.pos++;
+            this.skipSpaces();
+            if (this.peek() == '}') {
+                this.pos++;
+                return object;
+            }
+            while (true) {
+                this.skipSpaces();
+                final String key = this.string();
+                this.skipSpaces();
+                this.expect(':');
+                object.put(key, this.value());
+                this.skipSpaces();
+                if (this.peek() == ',') {
+                    this.pos++;
+                } else {
+                    this.expect('}');
+                    return object;
+                }
+            }
+        }
+
+        private List<Object> array() {
+            final List<Object> array = new ArrayList<>();
+            this.pos++;
+            this.skipSpaces();
+            if (this.peek() == ']') {
+                this.pos++;
+                return array;
+            }
+            while (true) {
+                array.add(this.value());
+                this.skipSpaces();
+                if (this.peek() == ',') {
+                    this.pos++;
+                } else {
+                    this.expect(']');
+                    return array;
+                }
+            }
+        }
+
+        private String string() {
+            this.expect('"');
+            final StringBuilder sb = new StringBuilder();
+            while (this.pos < this.text.length()) {
+                final char c = this.text.charAt(this.pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+
+                final char escaped = this.text.charAt(this.pos++);
+                switch (escaped) {
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    sb.append((char) Integer.parseInt(this.text.substring(this.pos, this.pos + 4), 16));
+                    this.pos += 4;
+                    break;
+                default:
+                    sb.append(escaped);
+                }
+            }
+            throw this.error("unterminated string");
+        }
+
+        private Double number() {
+            final int start = this.pos;
+            while (this.pos < this.text.length() && "+-0123456789.eE".indexOf(this.text.charAt(this.pos)) >= 0) {
+                this.pos++;
+            }
+            if (start == this.pos) {
+                throw this.error("unexpected character");
+            }
+            return Coordinate.parseDegrees(this.text, start, this.pos);
+        }
+
+        private Object literal(String literal, Object value) {
+            if (!this.text.startsWith(literal, this.pos)) {
+                throw this.error("unexpected literal");
+            }
+            this.pos += literal.length();
+            return value;
+        }
+
+        private char peek() {
+            return this.pos < this.text.length() ? this.text.charAt(this.pos) : '\0';
+        }
+
+        private void expect(char c) {
+            if (this.peek() != c) {
+                throw this.error("expected '" + c + "'");
+            }
+            this.pos++;
+        }
+
+        private void skipSpaces() {
+            while (this.pos < this.text.length() && Character.isWhitespace(this.text.charAt(this.pos))) {
+                this.pos++;
+            }
+        }
+
+        private ValidationException error(String what) {
+            String errMsg = String.format("INVALID GeoJSON, %s at offset %s", what, this.pos);
+            LOGGER.error(errMsg);
+            return new ValidationException(errMsg);
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package Ignite;
+
+/**
+ * An object listed by an {@link IngestSource}, i.e. a file in a bucket.
+ */
+public final class IngestObject {
+
+    private final String bucket;
+    private final String key;
+
+    private final long size;
+    private final long lastModified;
+
+
+    // Constructor
+    // ------------------------------------------------------------------------
+
+    public IngestObject(String bucket, String key, long size, long lastModified) {
+        super();
+
+        this.bucket = bucket;
+        this.key = key;
+
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * @return last segment of the key, i.e. the name of the object without the prefix
+     */
+    public String getName() {
+        return this.key.substring(this.key.lastIndexOf('/') + 1);
+    }
+
+
+    // Getters
+    // ------------------------------------------------------------------------
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+
+    // Object Methods
+    // ------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "IngestObject [bucket=" + bucket + ", key=" + key + ", size=" + size + "]";
+    }
+
+}
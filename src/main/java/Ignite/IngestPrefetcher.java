@@ -0,0 +1,301 @@
+package Ignite;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Downloads the objects of an {@link IngestSource} to a local staging directory, ahead of their consumption.
+ *
+ * <p>
+ * While the caller processes the current object, the next <code>prefetchCount</code> objects are downloaded in the
+ * background. Objects larger than <code>rangeSize</code> are split into byte ranges which are read in parallel and
+ * written to their offsets in the staged file. Objects are returned in the listing order.
+ * </p>
+ *
+ * <p>
+ * An object is downloaded to <code>&lt;file&gt;.part</code> and renamed once complete, so a staged file is never
+ * partial; the part file of a failed download is deleted. Objects whose bucket or key would resolve outside the
+ * staging directory, e.g. - keys with <code>..</code>, are rejected.
+ * </p>
+ *
+ * <p>
+ * The staged files belong to the caller once returned by {@link #next()}; files which were prefetched but never
+ * consumed are deleted on {@link #close()}.
+ * </p>
+ */
+public class IngestPrefetcher implements Iterator<Path>, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IngestPrefetcher.class);
+
+    private static final Metrics.Gauge PENDING = Metrics.gauge("queue.ingest.prefetch");
+
+    public static final int DEFAULT_PREFETCH_COUNT = 2;
+    public static final long DEFAULT_RANGE_SIZE = 8L * 1024 * 1024;
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final IngestSource source;
+    private final List<IngestObject> objects;
+    private final Path stagingPath;
+
+    private final int prefetchCount;
+    private final long rangeSize;
+
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+
+    private final Map<Integer, CompletableFuture<Path>> downloads = new HashMap<>();
+    private int nextIndex = 0;
+    private int scheduledIndex = 0;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    public IngestPrefetcher(IngestSource source, List<IngestObject> objects, String stagingDirectoryPathStr) {
+        this(source, objects, stagingDirectoryPathStr, DEFAULT_PREFETCH_COUNT, DEFAULT_RANGE_SIZE, null);
+    }
+
+    /**
+     * @param source source to read the objects from
+     * @param objects objects to download, in the order of consumption
+     * @param stagingDirectoryPathStr local directory where the objects get downloaded to
+     * @param prefetchCount no. of objects downloaded ahead of the current one
+     * @param rangeSize size of the byte ranges read in parallel
+     * @param executor pool running the reads. <code>null</code> creates a pool owned by the prefetcher.
+     */
+    public IngestPrefetcher(IngestSource source, List<IngestObject> objects, String stagingDirectoryPathStr,
+            int prefetchCount, long rangeSize, ExecutorService executor) {
+        super();
+
+        // Sanity checks
+        if (Objects.isNull(source) || Objects.isNull(objects)) {
+            String errMsg = String.format("Ingest source or objects are NULL");
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        if (prefetchCount < 0 || rangeSize < 1) {
+            String errMsg = String.format("INVALID prefetch count - %s or range size - %s", prefetchCount, rangeSize);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        this.source = source;
+        this.objects = new ArrayList<>(objects);
+        this.stagingPath = FileUtil.getValidPath(stagingDirectoryPathStr).toAbsolutePath().normalize();
+
+        for (IngestObject object : this.objects) {
+            if (!this.targetOf(object).startsWith(this.stagingPath)) {
+                String errMsg = String.format("INVALID object, outside the staging directory - %s", object);
+                LOGGER.error(errMsg);
+                throw new ValidationException(errMsg);
+            }
+        }
+
+        this.prefetchCount = prefetchCount;
+        this.rangeSize = rangeSize;
+
+        this.ownsExecutor = Objects.isNull(executor);
+        this.executor = this.ownsExecutor
+                ? Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()))
+                : executor;
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    @Override
+    public boolean hasNext() {
+        return this.nextIndex < this.objects.size();
+    }
+
+    /**
+     * Waits for the download of the next object and schedules the downloads ahead of it.
+     *
+     * @return local path of the downloaded object
+     */
+    @Override
+    public Path next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException("No more objects to download");
+        }
+
+        // Keep the prefetch window full
+        this.schedule(this.nextIndex + this.prefetchCount);
+
+        final IngestObject object = this.objects.get(this.nextIndex);
+        final CompletableFuture<Path> download = this.downloads.remove(this.nextIndex++);
+        PENDING.add(-1);
+        try {
+            return download.join();
+        } catch (CompletionException e) {
+            String errMsg = String.format("Failed to download the object - %s", object);
+            LOGGER.error(errMsg, e.getCause());
+
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw (UncheckedIOException) e.getCause();
+            }
+            throw new RuntimeException(errMsg, e.getCause());
+        }
+    }
+
+    /**
+     * @return no. of objects being downloaded or downloaded but not consumed yet
+     */
+    public int getPendingCount() {
+        return this.downloads.size();
+    }
+
+    @Override
+    public void close() {
+        // Discard the prefetched objects
+        for (CompletableFuture<Path> download : this.downloads.values()) {
+            download.thenAccept(path -> {
+                try {
+                    FileUtil.deleteFile(path.toString());
+                } catch (IOException e) {
+                    LOGGER.error("Failed to delete prefetched file - {}", path, e);
+                }
+            });
+        }
+        PENDING.add(-this.downloads.size());
+        this.downloads.clear();
+
+        if (this.ownsExecutor) {
+            this.executor.shutdown();
+        }
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    private void schedule(int lastIndex) {
+        final int endIndex = Math.min(lastIndex, this.objects.size() - 1);
+        for (; this.scheduledIndex <= endIndex; this.scheduledIndex++) {
+            final IngestObject object = this.objects.get(this.scheduledIndex);
+            this.downloads.put(this.scheduledIndex, this.download(object));
+            PENDING.add(1);
+        }
+    }
+
+    /**
+     * @return local path of the object, normalized
+     */
+    private Path targetOf(IngestObject object) {
+        return this.stagingPath.resolve(object.getBucket()).resolve(object.getKey()).normalize();
+    }
+
+    /**
+     * Downloads the object to its part file, renamed to the target once complete, deleted on failure.
+     */
+    private CompletableFuture<Path> download(IngestObject object) {
+        final Path targetPath = this.targetOf(object);
+        final Path partPath = targetPath.resolveSibling(targetPath.getFileName() + ".part");
+        return this.downloadTo(object, partPath).thenApply(v -> {
+            try {
+                return Files.move(partPath, targetPath, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((path, t) -> {
+            if (Objects.nonNull(t)) {
+                try {
+                    Files.deleteIfExists(partPath);
+                } catch (IOException e) {
+                    LOGGER.error("Failed to delete the part file - {}", partPath, e);
+                }
+            }
+        });
+    }
+
+    private CompletableFuture<Void> downloadTo(IngestObject object, Path partPath) {
+        try {
+            Files.createDirectories(partPath.getParent());
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new UncheckedIOException(e));
+        }
+
+        // Small objects in one read
+        if (object.getSize() <= this.rangeSize) {
+            return CompletableFuture.runAsync(() -> {
+                try (InputStream is = this.source.open(object)) {
+                    Files.copy(is, partPath, StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, this.executor);
+        }
+
+        // Large objects in parallel ranges
+        final FileChannel channel;
+        try {
+            channel = FileChannel.open(partPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new UncheckedIOException(e));
+        }
+
+        final List<CompletableFuture<Void>> ranges = new ArrayList<>();
+        for (long offset = 0; offset < object.getSize(); offset += this.rangeSize) {
+            final long rangeOffset = offset;
+            final long rangeLength = Math.min(this.rangeSize, object.getSize() - offset);
+            ranges.add(CompletableFuture.runAsync(
+                    () -> this.copyRange(object, rangeOffset, rangeLength, channel), this.executor));
+        }
+
+        return CompletableFuture.allOf(ranges.toArray(new CompletableFuture<?>[0])).whenComplete((v, t) -> {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.error("Failed to close the file - {}", partPath, e);
+            }
+        });
+    }
+
+    private void copyRange(IngestObject object, long offset, long length, FileChannel channel) {
+        final byte[] bytes = new byte[COPY_BUFFER_SIZE];
+        try (InputStream is = this.source.openRange(object, offset, length)) {
+            long position = offset;
+            for (int read; (read = is.read(bytes)) != -1;) {
+                final ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, read);
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            }
+
+            if (position != offset + length) {
+                String errMsg = String.format("Short read of range [%s, %s] - %s", offset, length, object);
+                throw new IOException(errMsg);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,42 @@
+package Ignite;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+
+/**
+ * Source of the raw ping files, modelled on object stores (AWS S3, Google Cloud Storage) : objects live in a
+ * bucket and are addressed by '/' separated keys.
+ *
+ * <p>
+ * Implementations must be thread safe, {@link IngestPrefetcher} reads several objects and ranges concurrently.
+ * </p>
+ */
+public interface IngestSource {
+
+    /**
+     * Lists the objects of the bucket whose key starts with the prefix, ordered by key.
+     *
+     * @param bucket bucket name
+     * @param prefix key prefix, blank lists the whole bucket
+     *
+     * @return objects ordered by key
+     */
+    List<IngestObject> list(String bucket, String prefix) throws IOException;
+
+    /**
+     * Opens the object for reading from the beginning.
+     */
+    InputStream open(IngestObject object) throws IOException;
+
+    /**
+     * Opens a byte range of the object for reading.
+     *
+     * @param object object to read
+     * @param offset first byte of the range
+     * @param length no. of bytes in the range
+     */
+    InputStream openRange(IngestObject object, long offset, long length) throws IOException;
+
+}
@@ -0,0 +1,109 @@
+package Ignite;
+
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Executors for blocking I/O tasks, e.g. - reading and inflating a file, kept apart from the CPU sized pools of the
+ * parsing and the trips, so waiting on the disk or the network does not hold a CPU worker.
+ *
+ * <p>
+ * {@link Mode#VIRTUAL} runs every task on its own virtual thread, so thousands of files may be in flight at once at
+ * the cost of a few hundred bytes each. Virtual threads need Java 21, they are looked up by reflection as the code
+ * targets Java 11, and on an older runtime the mode falls back to {@link Mode#PLATFORM} : a fixed pool of daemon
+ * platform threads. The mode is selected by <code>-Dio.threads=virtual|platform</code>, platform by default.
+ * </p>
+ */
+public final class IoExecutors {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IoExecutors.class);
+
+    private IoExecutors() {
+        // Utility Class
+    }
+
+
+    // Constants
+    // ------------------------------------------------------------------------
+
+    public enum Mode {
+        PLATFORM, VIRTUAL
+    }
+
+    /** <code>Executors#newVirtualThreadPerTaskExecutor()</code>, <code>null</code> before Java 21 */
+    private static final Method NEW_VIRTUAL_EXECUTOR = IoExecutors.lookupVirtualExecutor();
+
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * @return mode of <code>-Dio.threads</code>, {@link Mode#PLATFORM} if unset
+     */
+    public static Mode modeFromSystemProperties() {
+        final String mode = System.getProperty("io.threads", Mode.PLATFORM.name());
+        try {
+            return Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            String errMsg = String.format("INVALID io.threads - %s, expected platform or virtual", mode);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+    }
+
+    public static boolean isVirtualSupported() {
+        return NEW_VIRTUAL_EXECUTOR != null;
+    }
+
+    /**
+     * @param mode threads of the tasks, {@link Mode#VIRTUAL} falls back to platform threads if not supported
+     * @param platformThreads no. of threads of the {@link Mode#PLATFORM} pool
+     * @param name prefix of the names of the platform threads
+     *
+     * @return executor of the I/O tasks, to be shut down by the caller
+     */
+    public static ExecutorService newExecutor(Mode mode, int platformThreads, String name) {
+        if (mode == Mode.VIRTUAL) {
+            if (isVirtualSupported()) {
+                try {
+                    return (ExecutorService) NEW_VIRTUAL_EXECUTOR.invoke(null);
+                } catch (ReflectiveOperationException e) {
+                    LOGGER.warn("Failed to create a virtual thread executor, using platform threads", e);
+                }
+            } else {
+                LOGGER.warn("Virtual threads need Java 21, running {} - using {} platform threads",
+                        System.getProperty("java.version"), platformThreads);
+            }
+        }
+
+        final AtomicInteger threadNo = new AtomicInteger();
+        final ThreadFactory threadFactory = runnable -> {
+            final Thread thread = new Thread(runnable, name + "-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(platformThreads, threadFactory);
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    private static Method lookupVirtualExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+}
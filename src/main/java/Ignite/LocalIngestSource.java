@@ -0,0 +1,156 @@
+package Ignite;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.io.ByteStreams;
+
+
+/**
+ * {@link IngestSource} over a local directory, stand-in for the cloud object stores.
+ *
+ * <p>
+ * Every sub-directory of the root directory is a bucket and every regular file inside a bucket is an object, keyed
+ * by its path relative to the bucket with '/' as separator. e.g. - <code>root/pings/2023/01/01/00.gz</code> is
+ * listed as the object <code>2023/01/01/00.gz</code> of the bucket <code>pings</code>.
+ * </p>
+ */
+public class LocalIngestSource implements IngestSource {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalIngestSource.class);
+
+    private final Path rootPath;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    public LocalIngestSource(String rootDirectoryPathStr) {
+        super();
+
+        // Sanity check
+        if (!FileUtil.isDirectoryExists(rootDirectoryPathStr)) {
+            String errMsg = String.format("INVALID root directory path - %s", rootDirectoryPathStr);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        this.rootPath = FileUtil.getValidPath(rootDirectoryPathStr).toAbsolutePath().normalize();
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    @Override
+    public List<IngestObject> list(String bucket, String prefix) throws IOException {
+        final Path bucketPath = this.bucketPath(bucket);
+        final String keyPrefix = StringUtils.defaultString(prefix);
+
+        final List<IngestObject> objects = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(bucketPath)) {
+            paths.forEach(path -> {
+                final String key = LocalIngestSource.toKey(bucketPath, path);
+                if (!key.startsWith(keyPrefix)) {
+                    return;
+                }
+
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                    if (attrs.isRegularFile()) {
+                        objects.add(new IngestObject(bucket, key, attrs.size(), attrs.lastModifiedTime().toMillis()));
+                    }
+                } catch (IOException e) {
+                    LOGGER.error("Failed to read attributes of file - {}", path, e);
+                }
+            });
+        }
+
+        // Object stores list in lexicographic key order
+        objects.sort(Comparator.comparing(IngestObject::getKey));
+        return objects;
+    }
+
+    @Override
+    public InputStream open(IngestObject object) throws IOException {
+        return Files.newInputStream(this.objectPath(object));
+    }
+
+    @Override
+    public InputStream openRange(IngestObject object, long offset, long length) throws IOException {
+        // Sanity check
+        if (offset < 0 || length < 0) {
+            String errMsg = String.format("INVALID range [offset - %s, length - %s] of %s", offset, length, object);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        final FileChannel channel = FileChannel.open(this.objectPath(object), StandardOpenOption.READ);
+        channel.position(offset);
+
+        return ByteStreams.limit(Channels.newInputStream(channel), length);
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    private Path bucketPath(String bucket) {
+        // Sanity check
+        if (StringUtils.isBlank(bucket) || bucket.contains(File.separator)) {
+            String errMsg = String.format("INVALID bucket name - %s", bucket);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        // Buckets are the directories right under the root, e.g. - not "." or ".."
+        final Path bucketPath = this.rootPath.resolve(bucket).normalize();
+        if (!this.rootPath.equals(bucketPath.getParent())) {
+            String errMsg = String.format("INVALID bucket name - %s", bucket);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+        if (!Files.isDirectory(bucketPath)) {
+            String errMsg = String.format("Bucket does not exists - %s", bucket);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        return bucketPath;
+    }
+
+    private Path objectPath(IngestObject object) {
+        final Path bucketPath = this.bucketPath(object.getBucket());
+        final Path objectPath = bucketPath.resolve(object.getKey()).normalize();
+
+        // Keys must not escape the bucket
+        if (!objectPath.startsWith(bucketPath) || !Files.isRegularFile(objectPath)) {
+            String errMsg = String.format("Object does not exists - %s", object);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        return objectPath;
+    }
+
+    private static String toKey(Path bucketPath, Path path) {
+        final String relativePath = bucketPath.relativize(path).toString();
+        return File.separatorChar == '/' ? relativePath : relativePath.replace(File.separatorChar, '/');
+    }
+
+}
@@ -0,0 +1,205 @@
+package Ignite;
+
+import java.util.Arrays;
+
+
+/**
+ * Open addressing map of <code>long</code> keys to <code>long</code> counts, e.g. - trips or pings per spatial cell.
+ *
+ * <p>
+ * Keys and counts live in parallel primitive arrays, probed linearly, so counting allocates nothing but the growing
+ * tables. Counts are never removed. Not thread safe : concurrent counting keeps a map per thread and merges them at
+ * the end, see {@link #addAll(LongCountMap)}.
+ * </p>
+ */
+public final class LongCountMap {
+
+    /** Marks an empty slot, not a valid key */
+    public static final long EMPTY = Long.MIN_VALUE;
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private long[] counts;
+
+    private int mask;
+    private int size = 0;
+    private int resizeAt;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    public LongCountMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize no. of keys expected, the map grows beyond it
+     */
+    public LongCountMap(int expectedSize) {
+        super();
+
+        this.allocate(LongCountMap.capacityFor(Math.max(4, expectedSize)));
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Adds to the count of the key.
+     *
+     * @return count of the key after the add
+     */
+    public long add(long key, long delta) {
+        // Sanity check
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("LongCountMap :: INVALID key : " + key);
+        }
+
+        int slot = this.slotOf(key);
+        if (this.keys[slot] == EMPTY) {
+            if (this.size >= this.resizeAt) {
+                this.allocateAndRehash(this.keys.length * 2);
+                slot = this.slotOf(key);
+            }
+            this.keys[slot] = key;
+            this.size++;
+        }
+
+        return this.counts[slot] += delta;
+    }
+
+    public long increment(long key) {
+        return this.add(key, 1l);
+    }
+
+    /**
+     * @return count of the key, <code>0</code> if missing
+     */
+    public long get(long key) {
+        final int slot = this.slotOf(key);
+        return this.keys[slot] == EMPTY ? 0l : this.counts[slot];
+    }
+
+    /**
+     * Adds the counts of the other map, e.g. - the partial of another thread.
+     */
+    public void addAll(LongCountMap other) {
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            if (other.keys[slot] != EMPTY) {
+                this.add(other.keys[slot], other.counts[slot]);
+            }
+        }
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * @return sum of the counts
+     */
+    public long total() {
+        long total = 0l;
+        for (int slot = 0; slot < this.keys.length; slot++) {
+            if (this.keys[slot] != EMPTY) {
+                total += this.counts[slot];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return the keys, ascending
+     */
+    public long[] keys() {
+        final long[] keys = new long[this.size];
+        int i = 0;
+        for (int slot = 0; slot < this.keys.length; slot++) {
+            if (this.keys[slot] != EMPTY) {
+                keys[i++] = this.keys[slot];
+            }
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    /**
+     * Visits every entry, in no particular order.
+     */
+    public void forEach(Visitor visitor) {
+        for (int slot = 0; slot < this.keys.length; slot++) {
+            if (this.keys[slot] != EMPTY) {
+                visitor.visit(this.keys[slot], this.counts[slot]);
+            }
+        }
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * @return slot of the key, or the empty slot where it would go
+     */
+    private int slotOf(long key) {
+        int slot = LongCountMap.hash(key) & this.mask;
+        while (this.keys[slot] != key && this.keys[slot] != EMPTY) {
+            slot = (slot + 1) & this.mask;
+        }
+        return slot;
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        Arrays.fill(this.keys, EMPTY);
+        this.counts = new long[capacity];
+
+        this.mask = capacity - 1;
+        this.resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void allocateAndRehash(int capacity) {
+        final long[] oldKeys = this.keys;
+        final long[] oldCounts = this.counts;
+
+        this.allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                final int slot = this.slotOf(oldKeys[i]);
+                this.keys[slot] = oldKeys[i];
+                this.counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int capacityFor(int expectedSize) {
+        final int min = (int) Math.ceil(expectedSize / LOAD_FACTOR);
+        return Integer.highestOneBit(min - 1) << 1;
+    }
+
+    /**
+     * Fibonacci hashing of both halves, cell ids differ mostly in their low bits.
+     */
+    private static int hash(long key) {
+        final long h = key * 0x9E3779B97F4A7C15l;
+        return (int) (h ^ (h >>> 32));
+    }
+
+
+    // Visitor
+    // ------------------------------------------------------------------------
+
+    @FunctionalInterface
+    public interface Visitor {
+
+        void visit(long key, long count);
+    }
+
+}
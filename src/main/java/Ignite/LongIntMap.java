@@ -0,0 +1,158 @@
+package Ignite;
+
+import java.util.Arrays;
+
+
+/**
+ * Open addressing map of <code>long</code> keys to non negative <code>int</code> values, e.g. - OSM node ids to
+ * dense node indexes.
+ *
+ * <p>
+ * Keys and values live in parallel primitive arrays, probed linearly, ~20 bytes an entry where a boxed
+ * <code>HashMap&lt;Long, Integer&gt;</code> takes ~80. Entries are never removed. Not thread safe.
+ * </p>
+ */
+public final class LongIntMap {
+
+    /** Marks an empty slot, not a valid key */
+    public static final long EMPTY = Long.MIN_VALUE;
+
+    /** Value of a missing key */
+    public static final int MISSING = -1;
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+
+    private int mask;
+    private int size = 0;
+    private int resizeAt;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    public LongIntMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize no. of keys expected, the map grows beyond it
+     */
+    public LongIntMap(int expectedSize) {
+        super();
+
+        this.allocate(LongIntMap.capacityFor(Math.max(4, expectedSize)));
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Maps the key to the value, replacing its value if present.
+     */
+    public void put(long key, int value) {
+        // Sanity checks
+        if (key == EMPTY || value < 0) {
+            throw new IllegalArgumentException("LongIntMap :: INVALID entry : " + key + " - " + value);
+        }
+
+        int slot = this.slotOf(key);
+        if (this.keys[slot] == EMPTY) {
+            if (this.size >= this.resizeAt) {
+                this.allocateAndRehash(this.keys.length * 2);
+                slot = this.slotOf(key);
+            }
+            this.keys[slot] = key;
+            this.size++;
+        }
+
+        this.values[slot] = value;
+    }
+
+    /**
+     * Maps a missing key to the no. of keys before it, i.e. - numbers the keys densely in the order they are added.
+     *
+     * @return value of the key
+     */
+    public int putIfAbsentNext(long key) {
+        final int value = this.get(key);
+        if (value != MISSING) {
+            return value;
+        }
+
+        final int next = this.size;
+        this.put(key, next);
+        return next;
+    }
+
+    /**
+     * @return value of the key, {@link #MISSING} if missing
+     */
+    public int get(long key) {
+        final int slot = this.slotOf(key);
+        return this.keys[slot] == EMPTY ? MISSING : this.values[slot];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * @return slot of the key, or the empty slot where it would go
+     */
+    private int slotOf(long key) {
+        int slot = LongIntMap.hash(key) & this.mask;
+        while (this.keys[slot] != key && this.keys[slot] != EMPTY) {
+            slot = (slot + 1) & this.mask;
+        }
+        return slot;
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        Arrays.fill(this.keys, EMPTY);
+        this.values = new int[capacity];
+
+        this.mask = capacity - 1;
+        this.resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void allocateAndRehash(int capacity) {
+        final long[] oldKeys = this.keys;
+        final int[] oldValues = this.values;
+
+        this.allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                final int slot = this.slotOf(oldKeys[i]);
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int capacityFor(int expectedSize) {
+        final int min = (int) Math.ceil(expectedSize / LOAD_FACTOR);
+        return Integer.highestOneBit(min - 1) << 1;
+    }
+
+    /**
+     * Fibonacci hashing of both halves, ids differ mostly in their low bits.
+     */
+    private static int hash(long key) {
+        final long h = key * 0x9E3779B97F4A7C15l;
+        return (int) (h ^ (h >>> 32));
+    }
+
+}
@@ -0,0 +1,468 @@
+package Ignite;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Snaps the traces of devices to a {@link RoadNetwork}, with a hidden Markov model over the candidate road positions
+ * of every point (Newson &amp; Krumm) :
+ * <li>candidates : the nearest segments within the search radius, from the segment index, each with the projection
+ * of the point on it, as {@link Geo#nearestProjection(Coordinate, Coordinate, Coordinate)} but clamped to the
+ * segment</li>
+ * <li>emission : gaussian of the distance of the point from the candidate</li>
+ * <li>transition : exponential of the difference between the route distance of two candidates and the great circle
+ * distance of their points, routes by a bounded Dijkstra over the road graph</li>
+ * </p>
+ *
+ * <p>
+ * Viterbi keeps the log probabilities and the back pointers in primitive arrays. A point without candidates is left
+ * unmatched, and a point no candidate of the point before can route to starts a new chain. Traces are matched in
+ * parallel, see {@link #matchAll(List)}, every thread with its own Dijkstra workspace.
+ * </p>
+ */
+public final class MapMatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MapMatcher.class);
+
+    private static final Metrics.Counter POINTS_MATCHED = Metrics.counter("mapmatch.points.matched");
+    private static final Metrics.Counter POINTS_UNMATCHED = Metrics.counter("mapmatch.points.unmatched");
+    private static final Metrics.Counter CHAIN_BREAKS = Metrics.counter("mapmatch.chain.breaks");
+
+    public static final double DEFAULT_SEARCH_RADIUS_MTRS = 50d;
+    public static final double DEFAULT_SIGMA_MTRS = 10d;
+    public static final double DEFAULT_BETA_MTRS = 20d;
+    public static final int DEFAULT_MAX_CANDIDATES = 8;
+
+    /** Routes longer than the great circle distance by more than this are not searched */
+    private static final double MAX_DETOUR_MTRS = 500d;
+
+    private final RoadNetwork network;
+    private final double searchRadiusMtrs;
+    private final double sigmaMtrs;
+    private final double betaMtrs;
+    private final int maxCandidates;
+
+    private final ThreadLocal<Workspace> workspaces;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    public MapMatcher(RoadNetwork network) {
+        this(network, DEFAULT_SEARCH_RADIUS_MTRS, DEFAULT_SIGMA_MTRS, DEFAULT_BETA_MTRS, DEFAULT_MAX_CANDIDATES);
+    }
+
+    /**
+     * @param network road network
+     * @param searchRadiusMtrs max. distance of a candidate from its point
+     * @param sigmaMtrs std. deviation of the GPS error
+     * @param betaMtrs scale of the route to great circle distance differences
+     * @param maxCandidates max. candidates per point
+     */
+    public MapMatcher(RoadNetwork network, double searchRadiusMtrs, double sigmaMtrs, double betaMtrs,
+            int maxCandidates) {
+        super();
+
+        // Sanity checks
+        if (Objects.isNull(network) || !(searchRadiusMtrs > 0d) || !(sigmaMtrs > 0d) || !(betaMtrs > 0d)
+                || maxCandidates < 1) {
+            String errMsg = String.format("INVALID map matcher, radius - %s, sigma - %s, beta - %s, candidates - %s",
+                    searchRadiusMtrs, sigmaMtrs, betaMtrs, maxCandidates);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        this.network = network;
+        this.searchRadiusMtrs = searchRadiusMtrs;
+        this.sigmaMtrs = sigmaMtrs;
+        this.betaMtrs = betaMtrs;
+        this.maxCandidates = maxCandidates;
+        this.workspaces = ThreadLocal.withInitial(() -> new Workspace());
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Matches the traces in parallel.
+     *
+     * @return match of every trace, in order
+     */
+    public List<Match> matchAll(List<Trace> traces) {
+        return traces.parallelStream().map(this::match).collect(Collectors.toList());
+    }
+
+    public Match match(Trace trace) {
+        final int n = trace.size();
+        final int k = this.maxCandidates;
+
+        // Candidates, k per point
+        final int[] counts = new int[n];
+        final int[] segments = new int[n * k];
+        final double[] distances = new double[n * k];
+        final double[] fractions = new double[n * k];
+
+        final int[] pointSegments = new int[k];
+        final double[] pointDistances = new double[k];
+        final double[] pointFractions = new double[k];
+        for (int i = 0; i < n; i++) {
+            counts[i] = this.network.nearestSegments(trace.latitudes[i], trace.longitudes[i], this.searchRadiusMtrs,
+                    pointSegments, pointDistances, pointFractions);
+            System.arraycopy(pointSegments, 0, segments, i * k, counts[i]);
+            System.arraycopy(pointDistances, 0, distances, i * k, counts[i]);
+            System.arraycopy(pointFractions, 0, fractions, i * k, counts[i]);
+        }
+
+        // Viterbi
+        final double[] scores = new double[n * k];
+        final int[] back = new int[n * k];
+        Arrays.fill(back, -1);
+
+        final Workspace workspace = this.workspaces.get();
+        final double[] routes = new double[k];
+        int prev = -1;
+        for (int i = 0; i < n; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+
+            boolean connected = false;
+            if (prev >= 0) {
+                final double greatCircle = Geo.distance(trace.latitudes[prev], trace.longitudes[prev],
+                        trace.latitudes[i], trace.longitudes[i]);
+                final double maxRoute = greatCircle + MAX_DETOUR_MTRS;
+
+                Arrays.fill(scores, i * k, i * k + counts[i], Double.NEGATIVE_INFINITY);
+                for (int a = 0; a < counts[prev]; a++) {
+                    final int from = prev * k + a;
+                    if (scores[from] == Double.NEGATIVE_INFINITY) {
+                        continue;
+                    }
+
+                    this.routeDistances(workspace, segments[from], fractions[from], segments, fractions, i * k,
+                            counts[i], maxRoute, routes);
+                    for (int b = 0; b < counts[i]; b++) {
+                        if (routes[b] == Double.POSITIVE_INFINITY) {
+                            continue;
+                        }
+
+                        final double score = scores[from] - Math.abs(routes[b] - greatCircle) / this.betaMtrs;
+                        if (score > scores[i * k + b]) {
+                            scores[i * k + b] = score;
+                            back[i * k + b] = from;
+                            connected = true;
+                        }
+                    }
+                }
+            }
+
+            if (!connected) {
+                // New chain
+                if (prev >= 0) {
+                    CHAIN_BREAKS.increment();
+                }
+                Arrays.fill(scores, i * k, i * k + counts[i], 0d);
+                Arrays.fill(back, i * k, i * k + counts[i], -1);
+            }
+
+            // Emission
+            for (int b = 0; b < counts[i]; b++) {
+                final double z = distances[i * k + b] / this.sigmaMtrs;
+                scores[i * k + b] -= 0.5 * z * z;
+            }
+            prev = i;
+        }
+
+        // Back Tracking, from the best candidate of the last point of every chain
+        final Match match = new Match(n);
+        for (int i = n - 1; i >= 0; i--) {
+            if (counts[i] == 0 || match.segments[i] >= 0) {
+                continue;
+            }
+
+            int best = i * k;
+            for (int b = 1; b < counts[i]; b++) {
+                if (scores[i * k + b] > scores[best]) {
+                    best = i * k + b;
+                }
+            }
+            for (int c = best; c >= 0; c = back[c]) {
+                final int point = c / k;
+                match.segments[point] = segments[c];
+                match.latitudes[point] = this.network.latitudeAt(segments[c], fractions[c]);
+                match.longitudes[point] = this.network.longitudeAt(segments[c], fractions[c]);
+            }
+        }
+
+        int matched = 0;
+        for (int segment : match.segments) {
+            matched += segment >= 0 ? 1 : 0;
+        }
+        POINTS_MATCHED.add(matched);
+        POINTS_UNMATCHED.add(n - matched);
+        return match;
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Route distances from a position on a segment to the candidates <code>[offset, offset + count)</code>,
+     * {@link Double#POSITIVE_INFINITY} if farther than the max.
+     */
+    private void routeDistances(Workspace ws, int segment, double fraction, int[] segments, double[] fractions,
+            int offset, int count, double maxRoute, double[] routes) {
+        final RoadNetwork network = this.network;
+        final double length = network.segmentLength(segment);
+
+        ws.reset();
+        ws.relax(network.segmentFrom(segment), fraction * length);
+        ws.relax(network.segmentTo(segment), (1 - fraction) * length);
+
+        // Dijkstra, bounded by the max. route
+        for (int node = ws.pop(); node >= 0; node = ws.pop()) {
+            final double dist = ws.distanceTo(node);
+            if (dist > maxRoute) {
+                break;
+            }
+            for (int i = network.adjStart(node); i < network.adjEnd(node); i++) {
+                ws.relax(network.adjNode(i), dist + network.adjLength(i));
+            }
+        }
+
+        for (int b = 0; b < count; b++) {
+            final int target = segments[offset + b];
+            final double targetFraction = fractions[offset + b];
+            final double targetLength = network.segmentLength(target);
+
+            double route;
+            if (target == segment) {
+                route = Math.abs(targetFraction - fraction) * length;
+            } else {
+                route = Math.min(ws.distanceTo(network.segmentFrom(target)) + targetFraction * targetLength,
+                        ws.distanceTo(network.segmentTo(target)) + (1 - targetFraction) * targetLength);
+            }
+            routes[b] = route <= maxRoute ? route : Double.POSITIVE_INFINITY;
+        }
+    }
+
+
+    // Trace & Match
+    // ------------------------------------------------------------------------
+
+    /**
+     * Time ordered points of a device.
+     */
+    public static final class Trace {
+
+        private final double[] latitudes;
+        private final double[] longitudes;
+
+        public Trace(double[] latitudes, double[] longitudes) {
+            super();
+
+            // Sanity checks
+            if (latitudes.length != longitudes.length) {
+                String errMsg = String.format("INVALID trace, %s latitudes but %s longitudes", latitudes.length,
+                        longitudes.length);
+                LOGGER.error(errMsg);
+                throw new ValidationException(errMsg);
+            }
+
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+        }
+
+        public int size() {
+            return this.latitudes.length;
+        }
+    }
+
+    /**
+     * Matched segment and snapped position of every point of a trace, <code>-1</code> and <code>NaN</code> if
+     * unmatched.
+     */
+    public static final class Match {
+
+        private final int[] segments;
+        private final double[] latitudes;
+        private final double[] longitudes;
+
+        private Match(int size) {
+            super();
+
+            this.segments = new int[size];
+            this.latitudes = new double[size];
+            this.longitudes = new double[size];
+            Arrays.fill(this.segments, -1);
+            Arrays.fill(this.latitudes, Double.NaN);
+            Arrays.fill(this.longitudes, Double.NaN);
+        }
+
+        public int segmentOf(int point) {
+            return this.segments[point];
+        }
+
+        public double latitudeOf(int point) {
+            return this.latitudes[point];
+        }
+
+        public double longitudeOf(int point) {
+            return this.longitudes[point];
+        }
+
+        public int size() {
+            return this.segments.length;
+        }
+    }
+
+
+    // Workspace
+    // ------------------------------------------------------------------------
+
+    /**
+     * Dijkstra state of a thread : distances of the nodes reached, in an open addressing map reset through the list
+     * of its touched slots, and a binary heap of nodes keyed by distance, with lazy deletion. A search bounded by the
+     * max. route reaches a few hundred nodes, so the state is sized by them, not by the nodes of the network.
+     */
+    private static final class Workspace {
+
+        private static final int EMPTY = -1;
+
+        private int[] nodes = new int[1024];
+        private double[] dist = new double[1024];
+        private int[] touched = new int[1024];
+        private int touchedCount = 0;
+
+        private int[] heapNodes = new int[256];
+        private double[] heapKeys = new double[256];
+        private int heapSize = 0;
+
+        private Workspace() {
+            Arrays.fill(this.nodes, EMPTY);
+        }
+
+        private void reset() {
+            for (int i = 0; i < this.touchedCount; i++) {
+                this.nodes[this.touched[i]] = EMPTY;
+            }
+            this.touchedCount = 0;
+            this.heapSize = 0;
+        }
+
+        private double distanceTo(int node) {
+            final int slot = this.slotOf(node);
+            return this.nodes[slot] == EMPTY ? Double.POSITIVE_INFINITY : this.dist[slot];
+        }
+
+        private void relax(int node, double distance) {
+            int slot = this.slotOf(node);
+            if (this.nodes[slot] == EMPTY) {
+                // Half full at most
+                if (2 * (this.touchedCount + 1) > this.nodes.length) {
+                    this.grow();
+                    slot = this.slotOf(node);
+                }
+                this.nodes[slot] = node;
+                this.touched[this.touchedCount++] = slot;
+            } else if (distance >= this.dist[slot]) {
+                return;
+            }
+
+            this.dist[slot] = distance;
+            this.push(node, distance);
+        }
+
+        private int slotOf(int node) {
+            final int mask = this.nodes.length - 1;
+            int slot = (node * 0x9E3779B9) & mask;
+            while (this.nodes[slot] != node && this.nodes[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            final int[] oldNodes = this.nodes;
+            final double[] oldDist = this.dist;
+            final int[] oldTouched = this.touched;
+
+            this.nodes = new int[oldNodes.length * 2];
+            this.dist = new double[oldNodes.length * 2];
+            this.touched = new int[oldNodes.length * 2];
+            Arrays.fill(this.nodes, EMPTY);
+            for (int i = 0; i < this.touchedCount; i++) {
+                final int node = oldNodes[oldTouched[i]];
+                final int slot = this.slotOf(node);
+                this.nodes[slot] = node;
+                this.dist[slot] = oldDist[oldTouched[i]];
+                this.touched[i] = slot;
+            }
+        }
+
+        private void push(int node, double key) {
+            if (this.heapSize == this.heapNodes.length) {
+                this.heapNodes = Arrays.copyOf(this.heapNodes, this.heapSize * 2);
+                this.heapKeys = Arrays.copyOf(this.heapKeys, this.heapSize * 2);
+            }
+
+            int i = this.heapSize++;
+            while (i > 0) {
+                final int parent = (i - 1) >>> 1;
+                if (this.heapKeys[parent] <= key) {
+                    break;
+                }
+                this.heapNodes[i] = this.heapNodes[parent];
+                this.heapKeys[i] = this.heapKeys[parent];
+                i = parent;
+            }
+            this.heapNodes[i] = node;
+            this.heapKeys[i] = key;
+        }
+
+        /**
+         * @return node of the least distance, skipping the stale entries, <code>-1</code> if none
+         */
+        private int pop() {
+            while (this.heapSize > 0) {
+                final int node = this.heapNodes[0];
+                final double key = this.heapKeys[0];
+
+                final int lastNode = this.heapNodes[--this.heapSize];
+                final double lastKey = this.heapKeys[this.heapSize];
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= this.heapSize) {
+                        break;
+                    }
+                    if (child + 1 < this.heapSize && this.heapKeys[child + 1] < this.heapKeys[child]) {
+                        child++;
+                    }
+                    if (this.heapKeys[child] >= lastKey) {
+                        break;
+                    }
+                    this.heapNodes[i] = this.heapNodes[child];
+                    this.heapKeys[i] = this.heapKeys[child];
+                    i = child;
+                }
+                this.heapNodes[i] = lastNode;
+                this.heapKeys[i] = lastKey;
+
+                if (key == this.distanceTo(node)) {
+                    return node;
+                }
+            }
+            return -1;
+        }
+    }
+
+}
@@ -0,0 +1,440 @@
+package Ignite;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Process wide registry of the pipeline metrics : counters, gauges, histograms and timers, by name.
+ *
+ * <p>
+ * Metrics are created on first use and are safe to update from any thread; keep them in static fields of the
+ * classes updating them, so the hot paths do not look them up. All the metrics are exposed as attributes of the
+ * JMX bean <code>{@value #OBJECT_NAME}</code>, and {@link #summary()} formats them for the end of a run.
+ * </p>
+ *
+ * <pre>
+ * private static final Metrics.Timer EXTRACT_TIMER = Metrics.timer("stage.extract");
+ *
+ * final long startNs = System.nanoTime();
+ * ...
+ * EXTRACT_TIMER.recordSince(startNs);
+ * </pre>
+ */
+public final class Metrics {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Metrics.class);
+
+    public static final String OBJECT_NAME = "Ignite:type=PipelineMetrics";
+
+    private static final ConcurrentMap<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LongSupplier> GAUGES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    static {
+        Metrics.gauge("pool.common.queued", () -> ForkJoinPool.commonPool().getQueuedSubmissionCount()
+                + ForkJoinPool.commonPool().getQueuedTaskCount());
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(), new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            // e.g. - already registered by another class loader
+            LOGGER.warn("Failed to register the metrics MBean - {}", OBJECT_NAME, e);
+        }
+    }
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    private Metrics() {
+        super();
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, n -> new Counter());
+    }
+
+    /**
+     * Gauge set by the caller, e.g. - the depth of a queue updated as items are added and removed.
+     */
+    public static Gauge gauge(String name) {
+        final LongSupplier gauge = GAUGES.computeIfAbsent(name, n -> new Gauge());
+        if (!(gauge instanceof Gauge)) {
+            String errMsg = String.format("Metric - %s is a supplied gauge", name);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        return (Gauge) gauge;
+    }
+
+    /**
+     * Gauge read from the supplier whenever it is reported. Replaces an earlier gauge of the same name.
+     */
+    public static void gauge(String name, LongSupplier supplier) {
+        GAUGES.put(name, Objects.requireNonNull(supplier));
+    }
+
+    /**
+     * Histogram of non-negative values, e.g. - pings per device.
+     */
+    public static Histogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    /**
+     * Histogram of durations, recorded in nanoseconds and reported in milliseconds.
+     */
+    public static Timer timer(String name) {
+        final Histogram histogram = HISTOGRAMS.computeIfAbsent(name, n -> new Timer());
+        if (!(histogram instanceof Timer)) {
+            String errMsg = String.format("Metric - %s is a histogram", name);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        return (Timer) histogram;
+    }
+
+    /**
+     * Resets the counters and histograms, e.g. - between runs in the same process. Gauges are left as they are.
+     */
+    public static void reset() {
+        COUNTERS.values().forEach(Counter::reset);
+        HISTOGRAMS.values().forEach(Histogram::reset);
+    }
+
+    /**
+     * @return current value of every metric, histograms as their count, mean, percentiles and max
+     */
+    public static Map<String, Object> snapshot() {
+        final Map<String, Object> snapshot = new TreeMap<>();
+        COUNTERS.forEach((name, counter) -> snapshot.put(name, counter.get()));
+        GAUGES.forEach((name, gauge) -> snapshot.put(name, gauge.getAsLong()));
+        HISTOGRAMS.forEach((name, histogram) -> {
+            if (histogram.getCount() == 0) {
+                return;
+            }
+            snapshot.put(name + ".count", histogram.getCount());
+            snapshot.put(name + ".mean", histogram.report(histogram.getMean()));
+            snapshot.put(name + ".p50", histogram.report(histogram.getPercentile(50)));
+            snapshot.put(name + ".p99", histogram.report(histogram.getPercentile(99)));
+            snapshot.put(name + ".max", histogram.report(histogram.getMax()));
+            if (histogram instanceof Timer) {
+                snapshot.put(name + ".total", histogram.report(histogram.getSum()));
+            }
+        });
+
+        return snapshot;
+    }
+
+    /**
+     * @return all the metrics, one per line, for the end of a run
+     */
+    public static String summary() {
+        final StringBuilder sb = new StringBuilder("Pipeline metrics :");
+        Metrics.snapshot().forEach((name, value) -> sb.append("\n    ").append(name).append(" = ").append(value));
+        return sb.toString();
+    }
+
+    public static void logSummary() {
+        LOGGER.info(Metrics.summary());
+    }
+
+
+    // Counter
+    // ------------------------------------------------------------------------
+
+    public static final class Counter {
+
+        private final LongAdder adder = new LongAdder();
+
+        private Counter() {
+            super();
+        }
+
+        public void increment() {
+            this.adder.increment();
+        }
+
+        public void add(long delta) {
+            this.adder.add(delta);
+        }
+
+        public long get() {
+            return this.adder.sum();
+        }
+
+        private void reset() {
+            this.adder.reset();
+        }
+    }
+
+
+    // Gauge
+    // ------------------------------------------------------------------------
+
+    public static final class Gauge implements LongSupplier {
+
+        private final AtomicLong value = new AtomicLong();
+
+        private Gauge() {
+            super();
+        }
+
+        public void set(long value) {
+            this.value.set(value);
+        }
+
+        public void add(long delta) {
+            this.value.addAndGet(delta);
+        }
+
+        @Override
+        public long getAsLong() {
+            return this.value.get();
+        }
+    }
+
+
+    // Histogram
+    // ------------------------------------------------------------------------
+
+    /**
+     * Log-linear histogram : values are counted in buckets of 8 per power of two, so percentiles are within 12.5 %
+     * of the recorded values. Values below 8 are exact.
+     */
+    public static class Histogram {
+
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0l);
+
+        private Histogram() {
+            super();
+        }
+
+        /**
+         * @param value non-negative value, negative values are recorded as <code>0</code>
+         */
+        public void record(long value) {
+            final long v = Math.max(0l, value);
+            this.buckets.incrementAndGet(Histogram.bucketOf(v));
+            this.count.increment();
+            this.sum.add(v);
+            this.max.accumulate(v);
+        }
+
+        public long getCount() {
+            return this.count.sum();
+        }
+
+        public long getSum() {
+            return this.sum.sum();
+        }
+
+        public long getMax() {
+            return this.max.get();
+        }
+
+        public double getMean() {
+            final long n = this.getCount();
+            return n == 0 ? 0d : (double) this.getSum() / n;
+        }
+
+        /**
+         * @param percentile percentile, 0 to 100
+         *
+         * @return upper bound of the bucket holding the percentile
+         */
+        public long getPercentile(double percentile) {
+            final long n = this.getCount();
+            if (n == 0) {
+                return 0l;
+            }
+
+            final long rank = Math.max(1l, (long) Math.ceil(percentile / 100d * n));
+            long seen = 0l;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += this.buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(Histogram.upperBoundOf(i), this.getMax());
+                }
+            }
+
+            return this.getMax();
+        }
+
+        /**
+         * Formats a value for reporting.
+         */
+        Object report(double value) {
+            return value == Math.rint(value) ? (Object) (long) value : (Object) (Math.round(value * 100d) / 100d);
+        }
+
+        private void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                this.buckets.set(i, 0l);
+            }
+            this.count.reset();
+            this.sum.reset();
+            this.max.reset();
+        }
+
+        private static int bucketOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+
+            final int exponent = 63 - Long.numberOfLeadingZeros(value);
+            final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+
+        private static long upperBoundOf(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+
+            final int shift = bucket / SUB_BUCKETS - 1;
+            final long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+            return lower + (1l << shift) - 1;
+        }
+    }
+
+
+    // Timer
+    // ------------------------------------------------------------------------
+
+    public static final class Timer extends Histogram {
+
+        private Timer() {
+            super();
+        }
+
+        /**
+         * Records the time elapsed since the start.
+         *
+         * @param startNanos start, from {@link System#nanoTime()}
+         */
+        public void recordSince(long startNanos) {
+            this.record(System.nanoTime() - startNanos);
+        }
+
+        @Override
+        Object report(double nanos) {
+            return String.format("%.3f ms", nanos / TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+
+    // JMX
+    // ------------------------------------------------------------------------
+
+    /**
+     * Read only bean with an attribute per metric and a <code>summary</code> operation.
+     */
+    private static final class MetricsMBean implements DynamicMBean {
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            final Object value = Metrics.snapshot().get(attribute);
+            if (Objects.isNull(value)) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return value instanceof String ? value : ((Number) value).doubleValue();
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            final Map<String, Object> snapshot = Metrics.snapshot();
+            final AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                final Object value = snapshot.get(attribute);
+                if (Objects.nonNull(value)) {
+                    list.add(new Attribute(attribute,
+                            value instanceof String ? value : ((Number) value).doubleValue()));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Metrics are read only - " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            if ("summary".equals(actionName)) {
+                return Metrics.summary();
+            }
+            if ("reset".equals(actionName)) {
+                Metrics.reset();
+                return null;
+            }
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            final List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            Metrics.snapshot().forEach((name, value) -> attributes.add(new MBeanAttributeInfo(name,
+                    value instanceof String ? String.class.getName() : Double.class.getName(), name, true, false,
+                    false)));
+
+            final MBeanOperationInfo[] operations = new MBeanOperationInfo[] {
+                    new MBeanOperationInfo("summary", "All the metrics, one per line", new MBeanParameterInfo[0],
+                            String.class.getName(), MBeanOperationInfo.INFO),
+                    new MBeanOperationInfo("reset", "Resets the counters and histograms", new MBeanParameterInfo[0],
+                            "void", MBeanOperationInfo.ACTION) };
+
+            return new MBeanInfo(Metrics.class.getName(), "Pipeline metrics",
+                    attributes.toArray(new MBeanAttributeInfo[0]), null, operations, null);
+        }
+    }
+
+}
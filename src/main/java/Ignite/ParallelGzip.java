@@ -0,0 +1,654 @@
+package Ignite;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Gzip decompression which inflates the members of multi-member gzip files concurrently.
+ *
+ * <p>
+ * A gzip file may be a concatenation of independent members, e.g. - BGZF files (<code>bgzip</code>) and files
+ * compressed in blocks and concatenated. Member boundaries are found without inflating :
+ * <li>BGZF : every member header carries the size of the member (<code>BC</code> extra sub field).</li>
+ * <li>Others : every position which parses as a gzip member header is a candidate boundary. Candidates are inflated
+ * speculatively and a candidate is confirmed only if the member before it inflates to exactly that position with a
+ * matching CRC32 and size. A member cut short by a false candidate is inflated once more, from its start to wherever
+ * its deflate stream ends, and the candidates inside it are dropped.</li>
+ * </p>
+ *
+ * <p>
+ * Members are inflated on a pool, at most <code>window</code> members ahead of the reader, and the returned
+ * {@link InputStream} yields the inflated bytes in the original order. Single-member files and files too large to
+ * map are inflated with a plain streaming {@link GZIPInputStream}, as is the rest of a file from a member inflating
+ * beyond {@link #MAX_MEMBER_SIZE} or not ending at a member boundary.
+ * </p>
+ */
+public final class ParallelGzip {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelGzip.class);
+
+    private static final Metrics.Gauge INFLATING = Metrics.gauge("queue.gzip.inflating");
+
+    public static final int DEFAULT_WINDOW = 2 * Runtime.getRuntime().availableProcessors();
+
+    /** Above this average member size the members are not buffered, the file is streamed. */
+    public static final long MAX_AVG_MEMBER_SIZE = 16L * 1024 * 1024;
+
+    /** Above this inflated size a member is not buffered, the file is streamed from it. */
+    public static final int MAX_MEMBER_SIZE = 256 * 1024 * 1024;
+
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    // Header
+    private static final int ID1 = 0x1f;
+    private static final int ID2 = 0x8b;
+    private static final int CM_DEFLATE = 8;
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+    private static final int FRESERVED = 0xe0;
+
+    /** Known operating systems of the header, 0 (FAT) to 13 (Acorn RISCOS) and 255 (unknown) */
+    private static final int OS_MAX_KNOWN = 13;
+    private static final int OS_UNKNOWN = 255;
+
+    private static final int HEADER_SIZE = 10;
+    private static final int TRAILER_SIZE = 8;
+
+    private static final ExecutorService POOL = ParallelGzip.newPool();
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    private ParallelGzip() {
+        super();
+        // Private Constructor
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    public static InputStream open(Path gzipPath) throws IOException {
+        return ParallelGzip.open(gzipPath, POOL, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Opens the gzip file for reading its inflated content.
+     *
+     * @param gzipPath gzip file
+     * @param pool pool inflating the members
+     * @param window max. no. of members inflated ahead of the reader
+     *
+     * @return stream of the inflated bytes, in order
+     */
+    public static InputStream open(Path gzipPath, ExecutorService pool, int window) throws IOException {
+        // Sanity checks
+        if (Objects.isNull(pool) || window < 1) {
+            String errMsg = String.format("INVALID pool or window - %s", window);
+            LOGGER.error(errMsg);
+            throw new ValidationException(errMsg);
+        }
+
+        final long size = Files.size(gzipPath);
+        if (size > Integer.MAX_VALUE) {
+            return ParallelGzip.openSequential(gzipPath);
+        }
+
+        final MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(gzipPath, StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        final List<Integer> boundaries = ParallelGzip.findMemberBoundaries(data);
+        final int members = boundaries.size() - 1;
+        if (members < 2 || size / members > MAX_AVG_MEMBER_SIZE) {
+            return ParallelGzip.openSequential(gzipPath);
+        }
+
+        LOGGER.debug("Inflating {} gzip members of file - {} in parallel", members, gzipPath);
+        return new MemberInputStream(data, boundaries, pool, window);
+    }
+
+    /**
+     * Finds the start positions of the (candidate) members, followed by the end of data.
+     *
+     * @return start of every member and, as last element, the size of the data. Empty if the data does not start
+     *         with a gzip header.
+     */
+    static List<Integer> findMemberBoundaries(ByteBuffer data) {
+        final List<Integer> boundaries = new ArrayList<>();
+        final int limit = data.limit();
+        if (ParallelGzip.headerLength(data, 0) < 0) {
+            return boundaries;
+        }
+
+        // BGZF, member sizes in the headers
+        if (ParallelGzip.bgzfBlockSize(data, 0) > 0) {
+            int pos = 0;
+            while (pos < limit) {
+                final int blockSize = ParallelGzip.bgzfBlockSize(data, pos);
+                if (blockSize <= 0 || pos + blockSize > limit) {
+                    // Not BGZF all the way, fall back to scanning
+                    boundaries.clear();
+                    break;
+                }
+                boundaries.add(pos);
+                pos += blockSize;
+            }
+
+            if (!boundaries.isEmpty()) {
+                boundaries.add(limit);
+                return boundaries;
+            }
+        }
+
+        // Candidate headers, of a known operating system to rule out most of the false ones
+        boundaries.add(0);
+        for (int pos = HEADER_SIZE + TRAILER_SIZE; pos < limit - HEADER_SIZE; pos++) {
+            if ((data.get(pos) & 0xff) == ID1 && (data.get(pos + 1) & 0xff) == ID2
+                    && ParallelGzip.isKnownOs(data.get(pos + 9) & 0xff) && ParallelGzip.headerLength(data, pos) > 0) {
+                boundaries.add(pos);
+            }
+        }
+        boundaries.add(limit);
+
+        return boundaries;
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    private static InputStream openSequential(Path gzipPath) throws IOException {
+        final InputStream fis = Files.newInputStream(gzipPath);
+        try {
+            return new GZIPInputStream(new BufferedInputStream(fis, STREAM_BUFFER_SIZE), STREAM_BUFFER_SIZE);
+        } catch (IOException e) {
+            fis.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return length of the member header starting at the position, -1 if it is not a valid header
+     */
+    private static int headerLength(ByteBuffer data, int pos) {
+        final int limit = data.limit();
+        if (pos + HEADER_SIZE > limit) {
+            return -1;
+        }
+
+        if ((data.get(pos) & 0xff) != ID1 || (data.get(pos + 1) & 0xff) != ID2
+                || (data.get(pos + 2) & 0xff) != CM_DEFLATE) {
+            return -1;
+        }
+
+        final int flags = data.get(pos + 3) & 0xff;
+        if ((flags & FRESERVED) != 0) {
+            return -1;
+        }
+
+        // Extra flags : 0, 2 (max. compression) or 4 (fastest)
+        final int xfl = data.get(pos + 8) & 0xff;
+        if (xfl != 0 && xfl != 2 && xfl != 4) {
+            return -1;
+        }
+
+        int len = HEADER_SIZE;
+        if ((flags & FEXTRA) != 0) {
+            if (pos + len + 2 > limit) {
+                return -1;
+            }
+            len += 2 + ParallelGzip.uint16(data, pos + len);
+        }
+        if ((flags & FNAME) != 0) {
+            len = ParallelGzip.skipZeroTerminated(data, pos + len) - pos;
+        }
+        if ((flags & FCOMMENT) != 0 && len > 0) {
+            len = ParallelGzip.skipZeroTerminated(data, pos + len) - pos;
+        }
+        if ((flags & FHCRC) != 0 && len > 0) {
+            len += 2;
+        }
+
+        return len > 0 && pos + len <= limit ? len : -1;
+    }
+
+    /**
+     * @return total size of the BGZF member starting at the position, -1 if it is not a BGZF member
+     */
+    private static int bgzfBlockSize(ByteBuffer data, int pos) {
+        if (ParallelGzip.headerLength(data, pos) < 0 || ((data.get(pos + 3) & 0xff) & FEXTRA) == 0) {
+            return -1;
+        }
+
+        // Sub fields : id (2), length (2), data
+        final int xlen = ParallelGzip.uint16(data, pos + HEADER_SIZE);
+        final int end = Math.min(data.limit(), pos + HEADER_SIZE + 2 + xlen);
+        for (int sf = pos + HEADER_SIZE + 2; sf + 4 <= end;) {
+            final int subLen = ParallelGzip.uint16(data, sf + 2);
+            if (sf + 4 + subLen > end) {
+                return -1;
+            }
+            if (data.get(sf) == 'B' && data.get(sf + 1) == 'C' && subLen == 2) {
+                return ParallelGzip.uint16(data, sf + 4) + 1;
+            }
+            sf += 4 + subLen;
+        }
+
+        return -1;
+    }
+
+    private static int skipZeroTerminated(ByteBuffer data, int pos) {
+        for (int i = pos; i < data.limit(); i++) {
+            if (data.get(i) == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int uint16(ByteBuffer data, int pos) {
+        return (data.get(pos) & 0xff) | ((data.get(pos + 1) & 0xff) << 8);
+    }
+
+    private static boolean isKnownOs(int os) {
+        return os <= OS_MAX_KNOWN || os == OS_UNKNOWN;
+    }
+
+    /**
+     * Inflates the member spanning the range exactly.
+     *
+     * @return inflated bytes, <code>null</code> if the range is not exactly one valid member
+     */
+    private static byte[] inflateMember(ByteBuffer data, int start, int end) {
+        final int headerLen = ParallelGzip.headerLength(data, start);
+        if (headerLen < 0 || end - start < headerLen + TRAILER_SIZE) {
+            return null;
+        }
+
+        // Size modulo 2^32
+        final ByteBuffer trailer = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        final long expectedCrc = trailer.getInt(end - TRAILER_SIZE) & 0xffffffffL;
+        final long expectedSize = trailer.getInt(end - 4) & 0xffffffffL;
+        if (expectedSize > MAX_MEMBER_SIZE) {
+            // Streamed, see MemberInputStream#advance()
+            return null;
+        }
+
+        final ByteBuffer deflated = data.duplicate();
+        deflated.position(start + headerLen).limit(end - TRAILER_SIZE);
+
+        final Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(deflated);
+
+            // Trailer of a false candidate may claim any size, grow up to it
+            byte[] out = new byte[(int) Math.min(expectedSize, 4L * (end - start) + 64)];
+            int n = 0;
+            while (!inflater.finished()) {
+                if (n == out.length) {
+                    if (n == expectedSize) {
+                        // More data than the trailer claims : not a member boundary
+                        if (inflater.inflate(new byte[1]) > 0 || !inflater.finished()) {
+                            return null;
+                        }
+                        break;
+                    }
+                    out = Arrays.copyOf(out, (int) Math.min(expectedSize, 2L * out.length));
+                }
+
+                final int read = inflater.inflate(out, n, out.length - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    // Deflate stream continues past the range
+                    return null;
+                }
+                n += read;
+            }
+
+            // Must end exactly at the trailer
+            if (n != expectedSize || inflater.getRemaining() != 0) {
+                return null;
+            }
+
+            final CRC32 crc = new CRC32();
+            crc.update(out, 0, n);
+            return crc.getValue() == expectedCrc ? out : null;
+        } catch (DataFormatException e) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Inflates the member starting at the position up to the end of its deflate stream, wherever the candidate
+     * boundaries are.
+     *
+     * @return inflated bytes and end of the member, <code>null</code> if it is not a valid member or inflates beyond
+     *         {@link #MAX_MEMBER_SIZE}
+     */
+    private static Member inflateMemberAt(ByteBuffer data, int start) {
+        final int headerLen = ParallelGzip.headerLength(data, start);
+        if (headerLen < 0) {
+            return null;
+        }
+
+        final ByteBuffer deflated = data.duplicate();
+        deflated.position(start + headerLen);
+
+        final Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(deflated);
+
+            byte[] out = new byte[(int) Math.min(MAX_MEMBER_SIZE, 4L * (data.limit() - start) + 64)];
+            int n = 0;
+            while (!inflater.finished()) {
+                if (n == out.length) {
+                    if (n == MAX_MEMBER_SIZE) {
+                        return null;
+                    }
+                    out = Arrays.copyOf(out, (int) Math.min(MAX_MEMBER_SIZE, 2L * out.length));
+                }
+
+                final int read = inflater.inflate(out, n, out.length - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    // Truncated
+                    return null;
+                }
+                n += read;
+            }
+
+            // Trailer right after the deflate stream
+            final int end = data.limit() - inflater.getRemaining() + TRAILER_SIZE;
+            if (end > data.limit()) {
+                return null;
+            }
+
+            final ByteBuffer trailer = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            final CRC32 crc = new CRC32();
+            crc.update(out, 0, n);
+            if (crc.getValue() != (trailer.getInt(end - TRAILER_SIZE) & 0xffffffffL)
+                    || n != (trailer.getInt(end - 4) & 0xffffffffL)) {
+                return null;
+            }
+
+            return new Member(Arrays.copyOf(out, n), end);
+        } catch (DataFormatException e) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static ExecutorService newPool() {
+        final AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            final Thread thread = new Thread(r, "gzip-inflater-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+    // Member Input Stream
+    // ------------------------------------------------------------------------
+
+    /**
+     * Yields the inflated members in order, keeping up to <code>window</code> members inflating ahead.
+     */
+    private static final class MemberInputStream extends InputStream {
+
+        private final ByteBuffer data;
+        private final List<Integer> boundaries;
+        private final ExecutorService pool;
+        private final int window;
+
+        private final Deque<Segment> inflating = new ArrayDeque<>();
+        private int nextSegment = 0;
+
+        private byte[] current = new byte[0];
+        private int currentPos = 0;
+
+        /** Rest of the file, once streamed instead of inflated by members */
+        private InputStream sequential;
+
+        private boolean closed = false;
+
+        private MemberInputStream(ByteBuffer data, List<Integer> boundaries, ExecutorService pool, int window) {
+            super();
+
+            this.data = data;
+            this.boundaries = boundaries;
+            this.pool = pool;
+            this.window = window;
+
+            this.fill();
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] one = new byte[1];
+            return this.read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (this.closed) {
+                throw new IOException("Stream closed");
+            }
+
+            if (len == 0) {
+                return 0;
+            }
+
+            while (this.currentPos == this.current.length) {
+                if (Objects.nonNull(this.sequential)) {
+                    return this.sequential.read(b, off, len);
+                }
+                if (!this.advance()) {
+                    return -1;
+                }
+            }
+
+            final int n = Math.min(len, this.current.length - this.currentPos);
+            System.arraycopy(this.current, this.currentPos, b, off, n);
+            this.currentPos += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return this.current.length - this.currentPos;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.closed = true;
+            this.cancelInflating();
+            if (Objects.nonNull(this.sequential)) {
+                this.sequential.close();
+            }
+        }
+
+        private void fill() {
+            while (this.inflating.size() < this.window && this.nextSegment < this.boundaries.size() - 1) {
+                final int start = this.boundaries.get(this.nextSegment);
+                final int end = this.boundaries.get(++this.nextSegment);
+                this.inflating.addLast(new Segment(start, end,
+                        CompletableFuture.supplyAsync(() -> inflateMember(this.data, start, end), this.pool)));
+                INFLATING.add(1);
+            }
+        }
+
+        private boolean advance() throws IOException {
+            if (this.inflating.isEmpty()) {
+                return false;
+            }
+
+            final Segment segment = this.inflating.pollFirst();
+            INFLATING.add(-1);
+            byte[] inflated = this.join(segment);
+
+            // False candidate boundary : the member once more, to the end of its deflate stream
+            if (Objects.isNull(inflated)) {
+                final Member member = inflateMemberAt(this.data, segment.start);
+                if (Objects.isNull(member) || !this.skipTo(member.end)) {
+                    // Too large to buffer, corrupt or followed by trailing bytes : the gzip stream decides
+                    this.stream(segment.start);
+                    return true;
+                }
+                inflated = member.bytes;
+            }
+
+            this.fill();
+
+            this.current = inflated;
+            this.currentPos = 0;
+            return true;
+        }
+
+        /**
+         * Drops the segments starting before the position.
+         *
+         * @return <code>true</code> if the next segment starts at the position, or the position is the end of data
+         */
+        private boolean skipTo(int pos) {
+            while (!this.inflating.isEmpty() && this.inflating.peekFirst().start < pos) {
+                this.inflating.pollFirst().result.cancel(false);
+                INFLATING.add(-1);
+            }
+            if (!this.inflating.isEmpty()) {
+                return this.inflating.peekFirst().start == pos;
+            }
+
+            while (this.nextSegment < this.boundaries.size() - 1 && this.boundaries.get(this.nextSegment) < pos) {
+                this.nextSegment++;
+            }
+            return this.boundaries.get(this.nextSegment) == pos;
+        }
+
+        /**
+         * Streams the rest of the file from the member starting at the position.
+         */
+        private void stream(int pos) throws IOException {
+            this.cancelInflating();
+            this.nextSegment = this.boundaries.size() - 1;
+
+            final ByteBuffer rest = this.data.duplicate();
+            rest.position(pos);
+            this.sequential = new GZIPInputStream(new ByteBufferInputStream(rest), STREAM_BUFFER_SIZE);
+            this.current = new byte[0];
+            this.currentPos = 0;
+        }
+
+        private void cancelInflating() {
+            this.inflating.forEach(s -> s.result.cancel(false));
+            INFLATING.add(-this.inflating.size());
+            this.inflating.clear();
+        }
+
+        private byte[] join(Segment segment) throws IOException {
+            try {
+                return segment.result.join();
+            } catch (CompletionException e) {
+                throw new IOException("Failed to inflate gzip member", e.getCause());
+            }
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer data;
+
+        private ByteBufferInputStream(ByteBuffer data) {
+            super();
+
+            this.data = data;
+        }
+
+        @Override
+        public int read() {
+            return this.data.hasRemaining() ? this.data.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!this.data.hasRemaining()) {
+                return -1;
+            }
+
+            final int n = Math.min(len, this.data.remaining());
+            this.data.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return this.data.remaining();
+        }
+    }
+
+    private static final class Member {
+
+        private final byte[] bytes;
+        private final int end;
+
+        private Member(byte[] bytes, int end) {
+            super();
+
+            this.bytes = bytes;
+            this.end = end;
+        }
+    }
+
+    private static final class Segment {
+
+        private final int start;
+        private final int end;
+        private final CompletableFuture<byte[]> result;
+
+        private Segment(int start, int end, CompletableFuture<byte[]> result) {
+            super();
+
+            this.start = start;
+            this.end = end;
+            this.result = result;
+        }
+    }
+
+}
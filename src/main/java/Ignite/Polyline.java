@@ -0,0 +1,99 @@
+package Ignite;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Compact traces : the encoded polyline format (precision 5, as the Google Maps polyline).
+ *
+ * <p>
+ * References:
+ * <li><a href="https://developers.google.com/maps/documentation/utilities/polylinealgorithm">Encoded Polyline
+ * Algorithm Format</a></li>
+ * </p>
+ */
+public final class Polyline {
+
+    private Polyline() {
+        // Utility Class
+    }
+
+
+    // Constants
+    // ------------------------------------------------------------------------
+
+    private static final double PRECISION = 1e5;
+
+
+
+    // Encode / Decode
+    // ------------------------------------------------------------------------
+
+    public static String encode(List<Coordinate> trace) {
+        final StringBuilder sb = new StringBuilder(trace.size() * 8);
+        long prevLat = 0l, prevLng = 0l;
+        for (Coordinate coordinate : trace) {
+            final long lat = Math.round(coordinate.getLatitude() * PRECISION);
+            final long lng = Math.round(coordinate.getLongitude() * PRECISION);
+            encodeValue(lat - prevLat, sb);
+            encodeValue(lng - prevLng, sb);
+            prevLat = lat;
+            prevLng = lng;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Appends the points, continuing a polyline whose last point is <code>(prevLat, prevLng)</code>, <code>(0,
+     * 0)</code> if empty. Points are appended one at a time, without a trace.
+     */
+    public static void encode(double prevLat, double prevLng, double latitude, double longitude, StringBuilder sb) {
+        encodeValue(Math.round(latitude * PRECISION) - Math.round(prevLat * PRECISION), sb);
+        encodeValue(Math.round(longitude * PRECISION) - Math.round(prevLng * PRECISION), sb);
+    }
+
+    public static List<Coordinate> decode(String polyline) {
+        final List<Coordinate> trace = new ArrayList<>();
+        final int[] index = { 0 };
+        long lat = 0l, lng = 0l;
+        while (index[0] < polyline.length()) {
+            lat += decodeValue(polyline, index);
+            lng += decodeValue(polyline, index);
+            trace.add(Coordinate.from(lat / PRECISION, lng / PRECISION));
+        }
+        return trace;
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    private static void encodeValue(long value, StringBuilder sb) {
+        long v = value < 0 ? ~(value << 1) : value << 1;
+        while (v >= 0x20) {
+            sb.append((char) ((0x20 | (v & 0x1f)) + 63));
+            v >>= 5;
+        }
+        sb.append((char) (v + 63));
+    }
+
+    private static long decodeValue(String polyline, int[] index) {
+        long result = 0l;
+        int shift = 0;
+        int b;
+        do {
+            // Sanity checks
+            if (index[0] >= polyline.length()) {
+                throw new IllegalArgumentException("Polyline :: INVALID polyline, truncated : " + polyline);
+            }
+
+            b = polyline.charAt(index[0]++) - 63;
+            result |= (long) (b & 0x1f) << shift;
+            shift += 5;
+        } while (b >= 0x20);
+
+        return (result & 1) != 0 ? ~(result >> 1) : result >> 1;
+    }
+
+}
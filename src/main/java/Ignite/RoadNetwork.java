@@ -0,0 +1,596 @@
+package Ignite;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Road graph for map matching : nodes, the segments between consecutive nodes of the roads and a spatial index of the
+ * segments, all in primitive arrays.
+ *
+ * <p>
+ * Roads are undirected. Distances along the roads are in meters, and the segment geometry is planar around the
+ * point of a query (equirectangular), accurate for the tens of meters of a candidate search.
+ * </p>
+ *
+ * <p>
+ * The segment index is sparse : only the cells segments pass through are numbered, see {@link LongIntMap}, so its
+ * size follows the roads and not the area of their bounding box.
+ * </p>
+ *
+ * <p>
+ * Loaded from an OSM XML extract, see {@link #loadOsm(Path)}, or built with {@link #builder()}.
+ * </p>
+ */
+public final class RoadNetwork {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoadNetwork.class);
+
+    /** Meters per degree of latitude */
+    static final double MTRS_PER_DEGREE = Math.toRadians(1) * Geo.RADIUS_EARTHS_MTRS;
+
+    /** Cell side of the segment index, ~220 meters */
+    private static final double CELL_DEGREES = 0.002;
+
+    /** OSM highway values of the roads vehicles drive on */
+    private static final Set<String> DRIVABLE = new HashSet<>(Arrays.asList("motorway", "trunk", "primary",
+            "secondary", "tertiary", "unclassified", "residential", "service", "living_street", "road",
+            "motorway_link", "trunk_link", "primary_link", "secondary_link", "tertiary_link"));
+
+    // Nodes
+    private final double[] nodeLats;
+    private final double[] nodeLngs;
+
+    // Segments
+    private final int[] segmentFrom;
+    private final int[] segmentTo;
+    private final double[] segmentLengths;
+    private final long[] segmentWays;
+
+    // Adjacency, CSR : the neighbours of node n are adjNodes[adjStarts[n], adjStarts[n + 1])
+    private final int[] adjStarts;
+    private final int[] adjNodes;
+    private final double[] adjLengths;
+
+    // Segment Index, CSR over the non empty cells : the segments of cell c are cellSegments[cellStarts[c],
+    // cellStarts[c + 1]), cells numbered by cellIdxs from row * cols + col
+    private final double gridMinLat;
+    private final double gridMinLng;
+    private final int rows;
+    private final int cols;
+    private final LongIntMap cellIdxs;
+    private final int[] cellStarts;
+    private final int[] cellSegments;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    private RoadNetwork(Builder builder) {
+        super();
+
+        final int nodes = builder.nodeCount;
+        final int segments = builder.segmentCount;
+        this.nodeLats = Arrays.copyOf(builder.nodeLats, nodes);
+        this.nodeLngs = Arrays.copyOf(builder.nodeLngs, nodes);
+        this.segmentFrom = Arrays.copyOf(builder.segmentFrom, segments);
+        this.segmentTo = Arrays.copyOf(builder.segmentTo, segments);
+        this.segmentWays = Arrays.copyOf(builder.segmentWays, segments);
+
+        this.segmentLengths = new double[segments];
+        for (int s = 0; s < segments; s++) {
+            final int from = this.segmentFrom[s], to = this.segmentTo[s];
+            this.segmentLengths[s] = Geo.distance(this.nodeLats[from], this.nodeLngs[from], this.nodeLats[to],
+                    this.nodeLngs[to]);
+        }
+
+        // Adjacency, both directions
+        this.adjStarts = new int[nodes + 1];
+        for (int s = 0; s < segments; s++) {
+            this.adjStarts[this.segmentFrom[s] + 1]++;
+            this.adjStarts[this.segmentTo[s] + 1]++;
+        }
+        for (int n = 0; n < nodes; n++) {
+            this.adjStarts[n + 1] += this.adjStarts[n];
+        }
+        this.adjNodes = new int[2 * segments];
+        this.adjLengths = new double[2 * segments];
+        final int[] fill = Arrays.copyOf(this.adjStarts, nodes);
+        for (int s = 0; s < segments; s++) {
+            final int from = this.segmentFrom[s], to = this.segmentTo[s];
+            this.adjNodes[fill[from]] = to;
+            this.adjLengths[fill[from]++] = this.segmentLengths[s];
+            this.adjNodes[fill[to]] = from;
+            this.adjLengths[fill[to]++] = this.segmentLengths[s];
+        }
+
+        // Segment Index
+        double minLat = Double.POSITIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+        double minLng = Double.POSITIVE_INFINITY, maxLng = Double.NEGATIVE_INFINITY;
+        for (int s = 0; s < segments; s++) {
+            for (int n : new int[] { this.segmentFrom[s], this.segmentTo[s] }) {
+                minLat = Math.min(minLat, this.nodeLats[n]);
+                maxLat = Math.max(maxLat, this.nodeLats[n]);
+                minLng = Math.min(minLng, this.nodeLngs[n]);
+                maxLng = Math.max(maxLng, this.nodeLngs[n]);
+            }
+        }
+        this.gridMinLat = segments == 0 ? 0d : minLat;
+        this.gridMinLng = segments == 0 ? 0d : minLng;
+        this.rows = segments == 0 ? 1 : (int) ((maxLat - minLat) / CELL_DEGREES) + 1;
+        this.cols = segments == 0 ? 1 : (int) ((maxLng - minLng) / CELL_DEGREES) + 1;
+
+        // Non empty cells, numbered as segments first pass through them
+        this.cellIdxs = new LongIntMap(segments);
+        int[] cellStarts = new int[1024];
+        int[] cellSegments = null;
+        for (int pass = 0; pass < 2; pass++) {
+            // Counts, then fill
+            final int[] cellFill = pass == 0 ? null : Arrays.copyOf(cellStarts, cellStarts.length - 1);
+            for (int s = 0; s < segments; s++) {
+                final int from = this.segmentFrom[s], to = this.segmentTo[s];
+                final int row1 = this.rowOf(Math.min(this.nodeLats[from], this.nodeLats[to]));
+                final int row2 = this.rowOf(Math.max(this.nodeLats[from], this.nodeLats[to]));
+                final int col1 = this.colOf(Math.min(this.nodeLngs[from], this.nodeLngs[to]));
+                final int col2 = this.colOf(Math.max(this.nodeLngs[from], this.nodeLngs[to]));
+                for (int row = row1; row <= row2; row++) {
+                    for (int col = col1; col <= col2; col++) {
+                        final int cell = this.cellIdxs.putIfAbsentNext(this.cellKey(row, col));
+                        if (pass == 0) {
+                            if (cell + 1 == cellStarts.length) {
+                                cellStarts = Arrays.copyOf(cellStarts, cellStarts.length * 2);
+                            }
+                            cellStarts[cell + 1]++;
+                        } else {
+                            cellSegments[cellFill[cell]++] = s;
+                        }
+                    }
+                }
+            }
+            if (pass == 0) {
+                final int cells = this.cellIdxs.size();
+                cellStarts = Arrays.copyOf(cellStarts, cells + 1);
+                for (int c = 0; c < cells; c++) {
+                    cellStarts[c + 1] += cellStarts[c];
+                }
+                cellSegments = new int[cellStarts[cells]];
+            }
+        }
+        this.cellStarts = cellStarts;
+        this.cellSegments = cellSegments;
+
+        LOGGER.info("Road network of {} nodes, {} segments and {} cells of a {}x{} segment index", nodes, segments,
+                this.cellIdxs.size(), this.rows, this.cols);
+    }
+
+
+    // Factory Methods
+    // ------------------------------------------------------------------------
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Loads the drivable roads, ways tagged with a {@link #DRIVABLE} <code>highway</code>, of an OSM XML extract,
+     * gzipped if it ends with <code>.gz</code>. The file is streamed twice, never held in memory : the ways first,
+     * numbering the nodes they reference, then the nodes, keeping only the numbered ones, so buildings, POIs and the
+     * nodes of other ways cost nothing.
+     */
+    public static RoadNetwork loadOsm(Path path) throws IOException {
+        // Ways : road node indexes by OSM id, and the node indexes of every drivable way, CSR
+        final LongIntMap nodeIdxs = new LongIntMap(1 << 16);
+        final OsmWays ways = new OsmWays();
+        RoadNetwork.readOsm(path, new OsmHandler() {
+            private long[] wayNodes = new long[64];
+            private int wayNodeCount = 0;
+            private boolean drivable = false;
+
+            @Override
+            public void startWay(long wayId) {
+                this.wayNodeCount = 0;
+                this.drivable = false;
+            }
+
+            @Override
+            public void wayNode(long nodeId) {
+                if (this.wayNodeCount == this.wayNodes.length) {
+                    this.wayNodes = Arrays.copyOf(this.wayNodes, this.wayNodeCount * 2);
+                }
+                this.wayNodes[this.wayNodeCount++] = nodeId;
+            }
+
+            @Override
+            public void highway(String value) {
+                this.drivable = DRIVABLE.contains(value);
+            }
+
+            @Override
+            public void endWay(long wayId) {
+                if (this.drivable) {
+                    ways.add(wayId, nodeIdxs, this.wayNodes, this.wayNodeCount);
+                }
+            }
+        });
+
+        // Nodes of the roads
+        final int roadNodes = nodeIdxs.size();
+        final double[] lats = new double[roadNodes];
+        final double[] lngs = new double[roadNodes];
+        final boolean[] found = new boolean[roadNodes];
+        RoadNetwork.readOsm(path, new OsmHandler() {
+            @Override
+            public void node(long nodeId, double latitude, double longitude) {
+                final int idx = nodeIdxs.get(nodeId);
+                if (idx != LongIntMap.MISSING) {
+                    lats[idx] = latitude;
+                    lngs[idx] = longitude;
+                    found[idx] = true;
+                }
+            }
+        });
+
+        // Renumbered to the nodes found, in order
+        final Builder builder = builder();
+        final int[] builderIdxs = new int[roadNodes];
+        for (int idx = 0; idx < roadNodes; idx++) {
+            builderIdxs[idx] = found[idx] ? builder.node(lats[idx], lngs[idx]) : -1;
+        }
+        for (int w = 0; w < ways.count; w++) {
+            for (int i = ways.starts[w] + 1; i < ways.starts[w + 1]; i++) {
+                final int from = builderIdxs[ways.nodes[i - 1]];
+                final int to = builderIdxs[ways.nodes[i]];
+                if (from >= 0 && to >= 0 && from != to) {
+                    builder.segment(ways.ids[w], from, to);
+                }
+            }
+        }
+
+        return builder.build();
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Finds the segments near a point, nearest first.
+     *
+     * @param radiusMtrs search radius
+     * @param segments segments found
+     * @param distances distance of the point from each segment found
+     * @param fractions position of the projection of the point along each segment found, <code>[0, 1]</code>
+     *
+     * @return no. of segments found, at most the length of the arrays
+     */
+    public int nearestSegments(double latitude, double longitude, double radiusMtrs, int[] segments,
+            double[] distances, double[] fractions) {
+        final double dLat = radiusMtrs / MTRS_PER_DEGREE;
+        final double cosLat = Math.cos(Math.toRadians(latitude));
+        final double dLng = dLat / Math.max(1e-6, cosLat);
+
+        final int row1 = Math.max(0, this.rowOf(latitude - dLat)), row2 = Math.min(this.rows - 1,
+                this.rowOf(latitude + dLat));
+        final int col1 = Math.max(0, this.colOf(longitude - dLng)), col2 = Math.min(this.cols - 1,
+                this.colOf(longitude + dLng));
+
+        int found = 0;
+        for (int row = row1; row <= row2; row++) {
+            for (int col = col1; col <= col2; col++) {
+                final int cell = this.cellIdxs.get(this.cellKey(row, col));
+                if (cell == LongIntMap.MISSING) {
+                    continue;
+                }
+
+                for (int i = this.cellStarts[cell]; i < this.cellStarts[cell + 1]; i++) {
+                    final int s = this.cellSegments[i];
+                    if (contains(segments, found, s)) {
+                        // Spans cells
+                        continue;
+                    }
+
+                    // Planar projection, meters around the point
+                    final int from = this.segmentFrom[s], to = this.segmentTo[s];
+                    final double ax = (this.nodeLngs[from] - longitude) * cosLat * MTRS_PER_DEGREE;
+                    final double ay = (this.nodeLats[from] - latitude) * MTRS_PER_DEGREE;
+                    final double bx = (this.nodeLngs[to] - longitude) * cosLat * MTRS_PER_DEGREE;
+                    final double by = (this.nodeLats[to] - latitude) * MTRS_PER_DEGREE;
+                    final double dx = bx - ax, dy = by - ay;
+                    final double lengthSq = dx * dx + dy * dy;
+                    final double fraction = lengthSq == 0d ? 0d
+                            : Math.max(0d, Math.min(1d, -(ax * dx + ay * dy) / lengthSq));
+                    final double px = ax + fraction * dx, py = ay + fraction * dy;
+                    final double distance = Math.sqrt(px * px + py * py);
+                    if (distance > radiusMtrs) {
+                        continue;
+                    }
+
+                    found = insertNearest(segments, distances, fractions, found, s, distance, fraction);
+                }
+            }
+        }
+        return found;
+    }
+
+    public double latitudeAt(int segment, double fraction) {
+        final int from = this.segmentFrom[segment], to = this.segmentTo[segment];
+        return this.nodeLats[from] + fraction * (this.nodeLats[to] - this.nodeLats[from]);
+    }
+
+    public double longitudeAt(int segment, double fraction) {
+        final int from = this.segmentFrom[segment], to = this.segmentTo[segment];
+        return this.nodeLngs[from] + fraction * (this.nodeLngs[to] - this.nodeLngs[from]);
+    }
+
+    public int getNodeCount() {
+        return this.nodeLats.length;
+    }
+
+    public int getSegmentCount() {
+        return this.segmentFrom.length;
+    }
+
+    public int segmentFrom(int segment) {
+        return this.segmentFrom[segment];
+    }
+
+    public int segmentTo(int segment) {
+        return this.segmentTo[segment];
+    }
+
+    public double segmentLength(int segment) {
+        return this.segmentLengths[segment];
+    }
+
+    /**
+     * @return OSM id of the way of the segment
+     */
+    public long segmentWay(int segment) {
+        return this.segmentWays[segment];
+    }
+
+    int adjStart(int node) {
+        return this.adjStarts[node];
+    }
+
+    int adjEnd(int node) {
+        return this.adjStarts[node + 1];
+    }
+
+    int adjNode(int i) {
+        return this.adjNodes[i];
+    }
+
+    double adjLength(int i) {
+        return this.adjLengths[i];
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Streams the nodes and ways of an OSM XML file to the handler.
+     */
+    private static void readOsm(Path path, OsmHandler handler) throws IOException {
+        try (InputStream is = path.toString().endsWith(".gz")
+                ? new GZIPInputStream(Files.newInputStream(path), 64 * 1024)
+                : Files.newInputStream(path)) {
+            final XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(is);
+
+            long wayId = -1l;
+            while (reader.hasNext()) {
+                final int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                    case "node":
+                        handler.node(Long.parseLong(reader.getAttributeValue(null, "id")),
+                                Double.parseDouble(reader.getAttributeValue(null, "lat")),
+                                Double.parseDouble(reader.getAttributeValue(null, "lon")));
+                        break;
+                    case "way":
+                        wayId = Long.parseLong(reader.getAttributeValue(null, "id"));
+                        handler.startWay(wayId);
+                        break;
+                    case "nd":
+                        if (wayId >= 0) {
+                            handler.wayNode(Long.parseLong(reader.getAttributeValue(null, "ref")));
+                        }
+                        break;
+                    case "tag":
+                        if (wayId >= 0 && "highway".equals(reader.getAttributeValue(null, "k"))) {
+                            handler.highway(reader.getAttributeValue(null, "v"));
+                        }
+                        break;
+                    default:
+                        break;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "way".equals(reader.getLocalName())) {
+                    handler.endWay(wayId);
+                    wayId = -1l;
+                }
+            }
+            reader.close();
+        } catch (XMLStreamException e) {
+            String errMsg = String.format("INVALID OSM file - %s", path);
+            LOGGER.error(errMsg, e);
+            throw new ValidationException(errMsg, e);
+        }
+    }
+
+    /**
+     * Inserts by distance, dropping the farthest when full.
+     */
+    private static int insertNearest(int[] segments, double[] distances, double[] fractions, int found, int segment,
+            double distance, double fraction) {
+        int i = found < segments.length ? found : segments.length - 1;
+        if (found == segments.length && distances[i] <= distance) {
+            return found;
+        }
+
+        while (i > 0 && distances[i - 1] > distance) {
+            segments[i] = segments[i - 1];
+            distances[i] = distances[i - 1];
+            fractions[i] = fractions[i - 1];
+            i--;
+        }
+        segments[i] = segment;
+        distances[i] = distance;
+        fractions[i] = fraction;
+        return Math.min(found + 1, segments.length);
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long cellKey(int row, int col) {
+        return (long) row * this.cols + col;
+    }
+
+    private int rowOf(double latitude) {
+        return Math.max(0, Math.min(this.rows - 1, (int) Math.floor((latitude - this.gridMinLat) / CELL_DEGREES)));
+    }
+
+    private int colOf(double longitude) {
+        return Math.max(0, Math.min(this.cols - 1, (int) Math.floor((longitude - this.gridMinLng) / CELL_DEGREES)));
+    }
+
+
+    // OSM
+    // ------------------------------------------------------------------------
+
+    /**
+     * Elements of an OSM file, in file order, the methods of the elements not of interest left empty.
+     */
+    private interface OsmHandler {
+
+        default void node(long nodeId, double latitude, double longitude) {
+        }
+
+        default void startWay(long wayId) {
+        }
+
+        default void wayNode(long nodeId) {
+        }
+
+        default void highway(String value) {
+        }
+
+        default void endWay(long wayId) {
+        }
+    }
+
+    /**
+     * Drivable ways, CSR : the road node indexes of way w are nodes[starts[w], starts[w + 1]).
+     */
+    private static final class OsmWays {
+
+        private long[] ids = new long[1024];
+        private int[] starts = new int[1025];
+        private int[] nodes = new int[4096];
+        private int count = 0;
+
+        private void add(long wayId, LongIntMap nodeIdxs, long[] wayNodes, int wayNodeCount) {
+            if (this.count + 1 == this.ids.length) {
+                this.ids = Arrays.copyOf(this.ids, this.ids.length * 2);
+                this.starts = Arrays.copyOf(this.starts, this.ids.length + 1);
+            }
+            final int start = this.starts[this.count];
+            if (start + wayNodeCount > this.nodes.length) {
+                this.nodes = Arrays.copyOf(this.nodes, Math.max(this.nodes.length * 2, start + wayNodeCount));
+            }
+
+            for (int i = 0; i < wayNodeCount; i++) {
+                this.nodes[start + i] = nodeIdxs.putIfAbsentNext(wayNodes[i]);
+            }
+            this.ids[this.count] = wayId;
+            this.starts[++this.count] = start + wayNodeCount;
+        }
+    }
+
+
+    // Builder
+    // ------------------------------------------------------------------------
+
+    public static final class Builder {
+
+        private double[] nodeLats = new double[1024];
+        private double[] nodeLngs = new double[1024];
+        private int nodeCount = 0;
+
+        private int[] segmentFrom = new int[1024];
+        private int[] segmentTo = new int[1024];
+        private long[] segmentWays = new long[1024];
+        private int segmentCount = 0;
+
+        private Builder() {
+            super();
+        }
+
+        /**
+         * @return index of the node
+         */
+        public int node(double latitude, double longitude) {
+            if (this.nodeCount == this.nodeLats.length) {
+                this.nodeLats = Arrays.copyOf(this.nodeLats, this.nodeCount * 2);
+                this.nodeLngs = Arrays.copyOf(this.nodeLngs, this.nodeCount * 2);
+            }
+
+            this.nodeLats[this.nodeCount] = latitude;
+            this.nodeLngs[this.nodeCount] = longitude;
+            return this.nodeCount++;
+        }
+
+        /**
+         * Adds the road segment between two nodes.
+         *
+         * @param way id of the road, e.g. - the OSM way id
+         */
+        public Builder segment(long way, int from, int to) {
+            // Sanity checks
+            if (from < 0 || from >= this.nodeCount || to < 0 || to >= this.nodeCount) {
+                String errMsg = String.format("INVALID segment %s - %s of way %s, %s nodes", from, to, way,
+                        this.nodeCount);
+                LOGGER.error(errMsg);
+                throw new ValidationException(errMsg);
+            }
+
+            if (this.segmentCount == this.segmentFrom.length) {
+                this.segmentFrom = Arrays.copyOf(this.segmentFrom, this.segmentCount * 2);
+                this.segmentTo = Arrays.copyOf(this.segmentTo, this.segmentCount * 2);
+                this.segmentWays = Arrays.copyOf(this.segmentWays, this.segmentCount * 2);
+            }
+
+            this.segmentFrom[this.segmentCount] = from;
+            this.segmentTo[this.segmentCount] = to;
+            this.segmentWays[this.segmentCount] = way;
+            this.segmentCount++;
+            return this;
+        }
+
+        public RoadNetwork build() {
+            return new RoadNetwork(this);
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package Ignite;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Sampled diagnostics for the hot paths, e.g. - per ping and per distance messages.
+ *
+ * <p>
+ * Tracing is off unless the JVM is started with <code>-Dtrace.enabled=true</code>. {@link #ENABLED} is a constant
+ * for the JIT, so a call site guarded by it is compiled away when tracing is off : no argument boxing, no varargs
+ * array and no logger call. When on, 1 in <code>-Dtrace.sample=N</code> events (rounded up to a power of two,
+ * default 1024) is logged at DEBUG level of the class's logger.
+ * </p>
+ *
+ * <pre>
+ * private static final Tracer TRACER = Tracer.of(Geo.class);
+ *
+ * if (Tracer.ENABLED &amp;&amp; TRACER.isSampled()) {
+ *     TRACER.trace("Distance between {},{} and {},{} is #{} meters", lat1, lng1, lat2, lng2, distInMtrs);
+ * }
+ * </pre>
+ */
+public final class Tracer {
+
+    public static final boolean ENABLED = Boolean.getBoolean("trace.enabled");
+
+    /** Event is sampled when its random bits under the mask are zero */
+    private static final int SAMPLE_MASK = Tracer.sampleMask(Integer.getInteger("trace.sample", 1024));
+
+    private final Logger logger;
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    private Tracer(Logger logger) {
+        super();
+
+        this.logger = logger;
+    }
+
+
+    // Factory Methods
+    // ------------------------------------------------------------------------
+
+    public static Tracer of(Class<?> clazz) {
+        return new Tracer(LoggerFactory.getLogger(clazz));
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Guard of the events that are always traced, e.g. - once per file.
+     */
+    public boolean isEnabled() {
+        return ENABLED && this.logger.isDebugEnabled();
+    }
+
+    /**
+     * Guard of the sampled events, e.g. - once per ping. The sampling is random, so every thread samples at the
+     * same rate without sharing state.
+     */
+    public boolean isSampled() {
+        return ENABLED && (ThreadLocalRandom.current().nextInt() & SAMPLE_MASK) == 0 && this.logger.isDebugEnabled();
+    }
+
+    public void trace(String format, Object arg) {
+        this.logger.debug(format, arg);
+    }
+
+    public void trace(String format, Object arg1, Object arg2) {
+        this.logger.debug(format, arg1, arg2);
+    }
+
+    public void trace(String format, Object... args) {
+        this.logger.debug(format, args);
+    }
+
+
+    // Package Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * @return mask of the random bits of an event, 1 in <code>sample</code> rounded up to a power of two sampled
+     */
+    static int sampleMask(int sample) {
+        if (sample <= 1) {
+            return 0;
+        }
+
+        return (Integer.highestOneBit(sample - 1) << 1) - 1;
+    }
+
+}
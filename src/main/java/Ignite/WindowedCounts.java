@@ -0,0 +1,142 @@
+package Ignite;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+
+/**
+ * Counts of <code>long</code> keys per time window, e.g. - pings per tile and hour, counted concurrently.
+ *
+ * <p>
+ * Every thread counts into its own partial, a {@link LongCountMap} per window start, guarded by the lock of the
+ * partial, which its thread takes once per batch, see {@link #count(Consumer)}, and so uncontended but for merges.
+ * {@link #merge()} swaps every partial for an empty one under its lock and adds the counts taken into the merged
+ * counts, so a thread keeps counting while the counts are read and never into a map that was handed over.
+ * </p>
+ */
+public final class WindowedCounts {
+
+    private final int expectedKeys;
+
+    private final Queue<Partial> partials = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Partial> partial;
+
+    /** Merged counts by window start, guarded by this */
+    private final TreeMap<Long, LongCountMap> merged = new TreeMap<>();
+
+
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    /**
+     * @param expectedKeys no. of keys expected per window and thread, see {@link LongCountMap#LongCountMap(int)}
+     */
+    public WindowedCounts(int expectedKeys) {
+        super();
+
+        this.expectedKeys = expectedKeys;
+        this.partial = ThreadLocal.withInitial(() -> {
+            final Partial partial = new Partial();
+            this.partials.add(partial);
+            return partial;
+        });
+    }
+
+
+    // Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Counts a batch on the partial of the calling thread, holding its lock for the whole batch, thread safe.
+     */
+    public void count(Consumer<Counter> batch) {
+        final Partial partial = this.partial.get();
+        synchronized (partial) {
+            batch.accept(partial);
+        }
+    }
+
+    /**
+     * Counts a key, thread safe.
+     */
+    public void increment(long windowStart, long key) {
+        final Partial partial = this.partial.get();
+        synchronized (partial) {
+            partial.increment(windowStart, key);
+        }
+    }
+
+    /**
+     * Moves the counts of every thread into the merged counts, thread safe. The merged counts change with later
+     * merges, so a reader that may race other readers holds the lock of this instance while reading them.
+     *
+     * @return merged counts by window start, ascending
+     */
+    public synchronized SortedMap<Long, LongCountMap> merge() {
+        for (Partial partial : this.partials) {
+            final Map<Long, LongCountMap> windows;
+            synchronized (partial) {
+                windows = partial.takeWindows();
+            }
+
+            // Handed over, no longer reachable by its thread
+            for (Map.Entry<Long, LongCountMap> entry : windows.entrySet()) {
+                final LongCountMap counts = this.merged.get(entry.getKey());
+                if (counts == null) {
+                    this.merged.put(entry.getKey(), entry.getValue());
+                } else {
+                    counts.addAll(entry.getValue());
+                }
+            }
+        }
+        return this.merged;
+    }
+
+
+    // Counter
+    // ------------------------------------------------------------------------
+
+    public interface Counter {
+
+        void increment(long windowStart, long key);
+    }
+
+
+    // Partial
+    // ------------------------------------------------------------------------
+
+    /**
+     * Counts of a thread. Keys of a batch are mostly of the same window, so the counts of the last window are kept at
+     * hand.
+     */
+    private final class Partial implements Counter {
+
+        private Map<Long, LongCountMap> windows = new HashMap<>();
+
+        private long lastWindowStart = Long.MIN_VALUE;
+        private LongCountMap lastCounts;
+
+        @Override
+        public void increment(long windowStart, long key) {
+            if (windowStart != this.lastWindowStart || this.lastCounts == null) {
+                this.lastCounts = this.windows.computeIfAbsent(windowStart, w -> new LongCountMap(expectedKeys));
+                this.lastWindowStart = windowStart;
+            }
+
+            this.lastCounts.increment(key);
+        }
+
+        private Map<Long, LongCountMap> takeWindows() {
+            final Map<Long, LongCountMap> windows = this.windows;
+            this.windows = new HashMap<>();
+            this.lastCounts = null;
+            return windows;
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+package Csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import Ignite.FileListing;
+
+public class BackfillPlannerTest {
+
+    @Test public void testDaysChainedAsOneRun() throws Exception {
+        Path input = Files.createTempDirectory("backfill-input");
+        PingDatasetGenerator.to(input).devices(40).pingIntervalSeconds(120).seed(3)
+                .start(LocalDateTime.of(2020, 4, 1, 20, 0)).hours(28).partsPerHour(1).generate();
+
+        // All the files in one go
+        List<PingBean> pings = new ArrayList<>();
+        for (Path file : FileListing.from(input).list()) {
+            pings.addAll(new Main().extract(file.toString()));
+        }
+        List<String> expected;
+        try (TripScheduler scheduler = new TripScheduler(new TripProcessor(), 2, 1 << 16)) {
+            expected = rows(scheduler.prepareTrips(PingBean.groupByDevice(pings), idx -> null));
+        }
+
+        // Day by day, at most one day loaded ahead
+        Path output = Files.createTempDirectory("backfill-output");
+        PartitionedCsvWriter writer = new PartitionedCsvWriter(output);
+        BackfillPlanner planner = new BackfillPlanner(input, writer, 2, 1024);
+
+        List<BackfillPlanner.Day> days = planner.plan(LocalDate.of(2020, 3, 31), LocalDate.of(2020, 4, 2));
+        assertEquals(3, days.size());
+        assertEquals(0, days.get(0).getFiles().size());
+        assertEquals(4, days.get(1).getFiles().size());
+        assertEquals(24, days.get(2).getFiles().size());
+        assertTrue(days.get(2).getInputBytes() > 0);
+
+        long trips = planner.run("2020-03-31", "2020-04-02", "yyyy-MM-dd");
+        writer.close();
+
+        List<String> actual = new ArrayList<>();
+        for (Path file : FileListing.from(output).list()) {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            actual.addAll(lines.subList(1, lines.size()));
+        }
+        Collections.sort(actual);
+
+        assertEquals(expected.size(), trips);
+        assertEquals(expected, actual);
+        assertTrue(expected.size() > 100);
+    }
+
+    @Test public void testRerunReplacesTheDays() throws Exception {
+        Path input = Files.createTempDirectory("backfill-input");
+        PingDatasetGenerator.to(input).devices(20).pingIntervalSeconds(120).seed(5)
+                .start(LocalDateTime.of(2020, 4, 1, 20, 0)).hours(28).partsPerHour(1).generate();
+
+        Path output = Files.createTempDirectory("backfill-output");
+        PartitionedCsvWriter writer = new PartitionedCsvWriter(output);
+        BackfillPlanner planner = new BackfillPlanner(input, writer, 2, 1024);
+
+        // Same planner and writer, then a fresh writer over the same output
+        List<List<String>> runs = new ArrayList<>();
+        for (int run = 0; run < 3; run++) {
+            if (run == 2) {
+                writer = new PartitionedCsvWriter(output);
+                planner = new BackfillPlanner(input, writer, 2, 1024);
+            }
+            long trips = planner.run(LocalDate.of(2020, 4, 1), LocalDate.of(2020, 4, 2));
+            writer.flush();
+
+            List<String> lines = new ArrayList<>();
+            for (Path file : FileListing.from(output).list()) {
+                lines.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+            }
+            Collections.sort(lines);
+            assertEquals(trips + FileListing.from(output).list().size(), lines.size());
+            runs.add(lines);
+        }
+        writer.close();
+
+        assertEquals(runs.get(0), runs.get(1));
+        assertEquals(runs.get(0), runs.get(2));
+    }
+
+    private static List<String> rows(List<TripBean> trips) {
+        List<String> rows = new ArrayList<>();
+        for (TripBean trip : trips) {
+            rows.add(String.join(",", trip.getDeviceId(), trip.getDateString(), trip.getStartTimestamp() + "",
+                    trip.getStartCoordinateStr(), trip.getEndTimestamp() + "", trip.getEndCoordinateStr()));
+        }
+        Collections.sort(rows);
+        return rows;
+    }
+}
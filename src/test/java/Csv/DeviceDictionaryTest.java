@@ -0,0 +1,45 @@
+package Csv;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class DeviceDictionaryTest {
+
+    @Test public void testConcurrentLookupsGiveDenseStableIndexes() {
+        DeviceDictionary dictionary = new DeviceDictionary();
+        int devices = 20_000;
+
+        // Every device looked up many times, from many threads, by bytes and by string
+        int[] idxs = new int[devices];
+        IntStream.range(0, devices * 10).parallel().forEach(i -> {
+            String deviceId = "device-" + (i % devices);
+            byte[] padded = ("xx" + deviceId + "yy").getBytes(StandardCharsets.UTF_8);
+            int idx = i % 2 == 0 ? dictionary.idOf(padded, 2, padded.length - 4) : dictionary.idOf(deviceId);
+            idxs[i % devices] = idx;
+        });
+
+        assertEquals(devices, dictionary.size());
+        Set<Integer> distinct = new HashSet<>();
+        for (int d = 0; d < devices; d++) {
+            assertEquals("device-" + d, dictionary.nameOf(idxs[d]));
+            assertEquals(idxs[d], dictionary.idOf("device-" + d));
+            distinct.add(idxs[d]);
+        }
+        assertEquals(devices, distinct.size());
+    }
+
+    @Test public void testNonAsciiIdsMatchTheirUtf8Bytes() {
+        DeviceDictionary dictionary = new DeviceDictionary();
+        byte[] utf8 = "ger\u00e4t-1".getBytes(StandardCharsets.UTF_8);
+
+        int idx = dictionary.idOf("ger\u00e4t-1");
+        assertEquals(idx, dictionary.idOf(utf8, 0, utf8.length));
+        assertEquals("ger\u00e4t-1", dictionary.nameOf(idx));
+    }
+}
@@ -0,0 +1,61 @@
+package Csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class DeviceStateMapTest {
+
+    @Test public void testMatchesHashMapUnderRandomPutsAndRemoves() {
+        DeviceStateMap map = new DeviceStateMap();
+        Map<Integer, Long> expected = new HashMap<>();
+        Random random = new Random(11);
+
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(5_000) - 100;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                long ts = random.nextLong();
+                map.put(key, ts, key / 100d, -key / 100d);
+                expected.put(key, ts);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int key = -100; key < 4_900; key++) {
+            Long ts = expected.get(key);
+            if (ts == null) {
+                assertFalse(map.contains(key));
+                assertEquals(DeviceStateMap.NO_TIMESTAMP, map.getTimestamp(key));
+                assertNull(map.get(key));
+            } else {
+                assertEquals(ts.longValue(), map.getTimestamp(key));
+                assertEquals(key / 100d, map.getLatitude(key), 0d);
+                assertEquals(-key / 100d, map.getLongitude(key), 0d);
+            }
+        }
+    }
+
+    @Test public void testConcurrentPutIfLaterKeepsLatest() {
+        ConcurrentDeviceStateMap map = new ConcurrentDeviceStateMap();
+        IntStream.range(0, 1_000_000).parallel().forEach(i -> map.putIfLater(i % 10_000, i, i, -i));
+
+        assertEquals(10_000, map.size());
+        for (int key = 0; key < 10_000; key++) {
+            PingBean ping = map.get(key);
+            assertEquals((990_000l + key) * 1, ping.getTimestamp());
+            assertEquals(990_000d + key, ping.getLatitude(), 0d);
+        }
+        assertTrue(map.remove(0));
+        assertFalse(map.contains(0));
+    }
+}
@@ -0,0 +1,235 @@
+package Csv;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+import Ignite.FileListing;
+
+public class IncrementalTripJobTest {
+
+    @Test public void testUnchangedFilesSkipped() throws Exception {
+        Path input = generate(4);
+        String output = Files.createTempDirectory("incremental-output").resolve("trips.csv").toString();
+
+        assertEquals(4, new IncrementalTripJob(output).run(input.toString()));
+        byte[] written = Files.readAllBytes(Path.of(output));
+        assertEquals(expected(input), rows(output));
+
+        // Same size and last modified time
+        assertEquals(0, new IncrementalTripJob(output).run(input.toString()));
+
+        // Touched, same content
+        Path touched = FileListing.from(input).list().get(1);
+        touch(touched);
+        assertEquals(0, new IncrementalTripJob(output).run(input.toString()));
+
+        assertArrayEquals(written, Files.readAllBytes(Path.of(output)));
+    }
+
+    @Test public void testNewAndAppendedFilesProcessed() throws Exception {
+        Path input = generate(4);
+        List<Path> files = FileListing.from(input).list();
+        Path last = files.get(files.size() - 1);
+        List<String> lastLines = readLines(last);
+
+        // Last file moved away, then only its first half
+        Path aside = Files.createTempDirectory("incremental-aside").resolve("last.tsv.gz");
+        Files.move(last, aside);
+        String output = Files.createTempDirectory("incremental-output").resolve("trips.csv").toString();
+        assertEquals(3, new IncrementalTripJob(output).run(input.toString()));
+
+        writeLines(last, lastLines.subList(0, lastLines.size() / 2));
+        assertEquals(1, new IncrementalTripJob(output).run(input.toString()));
+
+        // Appended as a gzip member : continues after the lines consumed
+        appendLines(last, lastLines.subList(lastLines.size() / 2, lastLines.size()));
+        assertEquals(1, new IncrementalTripJob(output).run(input.toString()));
+
+        assertEquals(expected(input), rows(output));
+        assertTrue(rows(output).size() > 100);
+        ProcessedFilesManifest.Entry entry = ProcessedFilesManifest.load(output).get(last.toString());
+        assertEquals(lastLines.size() - 1, entry.getLastOffset());
+    }
+
+    @Test public void testRewrittenFileProcessedFromItsStart() throws Exception {
+        Path input = generate(2);
+        List<Path> files = FileListing.from(input).list();
+        Path last = files.get(files.size() - 1);
+        List<String> lastLines = readLines(last);
+
+        String output = Files.createTempDirectory("incremental-output").resolve("trips.csv").toString();
+        writeLines(last, lastLines.subList(0, lastLines.size() / 2));
+        assertEquals(2, new IncrementalTripJob(output).run(input.toString()));
+
+        // Rewritten in place, larger, its first ping changed : none of its lines may be skipped
+        List<String> rewritten = new ArrayList<>(lastLines);
+        String[] columns = rewritten.get(1).split("\t");
+        columns[1] = "rewritten-device";
+        rewritten.set(1, String.join("\t", columns));
+        writeLines(last, rewritten);
+        assertEquals(1, new IncrementalTripJob(output).run(input.toString()));
+
+        ProcessedFilesManifest.Entry entry = ProcessedFilesManifest.load(output).get(last.toString());
+        assertEquals(lastLines.size() - 1, entry.getLastOffset());
+        assertTrue(Files.readAllLines(Path.of(output + IncrementalTripJob.STATE_SUFFIX)).stream()
+                .anyMatch(line -> line.startsWith("rewritten-device\t")));
+    }
+
+    @Test public void testResumedAfterCrashBeforeCommit() throws Exception {
+        Path input = generate(4);
+        List<Path> files = FileListing.from(input).list();
+        Path last = files.get(files.size() - 1);
+        Path aside = Files.createTempDirectory("incremental-aside").resolve("last.tsv.gz");
+        Files.move(last, aside);
+
+        String output = Files.createTempDirectory("incremental-output").resolve("trips.csv").toString();
+        Path manifestPath = Path.of(output + ProcessedFilesManifest.MANIFEST_SUFFIX);
+        Path statePath = Path.of(output + IncrementalTripJob.STATE_SUFFIX);
+        assertEquals(3, new IncrementalTripJob(output).run(input.toString()));
+        long checkpointLength = Files.size(Path.of(output));
+        byte[] checkpointState = Files.readAllBytes(statePath);
+
+        Files.move(aside, last);
+        assertEquals(1, new IncrementalTripJob(output).run(input.toString()));
+        assertTrue(Files.size(Path.of(output)) > checkpointLength);
+
+        // Crash while committing the last file : trips and state written, its manifest entry torn before the
+        // output offset ends, the state not yet moved in place
+        List<String> lines = Files.readAllLines(manifestPath, StandardCharsets.UTF_8);
+        String entry = lines.remove(lines.size() - 1);
+        String[] columns = entry.split("\t");
+        String torn = String.join("\t", columns[0], columns[1], columns[2], columns[3], columns[4], columns[5],
+                columns[6].substring(0, 2));
+        Files.write(manifestPath, (String.join("\n", lines) + "\n" + torn).getBytes(StandardCharsets.UTF_8));
+        Files.move(statePath, Path.of(output + IncrementalTripJob.STATE_TMP_SUFFIX));
+        Files.write(statePath, checkpointState);
+
+        // Output truncated back to the checkpoint, the last file processed again
+        assertEquals(1, new IncrementalTripJob(output).run(input.toString()));
+        assertFalse(Files.exists(Path.of(output + IncrementalTripJob.STATE_TMP_SUFFIX)));
+        assertEquals(expected(input), rows(output));
+        assertEquals(0, new IncrementalTripJob(output).run(input.toString()));
+    }
+
+    @Test public void testStateOfUncommittedCheckpointRolledBack() throws Exception {
+        Path input = generate(2);
+        String output = Files.createTempDirectory("incremental-output").resolve("trips.csv").toString();
+        Path statePath = Path.of(output + IncrementalTripJob.STATE_SUFFIX);
+        assertEquals(2, new IncrementalTripJob(output).run(input.toString()));
+        byte[] state = Files.readAllBytes(statePath);
+        long outputLength = Files.size(Path.of(output));
+
+        // Crash after saving the state of a file without trips, before its manifest entry : same output offset
+        List<String> lines = Files.readAllLines(statePath, StandardCharsets.UTF_8);
+        long committed = Long.parseLong(lines.get(0).split("\t")[1]);
+        String[] ping = lines.get(1).split("\t");
+        Files.write(Path.of(output + IncrementalTripJob.STATE_TMP_SUFFIX),
+                ("#Checkpoint\t" + (committed + 1) + "\n" + ping[0] + "\t4102444800000\t" + ping[2] + "\t" + ping[3]
+                        + "\n").getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(0, new IncrementalTripJob(output).run(input.toString()));
+        assertFalse(Files.exists(Path.of(output + IncrementalTripJob.STATE_TMP_SUFFIX)));
+        assertArrayEquals(state, Files.readAllBytes(statePath));
+        assertEquals(outputLength, Files.size(Path.of(output)));
+    }
+
+    @Test public void testResumedAfterCrashBeforeOutputSynced() throws Exception {
+        Path input = generate(3);
+        String output = Files.createTempDirectory("incremental-output").resolve("trips.csv").toString();
+        assertEquals(3, new IncrementalTripJob(output).run(input.toString()));
+
+        // Trips of a file appended after the last checkpoint
+        Files.write(Path.of(output), "device,20200401,1,17.0,78.0,2,17.1,78.1\n".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        assertEquals(0, new IncrementalTripJob(output).run(input.toString()));
+        assertEquals(expected(input), rows(output));
+    }
+
+    private static Path generate(int hours) throws Exception {
+        Path input = Files.createTempDirectory("incremental-input");
+        PingDatasetGenerator.to(input).devices(20).pingIntervalSeconds(120).seed(5)
+                .start(LocalDateTime.of(2020, 4, 1, 6, 0)).hours(hours).partsPerHour(1).generate();
+        return input;
+    }
+
+    /**
+     * Trips of all the files in one go.
+     */
+    private static List<String> expected(Path input) throws Exception {
+        List<PingBean> pings = new ArrayList<>();
+        for (Path file : FileListing.from(input).list()) {
+            pings.addAll(new Main().extract(file.toString()));
+        }
+
+        Path expected = Files.createTempDirectory("incremental-expected").resolve("trips.csv");
+        try (TripScheduler scheduler = new TripScheduler(new TripProcessor(), 1, 1 << 16)) {
+            CsvWriter.appendToCSV(scheduler.prepareTrips(PingBean.groupByDevice(pings), idx -> null),
+                    expected.toString());
+        }
+        return rows(expected.toString());
+    }
+
+    private static List<String> rows(String csv) throws Exception {
+        List<String> lines = Files.readAllLines(Path.of(csv), StandardCharsets.UTF_8);
+        assertEquals(CsvWriter.HEADER, lines.get(0) + "\n");
+
+        List<String> rows = new ArrayList<>(lines.subList(1, lines.size()));
+        Collections.sort(rows);
+        return rows;
+    }
+
+    private static void touch(Path file) throws Exception {
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 60_000));
+    }
+
+    private static List<String> readLines(Path file) throws Exception {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            for (String line; (line = reader.readLine()) != null;) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private static void appendLines(Path file, List<String> lines) throws Exception {
+        try (OutputStream os = Files.newOutputStream(file, StandardOpenOption.APPEND);
+                Writer writer = new OutputStreamWriter(new GZIPOutputStream(os), StandardCharsets.UTF_8)) {
+            for (String line : lines) {
+                writer.append(line).append('\n');
+            }
+        }
+    }
+
+    private static void writeLines(Path file, List<String> lines) throws Exception {
+        try (OutputStream os = Files.newOutputStream(file);
+                Writer writer = new OutputStreamWriter(new GZIPOutputStream(os), StandardCharsets.UTF_8)) {
+            for (String line : lines) {
+                writer.append(line).append('\n');
+            }
+        }
+    }
+}
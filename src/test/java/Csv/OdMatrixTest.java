@@ -0,0 +1,118 @@
+package Csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import Ignite.GeoHash;
+
+public class OdMatrixTest {
+
+    private static final long DAY = 1585699200000l; // 2020-04-01 UTC
+
+    @Test public void testCountsTripsPerCellsAndWindow() throws Exception {
+        OdMatrix matrix = new OdMatrix(25, OdMatrix.Window.HOUR);
+        matrix.accept(Arrays.asList(
+                new TripBean("od-device", "12.97,77.59", DAY + 60_000l, "12.99,77.61", DAY + 600_000l),
+                new TripBean("od-device", "12.9701,77.5901", DAY + 120_000l, "12.9901,77.6101", DAY + 700_000l),
+                new TripBean("od-device", "12.97,77.59", DAY + 3_600_000l, "12.99,77.61", DAY + 4_000_000l)));
+
+        long origin = GeoHash.encode(12.97, 77.59, 25), destination = GeoHash.encode(12.99, 77.61, 25);
+        assertEquals(2l, matrix.count(origin, destination, DAY));
+        assertEquals(1l, matrix.count(origin, destination, DAY + 3_600_000l));
+        assertEquals(0l, matrix.count(destination, origin, DAY));
+        assertEquals(2l, matrix.size());
+        assertEquals(3l, matrix.total());
+
+        Path file = Files.createTempFile("od", ".csv");
+        matrix.write(file);
+        String o = GeoHash.toBase32(origin, 25), d = GeoHash.toBase32(destination, 25);
+        assertEquals(Arrays.asList("Window-Start,Origin,Destination,Trips", DAY + "," + o + "," + d + ",2",
+                (DAY + 3_600_000l) + "," + o + "," + d + ",1"), Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    @Test public void testStreamedTripsMatchCollectedTrips() throws Exception {
+        Random random = new Random(5);
+        List<List<PingBean>> devicePings = new ArrayList<>();
+        List<List<PingBean>> copies = new ArrayList<>();
+        for (int d = 0; d < 30; d++) {
+            int deviceIdx = DeviceDictionary.shared().idOf("od-device-" + d);
+            List<PingBean> pings = new ArrayList<>(), copy = new ArrayList<>();
+            double lat = 12.9, lng = 77.5;
+            for (int i = 0; i < 500; i++) {
+                lat += (random.nextDouble() - 0.5) * 0.01;
+                lng += (random.nextDouble() - 0.5) * 0.01;
+                pings.add(new PingBean(deviceIdx, DAY + i * 120_000l, lat, lng));
+                copy.add(new PingBean(deviceIdx, DAY + i * 120_000l, lat, lng));
+            }
+            devicePings.add(pings);
+            copies.add(copy);
+        }
+        OdMatrix expected = new OdMatrix(OdMatrix.Window.DAY);
+        for (List<PingBean> pings : copies) {
+            expected.accept(new TripProcessor(new PingFilter(), null).prepareTrips(pings.get(0).getDeviceIdx(),
+                    pings, null));
+        }
+
+        OdMatrix matrix = new OdMatrix(OdMatrix.Window.DAY);
+        try (TripScheduler scheduler = new TripScheduler(new TripProcessor(new PingFilter(), null), 4, 100)) {
+            scheduler.streamTrips(devicePings, matrix);
+        }
+
+        assertEquals(expected.total(), matrix.total());
+        assertEquals(expected.size(), matrix.size());
+
+        Path expectedFile = Files.createTempFile("od", ".csv"), file = Files.createTempFile("od", ".csv");
+        expected.write(expectedFile);
+        matrix.write(file);
+        assertEquals(Files.readAllLines(expectedFile), Files.readAllLines(file));
+    }
+
+    @Test public void testReadsWhileCountingLoseNoTrips() throws Exception {
+        List<TripBean> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(new TripBean("od-device", "12.97,77.59", DAY + i * 60_000l, "12.99,77.61", DAY + i * 60_000l));
+        }
+
+        OdMatrix matrix = new OdMatrix(OdMatrix.Window.HOUR);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> counters = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                counters.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        matrix.accept(batch);
+                    }
+                }));
+            }
+
+            // Merges racing the counters never lose nor undo counts
+            long last = 0l;
+            while (!counters.stream().allMatch(Future::isDone)) {
+                long total = matrix.total();
+                assertTrue(total >= last);
+                last = total;
+            }
+            for (Future<?> counter : counters) {
+                counter.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(4 * 500 * 100l, matrix.total());
+        assertEquals(2l, matrix.size());
+    }
+}
@@ -0,0 +1,104 @@
+package Csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class PartitionedCsvWriterTest {
+
+    private static final long DAY = 1585699200000l + 12 * 3_600_000l; // 2020-04-01, noon UTC
+
+    @Test public void testRoutesTripsToDatePartitionsUnderTheWriterCap() throws Exception {
+        Path root = Files.createTempDirectory("partitioned");
+        PartitionedCsvWriter writer = new PartitionedCsvWriter(root, 3, 2);
+
+        // Batches of every date from many threads, partitions evicted and reopened all along
+        List<TripBean> all = Collections.synchronizedList(new ArrayList<>());
+        IntStream.range(0, 200).parallel().forEach(batch -> {
+            List<TripBean> trips = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                long ts = DAY + (i % 5) * 86_400_000l + batch * 1_000l;
+                trips.add(new TripBean("partitioned-device-" + (batch % 11), "12.97,77.59", ts, "12.98,77.6",
+                        ts + 60_000l));
+            }
+            writer.accept(trips);
+            all.addAll(trips);
+        });
+        assertTrue(writer.getOpenWriters() <= 2);
+        writer.close();
+        assertEquals(0, writer.getOpenWriters());
+
+        int rows = 0;
+        for (TripBean trip : all) {
+            Path path = writer.pathOf(writer.partitionOf(trip));
+            assertEquals(root.resolve(trip.getDateString()), path.getParent());
+        }
+        for (Path dateDir : Files.newDirectoryStream(root)) {
+            for (Path file : Files.newDirectoryStream(dateDir)) {
+                List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+                assertEquals(CsvWriter.HEADER.trim(), lines.get(0));
+                for (String line : lines.subList(1, lines.size())) {
+                    assertTrue(line.startsWith("partitioned-device-"));
+                    assertTrue(line.contains("," + dateDir.getFileName() + ","));
+                }
+                rows += lines.size() - 1;
+            }
+        }
+        assertEquals(all.size(), rows);
+        assertEquals(5, root.toFile().list().length);
+    }
+
+    @Test public void testSingleFilePerDate() throws Exception {
+        Path root = Files.createTempDirectory("partitioned");
+        try (PartitionedCsvWriter writer = new PartitionedCsvWriter(root)) {
+            List<TripBean> trips = new ArrayList<>();
+            trips.add(new TripBean("device-a", "12.97,77.59", DAY, "12.98,77.6", DAY + 60_000l));
+            trips.add(new TripBean("device-b", "12.97,77.59", DAY + 1_000l, "12.98,77.6", DAY + 61_000l));
+            writer.write(trips);
+        }
+
+        String date = new TripBean("device-a", "12.97,77.59", DAY, "12.98,77.6", DAY).getDateString();
+        List<String> lines = Files.readAllLines(root.resolve(date).resolve("trips.csv"), StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(1).startsWith("device-a," + date + ","));
+    }
+
+    @Test public void testRerunReplacesItsPartitions() throws Exception {
+        Path root = Files.createTempDirectory("partitioned");
+        List<List<TripBean>> batches = new ArrayList<>();
+        for (int batch = 0; batch < 4; batch++) {
+            // Alternating dates, evicted and reopened under a single writer
+            long ts = DAY + (batch % 2) * 86_400_000l + batch * 1_000l;
+            batches.add(Collections.singletonList(new TripBean("rerun-device", "12.97,77.59", ts, "12.98,77.6",
+                    ts + 60_000l)));
+        }
+
+        List<List<String>> runs = new ArrayList<>();
+        for (int run = 0; run < 2; run++) {
+            PartitionedCsvWriter writer = new PartitionedCsvWriter(root, 1, 1);
+            for (List<TripBean> trips : batches) {
+                writer.write(trips);
+            }
+            writer.close();
+
+            List<String> lines = new ArrayList<>();
+            for (List<TripBean> trips : batches.subList(0, 2)) {
+                lines.addAll(Files.readAllLines(writer.pathOf(writer.partitionOf(trips.get(0))),
+                        StandardCharsets.UTF_8));
+            }
+            runs.add(lines);
+        }
+
+        assertEquals(6, runs.get(0).size());
+        assertEquals(runs.get(0), runs.get(1));
+    }
+}
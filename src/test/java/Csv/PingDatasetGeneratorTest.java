@@ -0,0 +1,87 @@
+package Csv;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+import Ignite.FileListing;
+import Ignite.ValidationException;
+
+public class PingDatasetGeneratorTest {
+
+    @Test public void testHourlyLayoutReadableByExtract() throws Exception {
+        Path root = Files.createTempDirectory("ping-dataset");
+        PingDatasetGenerator.Summary summary = PingDatasetGenerator.to(root).devices(50).pingIntervalSeconds(60)
+                .start(LocalDateTime.of(2020, 4, 1, 22, 0)).hours(3).partsPerHour(2).generate();
+
+        List<Path> files = FileListing.from(root).extension(PingDatasetGenerator.FILE_EXTENSION).list();
+        assertEquals(6, files.size());
+        assertEquals(6, summary.getFiles());
+        assertTrue(Files.exists(root.resolve("2020/04/02/00/part-00001.tsv.gz")));
+
+        long pings = 0;
+        for (Path file : files) {
+            List<PingBean> filePings = new Main().extract(file.toString());
+            for (int i = 1; i < filePings.size(); i++) {
+                assertTrue(filePings.get(i - 1).getTimestamp() <= filePings.get(i).getTimestamp());
+            }
+            pings += filePings.size();
+        }
+        assertEquals(summary.getPings(), pings);
+        // ~ 60 pings per device per hour
+        assertTrue(pings > 50 * 3 * 50 && pings < 50 * 3 * 70);
+    }
+
+    @Test public void testSameSeedSameFilesAnyThreads() throws Exception {
+        Path first = Files.createTempDirectory("ping-dataset");
+        Path second = Files.createTempDirectory("ping-dataset");
+        PingDatasetGenerator.to(first).devices(200).skew(1.0).movement(PingDatasetGenerator.Movement.COMMUTE)
+                .hours(2).partsPerHour(4).threads(1).generate();
+        PingDatasetGenerator.to(second).devices(200).skew(1.0).movement(PingDatasetGenerator.Movement.COMMUTE)
+                .hours(2).partsPerHour(4).threads(4).generate();
+
+        List<Path> files = FileListing.from(first).list();
+        assertEquals(8, files.size());
+        for (Path file : files) {
+            assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(second.resolve(first.relativize(file))));
+        }
+    }
+
+    @Test public void testInMemoryLinesAreThoseOfTheFiles() throws Exception {
+        Path directory = Files.createTempDirectory("ping-dataset");
+        PingDatasetGenerator.to(directory).devices(50).skew(1.0).hours(3).partsPerHour(2).threads(2).generate();
+
+        List<String> fileLines = new ArrayList<>();
+        for (Path file : FileListing.from(directory).list()) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(file)), Charset.defaultCharset()))) {
+                assertEquals(PingDatasetGenerator.HEADER, reader.readLine());
+                reader.lines().forEach(fileLines::add);
+            }
+        }
+
+        List<String> lines = PingDatasetGenerator.inMemory().devices(50).skew(1.0).hours(3).partsPerHour(2).lines();
+        assertTrue(lines.size() > 1000);
+        Collections.sort(fileLines);
+        Collections.sort(lines);
+        assertEquals(fileLines, lines);
+    }
+
+    @Test(expected = ValidationException.class) public void testInMemoryGeneratesNoFiles() throws Exception {
+        PingDatasetGenerator.inMemory().generate();
+    }
+
+}
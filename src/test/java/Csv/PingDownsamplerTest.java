@@ -0,0 +1,45 @@
+package Csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PingDownsamplerTest {
+
+    private static final long T0 = 1585699200000l;
+
+    private static List<PingBean> pingEverySecond(int seconds) {
+        List<PingBean> pings = new ArrayList<>();
+        for (int i = 0; i < seconds; i++) {
+            pings.add(new PingBean(1, T0 + i * 1000l, 12.97 + i * 0.0001, 77.59));
+        }
+        return pings;
+    }
+
+    @Test public void testFirstLastKeepsBucketEnds() {
+        List<PingBean> pings = pingEverySecond(150);
+        List<PingBean> original = new ArrayList<>(pings);
+        new PingDownsampler(60, PingDownsampler.Mode.FIRST_LAST).downsample(pings);
+
+        // Buckets [0, 60), [60, 120), [120, 150) seconds
+        assertEquals(6, pings.size());
+        assertSame(original.get(0), pings.get(0));
+        assertSame(original.get(59), pings.get(1));
+        assertSame(original.get(60), pings.get(2));
+        assertSame(original.get(149), pings.get(5));
+    }
+
+    @Test public void testCentroidAveragesBucket() {
+        List<PingBean> pings = pingEverySecond(120);
+        new PingDownsampler(60, PingDownsampler.Mode.CENTROID).downsample(pings);
+
+        assertEquals(2, pings.size());
+        assertEquals(T0 + 29_500, pings.get(0).getTimestamp());
+        assertEquals(12.97 + 29.5 * 0.0001, pings.get(0).getLatitude(), 1e-9);
+        assertEquals(T0 + 89_500, pings.get(1).getTimestamp());
+    }
+}
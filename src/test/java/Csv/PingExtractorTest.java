@@ -0,0 +1,79 @@
+package Csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import Ignite.FileListing;
+import Ignite.IoExecutors;
+import Ignite.ValidationException;
+
+public class PingExtractorTest {
+
+    @Test public void testPingsInFileOrderInBothModes() throws Exception {
+        Path root = Files.createTempDirectory("ping-extractor");
+        PingDatasetGenerator.to(root).devices(30).pingIntervalSeconds(60).seed(9)
+                .start(LocalDateTime.of(2020, 4, 1, 0, 0)).hours(6).partsPerHour(8).generate();
+        List<Path> files = FileListing.from(root).list();
+
+        List<String> expected = new ArrayList<>();
+        for (Path file : files) {
+            for (PingBean ping : new Main().extract(file.toString())) {
+                expected.add(ping.toString());
+            }
+        }
+
+        for (IoExecutors.Mode mode : IoExecutors.Mode.values()) {
+            // Fewer files in flight than files, reads wait for the parsing to catch up
+            try (PingExtractor extractor = new PingExtractor(mode, 3, 2, 5)) {
+                List<String> actual = new ArrayList<>();
+                for (PingBean ping : extractor.extract(files)) {
+                    actual.add(ping.toString());
+                }
+                assertEquals(mode.name(), expected, actual);
+            }
+        }
+        assertTrue(expected.size() > 10_000);
+    }
+
+    @Test public void testFailedReadFailsTheExtract() throws Exception {
+        Path root = Files.createTempDirectory("ping-extractor");
+        Path corrupt = root.resolve("corrupt.tsv.gz");
+        Files.write(corrupt, new byte[] { 1, 2, 3 });
+
+        try (PingExtractor extractor = new PingExtractor(IoExecutors.Mode.PLATFORM, 2, 2, 4)) {
+            try {
+                extractor.extract(Arrays.asList(corrupt));
+                throw new AssertionError("corrupt file extracted");
+            } catch (UncheckedIOException e) {
+                assertTrue(e.getMessage().contains("corrupt.tsv.gz"));
+            }
+
+            try {
+                extractor.extract(Arrays.asList(root.resolve("missing.tsv.gz")));
+                throw new AssertionError("missing file extracted");
+            } catch (ValidationException e) {
+                assertTrue(e.getMessage().contains("missing.tsv.gz"));
+            }
+        }
+    }
+
+    @Test public void testModeFromSystemProperties() {
+        assertEquals(IoExecutors.Mode.PLATFORM, IoExecutors.modeFromSystemProperties());
+        System.setProperty("io.threads", "Virtual");
+        try {
+            assertEquals(IoExecutors.Mode.VIRTUAL, IoExecutors.modeFromSystemProperties());
+        } finally {
+            System.clearProperty("io.threads");
+        }
+    }
+}
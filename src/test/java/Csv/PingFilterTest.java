@@ -0,0 +1,46 @@
+package Csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PingFilterTest {
+
+    private static final long T0 = 1585699200000l;
+
+    @Test public void testDropsInvalidDuplicatesAndJumps() {
+        PingBean p0 = new PingBean(1, T0, 12.97, 77.59);
+        PingBean p1 = new PingBean(1, T0 + 60_000, 12.971, 77.591);
+        PingBean dup = new PingBean(1, T0 + 60_000, 12.971, 77.591);
+        PingBean zero = new PingBean(1, T0 + 90_000, 0d, 0d);
+        PingBean nan = new PingBean(1, T0 + 100_000, Double.NaN, 77.59);
+        PingBean jump = new PingBean(1, T0 + 120_000, 28.61, 77.2); // ~1700 km in a minute
+        PingBean p2 = new PingBean(1, T0 + 180_000, 12.972, 77.592);
+
+        List<PingBean> pings = new ArrayList<>(Arrays.asList(p0, p1, dup, zero, nan, jump, p2));
+        new PingFilter().filter(pings, null);
+
+        assertEquals(3, pings.size());
+        assertSame(p0, pings.get(0));
+        assertSame(p1, pings.get(1));
+        assertSame(p2, pings.get(2));
+    }
+
+    @Test public void testTrustsNewPositionAfterConsecutiveJumps() {
+        // The seed is far away from every ping, e.g. - a bad last ping of an earlier run
+        PingBean seed = new PingBean(1, T0, 28.61, 77.2);
+        List<PingBean> pings = new ArrayList<>();
+        for (int i = 1; i <= 6; i++) {
+            pings.add(new PingBean(1, T0 + i * 60_000, 12.97 + i * 0.001, 77.59));
+        }
+
+        new PingFilter().filter(pings, seed);
+        assertEquals(3, pings.size());
+        assertEquals(T0 + 4 * 60_000, pings.get(0).getTimestamp());
+    }
+}
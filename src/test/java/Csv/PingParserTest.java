@@ -0,0 +1,79 @@
+package Csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class PingParserTest {
+
+    @Test public void testParseDoubleMatchesJdk() {
+        Random random = new Random(7);
+        String[] fixed = { "0", "-0.0", "12.971599", "-77.5946", "+1.5", "1e-3", "180.000000", "0.1", "1.",
+                ".5", "123456789012345678.5", "0.00000000000000000000000001" };
+        for (String s : fixed) {
+            assertParsed(s);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertParsed(String.format("%.6f", (random.nextDouble() - 0.5) * 360));
+            assertParsed(Double.toString((random.nextDouble() - 0.5) * 360));
+        }
+    }
+
+    @Test public void testChunksHandedOverAsRead() throws Exception {
+        StringBuilder data = new StringBuilder("timestamp\tdevice_id\tfiller\tlatitude\tlongitude\n");
+        for (int i = 0; i < 1000; i++) {
+            data.append(1585699200 + i).append("\tdevice-1\t0\t12.9\t77.5\n");
+        }
+        byte[] bytes = data.toString().getBytes(StandardCharsets.UTF_8);
+
+        // Bytes read by the time of every chunk
+        ByteArrayInputStream is = new ByteArrayInputStream(bytes);
+        List<Integer> readAt = new ArrayList<>();
+        List<PingBean> pings = new ArrayList<>();
+        PingParser.readChunks(is, 1, 256, chunk -> {
+            readAt.add(bytes.length - is.available());
+            pings.addAll(PingParser.parse(chunk));
+        });
+
+        assertEquals(1000, pings.size());
+        assertTrue(readAt.size() > 100);
+        assertTrue(readAt.get(0) <= 2 * 256);
+    }
+
+    @Test public void testChunksSplitOnLinesAndSkip() throws Exception {
+        StringBuilder data = new StringBuilder("timestamp\tdevice_id\tfiller\tlatitude\tlongitude\n");
+        for (int i = 0; i < 1000; i++) {
+            data.append(1585699200 + i).append("\tdevice-").append(i % 7).append("\t0\t12.9").append(i)
+                    .append("\t-77.5\t").append(i % 3 == 0 ? "extra" : "").append(i % 2 == 0 ? "\r\n" : "\n");
+        }
+        byte[] bytes = data.toString().replace("\t\r\n", "\r\n").replace("\t\n", "\n").getBytes(StandardCharsets.UTF_8);
+
+        // Tiny chunks, lines straddle the buffers
+        List<PingParser.Chunk> chunks = PingParser.readChunks(new ByteArrayInputStream(bytes), 1 + 10, 64);
+        List<PingBean> pings = chunks.stream().map(PingParser::parse).flatMap(List::stream)
+                .collect(Collectors.toList());
+
+        assertEquals(990, pings.size());
+        for (int i = 0; i < pings.size(); i++) {
+            PingBean ping = pings.get(i);
+            int line = i + 10;
+            assertEquals((1585699200l + line) * 1000, ping.getTimestamp());
+            assertEquals("device-" + (line % 7), ping.getDeviceId());
+            assertEquals(Double.parseDouble("12.9" + line), ping.getLatitude(), 0d);
+            assertEquals(-77.5, ping.getLongitude(), 0d);
+        }
+    }
+
+    private static void assertParsed(String s) {
+        byte[] bytes = ("x" + s + "y").getBytes(StandardCharsets.US_ASCII);
+        assertEquals(s, Double.parseDouble(s), PingParser.parseDouble(bytes, 1, bytes.length - 1), 0d);
+    }
+}
@@ -0,0 +1,131 @@
+package Csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.Test;
+
+import Ignite.ValidationException;
+
+public class ProcessedFilesManifestTest {
+
+    @Test public void testCommittedEntriesReloaded() throws Exception {
+        String output = Files.createTempDirectory("manifest").resolve("trips.csv").toString();
+
+        ProcessedFilesManifest manifest = ProcessedFilesManifest.load(output);
+        manifest.commit(entry(manifest, "/in/a.gz", 1200));
+        manifest.commit(entry(manifest, "/in/b.gz", 3400));
+        manifest.commit(entry(manifest, "/in/a.gz", 5600));
+
+        ProcessedFilesManifest loaded = ProcessedFilesManifest.load(output);
+        assertEquals(2, loaded.size());
+        assertEquals(5600, loaded.get("/in/a.gz").getOutputOffset());
+        assertEquals(3400, loaded.get("/in/b.gz").getOutputOffset());
+        assertEquals(5600, loaded.getCommittedOutputOffset());
+    }
+
+    @Test public void testTornEntryTruncated() throws Exception {
+        String output = Files.createTempDirectory("manifest").resolve("trips.csv").toString();
+        Path manifestPath = Path.of(output + ProcessedFilesManifest.MANIFEST_SUFFIX);
+
+        ProcessedFilesManifest manifest = ProcessedFilesManifest.load(output);
+        manifest.commit(entry(manifest, "/in/a.gz", 1200));
+        manifest.commit(entry(manifest, "/in/b.gz", 3456));
+        long committedLength = Files.size(manifestPath);
+
+        // Torn write of a next entry : all the columns, the output offset cut short to a valid number
+        List<String> lines = Files.readAllLines(manifestPath, StandardCharsets.UTF_8);
+        String last = lines.get(lines.size() - 1);
+        String torn = last.substring(0, last.indexOf("\t3456") + 3);
+        Files.write(manifestPath, torn.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        ProcessedFilesManifest loaded = ProcessedFilesManifest.load(output);
+        assertEquals(2, loaded.size());
+        assertEquals(3456, loaded.getCommittedOutputOffset());
+        assertEquals(committedLength, Files.size(manifestPath));
+
+        // Later commits start on their own line
+        loaded.commit(entry(loaded, "/in/c.gz", 7800));
+        ProcessedFilesManifest reloaded = ProcessedFilesManifest.load(output);
+        assertEquals(3, reloaded.size());
+        assertEquals(7800, reloaded.getCommittedOutputOffset());
+    }
+
+    @Test public void testEntryWithBadChecksumTruncated() throws Exception {
+        String output = Files.createTempDirectory("manifest").resolve("trips.csv").toString();
+        Path manifestPath = Path.of(output + ProcessedFilesManifest.MANIFEST_SUFFIX);
+
+        ProcessedFilesManifest manifest = ProcessedFilesManifest.load(output);
+        manifest.commit(entry(manifest, "/in/a.gz", 1200));
+        long committedLength = Files.size(manifestPath);
+        manifest.commit(entry(manifest, "/in/b.gz", 3400));
+
+        // Complete line, corrupt output offset
+        String content = new String(Files.readAllBytes(manifestPath), StandardCharsets.UTF_8);
+        Files.write(manifestPath, content.replace("\t3400\t", "\t3499\t").getBytes(StandardCharsets.UTF_8));
+
+        ProcessedFilesManifest loaded = ProcessedFilesManifest.load(output);
+        assertEquals(1, loaded.size());
+        assertNull(loaded.get("/in/b.gz"));
+        assertEquals(1200, loaded.getCommittedOutputOffset());
+        assertEquals(committedLength, Files.size(manifestPath));
+    }
+
+    @Test public void testTornHeaderRewritten() throws Exception {
+        String output = Files.createTempDirectory("manifest").resolve("trips.csv").toString();
+        Path manifestPath = Path.of(output + ProcessedFilesManifest.MANIFEST_SUFFIX);
+        Files.write(manifestPath, "#FilePath\tSi".getBytes(StandardCharsets.UTF_8));
+
+        ProcessedFilesManifest manifest = ProcessedFilesManifest.load(output);
+        assertEquals(0, manifest.size());
+        assertEquals(0, Files.size(manifestPath));
+
+        manifest.commit(entry(manifest, "/in/a.gz", 1200));
+        assertEquals(1, ProcessedFilesManifest.load(output).size());
+        assertEquals('#', Files.readAllBytes(manifestPath)[0]);
+    }
+
+    @Test public void testCheckpointSequence() throws Exception {
+        String output = Files.createTempDirectory("manifest").resolve("trips.csv").toString();
+
+        ProcessedFilesManifest manifest = ProcessedFilesManifest.load(output);
+        assertEquals(0, manifest.getCommittedSequence());
+        manifest.commit(entry(manifest, "/in/a.gz", 1200));
+        // No trips, same output offset
+        manifest.commit(entry(manifest, "/in/b.gz", 1200));
+
+        ProcessedFilesManifest loaded = ProcessedFilesManifest.load(output);
+        assertEquals(2, loaded.getCommittedSequence());
+        assertEquals(3, loaded.nextSequence());
+        assertEquals(1200, loaded.getCommittedOutputOffset());
+
+        try {
+            loaded.commit(new ProcessedFilesManifest.Entry("/in/c.gz", 100, 1_585_699_200_000L, 42, 10, 10, 1300, 2));
+            fail("Committed a past checkpoint");
+        } catch (ValidationException e) {
+            // Expected
+        }
+    }
+
+    @Test public void testChecksumOfPrefix() throws Exception {
+        Path file = Files.createTempFile("manifest", ".gz");
+        Files.write(file, "0123456789".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(ProcessedFilesManifest.checksum("01234"), ProcessedFilesManifest.checksum(file, 5));
+        assertEquals(ProcessedFilesManifest.checksum("0123456789"), ProcessedFilesManifest.checksum(file, 100));
+        assertEquals(ProcessedFilesManifest.checksum(file), ProcessedFilesManifest.checksum(file, 10));
+    }
+
+    private static ProcessedFilesManifest.Entry entry(ProcessedFilesManifest manifest, String filePath,
+            long outputOffset) {
+        return new ProcessedFilesManifest.Entry(filePath, 100, 1_585_699_200_000L, 42, 10, 10, outputOffset,
+                manifest.nextSequence());
+    }
+}
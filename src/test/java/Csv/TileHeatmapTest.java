@@ -0,0 +1,70 @@
+package Csv;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TileHeatmapTest {
+
+    private static final long HOUR = 1585699200000l; // 2020-04-01T00 UTC
+
+    @Test public void testTilesOfReferenceCoordinate() {
+        // Chicago, see the slippy map tilenames
+        assertEquals(262l, TileHeatmap.tileX(-87.65, 10));
+        assertEquals(380l, TileHeatmap.tileY(41.85, 10));
+        assertEquals(0l, TileHeatmap.tileY(89.9, 3));
+        assertEquals(7l, TileHeatmap.tileX(180d, 3));
+    }
+
+    @Test public void testRollsUpThePyramid() throws Exception {
+        TileHeatmap heatmap = new TileHeatmap(10, 16);
+        heatmap.add(HOUR + 1_000l, 41.85, -87.65);
+        heatmap.add(HOUR + 2_000l, 41.85, -87.65);
+        heatmap.add(HOUR + 3_000l, 41.86, -87.66);
+        heatmap.add(HOUR + 3_600_000l, 41.85, -87.65);
+        heatmap.add(HOUR + 3_600_000l, Double.NaN, -87.65);
+
+        assertArrayEquals(new long[] { HOUR, HOUR + 3_600_000l }, heatmap.hours());
+        assertEquals(3l, heatmap.count(HOUR, 10, 262, 380));
+        assertEquals(1l, heatmap.count(HOUR + 3_600_000l, 10, 262, 380));
+        long x = TileHeatmap.tileX(-87.65, 16), y = TileHeatmap.tileY(41.85, 16);
+        assertEquals(2l, heatmap.count(HOUR, 16, x, y));
+
+        Path root = Files.createTempDirectory("heatmap");
+        heatmap.write(root);
+        assertEquals(Arrays.asList("X,Y,Pings", "262,380,3"),
+                Files.readAllLines(root.resolve("2020040100").resolve("10.csv"), StandardCharsets.UTF_8));
+        assertEquals("X,Y,Pings", Files.readAllLines(root.resolve("2020040100").resolve("16.csv")).get(0));
+        assertEquals(Arrays.asList("X,Y,Pings", "262,380,1"),
+                Files.readAllLines(root.resolve("2020040101").resolve("10.csv"), StandardCharsets.UTF_8));
+    }
+
+    @Test public void testCountsPingsAsTheyAreParsed() throws Exception {
+        StringBuilder data = new StringBuilder("timestamp\tdevice_id\tfiller\tlatitude\tlongitude\n");
+        for (int i = 0; i < 5000; i++) {
+            data.append(HOUR / 1000 + i).append("\theatmap-device-").append(i % 7).append("\t0\t")
+                    .append(i % 2 == 0 ? "41.85" : "12.97").append('\t').append(i % 2 == 0 ? "-87.65" : "77.59")
+                    .append('\n');
+        }
+
+        TileHeatmap heatmap = new TileHeatmap(0, 14);
+        List<PingBean> pings = new Main(heatmap).preparePings(
+                new ByteArrayInputStream(data.toString().getBytes(StandardCharsets.UTF_8)), "heatmap", 0);
+
+        long total = 0l;
+        for (long hour : heatmap.hours()) {
+            total += heatmap.count(hour, 0, 0, 0);
+        }
+        assertEquals(pings.size(), total);
+        assertEquals(5000, total);
+        assertEquals(2500l, heatmap.count(HOUR, 10, 262, 380) + heatmap.count(HOUR + 3_600_000l, 10, 262, 380));
+    }
+}
@@ -0,0 +1,63 @@
+package Csv;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TimestampSortTest {
+
+    @Test public void testMatchesCollectionsSort() {
+        Random random = new Random(7);
+        for (int length : new int[] { 0, 1, 2, 17, 1_000, 20_000 }) {
+            for (int late : new int[] { 0, 1, 50, length }) {
+                // In order, then some pings swapped with a later one; coarse timestamps so there are ties
+                List<PingBean> pings = new ArrayList<>();
+                for (int i = 0; i < length; i++) {
+                    pings.add(new PingBean(i, 1585699200000l + (i / 3) * 1000l, 0d, 0d));
+                }
+                for (int i = 0; i < late && length > 1; i++) {
+                    Collections.swap(pings, random.nextInt(length), random.nextInt(length));
+                }
+
+                List<PingBean> expected = new ArrayList<>(pings);
+                Collections.sort(expected);
+                TimestampSort.sort(pings);
+
+                for (int i = 0; i < length; i++) {
+                    assertSame(expected.get(i), pings.get(i));
+                }
+            }
+        }
+    }
+
+    @Test public void testSortOrderOverWideRange() {
+        long[] timestamps = { Long.MAX_VALUE, -5l, 0l, Long.MIN_VALUE, 42l, -5l, 1l << 40 };
+        int[] order = new int[timestamps.length];
+        TimestampSort.sortOrder(timestamps, timestamps.length, order);
+
+        assertArrayEquals(new int[] { 3, 1, 5, 2, 4, 6, 0 }, order);
+    }
+
+    @Test public void testLargeDeviceBuffersNotRetained() {
+        Random random = new Random(9);
+        List<PingBean> pings = new ArrayList<>();
+        for (int i = 0; i < 4 * TimestampSort.MAX_RETAINED_LENGTH; i++) {
+            pings.add(new PingBean(i, 1585699200000l + random.nextInt(86_400_000), 0d, 0d));
+        }
+        List<PingBean> expected = new ArrayList<>(pings);
+        Collections.sort(expected);
+
+        TimestampSort.sort(pings);
+        for (int i = 0; i < pings.size(); i++) {
+            assertSame(expected.get(i), pings.get(i));
+        }
+        assertTrue(TimestampSort.retainedLength() <= TimestampSort.MAX_RETAINED_LENGTH);
+    }
+}
@@ -0,0 +1,159 @@
+package Csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.cache.Cache;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.EventType;
+
+import org.apache.ignite.Ignite;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.apache.ignite.spi.discovery.tcp.ipfinder.vm.TcpDiscoveryVmIpFinder;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import Ignite.ValidationException;
+
+/**
+ * Local multi-node harness for the {@link TripFeed} : two server nodes and one client node in the same JVM.
+ */
+public class TripFeedTest {
+
+    private static Ignite server1;
+    private static Ignite server2;
+    private static Ignite client;
+
+    @BeforeClass public static void startNodes() {
+        server1 = Ignition.start(configuration("trip-feed-server-1", false));
+        server2 = Ignition.start(configuration("trip-feed-server-2", false));
+        client = Ignition.start(configuration("trip-feed-client", true));
+    }
+
+    @AfterClass public static void stopNodes() {
+        client.close();
+        server2.close();
+        server1.close();
+    }
+
+    @Test public void testSubscriberReceivesFilteredTripsInBatches() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        final List<TripBean> received = new CopyOnWriteArrayList<>();
+
+        final TripFeed feed = new TripFeed(client, "trips-devices");
+        final TripFilter filter = TripFilter.byDevices(Collections.singletonList("device-1"));
+        final QueryCursor<Cache.Entry<String, TripBean>> cursor = feed.subscribe(trips -> {
+            received.addAll(trips);
+            trips.forEach(t -> latch.countDown());
+        }, filter);
+        try {
+            // Publish from a server node
+            new TripFeed(server1, "trips-devices").publish(Arrays.asList( //
+                    new TripBean("device-1", "17.38,78.48", 1_000_000L, "17.39,78.49", 1_100_000L), //
+                    new TripBean("device-2", "17.38,78.48", 1_000_000L, "17.39,78.49", 1_100_000L), //
+                    new TripBean("device-1", "17.39,78.49", 1_200_000L, "17.40,78.50", 1_300_000L)));
+
+            assertTrue("trips should be pushed to the subscriber", latch.await(10, TimeUnit.SECONDS));
+        } finally {
+            // Stops the continuous query
+            cursor.close();
+        }
+
+        assertEquals(2, received.size());
+        received.forEach(t -> assertEquals("device-1", t.getDeviceId()));
+    }
+
+    @Test public void testRegionFilter() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<TripBean> received = new CopyOnWriteArrayList<>();
+
+        final TripFeed feed = new TripFeed(client, "trips-region");
+        final TripFilter filter = TripFilter.byRegion(17.0, 78.0, 18.0, 79.0);
+        final QueryCursor<Cache.Entry<String, TripBean>> cursor = feed.subscribe(trips -> {
+            received.addAll(trips);
+            trips.forEach(t -> latch.countDown());
+        }, filter, 16, 1);
+        try {
+            new TripFeed(server2, "trips-region").publish(Arrays.asList( //
+                    new TripBean("device-3", "12.97,77.59", 1_000_000L, "12.98,77.60", 1_100_000L), //
+                    new TripBean("device-4", "12.97,77.59", 1_000_000L, "17.50,78.50", 1_100_000L)));
+
+            assertTrue("trips should be pushed to the subscriber", latch.await(10, TimeUnit.SECONDS));
+        } finally {
+            // Stops the continuous query
+            cursor.close();
+        }
+
+        assertEquals(1, received.size());
+        assertEquals("device-4", received.get(0).getDeviceId());
+    }
+
+    @Test public void testFilterDropsUpdates() {
+        final TripBean trip = new TripBean("device-5", "17.38,78.48", 1_000_000L, "17.39,78.49", 1_100_000L);
+        final TripFilter filter = TripFilter.byDevices(Collections.singletonList("device-5"));
+
+        assertTrue(filter.evaluate(event(EventType.CREATED, trip)));
+        assertFalse(filter.evaluate(event(EventType.UPDATED, trip)));
+        assertFalse(TripFilter.all().evaluate(event(EventType.UPDATED, trip)));
+        assertFalse(filter.and(TripFilter.all()).evaluate(event(EventType.UPDATED, trip)));
+    }
+
+    @Test(expected = ValidationException.class) public void testAndNullFilter() {
+        TripFilter.all().and(null);
+    }
+
+
+    private static CacheEntryEvent<String, TripBean> event(EventType eventType, TripBean trip) {
+        return new CacheEntryEvent<String, TripBean>(server1.getOrCreateCache("trips-events"), eventType) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public String getKey() {
+                return TripFeed.keyOf(trip);
+            }
+
+            @Override
+            public TripBean getValue() {
+                return trip;
+            }
+
+            @Override
+            public TripBean getOldValue() {
+                return null;
+            }
+
+            @Override
+            public boolean isOldValueAvailable() {
+                return false;
+            }
+
+            @Override
+            public <T> T unwrap(Class<T> clazz) {
+                throw new IllegalArgumentException("Unwrapping not supported");
+            }
+        };
+    }
+
+    private static IgniteConfiguration configuration(String instanceName, boolean clientMode) {
+        TcpDiscoveryVmIpFinder ipFinder = new TcpDiscoveryVmIpFinder(true);
+        ipFinder.setAddresses(Collections.singletonList("127.0.0.1:47500..47509"));
+
+        IgniteConfiguration cfg = new IgniteConfiguration();
+        cfg.setIgniteInstanceName(instanceName);
+        cfg.setClientMode(clientMode);
+        cfg.setDiscoverySpi(new TcpDiscoverySpi().setIpFinder(ipFinder));
+        return cfg;
+    }
+}
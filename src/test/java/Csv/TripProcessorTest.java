@@ -0,0 +1,83 @@
+package Csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import Ignite.Coordinate;
+import Ignite.Geo;
+import Ignite.Polyline;
+
+public class TripProcessorTest {
+
+    @Test public void testTripsCarryTheirPath() {
+        List<PingBean> pings = new ArrayList<>(Arrays.asList(
+                new PingBean("enriched-device", 1585699200000l, 12.9700, 77.5900),
+                new PingBean("enriched-device", 1585699320000l, 12.9800, 77.5900),
+                new PingBean("enriched-device", 1585699330000l, 12.9800, 77.5900)));
+
+        System.setProperty("trips.polyline", "true");
+        List<TripBean> trips;
+        try {
+            trips = new TripProcessor(new PingFilter(), null).prepareTrips("enriched-device", pings, null);
+        } finally {
+            System.clearProperty("trips.polyline");
+        }
+
+        assertEquals(1, trips.size());
+        TripBean trip = trips.get(0);
+        double distance = Geo.distance(12.97, 77.59, 12.98, 77.59);
+        assertEquals(distance, trip.getDistanceMtrs(), 1e-9);
+        assertEquals(120_000l, trip.getDurationMillis());
+        assertEquals(distance / 120, trip.getAverageSpeedMps(), 1e-9);
+        assertEquals(Arrays.asList(Coordinate.from(12.97, 77.59), Coordinate.from(12.98, 77.59)),
+                Polyline.decode(trip.getPolyline()));
+    }
+
+    @Test public void testPolylineIsOffByDefault() {
+        List<PingBean> pings = new ArrayList<>(Arrays.asList(
+                new PingBean("enriched-device", 1585699200000l, 12.9700, 77.5900),
+                new PingBean("enriched-device", 1585699320000l, 12.9800, 77.5900)));
+
+        List<TripBean> trips = new TripProcessor(new PingFilter(), null).prepareTrips("enriched-device", pings, null);
+        assertEquals(1, trips.size());
+        assertNull(trips.get(0).getPolyline());
+    }
+
+    @Test public void testEnrichedCsvCarriesThePath() throws Exception {
+        List<PingBean> pings = new ArrayList<>(Arrays.asList(
+                new PingBean("enriched-device", 1585699200000l, 12.9700, 77.5900),
+                new PingBean("enriched-device", 1585699320000l, 12.9800, 77.5900)));
+        Path file = Files.createTempFile("enriched", ".csv");
+        Files.delete(file);
+
+        System.setProperty("trips.polyline", "true");
+        System.setProperty("trips.csv.enriched", "true");
+        try {
+            List<TripBean> trips = new TripProcessor(new PingFilter(), null).prepareTrips("enriched-device", pings,
+                    null);
+            CsvWriter.appendToCSV(trips, file.toString());
+        } finally {
+            System.clearProperty("trips.polyline");
+            System.clearProperty("trips.csv.enriched");
+        }
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(CsvWriter.ENRICHED_HEADER.trim(), lines.get(0));
+        String[] columns = lines.get(1).split(",");
+        assertEquals(CsvWriter.ENRICHED_HEADER.split(",").length, columns.length);
+        assertEquals(Geo.distance(12.97, 77.59, 12.98, 77.59), Double.parseDouble(columns[8]), 0.05);
+        assertEquals("120000", columns[9]);
+        assertEquals(Geo.distance(12.97, 77.59, 12.98, 77.59) / 120, Double.parseDouble(columns[10]), 0.005);
+        assertEquals(Arrays.asList(Coordinate.from(12.97, 77.59), Coordinate.from(12.98, 77.59)),
+                Polyline.decode(columns[11]));
+    }
+}
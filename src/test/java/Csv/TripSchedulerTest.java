@@ -0,0 +1,60 @@
+package Csv;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Test;
+
+public class TripSchedulerTest {
+
+    private static List<List<PingBean>> devicePings(long seed) {
+        Random random = new Random(seed);
+        List<List<PingBean>> devicePings = new ArrayList<>();
+        for (int d = 0; d < 20; d++) {
+            int deviceIdx = DeviceDictionary.shared().idOf("scheduler-device-" + d);
+            int count = d == 0 ? 5_000 : 1 + random.nextInt(300);
+
+            List<PingBean> pings = new ArrayList<>();
+            double lat = 12.9, lng = 77.5;
+            for (int i = 0; i < count; i++) {
+                lat += (random.nextDouble() - 0.5) * 0.004;
+                lng += (random.nextDouble() - 0.5) * 0.004;
+                pings.add(new PingBean(deviceIdx, 1585699200000l + i * 61_000l, lat, lng));
+            }
+            Collections.shuffle(pings, random);
+            devicePings.add(pings);
+        }
+        return devicePings;
+    }
+
+    @Test public void testSplitDevicesMatchSequentialTrips() {
+        TripProcessor tripProcessor = new TripProcessor();
+
+        List<TripBean> expected = new ArrayList<>();
+        for (List<PingBean> pings : devicePings(3)) {
+            expected.addAll(tripProcessor.prepareTrips(pings.get(0).getDeviceIdx(), pings, null));
+        }
+
+        List<TripBean> trips;
+        try (TripScheduler scheduler = new TripScheduler(tripProcessor, 4, 128)) {
+            trips = scheduler.prepareTrips(devicePings(3), idx -> null);
+        }
+
+        assertEquals(expected.size(), trips.size());
+        for (int i = 0; i < trips.size(); i++) {
+            assertEquals(expected.get(i).toString(), trips.get(i).toString());
+        }
+    }
+
+    @Test(expected = RejectedExecutionException.class) public void testClosedSchedulerRejectsTrips() {
+        TripScheduler scheduler = new TripScheduler(new TripProcessor(), 2, 128);
+        scheduler.close();
+
+        scheduler.prepareTrips(devicePings(4), idx -> null);
+    }
+}
@@ -0,0 +1,76 @@
+package Ignite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CoordinateTest {
+
+    @Test public void testParsesSignsAndWhitespace() {
+        Coordinate c = Coordinate.from(" -33.8688 ,\t-151.2093 ");
+        assertEquals(-33.8688, c.getLatitude(), 0d);
+        assertEquals(-151.2093, c.getLongitude(), 0d);
+
+        assertEquals(1.0E-4, Coordinate.from("1.0E-4,+77.5").getLatitude(), 0d);
+        assertEquals(77.5, Coordinate.from("1.0E-4,+77.5").getLongitude(), 0d);
+    }
+
+    @Test public void testParsesLikeDoubleToString() {
+        Random random = new Random(5);
+        for (int i = 0; i < 100_000; i++) {
+            double lat = (random.nextDouble() - 0.5) * 180;
+            double lng = (random.nextDouble() - 0.5) * 360;
+            Coordinate c = Coordinate.from(lat + "," + lng);
+            assertEquals(lat, c.getLatitude(), 0d);
+            assertEquals(lng, c.getLongitude(), 0d);
+        }
+    }
+
+    @Test public void testRejectsMalformed() {
+        for (String latLng : new String[] { "12.97", "12.97,77.59,1", "12.97,abc", "12.97, ",
+                "12.97,\uff17\uff17.59" }) {
+            try {
+                Coordinate.from(latLng);
+                fail("Parsed - " + latLng);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test public void testSlowPathTakesOnlyDecimals() {
+        assertEquals(Double.parseDouble("12.12345678901234567"), Coordinate.parseDegrees("12.12345678901234567", 0,
+                19), 0d);
+        assertEquals(-1.5e-3, Coordinate.parseDegrees(" -1.5e-3 ", 0, 9), 0d);
+
+        for (String degrees : new String[] { "NaN", "-Infinity", "0x1p3", "1d", "1.5f", "1e400", "1e", "e5",
+                "1.2.3" }) {
+            try {
+                Coordinate.parseDegrees(degrees, 0, degrees.length());
+                fail("Parsed chars - " + degrees);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+            byte[] bytes = degrees.getBytes(StandardCharsets.US_ASCII);
+            try {
+                Coordinate.parseDegrees(bytes, 0, bytes.length);
+                fail("Parsed bytes - " + degrees);
+            } catch (NumberFormatException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test public void testMicrodegreeRoundTrip() {
+        Coordinate c = Coordinate.from(-33.868812, 151.209296);
+        Coordinate decoded = Coordinate.decode(c.encode());
+        assertEquals(c, decoded);
+
+        assertEquals(Coordinate.from(-90d, -180d), Coordinate.decode(Coordinate.encode(-90d, -180d)));
+        assertEquals(0.1, Geo.distance(c, Coordinate.decode(Coordinate.encode(-33.8688124, 151.2092964))), 0.1);
+    }
+}
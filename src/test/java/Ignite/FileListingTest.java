@@ -0,0 +1,172 @@
+package Ignite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+public class FileListingTest {
+
+    @Test public void testSequentialInNameOrder() throws Exception {
+        Path root = Files.createTempDirectory("file-listing");
+        write(root, "b/2.gz", "a/z.gz", "c.gz", "a/b/1.gz", "a/a.gz", "b/10.gz");
+
+        assertEquals(Arrays.asList("a/a.gz", "a/b/1.gz", "a/z.gz", "b/10.gz", "b/2.gz", "c.gz"),
+                relative(root, FileListing.from(root).list()));
+    }
+
+    @Test public void testExtensionAndGlobFilters() throws Exception {
+        Path root = Files.createTempDirectory("file-listing");
+        write(root, "2023/01/01/00.gz", "2023/01/01/00.tsv", "2023/01/02/00.gz", "2023/02/01/00.gz", "readme.txt");
+
+        assertEquals(Arrays.asList("2023/01/01/00.gz", "2023/01/02/00.gz", "2023/02/01/00.gz"),
+                relative(root, FileListing.from(root).extension("gz").list()));
+        assertEquals(Arrays.asList("2023/01/01/00.gz", "2023/01/01/00.tsv", "2023/02/01/00.gz", "readme.txt"),
+                relative(root, FileListing.from(root).extension(".gz").extension(".tsv").extension(".txt")
+                        .glob("2023/*/01/*").glob("*.txt").list()));
+        assertEquals(Arrays.asList("2023/01/01/00.gz", "2023/01/02/00.gz"),
+                relative(root, FileListing.from(root).glob("2023/01/*/*.gz").list()));
+    }
+
+    @Test public void testDateRangePrunes() throws Exception {
+        Path root = Files.createTempDirectory("file-listing");
+        write(root, "2023/01/31/23.gz", "2023/02/01/00.gz", "2023/02/28/23.gz", "2023/03/01/00.gz",
+                "flat/2023-02-15.gz", "flat/20230301.gz", "undated/part-0.gz", "2022/12/31/00.gz");
+
+        // Month directories overlapping the range are descended, days outside it are not
+        assertEquals(Arrays.asList("2023/02/01/00.gz", "2023/02/28/23.gz", "flat/2023-02-15.gz", "undated/part-0.gz"),
+                relative(root, FileListing.from(root).dateRange(LocalDate.of(2023, 2, 1), LocalDate.of(2023, 2, 28))
+                        .list()));
+        assertEquals(Arrays.asList("2022/12/31/00.gz", "2023/01/31/23.gz", "undated/part-0.gz"),
+                relative(root, FileListing.from(root).dateRange(LocalDate.of(2022, 12, 1), LocalDate.of(2023, 1, 31))
+                        .list()));
+    }
+
+    @Test public void testModifiedTimeAndDepth() throws Exception {
+        Path root = Files.createTempDirectory("file-listing");
+        write(root, "old.gz", "new.gz", "a/new.gz", "a/b/new.gz");
+        Files.setLastModifiedTime(root.resolve("old.gz"), FileTime.fromMillis(1_000_000L));
+
+        assertEquals(Arrays.asList("a/b/new.gz", "a/new.gz", "new.gz"), relative(root,
+                FileListing.from(root).modifiedBetween(2_000_000L, Long.MAX_VALUE).list()));
+        // Depths as of Files#walk, 1 being the entries of the root
+        assertEquals(Arrays.asList("new.gz", "old.gz"), relative(root, FileListing.from(root).maxDepth(1).list()));
+        assertEquals(Arrays.asList("a/new.gz", "new.gz", "old.gz"),
+                relative(root, FileListing.from(root).maxDepth(2).list()));
+    }
+
+    @Test public void testLinksToFilesListed() throws Exception {
+        Path root = Files.createTempDirectory("file-listing");
+        Path elsewhere = Files.createTempDirectory("file-listing-target");
+        write(root, "a/real.gz");
+        write(elsewhere, "linked.gz", "dir/hidden.gz");
+        Files.createSymbolicLink(root.resolve("a/linked.gz"), elsewhere.resolve("linked.gz"));
+        Files.createSymbolicLink(root.resolve("a/broken.gz"), elsewhere.resolve("missing.gz"));
+        Files.createSymbolicLink(root.resolve("a/dir"), elsewhere.resolve("dir"));
+        Files.createSymbolicLink(root.resolve("a/loop"), root);
+
+        // Links to files followed, links to directories and broken links not
+        List<String> expected = Arrays.asList("a/linked.gz", "a/real.gz");
+        assertEquals(expected, relative(root, FileListing.from(root).extension(".gz").list()));
+        try (Stream<Path> files = FileListing.from(root).extension(".gz").parallelStream(2)) {
+            assertEquals(expected, relative(root, files.sorted().collect(Collectors.toList())));
+        }
+    }
+
+    @Test public void testParallelSameAsSequential() throws Exception {
+        Path root = Files.createTempDirectory("file-listing");
+        List<String> names = new ArrayList<>();
+        for (int day = 1; day <= 28; day++) {
+            for (int hour = 0; hour < 24; hour++) {
+                names.add(String.format("2023/02/%02d/%02d/part-0.gz", day, hour));
+                names.add(String.format("2023/02/%02d/%02d/part-1.tsv", day, hour));
+            }
+        }
+        write(root, names.toArray(new String[0]));
+
+        FileListing listing = FileListing.from(root).extension(".gz")
+                .dateRange(LocalDate.of(2023, 2, 3), LocalDate.of(2023, 2, 20));
+        List<Path> sequential = listing.list();
+
+        List<Path> parallel;
+        try (Stream<Path> files = listing.parallelStream(3)) {
+            parallel = files.sorted().collect(Collectors.toList());
+        }
+
+        assertEquals(18 * 24, sequential.size());
+        assertEquals(sequential, parallel);
+        assertTrue(sequential.size() < FileListing.QUEUE_CAPACITY);
+        awaitNoListingThreads();
+
+        // More files than the queue holds, the walk waits for the consumer
+        List<Path> all;
+        try (Stream<Path> files = FileListing.from(root).parallelStream(2)) {
+            all = files.collect(Collectors.toList());
+        }
+        assertEquals(names.size(), all.size());
+        assertTrue(all.size() > FileListing.QUEUE_CAPACITY);
+        awaitNoListingThreads();
+    }
+
+    @Test public void testParallelCloseStopsTheWalk() throws Exception {
+        Path root = Files.createTempDirectory("file-listing");
+        List<String> names = new ArrayList<>();
+        for (int dir = 0; dir < 40; dir++) {
+            for (int file = 0; file < 100; file++) {
+                names.add(String.format("d%02d/f%03d.gz", dir, file));
+            }
+        }
+        write(root, names.toArray(new String[0]));
+
+        try (Stream<Path> files = FileListing.from(root).parallelStream(2)) {
+            Iterator<Path> iterator = files.iterator();
+            for (int i = 0; i < 10; i++) {
+                assertTrue(iterator.hasNext());
+                iterator.next();
+            }
+        }
+
+        // Tasks blocked on the full queue are interrupted, pending ones dropped
+        awaitNoListingThreads();
+    }
+
+    private static void write(Path root, String... names) throws Exception {
+        for (String name : names) {
+            Path file = root.resolve(name);
+            Files.createDirectories(file.getParent());
+            Files.write(file, new byte[] { 1 });
+        }
+    }
+
+    private static List<String> relative(Path root, List<Path> files) {
+        List<String> names = new ArrayList<>();
+        for (Path file : files) {
+            names.add(root.toAbsolutePath().relativize(file).toString().replace('\\', '/'));
+        }
+        return names;
+    }
+
+    private static void awaitNoListingThreads() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            List<String> listingThreads = Thread.getAllStackTraces().keySet().stream() //
+                    .filter(Thread::isAlive).map(Thread::getName) //
+                    .filter(name -> name.startsWith("file-listing")).collect(Collectors.toList());
+            if (listingThreads.isEmpty()) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("file listing threads still running");
+    }
+}
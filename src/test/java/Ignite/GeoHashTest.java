@@ -0,0 +1,78 @@
+package Ignite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class GeoHashTest {
+
+    @Test public void testMatchesGeohashStrings() {
+        // Examples of the geohash article
+        assertEquals("u4pruydqqvj", GeoHash.toBase32(GeoHash.encode(57.64911, 10.40744, 55), 55));
+        assertEquals("6gkzwgjzn820", GeoHash.toBase32(GeoHash.encode(-25.382708, -49.265506, 60), 60));
+
+        long cell = GeoHash.fromBase32("u4pruydqqvj");
+        Coordinate center = GeoHash.decode(cell, 55);
+        assertEquals(57.64911, center.getLatitude(), GeoHash.cellHeight(55));
+        assertEquals(10.40744, center.getLongitude(), GeoHash.cellWidth(55));
+    }
+
+    @Test public void testCoarserCellIsPrefix() {
+        long fine = GeoHash.encode(-33.8688, 151.2093, 41);
+        assertEquals(GeoHash.encode(-33.8688, 151.2093, 20), fine >>> 21);
+    }
+
+    @Test public void testNeighborsWrapAndStopAtPoles() {
+        long cell = GeoHash.encode(12.9716, 77.5946, 40);
+        long[] neighbors = GeoHash.neighbors(cell, 40);
+        assertEquals(8, neighbors.length);
+        for (long neighbor : neighbors) {
+            double dLat = Math.abs(GeoHash.centerLatitude(neighbor, 40) - GeoHash.centerLatitude(cell, 40));
+            assertTrue(dLat < 1.5 * GeoHash.cellHeight(40));
+        }
+
+        long east = GeoHash.encode(0d, 179.99, 20);
+        assertEquals(GeoHash.encode(0d, -179.99, 20), GeoHash.neighbor(east, 20, 0, 1));
+        assertEquals(5, GeoHash.neighbors(GeoHash.encode(90d, 0d, 20), 20).length);
+    }
+
+    @Test public void testRadiusCoverContainsNearbyPoints() {
+        double lat = 12.9716, lng = 77.5946;
+        long[] cells = GeoHash.cover(lat, lng, 500d, 35);
+        Arrays.sort(cells);
+
+        Coordinate center = Coordinate.from(lat, lng);
+        for (int bearing = 0; bearing < 360; bearing += 15) {
+            Coordinate c = Geo.terminalCoordinate(center, Math.toRadians(bearing), 450d);
+            long cell = GeoHash.encode(c.getLatitude(), c.getLongitude(), 35);
+            assertTrue(Arrays.binarySearch(cells, cell) >= 0);
+        }
+
+        long[] box = GeoHash.cover(lat - 0.01, lng - 0.01, lat + 0.01, lng + 0.01, 35);
+        assertTrue(cells.length < box.length * 4);
+    }
+
+    @Test public void testRadiusCoverWrapsAntimeridian() {
+        for (double lng : new double[] { 179.999, -179.999 }) {
+            long[] cells = GeoHash.cover(0d, lng, 500d, 35);
+            Arrays.sort(cells);
+
+            // ~ 450 mtrs around, on the equator
+            double d = Math.toDegrees(450d / Geo.RADIUS_EARTHS_MTRS);
+            for (int bearing = 0; bearing < 360; bearing += 15) {
+                double pLat = d * Math.cos(Math.toRadians(bearing));
+                double pLng = lng + d * Math.sin(Math.toRadians(bearing));
+                pLng = pLng > 180d ? pLng - 360d : pLng < -180d ? pLng + 360d : pLng;
+                assertTrue(Arrays.binarySearch(cells, GeoHash.encode(pLat, pLng, 35)) >= 0);
+            }
+
+            // Cells on both sides, none far away
+            assertTrue(Arrays.stream(cells).anyMatch(cell -> GeoHash.centerLongitude(cell, 35) > 179d));
+            assertTrue(Arrays.stream(cells).anyMatch(cell -> GeoHash.centerLongitude(cell, 35) < -179d));
+            assertTrue(cells.length < 100);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package Ignite;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class GeofenceTest {
+
+    @Test public void testLoadsWktWithHolesAndMultiPolygons() throws Exception {
+        Path file = Files.createTempFile("geofence", ".wkt");
+        Files.write(file, Arrays.asList(
+                "# sites",
+                "park\tPOLYGON ((77.0 12.0, 78.0 12.0, 78.0 13.0, 77.0 13.0, 77.0 12.0), "
+                        + "(77.4 12.4, 77.6 12.4, 77.6 12.6, 77.4 12.6, 77.4 12.4))",
+                "islands\tMULTIPOLYGON (((-10 -10, -9 -10, -9 -9, -10 -10)), ((10 10, 11 10, 11 11, 10 10)))"),
+                StandardCharsets.UTF_8);
+
+        Geofence geofence = Geofence.load(file);
+        assertEquals(2, geofence.size());
+        assertEquals("park", geofence.idOf(0));
+
+        assertEquals(0, geofence.locate(12.2, 77.2));
+        assertEquals(Geofence.OUTSIDE, geofence.locate(12.5, 77.5)); // Hole
+        assertEquals(1, geofence.locate(-9.8, -9.2));
+        assertEquals(1, geofence.locate(10.2, 10.8));
+        assertEquals(Geofence.OUTSIDE, geofence.locate(10.8, 10.2));
+        assertEquals(Geofence.OUTSIDE, geofence.locate(50d, 50d));
+    }
+
+    @Test public void testLoadsGeoJson() throws Exception {
+        Path file = Files.createTempFile("geofence", ".geojson");
+        Files.write(file, ("{\"type\": \"FeatureCollection\", \"features\": ["
+                + "{\"type\": \"Feature\", \"properties\": {\"name\": \"depot\"}, \"geometry\": {\"type\": \"Polygon\","
+                + " \"coordinates\": [[[-0.2, 51.4], [0.1, 51.4], [0.1, 51.6], [-0.2, 51.6], [-0.2, 51.4]]]}},"
+                + "{\"type\": \"Feature\", \"id\": 7, \"properties\": null, \"geometry\": null}]}")
+                        .getBytes(StandardCharsets.UTF_8));
+
+        Geofence geofence = Geofence.load(file);
+        assertEquals(1, geofence.size());
+        assertEquals("depot", geofence.idOf(0));
+        assertTrue(geofence.contains(0, 51.5, -0.1));
+        assertFalse(geofence.contains(0, 51.5, 0.2));
+    }
+
+    @Test public void testLocatesAllOverlappingPolygons() {
+        // Zone with a site nested in it, and a second zone overlapping both
+        Geofence geofence = Geofence.builder()
+                .add("zone", Arrays.asList(new double[] { 77.0, 12.0, 78.0, 12.0, 78.0, 13.0, 77.0, 13.0 }))
+                .add("site", Arrays.asList(new double[] { 77.4, 12.4, 77.6, 12.4, 77.6, 12.6, 77.4, 12.6 }))
+                .add("east", Arrays.asList(new double[] { 77.5, 12.3, 78.5, 12.3, 78.5, 12.7, 77.5, 12.7 }))
+                .build();
+
+        assertArrayEquals(new int[] { 0, 1, 2 }, geofence.locateAll(12.5, 77.55));
+        assertArrayEquals(new int[] { 0, 1 }, geofence.locateAll(12.5, 77.45));
+        assertArrayEquals(new int[] { 0, 2 }, geofence.locateAll(12.35, 77.9));
+        assertArrayEquals(new int[] { 2 }, geofence.locateAll(12.5, 78.2));
+        assertArrayEquals(new int[0], geofence.locateAll(12.9, 78.2));
+        assertArrayEquals(new int[0], geofence.locateAll(50d, 50d));
+
+        // First added wins
+        assertEquals(0, geofence.locate(12.5, 77.55));
+        assertEquals(2, geofence.locate(12.5, 78.2));
+    }
+
+    @Test public void testBatchMatchesRayCasting() {
+        // Grid of star shaped polygons, many edges each
+        Geofence.Builder builder = Geofence.builder();
+        double[][] rings = new double[400][];
+        for (int i = 0; i < 400; i++) {
+            double centerLat = 12 + (i / 20) * 0.05, centerLng = 77 + (i % 20) * 0.05;
+            double[] ring = new double[2 * 64];
+            for (int k = 0; k < 64; k++) {
+                double angle = 2 * Math.PI * k / 64, r = (k % 2 == 0 ? 0.024 : 0.012);
+                ring[2 * k] = centerLng + r * Math.cos(angle);
+                ring[2 * k + 1] = centerLat + r * Math.sin(angle);
+            }
+            builder.add("star-" + i, Arrays.asList(ring));
+            rings[i] = ring;
+        }
+        Geofence geofence = builder.build();
+
+        Random random = new Random(3);
+        double[] lats = new double[100_000], lngs = new double[100_000];
+        for (int i = 0; i < lats.length; i++) {
+            lats[i] = 11.95 + random.nextDouble() * 1.1;
+            lngs[i] = 76.95 + random.nextDouble() * 1.1;
+        }
+
+        int[] located = geofence.locate(lats, lngs);
+        int inside = 0;
+        for (int i = 0; i < lats.length; i++) {
+            int expected = Geofence.OUTSIDE;
+            for (int p = 0; p < geofence.size() && expected == Geofence.OUTSIDE; p++) {
+                if (rayCast(rings[p], lats[i], lngs[i])) {
+                    expected = p;
+                }
+            }
+            assertEquals(expected, located[i]);
+            inside += expected == Geofence.OUTSIDE ? 0 : 1;
+        }
+        assertTrue(inside > 10_000);
+    }
+
+    private static boolean rayCast(double[] ring, double lat, double lng) {
+        boolean inside = false;
+        for (int i = 0, n = ring.length / 2, j = n - 1; i < n; j = i++) {
+            double lng1 = ring[2 * i], lat1 = ring[2 * i + 1], lng2 = ring[2 * j], lat2 = ring[2 * j + 1];
+            if ((lat1 > lat) != (lat2 > lat) && lng < lng1 + (lat - lat1) * (lng2 - lng1) / (lat2 - lat1)) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+}
@@ -0,0 +1,130 @@
+package Ignite;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+public class LocalIngestSourceTest {
+
+    @Test public void testListsBucketByPrefixInKeyOrder() throws Exception {
+        Path root = Files.createTempDirectory("ingest-root");
+        write(root.resolve("pings/2023/01/02/00.gz"), new byte[10]);
+        write(root.resolve("pings/2023/01/01/01.gz"), new byte[20]);
+        write(root.resolve("pings/2023/01/01/00.gz"), new byte[30]);
+        write(root.resolve("pings/2023/02/01/00.gz"), new byte[40]);
+
+        LocalIngestSource source = new LocalIngestSource(root.toString());
+        List<IngestObject> objects = source.list("pings", "2023/01/");
+
+        assertEquals(3, objects.size());
+        assertEquals("2023/01/01/00.gz", objects.get(0).getKey());
+        assertEquals("2023/01/01/01.gz", objects.get(1).getKey());
+        assertEquals("2023/01/02/00.gz", objects.get(2).getKey());
+        assertEquals(30, objects.get(0).getSize());
+        assertEquals("00.gz", objects.get(0).getName());
+    }
+
+    @Test public void testRangedRead() throws Exception {
+        Path root = Files.createTempDirectory("ingest-root");
+        byte[] data = randomBytes(1000);
+        write(root.resolve("pings/data.gz"), data);
+
+        LocalIngestSource source = new LocalIngestSource(root.toString());
+        IngestObject object = source.list("pings", "").get(0);
+        try (InputStream is = source.openRange(object, 100, 50)) {
+            byte[] range = is.readAllBytes();
+            byte[] expected = new byte[50];
+            System.arraycopy(data, 100, expected, 0, 50);
+            assertArrayEquals(expected, range);
+        }
+    }
+
+    @Test public void testPrefetcherDownloadsInOrderWithParallelRanges() throws Exception {
+        Path root = Files.createTempDirectory("ingest-root");
+        List<byte[]> contents = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            byte[] data = randomBytes(1000 + i * 777);
+            contents.add(data);
+            write(root.resolve("pings/2023/01/01/0" + i + ".gz"), data);
+        }
+
+        LocalIngestSource source = new LocalIngestSource(root.toString());
+        Path staging = Files.createTempDirectory("ingest-staging");
+        try (IngestPrefetcher prefetcher = new IngestPrefetcher(source, source.list("pings", "2023"),
+                staging.toString(), 2, 256, null)) {
+            for (byte[] expected : contents) {
+                assertArrayEquals(expected, Files.readAllBytes(prefetcher.next()));
+            }
+            assertFalse(prefetcher.hasNext());
+        }
+    }
+
+    @Test public void testFailedDownloadLeavesNoFile() throws Exception {
+        Path root = Files.createTempDirectory("ingest-root");
+        write(root.resolve("pings/2023/01/01/00.gz"), randomBytes(1000));
+
+        // Listed larger than it is, its last ranges read short
+        LocalIngestSource source = new LocalIngestSource(root.toString());
+        IngestObject object = new IngestObject("pings", "2023/01/01/00.gz", 2000, 0l);
+        Path staging = Files.createTempDirectory("ingest-staging");
+        try (IngestPrefetcher prefetcher = new IngestPrefetcher(source, Arrays.asList(object), staging.toString(), 0,
+                256, null)) {
+            prefetcher.next();
+            fail("Short read not detected");
+        } catch (UncheckedIOException e) {
+            // Expected
+        }
+
+        try (Stream<Path> files = Files.walk(staging)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test(expected = ValidationException.class) public void testPrefetcherRejectsKeyOutsideStaging()
+            throws Exception {
+        Path root = Files.createTempDirectory("ingest-root");
+        Path staging = Files.createTempDirectory("ingest-staging");
+
+        new IngestPrefetcher(new LocalIngestSource(root.toString()),
+                Arrays.asList(new IngestObject("pings", "2023/../../../escaped.gz", 10, 0l)), staging.toString());
+    }
+
+    @Test(expected = ValidationException.class) public void testRejectsBucketOutsideRoot() throws Exception {
+        Path root = Files.createTempDirectory("ingest-root");
+        write(root.resolve("pings/2023/01/01/00.gz"), new byte[10]);
+
+        new LocalIngestSource(root.resolve("pings").toString()).list("..", "");
+    }
+
+    @Test(expected = ValidationException.class) public void testRejectsRootAsBucket() throws Exception {
+        Path root = Files.createTempDirectory("ingest-root");
+        write(root.resolve("pings/2023/01/01/00.gz"), new byte[10]);
+
+        new LocalIngestSource(root.toString()).list(".", "");
+    }
+
+
+    private static void write(Path path, byte[] data) throws Exception {
+        Files.createDirectories(path.getParent());
+        Files.write(path, data);
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,50 @@
+package Ignite;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LongCountMapTest {
+
+    @Test public void testCountsMatchHashMap() {
+        Random random = new Random(11);
+        LongCountMap counts = new LongCountMap(4);
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(5_000) * 0x100000001l - 2_500;
+            counts.increment(key);
+            expected.merge(key, 1l, Long::sum);
+        }
+
+        assertEquals(expected.size(), counts.size());
+        assertEquals(100_000l, counts.total());
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals((long) entry.getValue(), counts.get(entry.getKey()));
+        }
+        assertEquals(0l, counts.get(Long.MAX_VALUE));
+    }
+
+    @Test public void testMergesPartials() {
+        LongCountMap first = new LongCountMap();
+        first.add(3l, 2l);
+        first.add(-1l, 5l);
+        LongCountMap second = new LongCountMap();
+        second.add(3l, 1l);
+        second.add(7l, 4l);
+
+        first.addAll(second);
+        assertArrayEquals(new long[] { -1l, 3l, 7l }, first.keys());
+        assertEquals(3l, first.get(3l));
+        assertEquals(12l, first.total());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsEmptyKey() {
+        new LongCountMap().increment(LongCountMap.EMPTY);
+    }
+}
@@ -0,0 +1,44 @@
+package Ignite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LongIntMapTest {
+
+    @Test public void testNumbersKeysDensely() {
+        Random random = new Random(13);
+        LongIntMap idxs = new LongIntMap(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(20_000) * 0x100000001l - 10_000;
+            int idx = idxs.putIfAbsentNext(key);
+            assertEquals((int) expected.computeIfAbsent(key, k -> expected.size()), idx);
+        }
+
+        assertEquals(expected.size(), idxs.size());
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals((int) entry.getValue(), idxs.get(entry.getKey()));
+        }
+        assertEquals(LongIntMap.MISSING, idxs.get(Long.MAX_VALUE));
+    }
+
+    @Test public void testReplacesValue() {
+        LongIntMap idxs = new LongIntMap();
+        assertTrue(idxs.isEmpty());
+        idxs.put(5l, 1);
+        idxs.put(5l, 2);
+        assertEquals(1, idxs.size());
+        assertEquals(2, idxs.get(5l));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsEmptyKey() {
+        new LongIntMap().put(LongIntMap.EMPTY, 0);
+    }
+}
@@ -0,0 +1,171 @@
+package Ignite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MapMatcherTest {
+
+    private static final double SPACING = 0.001; // ~110 meters
+
+    @Test public void testSnapsNoisyTraceToItsRoad() {
+        RoadNetwork network = grid(15);
+        MapMatcher matcher = new MapMatcher(network);
+
+        // East along the road of row 4, ~4 meters of noise, a point far from any road
+        Random random = new Random(7);
+        int n = 60;
+        double[] lats = new double[n], lngs = new double[n];
+        for (int i = 0; i < n; i++) {
+            lats[i] = 12 + 4 * SPACING + random.nextGaussian() * 0.00004;
+            lngs[i] = 77 + 0.1 * SPACING + i * 0.0002;
+        }
+        lats[27] = 12 + 4.5 * SPACING;
+
+        MapMatcher.Match match = matcher.match(new MapMatcher.Trace(lats, lngs));
+        assertEquals(n, match.size());
+        assertEquals(-1, match.segmentOf(27));
+        assertTrue(Double.isNaN(match.latitudeOf(27)));
+        for (int i = 0; i < n; i++) {
+            if (i == 27) {
+                continue;
+            }
+
+            int segment = match.segmentOf(i);
+            assertTrue("point " + i, segment >= 0);
+            assertEquals("point " + i, 4, network.segmentWay(segment)); // Way of row 4
+            assertEquals(12 + 4 * SPACING, match.latitudeOf(i), 1e-9);
+            assertEquals(lngs[i], match.longitudeOf(i), 1e-6);
+        }
+    }
+
+    @Test public void testPrefersConnectedRouteOverNearestRoad() {
+        RoadNetwork network = grid(10);
+        MapMatcher matcher = new MapMatcher(network, 80d, 10d, 20d, 8);
+
+        // North along the road of column 3, one point nearer to the parallel road of column 4 and the road of row 2
+        double lng = 77 + 3 * SPACING;
+        double[] lats = new double[] { 12.0023, 12.0024, 12.0025, 12.0026, 12.0027 };
+        double[] lngs = new double[] { lng, lng, lng + 0.00052, lng, lng };
+
+        MapMatcher.Match match = matcher.match(new MapMatcher.Trace(lats, lngs));
+        for (int i = 0; i < lats.length; i++) {
+            assertEquals("point " + i, 100 + 3, network.segmentWay(match.segmentOf(i)));
+        }
+    }
+
+    @Test public void testMatchesAllInParallel() {
+        RoadNetwork network = grid(20);
+        MapMatcher matcher = new MapMatcher(network);
+
+        MapMatcher.Trace[] traces = new MapMatcher.Trace[64];
+        for (int t = 0; t < traces.length; t++) {
+            double[] lats = new double[50], lngs = new double[50];
+            for (int i = 0; i < 50; i++) {
+                lats[i] = 12 + (t % 20) * SPACING + 0.00002;
+                lngs[i] = 77.00015 + i * 0.0003;
+            }
+            traces[t] = new MapMatcher.Trace(lats, lngs);
+        }
+
+        List<MapMatcher.Match> matches = matcher.matchAll(Arrays.asList(traces));
+        assertEquals(traces.length, matches.size());
+        for (int t = 0; t < traces.length; t++) {
+            MapMatcher.Match expected = matcher.match(traces[t]);
+            for (int i = 0; i < 50; i++) {
+                assertEquals(expected.segmentOf(i), matches.get(t).segmentOf(i));
+                assertEquals(t % 20, network.segmentWay(matches.get(t).segmentOf(i)));
+            }
+        }
+    }
+
+    @Test public void testLoadsDrivableWaysOfOsm() throws Exception {
+        Path file = Files.createTempFile("roads", ".osm");
+        Files.write(file, Arrays.asList(
+                "<?xml version='1.0' encoding='UTF-8'?>",
+                "<osm version='0.6'>",
+                "  <node id='1' lat='12.0' lon='77.0'/>",
+                "  <node id='2' lat='12.0' lon='77.001'/>",
+                "  <node id='3' lat='12.001' lon='77.001'/>",
+                "  <way id='10'><nd ref='1'/><nd ref='2'/><nd ref='3'/><tag k='highway' v='residential'/></way>",
+                "  <way id='11'><nd ref='1'/><nd ref='3'/><tag k='highway' v='footway'/></way>",
+                "</osm>"), StandardCharsets.UTF_8);
+
+        RoadNetwork network = RoadNetwork.loadOsm(file);
+        assertEquals(2, network.getSegmentCount());
+        assertEquals(10, network.segmentWay(0));
+        assertEquals(Geo.distance(12.0, 77.0, 12.0, 77.001), network.segmentLength(0), 1e-6);
+
+        int[] segments = new int[4];
+        double[] distances = new double[4], fractions = new double[4];
+        assertEquals(1, network.nearestSegments(12.0001, 77.0005, 30, segments, distances, fractions));
+        assertEquals(0, segments[0]);
+        assertEquals(0.5, fractions[0], 1e-3);
+        assertEquals(11.1, distances[0], 0.1);
+    }
+
+    @Test public void testLoadsOnlyRoadNodesOfOsm() throws Exception {
+        Path file = Files.createTempFile("roads", ".osm");
+        Files.write(file, Arrays.asList(
+                "<?xml version='1.0' encoding='UTF-8'?>",
+                "<osm version='0.6'>",
+                "  <node id='1' lat='12.0' lon='77.0'/>",
+                "  <node id='2' lat='12.0' lon='77.001'/>",
+                "  <node id='5' lat='12.0005' lon='77.0005'><tag k='amenity' v='cafe'/></node>",
+                "  <node id='6' lat='12.002' lon='77.002'/>",
+                "  <node id='7' lat='12.2' lon='77.2'/>",
+                "  <way id='10'><nd ref='1'/><nd ref='2'/><nd ref='9'/><tag k='highway' v='primary'/></way>",
+                "  <way id='11'><nd ref='2'/><nd ref='6'/><tag k='building' v='yes'/></way>",
+                "  <way id='12'><nd ref='2'/><nd ref='7'/><tag k='highway' v='trunk'/></way>",
+                "</osm>"), StandardCharsets.UTF_8);
+
+        // Cafe, building corner and the missing node 9 left out, only the cells of the roads indexed
+        RoadNetwork network = RoadNetwork.loadOsm(file);
+        assertEquals(3, network.getNodeCount());
+        assertEquals(2, network.getSegmentCount());
+        assertEquals(10, network.segmentWay(0));
+        assertEquals(12, network.segmentWay(1));
+
+        int[] segments = new int[4];
+        double[] distances = new double[4], fractions = new double[4];
+        assertEquals(1, network.nearestSegments(12.0001, 77.0005, 30, segments, distances, fractions));
+        assertEquals(0, segments[0]);
+    }
+
+
+    // Private Methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Grid of size x size roads, way <code>row</code> along the rows and <code>100 + column</code> along the columns.
+     */
+    private static RoadNetwork grid(int size) {
+        RoadNetwork.Builder builder = RoadNetwork.builder();
+        int[][] nodes = new int[size][size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                nodes[row][col] = builder.node(12 + row * SPACING, 77 + col * SPACING);
+            }
+        }
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (col + 1 < size) {
+                    builder.segment(row, nodes[row][col], nodes[row][col + 1]);
+                }
+                if (row + 1 < size) {
+                    builder.segment(100 + col, nodes[row][col], nodes[row + 1][col]);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+}
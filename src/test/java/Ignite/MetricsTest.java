@@ -0,0 +1,44 @@
+package Ignite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.stream.IntStream;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class MetricsTest {
+
+    @Test public void testHistogramPercentilesWithinBucketError() {
+        Metrics.Histogram histogram = Metrics.histogram("test.histogram");
+        IntStream.rangeClosed(1, 10_000).parallel().forEach(histogram::record);
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000, histogram.getMax());
+        assertEquals(5000.5, histogram.getMean(), 1e-9);
+        assertTrue(Math.abs(histogram.getPercentile(50) - 5000) <= 5000 / 8);
+        assertTrue(Math.abs(histogram.getPercentile(99) - 9900) <= 9900 / 8);
+        assertEquals(1, histogram.getPercentile(0));
+    }
+
+    @Test public void testCountersGaugesAndJmx() throws Exception {
+        Metrics.Counter counter = Metrics.counter("test.counter");
+        counter.add(41);
+        counter.increment();
+        Metrics.Gauge gauge = Metrics.gauge("test.gauge");
+        gauge.add(3);
+        gauge.add(-1);
+        Metrics.timer("test.timer").recordSince(System.nanoTime());
+
+        assertEquals(42l, Metrics.snapshot().get("test.counter"));
+        assertEquals(2l, Metrics.snapshot().get("test.gauge"));
+        assertTrue(Metrics.summary().contains("test.timer.p99 = "));
+
+        Object value = ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName(Metrics.OBJECT_NAME),
+                "test.counter");
+        assertEquals(42d, value);
+    }
+}
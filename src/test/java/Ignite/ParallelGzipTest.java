@@ -0,0 +1,211 @@
+package Ignite;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+public class ParallelGzipTest {
+
+    /** Member header of no flags, known OS, as found in deflate output by chance */
+    private static final byte[] FAKE_HEADER = { 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, 3 };
+
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(2);
+
+    @AfterClass public static void shutdown() {
+        POOL.shutdown();
+    }
+
+    @Test public void testSingleMember() throws Exception {
+        byte[] content = text(200_000, 1);
+        byte[] gzip = gzip(content, Deflater.DEFAULT_COMPRESSION);
+
+        assertEquals(2, boundaries(gzip).size());
+        assertArrayEquals(content, inflate(gzip));
+    }
+
+    @Test public void testMultiMember() throws Exception {
+        // pigz style : blocks compressed alone and concatenated
+        byte[] content = text(500_000, 2);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        for (int from = 0; from < content.length; from += 32 * 1024) {
+            gzip.write(gzip(Arrays.copyOfRange(content, from, Math.min(content.length, from + 32 * 1024)),
+                    Deflater.DEFAULT_COMPRESSION));
+        }
+
+        assertTrue(boundaries(gzip.toByteArray()).size() >= 17);
+        assertArrayEquals(content, inflate(gzip.toByteArray()));
+    }
+
+    @Test public void testBgzf() throws Exception {
+        byte[] content = text(300_000, 3);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        int blocks = 0;
+        for (int from = 0; from < content.length; from += 60_000, blocks++) {
+            gzip.write(bgzfBlock(Arrays.copyOfRange(content, from, Math.min(content.length, from + 60_000))));
+        }
+        gzip.write(bgzfBlock(new byte[0])); // EOF block
+
+        List<Integer> boundaries = boundaries(gzip.toByteArray());
+        assertEquals(blocks + 2, boundaries.size());
+        assertArrayEquals(content, inflate(gzip.toByteArray()));
+    }
+
+    @Test public void testEmptyMembers() throws Exception {
+        byte[] content = text(100_000, 4);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        gzip.write(gzip(new byte[0], Deflater.DEFAULT_COMPRESSION));
+        gzip.write(gzip(Arrays.copyOfRange(content, 0, 40_000), Deflater.DEFAULT_COMPRESSION));
+        gzip.write(gzip(new byte[0], Deflater.DEFAULT_COMPRESSION));
+        gzip.write(gzip(new byte[0], Deflater.DEFAULT_COMPRESSION));
+        gzip.write(gzip(Arrays.copyOfRange(content, 40_000, content.length), Deflater.DEFAULT_COMPRESSION));
+        gzip.write(gzip(new byte[0], Deflater.DEFAULT_COMPRESSION));
+
+        assertArrayEquals(content, inflate(gzip.toByteArray()));
+        assertArrayEquals(new byte[0], inflate(gzip(new byte[0], Deflater.DEFAULT_COMPRESSION)));
+    }
+
+    @Test public void testFalseCandidatesInSingleMember() throws Exception {
+        // Stored blocks keep the fake headers as they are in the compressed data
+        byte[] content = withFakeHeaders(text(200_000, 5), 50);
+        byte[] gzip = gzip(content, Deflater.NO_COMPRESSION);
+
+        assertTrue(boundaries(gzip).size() > 50);
+        assertArrayEquals(content, inflate(gzip));
+    }
+
+    @Test public void testFalseCandidatesBetweenMembers() throws Exception {
+        byte[] first = withFakeHeaders(text(100_000, 6), 10);
+        byte[] second = text(100_000, 7);
+        byte[] third = withFakeHeaders(text(100_000, 8), 3);
+
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        gzip.write(gzip(first, Deflater.NO_COMPRESSION));
+        gzip.write(gzip(second, Deflater.DEFAULT_COMPRESSION));
+        gzip.write(gzip(third, Deflater.NO_COMPRESSION));
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        content.write(first);
+        content.write(second);
+        content.write(third);
+        assertArrayEquals(content.toByteArray(), inflate(gzip.toByteArray()));
+    }
+
+    @Test public void testTrailingBytesStreamed() throws Exception {
+        byte[] content = text(100_000, 9);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        gzip.write(gzip(Arrays.copyOfRange(content, 0, 50_000), Deflater.DEFAULT_COMPRESSION));
+        gzip.write(gzip(Arrays.copyOfRange(content, 50_000, content.length), Deflater.DEFAULT_COMPRESSION));
+        gzip.write(new byte[64]);
+
+        assertArrayEquals(content, inflate(gzip.toByteArray()));
+    }
+
+    @Test(expected = IOException.class) public void testTruncatedFails() throws Exception {
+        byte[] content = text(100_000, 10);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        gzip.write(gzip(Arrays.copyOfRange(content, 0, 50_000), Deflater.DEFAULT_COMPRESSION));
+        byte[] second = gzip(Arrays.copyOfRange(content, 50_000, content.length), Deflater.DEFAULT_COMPRESSION);
+        gzip.write(second, 0, second.length / 2);
+
+        inflate(gzip.toByteArray());
+    }
+
+    @Test public void testMalformedExtraFieldIgnored() {
+        // FEXTRA of 4 bytes : a BC sub field claiming 2 bytes of data past the extra field
+        byte[] header = { 0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 4, 0, 'B', 'C', 2, 0 };
+
+        assertEquals(Arrays.asList(0, header.length), ParallelGzip.findMemberBoundaries(ByteBuffer.wrap(header)));
+    }
+
+    private static List<Integer> boundaries(byte[] gzip) {
+        return ParallelGzip.findMemberBoundaries(ByteBuffer.wrap(gzip));
+    }
+
+    private static byte[] inflate(byte[] gzip) throws Exception {
+        Path file = Files.createTempFile("parallel-gzip", ".gz");
+        try {
+            Files.write(file, gzip);
+            try (InputStream is = ParallelGzip.open(file, POOL, 3)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[7919];
+                for (int read; (read = is.read(buffer)) != -1;) {
+                    out.write(buffer, 0, read);
+                }
+                return out.toByteArray();
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static byte[] gzip(byte[] content, int level) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gos = new GZIPOutputStream(out) {
+            {
+                this.def.setLevel(level);
+            }
+        }) {
+            gos.write(content);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] bgzfBlock(byte[] content) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(content);
+        deflater.finish();
+        byte[] deflated = new byte[content.length + 1024];
+        int deflatedLen = deflater.deflate(deflated);
+        deflater.end();
+
+        CRC32 crc = new CRC32();
+        crc.update(content);
+
+        int blockSize = 18 + deflatedLen + 8;
+        ByteBuffer block = ByteBuffer.allocate(blockSize).order(ByteOrder.LITTLE_ENDIAN);
+        block.put(new byte[] { 0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff });
+        block.putShort((short) 6).put((byte) 'B').put((byte) 'C').putShort((short) 2).putShort((short) (blockSize - 1));
+        block.put(deflated, 0, deflatedLen);
+        block.putInt((int) crc.getValue()).putInt(content.length);
+        return block.array();
+    }
+
+    private static byte[] text(int size, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(size + 64);
+        while (text.length() < size) {
+            text.append(1_585_699_200L + random.nextInt(86_400)).append('\t').append("device-")
+                    .append(random.nextInt(1000)).append('\t').append(17 + random.nextDouble()).append('\t')
+                    .append(78 + random.nextDouble()).append('\n');
+        }
+        return text.substring(0, size).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] withFakeHeaders(byte[] content, int headers) {
+        byte[] out = content.clone();
+        for (int i = 1; i <= headers; i++) {
+            System.arraycopy(FAKE_HEADER, 0, out, i * (out.length / (headers + 1)), FAKE_HEADER.length);
+        }
+        return out;
+    }
+}
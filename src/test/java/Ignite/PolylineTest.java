@@ -0,0 +1,31 @@
+package Ignite;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PolylineTest {
+
+    @Test public void testEncodesReferenceExample() {
+        List<Coordinate> trace = Arrays.asList(Coordinate.from(38.5, -120.2), Coordinate.from(40.7, -120.95),
+                Coordinate.from(43.252, -126.453));
+
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", Polyline.encode(trace));
+
+        StringBuilder sb = new StringBuilder();
+        Polyline.encode(0d, 0d, 38.5, -120.2, sb);
+        Polyline.encode(38.5, -120.2, 40.7, -120.95, sb);
+        Polyline.encode(40.7, -120.95, 43.252, -126.453, sb);
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", sb.toString());
+
+        assertEquals(trace, Polyline.decode("_p~iF~ps|U_ulLnnqC_mqNvxq`@"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsTruncatedPolyline() {
+        Polyline.decode("_p~iF~ps|U_");
+    }
+}
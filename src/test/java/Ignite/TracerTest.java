@@ -0,0 +1,30 @@
+package Ignite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+public class TracerTest {
+
+    @Test public void testSampleMaskRoundsUpToPowerOfTwo() {
+        assertEquals(0, Tracer.sampleMask(1));
+        assertEquals(0, Tracer.sampleMask(0));
+        assertEquals(0, Tracer.sampleMask(-8));
+        assertEquals(1, Tracer.sampleMask(2));
+        assertEquals(1023, Tracer.sampleMask(1000));
+        assertEquals(1023, Tracer.sampleMask(1024));
+        assertEquals(2047, Tracer.sampleMask(1025));
+    }
+
+    @Test public void testGuardsWhenOff() {
+        // Off unless -Dtrace.enabled=true, as in the build
+        assertFalse(Tracer.ENABLED);
+
+        Tracer tracer = Tracer.of(TracerTest.class);
+        assertFalse(tracer.isEnabled());
+        for (int i = 0; i < 10_000; i++) {
+            assertFalse(tracer.isSampled());
+        }
+    }
+}
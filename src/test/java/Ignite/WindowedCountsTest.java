@@ -0,0 +1,84 @@
+package Ignite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class WindowedCountsTest {
+
+    @Test public void testMergesWindowsOfAllThreads() throws Exception {
+        WindowedCounts counts = new WindowedCounts(4);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> counts.count(counter -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counter.increment((i % 3) * 1000l, i % 50);
+                }
+            })));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        counts.increment(5000l, 7);
+
+        SortedMap<Long, LongCountMap> merged = counts.merge();
+        assertEquals(4, merged.size());
+        assertEquals(0l, (long) merged.firstKey());
+        assertEquals(13_336l, merged.get(0l).total());
+        assertEquals(13_332l, merged.get(2000l).total());
+        assertEquals(1l, merged.get(5000l).get(7));
+        assertEquals(50, merged.get(1000l).size());
+
+        // Merged once
+        assertEquals(13_332l, counts.merge().get(1000l).total());
+    }
+
+    @Test public void testMergesWhileThreadsCount() throws Exception {
+        WindowedCounts counts = new WindowedCounts(16);
+        int threads = 4, batches = 2_000, batchSize = 100;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int b = 0; b < batches; b++) {
+                    final long windowStart = (b / 100) * 60_000l;
+                    counts.count(counter -> {
+                        for (int i = 0; i < batchSize; i++) {
+                            counter.increment(windowStart, i % 10);
+                        }
+                    });
+                }
+                done.countDown();
+            }).start();
+        }
+
+        // Counts read while counting never go down, nor get lost
+        long last = 0l;
+        int reads = 0;
+        while (done.getCount() > 0 || reads == 0) {
+            long total = 0l;
+            synchronized (counts) {
+                for (LongCountMap windowCounts : counts.merge().values()) {
+                    total += windowCounts.total();
+                }
+            }
+            assertTrue(total >= last);
+            last = total;
+            reads++;
+        }
+        done.await();
+
+        long total = 0l;
+        for (LongCountMap windowCounts : counts.merge().values()) {
+            total += windowCounts.total();
+        }
+        assertEquals((long) threads * batches * batchSize, total);
+        assertEquals(batches / 100, counts.merge().size());
+    }
+}